@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Measures the time to the first served HTTP request and the resident memory of the analyzer started by the command.
+# The command is started RUNS times (5 by default) with --server.port=$PORT (18090 by default) appended, the median
+# startup time and the median RSS right after the first answer are printed.
+#
+# Usage: scripts/startup-benchmark.sh <command> [arguments...]
+# e.g.   scripts/startup-benchmark.sh java -jar target/File-Analyzer-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+if [ "$#" -eq 0 ]; then
+        sed -n '2,7p' "$0"
+        exit 1
+fi
+RUNS=${RUNS:-5}
+PORT=${PORT:-18090}
+URL="http://localhost:${PORT}/api/analyze/logs"
+
+median() {
+        sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+startup_times=()
+rss_values=()
+for run in $(seq "$RUNS"); do
+        start=$(date +%s%N)
+        "$@" --server.port="$PORT" > /dev/null 2>&1 &
+        pid=$!
+        # any answer (405 for GET) means the server is serving the requests
+        until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)" != "000" ]; do
+                if ! kill -0 "$pid" 2> /dev/null; then
+                        echo "The command exited before serving the requests." >&2
+                        exit 1
+                fi
+                sleep 0.01
+        done
+        end=$(date +%s%N)
+        rss_kb=$(awk '/^VmRSS:/ { print $2 }' "/proc/${pid}/status")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        startup_times+=($(( (end - start) / 1000000 )))
+        rss_values+=($(( rss_kb / 1024 )))
+        echo "run ${run}: ${startup_times[-1]} ms, ${rss_values[-1]} MB RSS"
+done
+echo "median: $(printf '%s\n' "${startup_times[@]}" | median) ms to the first answer," \
+        "$(printf '%s\n' "${rss_values[@]}" | median) MB RSS"
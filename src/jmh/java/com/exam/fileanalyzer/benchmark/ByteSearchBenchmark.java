@@ -0,0 +1,93 @@
+package com.exam.fileanalyzer.benchmark;
+
+import com.exam.fileanalyzer.service.scan.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vector {@link ByteSearchKernel} on the searches of the counting hot loop: the newlines
+ * of the lines and the rarest byte of the query inside each line.
+ * <p> Run with the "vector" profile, otherwise the vector kernel is not available and its benchmarks fail:
+ * {@code mvn -Pbenchmark,vector test-compile exec:exec -Dbenchmark.args="ByteSearch"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ByteSearchBenchmark
+{
+        /** The rarest byte of the "Mozilla" query (in both ASCII cases). */
+        private static final byte ANCHOR = 'z';
+        /** Kernel of the benchmark: scalar or vector. */
+        @Param({ "scalar", "vector" })
+        public String kernelName;
+        /** Shape of the log content: typical access log lines or a single multi-megabyte line. */
+        @Param({ "access-log", "single-line" })
+        public String shape;
+        /** Kernel of the benchmark. */
+        private ByteSearchKernel kernel;
+        /** Log content of the benchmark. */
+        private byte[] content;
+
+        /**
+         * Selects the kernel and generates about 16 MB of the log content of the selected shape.
+         */
+        @Setup
+        public void setUp()
+        {
+                kernel = "scalar".equals(kernelName) ? new ScalarByteSearchKernel() : ByteSearchKernel.INSTANCE;
+                if (kernel.getClass() == ScalarByteSearchKernel.class && !"scalar".equals(kernelName))
+                {
+                        throw new IllegalStateException("The vector kernel is not available, run with -Pvector.");
+                }
+                content = "access-log".equals(shape) ? LogCorpus.accessLog(16 * 1024 * 1024, new Random(42)) :
+                        LogCorpus.singleLine(16 * 1024 * 1024, "Mozilla");
+        }
+
+        /**
+         * Finds all newlines of the content.
+         *
+         * @return the number of the lines.
+         */
+        @Benchmark
+        public long newlines()
+        {
+                long lines = 0;
+                for (int i = kernel.indexOf(content, 0, content.length, (byte) '\n'); i >= 0;
+                     i = kernel.indexOf(content, i + 1, content.length, (byte) '\n'))
+                {
+                        lines++;
+                }
+                return lines;
+        }
+
+        /**
+         * Finds the newlines and the occurrences of the anchor byte of the query inside each line (as the literal
+         * matcher does before comparing the whole query).
+         *
+         * @return the number of the anchor bytes.
+         */
+        @Benchmark
+        public long newlinesAndAnchors()
+        {
+                long anchors = 0;
+                int lineStart = 0;
+                while (lineStart < content.length)
+                {
+                        int newline = kernel.indexOf(content, lineStart, content.length, (byte) '\n');
+                        int lineEnd = (newline < 0) ? content.length : newline;
+                        for (int i = kernel.indexOfAny(content, lineStart, lineEnd, ANCHOR, (byte) 'Z'); i >= 0;
+                             i = kernel.indexOfAny(content, i + 1, lineEnd, ANCHOR, (byte) 'Z'))
+                        {
+                                anchors++;
+                        }
+                        lineStart = lineEnd + 1;
+                }
+                return anchors;
+        }
+
+}
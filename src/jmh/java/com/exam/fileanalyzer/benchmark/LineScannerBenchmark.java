@@ -0,0 +1,72 @@
+package com.exam.fileanalyzer.benchmark;
+
+import com.exam.fileanalyzer.service.scan.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the string-based line counting (as {@code Files.lines} does) with the {@link LineScanner}.
+ * <p> Run with {@code -prof gc}: {@code gc.alloc.rate.norm} shows the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineScannerBenchmark
+{
+        /** Search query of the benchmark. */
+        private static final String SEARCH_QUERY = "Mozilla";
+        /** Shape of the log content: typical access log lines or a single multi-megabyte line. */
+        @Param({ "access-log", "single-line" })
+        public String shape;
+        /** Log content of the benchmark. */
+        private byte[] content;
+
+        /**
+         * Generates about 16 MB of the log content of the selected shape.
+         */
+        @Setup
+        public void generateContent()
+        {
+                content = "access-log".equals(shape) ? LogCorpus.accessLog(16 * 1024 * 1024, new Random(42)) :
+                        LogCorpus.singleLine(16 * 1024 * 1024, SEARCH_QUERY);
+        }
+
+        /**
+         * Counts the lines with a string per line and {@link String#contains(CharSequence)}.
+         *
+         * @return the number of the matching lines.
+         * @throws IOException if the content cannot be read.
+         */
+        @Benchmark
+        public long stringLines() throws IOException
+        {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+                     Stream<String> lines = reader.lines())
+                {
+                        return lines.filter(line -> line.contains(SEARCH_QUERY)).count();
+                }
+        }
+
+        /**
+         * Counts the lines with the {@link LineScanner} over the pooled buffer.
+         *
+         * @return the number of the matching lines.
+         * @throws IOException if the content cannot be read.
+         */
+        @Benchmark
+        public long lineScanner() throws IOException
+        {
+                return LineScanner.countMatchingLines(new ByteArrayInputStream(content),
+                        new LiteralLineMatcher(SEARCH_QUERY));
+        }
+
+}
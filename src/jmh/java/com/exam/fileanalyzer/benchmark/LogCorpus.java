@@ -0,0 +1,78 @@
+package com.exam.fileanalyzer.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generator of the log content for the benchmarks.
+ */
+final class LogCorpus
+{
+        /** User agents of the generated access log lines. */
+        private static final String[] USER_AGENTS = {
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_9_1) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/32.0",
+                "Mozilla/5.0 (Windows NT 6.1; WOW64; rv:26.0) Gecko/20100101 Firefox/26.0",
+                "Opera/9.80 (Windows NT 6.0) Presto/2.12.388 Version/12.14",
+                "curl/7.29.0",
+                "Googlebot/2.1 (+http://www.google.com/bot.html)"
+        };
+        /** Requests of the generated access log lines. */
+        private static final String[] REQUESTS = {
+                "GET /images/kibana-search.png HTTP/1.1", "GET /plugin/highlight/highlight.js HTTP/1.1",
+                "POST /api/login HTTP/1.1", "GET /favicon.ico HTTP/1.1", "GET /blog/tags/release HTTP/1.1"
+        };
+        /** Status codes of the generated access log lines. */
+        private static final int[] STATUSES = { 200, 200, 200, 304, 404, 500, 503 };
+
+        /**
+         * Utility class constructor.
+         */
+        private LogCorpus()
+        {
+        }
+
+        /**
+         * Generates the access log lines of the sample files format.
+         *
+         * @param size approximate size of the content in bytes.
+         * @param random source of randomness.
+         * @return the log content.
+         */
+        static byte[] accessLog(int size, Random random)
+        {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(size + 512);
+                int second = 0;
+                while (output.size() < size)
+                {
+                        String line = String.format("%d.%d.%d.%d - - [01/03/2018:%02d:%02d:%02d +0000] \"%s\" %d %d \"%s\"%n",
+                                random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                                second / 3600 % 24, second / 60 % 60, second % 60,
+                                REQUESTS[random.nextInt(REQUESTS.length)], STATUSES[random.nextInt(STATUSES.length)],
+                                random.nextInt(300000), USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+                        output.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+                        second += random.nextInt(3);
+                }
+                return output.toByteArray();
+        }
+
+        /**
+         * Generates the single line without line terminators (minified payload) with the query at the end.
+         *
+         * @param size size of the content in bytes.
+         * @param query query placed at the end of the line.
+         * @return the log content.
+         */
+        static byte[] singleLine(int size, String query)
+        {
+                byte[] content = new byte[size];
+                for (int i = 0; i < size; i++)
+                {
+                        content[i] = (byte) ('a' + i % 26);
+                }
+                byte[] queryBytes = query.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(queryBytes, 0, content, size - queryBytes.length, queryBytes.length);
+                return content;
+        }
+
+}
@@ -0,0 +1,110 @@
+package com.exam.fileanalyzer.loadtest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * Generator of the zip archives of the load test with the access log files of the sample files format.
+ */
+final class ArchiveCorpus
+{
+        /** First date of the generated log files. */
+        static final LocalDate FIRST_DATE = LocalDate.of(2018, 2, 27);
+        /** Format of the date of the log lines. */
+        private static final DateTimeFormatter LINE_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        /** User agents of the generated access log lines. */
+        private static final String[] USER_AGENTS = {
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_9_1) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/32.0",
+                "Mozilla/5.0 (Windows NT 6.1; WOW64; rv:26.0) Gecko/20100101 Firefox/26.0",
+                "Opera/9.80 (Windows NT 6.0) Presto/2.12.388 Version/12.14",
+                "curl/7.29.0",
+                "Googlebot/2.1 (+http://www.google.com/bot.html)"
+        };
+        /** Requests of the generated access log lines. */
+        private static final String[] REQUESTS = {
+                "GET /images/kibana-search.png HTTP/1.1", "GET /plugin/highlight/highlight.js HTTP/1.1",
+                "POST /api/login HTTP/1.1", "GET /favicon.ico HTTP/1.1", "GET /blog/tags/release HTTP/1.1"
+        };
+        /** Status codes of the generated access log lines. */
+        private static final int[] STATUSES = { 200, 200, 200, 304, 404, 500, 503 };
+
+        /**
+         * Utility class constructor.
+         */
+        private ArchiveCorpus()
+        {
+        }
+
+        /**
+         * Generates the archives of the scenario shape: "archive-N.zip" with a log file for each day, some of them
+         * as ".gz" members.
+         *
+         * @param scenario the scenario.
+         * @return the map of the archive names and their content.
+         * @throws IOException if the archive cannot be written.
+         */
+        static Map<String, byte[]> generate(LoadTestScenario scenario) throws IOException
+        {
+                Random random = new Random(scenario.getSeed());
+                Map<String, byte[]> archives = new LinkedHashMap<>();
+                for (int i = 1; i <= scenario.getArchives(); i++)
+                {
+                        ByteArrayOutputStream content = new ByteArrayOutputStream();
+                        try (ZipOutputStream zip = new ZipOutputStream(content))
+                        {
+                                for (int day = 0; day < scenario.getFilesPerArchive(); day++)
+                                {
+                                        LocalDate date = FIRST_DATE.plusDays(day);
+                                        byte[] log = accessLog(date, scenario.getFileBytes(), random);
+                                        String name = "logs_" + date + "-access.log";
+                                        if (random.nextDouble() < scenario.getGzipShare())
+                                        {
+                                                zip.putNextEntry(new ZipEntry(name + ".gz"));
+                                                GZIPOutputStream gzip = new GZIPOutputStream(zip);
+                                                gzip.write(log);
+                                                gzip.finish();
+                                        } else
+                                        {
+                                                zip.putNextEntry(new ZipEntry(name));
+                                                zip.write(log);
+                                        }
+                                        zip.closeEntry();
+                                }
+                        }
+                        archives.put("archive-" + i + ".zip", content.toByteArray());
+                }
+                return archives;
+        }
+
+        /**
+         * Generates the access log lines of the day in chronological order.
+         *
+         * @param date date of the lines.
+         * @param size approximate size of the content in bytes.
+         * @param random source of randomness.
+         * @return the log content.
+         */
+        private static byte[] accessLog(LocalDate date, int size, Random random)
+        {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(size + 512);
+                String lineDate = date.format(LINE_DATE_FORMATTER);
+                long second = 0;
+                while (output.size() < size)
+                {
+                        long time = Math.min(second, 24 * 3600 - 1);
+                        String line = String.format("%d.%d.%d.%d - - [%s:%02d:%02d:%02d +0000] \"%s\" %d %d \"%s\"\n",
+                                random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                                lineDate, time / 3600, time / 60 % 60, time % 60,
+                                REQUESTS[random.nextInt(REQUESTS.length)], STATUSES[random.nextInt(STATUSES.length)],
+                                random.nextInt(300000), USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+                        output.writeBytes(line.getBytes(StandardCharsets.US_ASCII));
+                        second += random.nextInt(3);
+                }
+                return output.toByteArray();
+        }
+
+}
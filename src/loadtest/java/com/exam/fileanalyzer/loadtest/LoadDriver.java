@@ -0,0 +1,212 @@
+package com.exam.fileanalyzer.loadtest;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP driver of the load test: the closed loop clients sending the requests of the mix one after another with
+ * the prepared multipart bodies and recording the latencies of the requests started after the warm-up.
+ */
+final class LoadDriver
+{
+        /** Boundary of the multipart bodies. */
+        private static final String BOUNDARY = "----load-test-boundary-7d3f1c";
+        /** Base URI of the application. */
+        private final URI baseUri;
+        /** The generated archives. */
+        private final List<Map.Entry<String, byte[]>> archives;
+        /** Number of the days of the requests (the number of the log files of each archive). */
+        private final int numberOfDays;
+        /** The HTTP client shared by the clients. */
+        private final HttpClient httpClient;
+
+        /**
+         * Constructor with the application address and the archives.
+         *
+         * @param baseUri base URI of the application.
+         * @param archives the map of the archive names and their content.
+         * @param numberOfDays number of the days of the requests.
+         */
+        LoadDriver(URI baseUri, Map<String, byte[]> archives, int numberOfDays)
+        {
+                this.baseUri = baseUri;
+                this.archives = new ArrayList<>(archives.entrySet());
+                this.numberOfDays = numberOfDays;
+                this.httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+        }
+
+        /**
+         * Runs the clients for the warm-up and the measurement durations.
+         *
+         * @param mix the request kinds and their weights.
+         * @param concurrency number of the concurrent clients.
+         * @param warmupSeconds duration of the warm-up.
+         * @param durationSeconds duration of the measurement.
+         * @param measurementListener called when the warm-up is over (to reset the resource peaks).
+         * @return the latencies of the measured requests of each kind and the number of the failed requests.
+         * @throws InterruptedException if the waiting for the clients is interrupted.
+         */
+        LoadResult run(Map<RequestKind, Integer> mix, int concurrency, int warmupSeconds, int durationSeconds,
+                       Runnable measurementListener) throws InterruptedException
+        {
+                List<RequestKind> weightedKinds = new ArrayList<>();
+                mix.forEach((kind, weight) -> weightedKinds.addAll(Collections.nCopies(weight, kind)));
+                Map<RequestKind, List<HttpRequest>> requests = new EnumMap<>(RequestKind.class);
+                mix.keySet().forEach(kind -> requests.put(kind, createRequests(kind)));
+                long start = System.nanoTime();
+                long measurementStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+                long end = measurementStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+                AtomicLong failures = new AtomicLong();
+                ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+                List<Future<Map<RequestKind, List<Long>>>> clientLatencies = new ArrayList<>();
+                for (int i = 0; i < concurrency; i++)
+                {
+                        Random random = new Random(i);
+                        clientLatencies.add(clients.submit(() ->
+                        {
+                                Map<RequestKind, List<Long>> latencies = new EnumMap<>(RequestKind.class);
+                                for (long now = System.nanoTime(); now < end; now = System.nanoTime())
+                                {
+                                        RequestKind kind = weightedKinds.get(random.nextInt(weightedKinds.size()));
+                                        List<HttpRequest> kindRequests = requests.get(kind);
+                                        boolean succeeded = send(kindRequests.get(random.nextInt(
+                                                kindRequests.size())));
+                                        long finish = System.nanoTime();
+                                        if (now >= measurementStart && finish <= end)
+                                        {
+                                                if (succeeded)
+                                                {
+                                                        latencies.computeIfAbsent(kind, key -> new ArrayList<>())
+                                                                .add(finish - now);
+                                                } else
+                                                {
+                                                        failures.incrementAndGet();
+                                                }
+                                        }
+                                }
+                                return latencies;
+                        }));
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, measurementStart - System.nanoTime()));
+                measurementListener.run();
+                Map<RequestKind, List<Long>> result = new EnumMap<>(RequestKind.class);
+                try
+                {
+                        for (Future<Map<RequestKind, List<Long>>> latencies : clientLatencies)
+                        {
+                                latencies.get().forEach((kind, kindLatencies) ->
+                                        result.computeIfAbsent(kind, key -> new ArrayList<>()).addAll(kindLatencies));
+                        }
+                } catch (ExecutionException exception)
+                {
+                        throw new IllegalStateException("The load test client failed.", exception.getCause());
+                } finally
+                {
+                        clients.shutdownNow();
+                }
+                return new LoadResult(result, failures.get(), TimeUnit.SECONDS.toNanos(durationSeconds));
+        }
+
+        /**
+         * Sends the request and reads the whole response.
+         *
+         * @param request the request.
+         * @return true if the response status is 2xx.
+         */
+        private boolean send(HttpRequest request)
+        {
+                try
+                {
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        return status >= 200 && status < 300;
+                } catch (IOException exception)
+                {
+                        return false;
+                } catch (InterruptedException exception)
+                {
+                        Thread.currentThread().interrupt();
+                        return false;
+                }
+        }
+
+        /**
+         * Creates the requests of the kind: one request with all archives or a request for each archive.
+         *
+         * @param kind the request kind.
+         * @return the requests.
+         */
+        private List<HttpRequest> createRequests(RequestKind kind)
+        {
+                URI uri = baseUri.resolve(kind.getPathAndQuery(numberOfDays));
+                if (kind.isAllArchives())
+                {
+                        return List.of(createRequest(uri, archives));
+                }
+                List<HttpRequest> requests = new ArrayList<>();
+                archives.forEach(archive -> requests.add(createRequest(uri, List.of(archive))));
+                return requests;
+        }
+
+        /**
+         * Creates the POST request with the multipart body of the "file" parts with the archives.
+         *
+         * @param uri URI of the request.
+         * @param files the archive names and their content.
+         * @return the request.
+         */
+        private static HttpRequest createRequest(URI uri, List<Map.Entry<String, byte[]>> files)
+        {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                for (Map.Entry<String, byte[]> file : files)
+                {
+                        body.writeBytes(String.format("--%s\r\nContent-Disposition: form-data; name=\"file\"; " +
+                                        "filename=\"%s\"\r\nContent-Type: application/zip\r\n\r\n", BOUNDARY,
+                                file.getKey()).getBytes(StandardCharsets.US_ASCII));
+                        body.writeBytes(file.getValue());
+                        body.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+                }
+                body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                return HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .timeout(Duration.ofMinutes(5))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                        .build();
+        }
+
+        /**
+         * Latencies of the measured requests.
+         */
+        static final class LoadResult
+        {
+                /** Latencies of the successful requests of each kind in nanoseconds. */
+                final Map<RequestKind, List<Long>> latencies;
+                /** Number of the failed requests (not 2xx or I/O error). */
+                final long failures;
+                /** Duration of the measurement in nanoseconds. */
+                final long durationNanos;
+
+                /**
+                 * Constructor with the latencies.
+                 *
+                 * @param latencies latencies of the successful requests of each kind in nanoseconds.
+                 * @param failures number of the failed requests.
+                 * @param durationNanos duration of the measurement in nanoseconds.
+                 */
+                LoadResult(Map<RequestKind, List<Long>> latencies, long failures, long durationNanos)
+                {
+                        this.latencies = latencies;
+                        this.failures = failures;
+                        this.durationNanos = durationNanos;
+                }
+        }
+
+}
@@ -0,0 +1,268 @@
+package com.exam.fileanalyzer.loadtest;
+
+import com.exam.fileanalyzer.FileAnalyzerApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * End-to-end load test of the application: starts it on a random port in this JVM, generates the archives of
+ * the scenario, drives the concurrent upload mix over HTTP, prints the latencies, the throughput and the resource
+ * peaks and compares them with the stored baseline.
+ * <p> Arguments: "scenario=path" (src/loadtest/resources/loadtest.properties by default) and "key=value" to override
+ * the properties of the scenario, e.g. "baseline.update=true" stores the results as the new baseline. The process
+ * exits with 1 if there are failed requests or the results regress past the baseline.
+ */
+public final class LoadTest
+{
+        /** Default scenario file. */
+        private static final String DEFAULT_SCENARIO = "src/loadtest/resources/loadtest.properties";
+        /** Prefix of the argument with the path to the scenario file. */
+        private static final String SCENARIO_ARGUMENT = "scenario=";
+        /** Name of the throughput metric (the only metric where less is worse). */
+        private static final String THROUGHPUT_METRIC = "throughput.rps";
+
+        /**
+         * Utility class constructor.
+         */
+        private LoadTest()
+        {
+        }
+
+        /**
+         * Runs the load test.
+         *
+         * @param args the arguments.
+         * @throws Exception if the load test cannot be run.
+         */
+        public static void main(String[] args) throws Exception
+        {
+                Path scenarioFile = Paths.get(DEFAULT_SCENARIO);
+                List<String> overrides = new ArrayList<>();
+                for (String arg : args)
+                {
+                        if (arg.startsWith(SCENARIO_ARGUMENT))
+                        {
+                                scenarioFile = Paths.get(arg.substring(SCENARIO_ARGUMENT.length()));
+                        } else if (!arg.isBlank())
+                        {
+                                overrides.add(arg);
+                        }
+                }
+                LoadTestScenario scenario = LoadTestScenario.read(scenarioFile, overrides);
+                System.exit(run(scenario) ? 0 : 1);
+        }
+
+        /**
+         * Runs the scenario and checks or updates the baseline.
+         *
+         * @param scenario the scenario.
+         * @return true if there are no failed requests and no regressions.
+         * @throws Exception if the load test cannot be run.
+         */
+        private static boolean run(LoadTestScenario scenario) throws Exception
+        {
+                Map<String, byte[]> archives = ArchiveCorpus.generate(scenario);
+                System.out.printf("Corpus: %d archives of %d log files of %d KB, %.1f MB compressed in total%n",
+                        archives.size(), scenario.getFilesPerArchive(), scenario.getFileBytes() / 1024,
+                        archives.values().stream().mapToLong(archive -> archive.length).sum() / 1048576.0);
+                Path workDirectory = Files.createTempDirectory("file-analyzer-load-test");
+                try (ConfigurableApplicationContext context = startApplication(scenario, workDirectory);
+                     ResourceSampler sampler = new ResourceSampler(workDirectory))
+                {
+                        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                        LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), archives,
+                                scenario.getFilesPerArchive());
+                        System.out.printf("Load: %d clients, mix %s, %d s warm-up, %d s measurement%n",
+                                scenario.getConcurrency(), scenario.getMix(), scenario.getWarmupSeconds(),
+                                scenario.getDurationSeconds());
+                        LoadDriver.LoadResult result = driver.run(scenario.getMix(), scenario.getConcurrency(),
+                                scenario.getWarmupSeconds(), scenario.getDurationSeconds(), sampler::reset);
+                        Map<String, Double> metrics = report(result, sampler);
+                        if (scenario.isBaselineUpdate())
+                        {
+                                writeBaseline(scenario.getBaselineFile(), metrics);
+                                System.out.println("Baseline written to " + scenario.getBaselineFile());
+                                return result.failures == 0;
+                        }
+                        return result.failures == 0 && checkBaseline(scenario, metrics);
+                } finally
+                {
+                        deleteRecursively(workDirectory);
+                }
+        }
+
+        /**
+         * Starts the application on a random port with its temporary files in the work directory.
+         *
+         * @param scenario the scenario with the properties of the application.
+         * @param workDirectory the work directory.
+         * @return the application context.
+         * @throws IOException if the directories cannot be created.
+         */
+        private static ConfigurableApplicationContext startApplication(LoadTestScenario scenario, Path workDirectory)
+                throws IOException
+        {
+                Map<String, String> properties = new LinkedHashMap<>();
+                properties.put("server.port", "0");
+                properties.put("temp.dir.path",
+                        Files.createDirectories(workDirectory.resolve("workspaces")).toString());
+                properties.put("rollup.dir.path",
+                        Files.createDirectories(workDirectory.resolve("rollups")).toString());
+                properties.put("spring.servlet.multipart.location",
+                        Files.createDirectories(workDirectory.resolve("uploads")).toString());
+                properties.putAll(scenario.getApplicationProperties());
+                return new SpringApplicationBuilder(FileAnalyzerApplication.class)
+                        .bannerMode(Banner.Mode.OFF)
+                        .run(properties.entrySet().stream()
+                                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                                .toArray(String[]::new));
+        }
+
+        /**
+         * Prints the latencies of each request kind, the throughput and the resource peaks.
+         *
+         * @param result the result of the driver.
+         * @param sampler the sampler of the resources.
+         * @return the metrics compared with the baseline.
+         */
+        private static Map<String, Double> report(LoadDriver.LoadResult result, ResourceSampler sampler)
+        {
+                System.out.printf("%-12s %9s %10s %10s %10s%n", "kind", "requests", "p50 ms", "p99 ms", "max ms");
+                List<Long> all = new ArrayList<>();
+                result.latencies.forEach((kind, latencies) ->
+                {
+                        all.addAll(latencies);
+                        printLatencies(kind.name().toLowerCase(Locale.ROOT), latencies);
+                });
+                printLatencies("all", all);
+                double seconds = result.durationNanos / 1e9;
+                Map<String, Double> metrics = new LinkedHashMap<>();
+                metrics.put("latency.p50.ms", percentileMillis(all, 0.50));
+                metrics.put("latency.p99.ms", percentileMillis(all, 0.99));
+                metrics.put(THROUGHPUT_METRIC, all.size() / seconds);
+                metrics.put("heap.peak.mb", sampler.getHeapPeakBytes() / 1048576.0);
+                metrics.put("temp.peak.mb", sampler.getDiskPeakBytes() / 1048576.0);
+                System.out.printf("Throughput %.2f requests/s, %d failed requests, heap peak %.1f MB, temp disk peak " +
+                                "%.1f MB%n", metrics.get(THROUGHPUT_METRIC), result.failures,
+                        metrics.get("heap.peak.mb"), metrics.get("temp.peak.mb"));
+                return metrics;
+        }
+
+        /**
+         * Prints the number of the requests and their latency percentiles.
+         *
+         * @param name name of the row.
+         * @param latencies latencies in nanoseconds.
+         */
+        private static void printLatencies(String name, List<Long> latencies)
+        {
+                System.out.printf("%-12s %9d %10.1f %10.1f %10.1f%n", name, latencies.size(),
+                        percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+                        percentileMillis(latencies, 1.0));
+        }
+
+        /**
+         * Returns the nearest-rank percentile of the latencies.
+         *
+         * @param latencies latencies in nanoseconds.
+         * @param percentile percentile from 0 to 1.
+         * @return the percentile in milliseconds or 0 if there are no latencies.
+         */
+        static double percentileMillis(List<Long> latencies, double percentile)
+        {
+                if (latencies.isEmpty())
+                {
+                        return 0;
+                }
+                long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+                int rank = (int) Math.ceil(percentile * sorted.length);
+                return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+
+        /**
+         * Compares the metrics with the baseline: the throughput must not be less than the baseline by more than
+         * the tolerance, the other metrics must not be more than the baseline by more than the tolerance (plus one
+         * unit, so the metrics near zero are not flaky).
+         *
+         * @param scenario the scenario with the baseline file and the tolerance.
+         * @param metrics the metrics.
+         * @return true if there are no regressions (or there is no baseline yet).
+         * @throws IOException if the baseline cannot be read.
+         */
+        private static boolean checkBaseline(LoadTestScenario scenario, Map<String, Double> metrics)
+                throws IOException
+        {
+                Path baselineFile = scenario.getBaselineFile();
+                if (!Files.exists(baselineFile))
+                {
+                        System.out.println("No baseline at " + baselineFile + ", run with baseline.update=true to " +
+                                "store it.");
+                        return true;
+                }
+                Properties baseline = new Properties();
+                try (Reader reader = Files.newBufferedReader(baselineFile, StandardCharsets.UTF_8))
+                {
+                        baseline.load(reader);
+                }
+                double tolerance = scenario.getTolerance();
+                boolean passed = true;
+                for (Map.Entry<String, Double> metric : metrics.entrySet())
+                {
+                        String baselineValue = baseline.getProperty(metric.getKey());
+                        if (Objects.isNull(baselineValue))
+                        {
+                                continue;
+                        }
+                        double expected = Double.parseDouble(baselineValue);
+                        boolean regressed = THROUGHPUT_METRIC.equals(metric.getKey()) ?
+                                metric.getValue() < expected * (1 - tolerance) :
+                                metric.getValue() > expected * (1 + tolerance) + 1;
+                        System.out.printf("%-16s %10.2f baseline %10.2f %s%n", metric.getKey(), metric.getValue(),
+                                expected, regressed ? "REGRESSION" : "ok");
+                        passed &= !regressed;
+                }
+                return passed;
+        }
+
+        /**
+         * Writes the metrics as the new baseline.
+         *
+         * @param baselineFile path to the baseline file.
+         * @param metrics the metrics.
+         * @throws IOException if the baseline cannot be written.
+         */
+        private static void writeBaseline(Path baselineFile, Map<String, Double> metrics) throws IOException
+        {
+                List<String> lines = new ArrayList<>();
+                lines.add(String.format("# Load test baseline written %s on %d cores (java %s)",
+                        LocalDateTime.now().withNano(0), Runtime.getRuntime().availableProcessors(),
+                        System.getProperty("java.version")));
+                metrics.forEach((name, value) -> lines.add(String.format(Locale.ROOT, "%s=%.2f", name, value)));
+                Files.write(baselineFile, lines, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Deletes the directory with all its content.
+         *
+         * @param directory the directory.
+         * @throws IOException if the directory cannot be walked.
+         */
+        private static void deleteRecursively(Path directory) throws IOException
+        {
+                try (Stream<Path> paths = Files.walk(directory))
+                {
+                        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+        }
+
+}
@@ -0,0 +1,225 @@
+package com.exam.fileanalyzer.loadtest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Scenario of the load test: the shape of the generated archives, the concurrent request mix, the baseline and
+ * the application properties. It is read from the properties file and overridden by the "key=value" arguments.
+ */
+final class LoadTestScenario
+{
+        /** Prefix of the properties passed to the application (without the prefix). */
+        private static final String APPLICATION_PROPERTY_PREFIX = "app.";
+        /** Properties of the scenario. */
+        private final Properties properties;
+
+        /**
+         * Constructor with the properties of the scenario.
+         *
+         * @param properties properties of the scenario.
+         */
+        private LoadTestScenario(Properties properties)
+        {
+                this.properties = properties;
+        }
+
+        /**
+         * Reads the scenario from the file and overrides its properties with the arguments.
+         *
+         * @param scenarioFile path to the properties file of the scenario.
+         * @param overrides "key=value" arguments.
+         * @return the scenario.
+         * @throws IOException if the file cannot be read.
+         * @throws IllegalArgumentException if an argument is not "key=value".
+         */
+        static LoadTestScenario read(Path scenarioFile, List<String> overrides) throws IOException
+        {
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(scenarioFile, StandardCharsets.UTF_8))
+                {
+                        properties.load(reader);
+                }
+                for (String override : overrides)
+                {
+                        int separatorIndex = override.indexOf('=');
+                        if (separatorIndex <= 0)
+                        {
+                                throw new IllegalArgumentException(String.format("Invalid argument '%s', expected " +
+                                        "key=value.", override));
+                        }
+                        properties.setProperty(override.substring(0, separatorIndex).trim(),
+                                override.substring(separatorIndex + 1).trim());
+                }
+                return new LoadTestScenario(properties);
+        }
+
+        /**
+         * Returns the number of the generated archives.
+         *
+         * @return the number of the archives.
+         */
+        int getArchives()
+        {
+                return getInt("corpus.archives", 4);
+        }
+
+        /**
+         * Returns the number of the log files of each archive (one file per day starting with 27.02.2018).
+         *
+         * @return the number of the log files.
+         */
+        int getFilesPerArchive()
+        {
+                return getInt("corpus.files.per.archive", 5);
+        }
+
+        /**
+         * Returns the approximate size of each log file before compression.
+         *
+         * @return the size of the log file in bytes.
+         */
+        int getFileBytes()
+        {
+                return getInt("corpus.file.bytes", 512 * 1024);
+        }
+
+        /**
+         * Returns the share of the log files stored as ".gz" members.
+         *
+         * @return the share from 0 to 1.
+         */
+        double getGzipShare()
+        {
+                return Double.parseDouble(properties.getProperty("corpus.gzip.share", "0.5"));
+        }
+
+        /**
+         * Returns the seed of the generated content (the same seed gives the same archives).
+         *
+         * @return the seed.
+         */
+        long getSeed()
+        {
+                return Long.parseLong(properties.getProperty("corpus.seed", "42"));
+        }
+
+        /**
+         * Returns the number of the concurrent clients.
+         *
+         * @return the number of the clients.
+         */
+        int getConcurrency()
+        {
+                return getInt("load.concurrency", 8);
+        }
+
+        /**
+         * Returns the duration of the warm-up (the requests are sent, but not measured).
+         *
+         * @return the duration in seconds.
+         */
+        int getWarmupSeconds()
+        {
+                return getInt("load.warmup.seconds", 5);
+        }
+
+        /**
+         * Returns the duration of the measurement.
+         *
+         * @return the duration in seconds.
+         */
+        int getDurationSeconds()
+        {
+                return getInt("load.duration.seconds", 20);
+        }
+
+        /**
+         * Returns the request kinds and their weights in the mix like "count:6,aggregate:2,lines:1,batch:1".
+         *
+         * @return the map of the request kinds and their weights in the order of the property.
+         * @throws IllegalArgumentException if the mix has an unknown kind or a weight that is not positive.
+         */
+        Map<RequestKind, Integer> getMix()
+        {
+                Map<RequestKind, Integer> mix = new LinkedHashMap<>();
+                for (String item : properties.getProperty("load.mix", "count:6,aggregate:2,lines:1,batch:1")
+                        .split(","))
+                {
+                        String[] kindAndWeight = item.trim().split(":");
+                        int weight = (kindAndWeight.length > 1) ? Integer.parseInt(kindAndWeight[1].trim()) : 1;
+                        if (weight < 1)
+                        {
+                                throw new IllegalArgumentException(String.format("The weight of '%s' must be " +
+                                        "positive.", item));
+                        }
+                        mix.put(RequestKind.of(kindAndWeight[0]), weight);
+                }
+                return mix;
+        }
+
+        /**
+         * Returns the path to the baseline file.
+         *
+         * @return the path to the baseline.
+         */
+        Path getBaselineFile()
+        {
+                return Paths.get(properties.getProperty("baseline.file", "src/loadtest/resources/baseline.properties"));
+        }
+
+        /**
+         * Returns the relative tolerance of the regression check like 0.3 (30% worse than the baseline regresses).
+         *
+         * @return the tolerance.
+         */
+        double getTolerance()
+        {
+                return Double.parseDouble(properties.getProperty("baseline.tolerance", "0.3"));
+        }
+
+        /**
+         * Returns true if the results are stored as the new baseline instead of the comparison with the baseline.
+         *
+         * @return true to update the baseline.
+         */
+        boolean isBaselineUpdate()
+        {
+                return Boolean.parseBoolean(properties.getProperty("baseline.update", "false"));
+        }
+
+        /**
+         * Returns the properties of the application (the "app." properties without the prefix).
+         *
+         * @return the map of the property names and values.
+         */
+        Map<String, String> getApplicationProperties()
+        {
+                Map<String, String> applicationProperties = new TreeMap<>();
+                properties.stringPropertyNames().forEach(name ->
+                {
+                        if (name.startsWith(APPLICATION_PROPERTY_PREFIX))
+                        {
+                                applicationProperties.put(name.substring(APPLICATION_PROPERTY_PREFIX.length()),
+                                        properties.getProperty(name));
+                        }
+                });
+                return applicationProperties;
+        }
+
+        /**
+         * Returns the integer property.
+         *
+         * @param name name of the property.
+         * @param defaultValue value of the missing property.
+         * @return the value of the property.
+         */
+        private int getInt(String name, int defaultValue)
+        {
+                String value = properties.getProperty(name);
+                return Objects.isNull(value) ? defaultValue : Integer.parseInt(value.trim());
+        }
+
+}
@@ -0,0 +1,80 @@
+package com.exam.fileanalyzer.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Kinds of the requests of the load test mix. Each request selects all log files of the generated archives by date.
+ */
+enum RequestKind
+{
+        /** Literal counting of one archive. */
+        COUNT("/api/analyze/logs?text=Mozilla", false),
+        /** Regular expression counting of one archive. */
+        REGEX("/api/analyze/logs?mode=regex&text=Chrome%2F3%5B0-9%5D", false),
+        /** Group-by aggregation of one archive. */
+        AGGREGATE("/api/analyze/logs/aggregate?groupBy=status,hour", false),
+        /** Counting with the streamed matching lines of one archive. */
+        LINES("/api/analyze/logs?text=curl&lines=5&before=1&after=1", false),
+        /** Approximate counting of one archive. */
+        APPROXIMATE("/api/analyze/logs?approximate=true&text=Mozilla", false),
+        /** Batch counting of all archives with two texts. */
+        BATCH("/api/analyze/logs/batch?text=Mozilla&text=curl", true);
+
+        /** Path and query of the request without the date parameters. */
+        private final String pathAndQuery;
+        /** True if the request uploads all archives, false if it uploads one of them. */
+        private final boolean allArchives;
+
+        /**
+         * Constructor with the path of the request.
+         *
+         * @param pathAndQuery path and query of the request without the date parameters.
+         * @param allArchives true if the request uploads all archives.
+         */
+        RequestKind(String pathAndQuery, boolean allArchives)
+        {
+                this.pathAndQuery = pathAndQuery;
+                this.allArchives = allArchives;
+        }
+
+        /**
+         * Returns the path and query of the request selecting the given number of days starting with 27.02.2018.
+         *
+         * @param numberOfDays number of the days.
+         * @return the path and query of the request.
+         */
+        String getPathAndQuery(int numberOfDays)
+        {
+                return pathAndQuery + "&date=27.02.2018&days=" + numberOfDays;
+        }
+
+        /**
+         * Returns true if the request uploads all archives.
+         *
+         * @return true for all archives, false for one of them.
+         */
+        boolean isAllArchives()
+        {
+                return allArchives;
+        }
+
+        /**
+         * Returns the request kind by its case-insensitive name.
+         *
+         * @param name name of the request kind.
+         * @return the request kind.
+         * @throws IllegalArgumentException if there is no request kind with the name.
+         */
+        static RequestKind of(String name)
+        {
+                try
+                {
+                        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException exception)
+                {
+                        throw new IllegalArgumentException(String.format("Unknown request kind '%s', supported " +
+                                "kinds are count, regex, aggregate, lines, approximate and batch.", name));
+                }
+        }
+
+}
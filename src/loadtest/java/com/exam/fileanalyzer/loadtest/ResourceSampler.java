@@ -0,0 +1,126 @@
+package com.exam.fileanalyzer.loadtest;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampler of the used heap of the JVM and the size of the files in the work directory of the application (the spilled
+ * log files and the staged uploads) keeping their peaks.
+ */
+final class ResourceSampler implements Closeable
+{
+        /** Interval between the samples. */
+        private static final long SAMPLE_INTERVAL_MILLIS = 10;
+        /** The directory the application keeps its temporary files in. */
+        private final Path workDirectory;
+        /** The sampling thread. */
+        private final Thread thread;
+        /** Peak of the used heap in bytes. */
+        private volatile long heapPeakBytes;
+        /** Peak of the size of the files in the work directory in bytes. */
+        private volatile long diskPeakBytes;
+
+        /**
+         * Constructor starting the sampling.
+         *
+         * @param workDirectory the directory the application keeps its temporary files in.
+         */
+        ResourceSampler(Path workDirectory)
+        {
+                this.workDirectory = workDirectory;
+                this.thread = new Thread(this::sample, "load-test-sampler");
+                thread.setDaemon(true);
+                thread.start();
+        }
+
+        /**
+         * Resets the peaks (at the end of the warm-up).
+         */
+        void reset()
+        {
+                heapPeakBytes = 0;
+                diskPeakBytes = 0;
+        }
+
+        /**
+         * Returns the peak of the used heap since the last reset.
+         *
+         * @return the peak in bytes.
+         */
+        long getHeapPeakBytes()
+        {
+                return heapPeakBytes;
+        }
+
+        /**
+         * Returns the peak of the size of the files in the work directory since the last reset.
+         *
+         * @return the peak in bytes.
+         */
+        long getDiskPeakBytes()
+        {
+                return diskPeakBytes;
+        }
+
+        @Override
+        public void close()
+        {
+                thread.interrupt();
+        }
+
+        /**
+         * Takes the samples until the sampler is closed.
+         */
+        private void sample()
+        {
+                MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+                while (!Thread.currentThread().isInterrupted())
+                {
+                        heapPeakBytes = Math.max(heapPeakBytes, memory.getHeapMemoryUsage().getUsed());
+                        diskPeakBytes = Math.max(diskPeakBytes, measureDirectory());
+                        try
+                        {
+                                TimeUnit.MILLISECONDS.sleep(SAMPLE_INTERVAL_MILLIS);
+                        } catch (InterruptedException exception)
+                        {
+                                Thread.currentThread().interrupt();
+                        }
+                }
+        }
+
+        /**
+         * Sums the sizes of the files in the work directory (the files deleted during the walk are skipped).
+         *
+         * @return the size of the files in bytes.
+         */
+        private long measureDirectory()
+        {
+                long[] size = new long[1];
+                try
+                {
+                        Files.walkFileTree(workDirectory, new SimpleFileVisitor<>()
+                        {
+                                @Override
+                                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+                                {
+                                        size[0] += attributes.size();
+                                        return FileVisitResult.CONTINUE;
+                                }
+
+                                @Override
+                                public FileVisitResult visitFileFailed(Path file, IOException exception)
+                                {
+                                        return FileVisitResult.CONTINUE;
+                                }
+                        });
+                } catch (IOException exception)
+                {
+                        return 0;
+                }
+                return size[0];
+        }
+
+}
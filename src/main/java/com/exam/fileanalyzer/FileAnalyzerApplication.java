@@ -2,6 +2,7 @@ package com.exam.fileanalyzer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 /**
  * Main class for the log analysis microservice starting.
@@ -11,13 +12,18 @@ public class FileAnalyzerApplication
 {
 
         /**
-         * Runs the server for processing log analysis queries.
+         * Runs the server for processing log analysis queries. With the "startup.training.exit=true" property
+         * the application exits as soon as it is started (the training run recording the class data sharing archive).
          *
          * @param args command line arguments.
          */
         public static void main(String[] args)
         {
-                SpringApplication.run(FileAnalyzerApplication.class, args);
+                ConfigurableApplicationContext context = SpringApplication.run(FileAnalyzerApplication.class, args);
+                if (context.getEnvironment().getProperty("startup.training.exit", Boolean.class, false))
+                {
+                        System.exit(SpringApplication.exit(context));
+                }
         }
 
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ import com.exam.fileanalyzer.service.impl.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 
+import java.util.*;
+import java.util.stream.Collectors;
+
 /**
  * The Spring bean for some another bean's configured creating.
  */
@@ -13,18 +16,48 @@ public class FileAnalyzerConfig {
 
         /**
          * Configuration method for the {@link LogsAnalyzer} interface implementation
-         * (looks up for the available number of processors on the current machine).
+         * (looks up for the available number of processors on the current machine). The node of the coordinator role
+         * wraps the local implementation into the {@link ShardingLogsAnalyzerImpl} sending the shards of the archives
+         * to the worker nodes, the nodes of the standalone and worker roles analyse the archives locally.
          *
          * @param zipFileManager            bean responsible for managing zip files.
+         * @param rollupStore               bean responsible for the rollups of the analysed archives.
+         * @param workspaceManager          manager of the temporary workspaces the coordinator stages uploads to.
+         * @param shardClient               bean sending the shards to the worker nodes.
          * @param minPathsForMultiThreading the minimum number of log files to use multithreading.
+         * @param clusterRole               role of the node: standalone, coordinator or worker.
+         * @param workerUrls                base URLs of the worker nodes of the coordinator.
+         * @param shardsPerWorker           number of the shards of the archive for each worker node.
+         * @param shardAttempts             maximum number of the attempts to analyse the shard by the worker nodes.
          * @return the configured bean for the {@link LogsAnalyzer} interface implementation.
+         * @throws IllegalArgumentException if the role is unknown or the coordinator has no workers.
          */
         @Bean
-        public LogsAnalyzer logsAnalyzer(ZipFileManager zipFileManager,
-                                         @Value("${min.paths.for.multithreading}") int minPathsForMultiThreading) {
-                return (Runtime.getRuntime().availableProcessors() > 2) ?
-                        new MultiThreadLogsAnalyzerImpl(zipFileManager, minPathsForMultiThreading) :
-                        new SingleThreadLogsAnalyzerImpl(zipFileManager);
+        public LogsAnalyzer logsAnalyzer(ZipFileManager zipFileManager, RollupStore rollupStore,
+                                         TempWorkspaceManager workspaceManager, ShardClient shardClient,
+                                         @Value("${min.paths.for.multithreading}") int minPathsForMultiThreading,
+                                         @Value("${cluster.role:standalone}") String clusterRole,
+                                         @Value("${cluster.workers:}") List<String> workerUrls,
+                                         @Value("${cluster.shards.per.worker:2}") int shardsPerWorker,
+                                         @Value("${cluster.shard.attempts:3}") int shardAttempts) {
+                LogsAnalyzer localAnalyzer = (Runtime.getRuntime().availableProcessors() > 2) ?
+                        new MultiThreadLogsAnalyzerImpl(zipFileManager, rollupStore, minPathsForMultiThreading) :
+                        new SingleThreadLogsAnalyzerImpl(zipFileManager, rollupStore);
+                switch (clusterRole.trim().toLowerCase(Locale.ROOT)) {
+                        case "standalone":
+                        case "worker":
+                                return localAnalyzer;
+                        case "coordinator":
+                                List<String> workers = workerUrls.stream()
+                                        .map(String::trim)
+                                        .filter(workerUrl -> !workerUrl.isEmpty())
+                                        .collect(Collectors.toList());
+                                return new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager, workspaceManager,
+                                        shardClient, workers, shardsPerWorker, shardAttempts);
+                        default:
+                                throw new IllegalArgumentException(String.format("Unknown cluster role '%s', " +
+                                        "supported roles are standalone, coordinator and worker.", clusterRole));
+                }
         }
 
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.exam.fileanalyzer.in;
 
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import com.exam.fileanalyzer.service.TempDiskQuotaExceededException;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +40,32 @@ public class FileAnalyzerExceptionHandler
                 return handleException(exception);
         }
 
+        /**
+         * Handles exceptions returning 413 Payload Too Large response (the archive inflates over the budget).
+         *
+         * @param exception  exception to be handled.
+         * @return exception DTO.
+         */
+        @ExceptionHandler(value = { InflationBudgetExceededException.class })
+        @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+        public ExceptionDto handlePayloadTooLargeException(Exception exception)
+        {
+                return handleException(exception);
+        }
+
+        /**
+         * Handles exceptions returning 503 Service Unavailable response (the request can be repeated later).
+         *
+         * @param exception  exception to be handled.
+         * @return exception DTO.
+         */
+        @ExceptionHandler(value = { TempDiskQuotaExceededException.class })
+        @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+        public ExceptionDto handleServiceUnavailableException(Exception exception)
+        {
+                return handleException(exception);
+        }
+
         /**
          * Handles exceptions returning 500 Internal Server Error response.
          *
@@ -0,0 +1,44 @@
+package com.exam.fileanalyzer.in;
+
+import com.exam.fileanalyzer.service.ZipFileManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+/**
+ * Controller for the counters of the FileAnalyzer-microservice (for the monitoring of the node).
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class FileAnalyzerStatsController
+{
+        /** Service bean extracting the uploaded archives. */
+        private final ZipFileManager zipFileManager;
+
+        /**
+         * FileAnalyzerStatsController's constructor with spring bean injection.
+         *
+         * @param zipFileManager service bean extracting the uploaded archives.
+         */
+        @Autowired
+        public FileAnalyzerStatsController(ZipFileManager zipFileManager)
+        {
+                this.zipFileManager = zipFileManager;
+        }
+
+        /**
+         * The controller's method representing GET endpoint for the counters of the node.
+         *
+         * @return map of the counter names and values since the start of the node.
+         */
+        @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+        public Map<String, Long> getStats()
+        {
+                Map<String, Long> stats = new LinkedHashMap<>();
+                stats.put("inflationBudgetExceeded", zipFileManager.getInflationBudgetExceededCount());
+                return stats;
+        }
+
+}
@@ -1,17 +1,25 @@
 package com.exam.fileanalyzer.in;
 
 import com.exam.fileanalyzer.service.LogsAnalyzer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.IOException;
-import java.time.LocalDate;
-import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+import static com.exam.fileanalyzer.in.FileAnalyzerExceptionHandler.ExceptionDto;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.ApproximateCount;
 import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.KeySketchSummary;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.SearchMode;
 
 /**
  * Controller for processing REST requests of the log analysis.
@@ -21,18 +29,24 @@ import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder
 @RequestMapping("/api/analyze/logs")
 public class LogsAnalyzerController
 {
+        /** Media type of the streamed matching lines (one JSON object per line). */
+        public static final String NDJSON_VALUE = "application/x-ndjson";
         /** Service bean to proceed the log analysis. */
         private final LogsAnalyzer logsAnalyzer;
+        /** Mapper of the streamed records to JSON. */
+        private final ObjectMapper objectMapper;
 
         /**
          * LogsAnalyzerController's constructor with spring bean injection.
          *
          * @param logsAnalyzer service bean to proceed the log analysis.
+         * @param objectMapper mapper of the streamed records to JSON.
          */
         @Autowired
-        public LogsAnalyzerController(LogsAnalyzer logsAnalyzer)
+        public LogsAnalyzerController(LogsAnalyzer logsAnalyzer, ObjectMapper objectMapper)
         {
                 this.logsAnalyzer = logsAnalyzer;
+                this.objectMapper = objectMapper;
         }
 
         /**
@@ -40,31 +54,402 @@ public class LogsAnalyzerController
          *
          * @param zipFile MultipartFile-object representing the zip file.
          * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode way the text is matched with the lines: literal, icase (ASCII case-insensitive) or regex.
          * @param startDate date to filter the entries of the zip file by date.
          * @param numberOfDays another parameter to filter the entries of the zip file by date.
-         * @return map with the result of the log analysis.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param groupByDirectory if true, the result is grouped by the directories of the entries.
+         * @param requestParams all request parameters: the repeated "filter" parameters are access log field filters
+         *                      like "status>=500", "method=POST" or "ua~Mozilla" (read from the map, because the
+         *                      single value bound to the list would be split by commas).
+         * @return map with the result of the log analysis (entry path to count or directory to file name to count).
          * @throws IOException if I/O problem was occurred during the log analysis.
          */
         @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-        public Map<String, Integer> countEntriesInZipFile(
+        public Map<String, ?> countEntriesInZipFile(
+                @RequestParam("file") MultipartFile zipFile,
+                @RequestParam(name = "text", required = false) String searchQuery,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
+                @RequestParam(name = "date", required = false)
+                @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam(name = "groupByDirectory", defaultValue = "false") boolean groupByDirectory,
+                @RequestParam MultiValueMap<String, String> requestParams)
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = createParamHolder(zipFile, searchQuery, searchMode, startDate,
+                        numberOfDays, startTime, endTime, requestParams);
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+                log.info("Http request processed successfully. Sending result map with {} entries", result.size());
+                return groupByDirectory ? groupByDirectory(result) : result;
+        }
+
+        /**
+         * The controller's method representing POST endpoint for the batch log analysis request: the repeated "file"
+         * parts with the zip files and the repeated "text" parameters with the search queries. All zip files are
+         * analysed with all search queries in one request and their log files are counted by the common threads.
+         *
+         * @param zipFiles MultipartFile-objects representing the zip files.
+         * @param searchMode way the texts are matched with the lines: literal, icase (ASCII case-insensitive) or regex.
+         * @param startDate date to filter the entries of the zip files by date.
+         * @param numberOfDays another parameter to filter the entries of the zip files by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "text" and "filter" parameters (all lines are
+         *                      counted if there is no "text" parameter).
+         * @return map of the zip file names (the repeated names are numbered like "logs.zip#2") and the maps of
+         * the texts and the results of the log analysis (entry path to count).
+         * @throws IOException if I/O problem was occurred during the log analysis.
+         */
+        @PostMapping(path = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+        public Map<String, Map<String, Map<String, Integer>>> countEntriesInZipFiles(
+                @RequestParam("file") List<MultipartFile> zipFiles,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
+                @RequestParam(name = "date", required = false)
+                @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam MultiValueMap<String, String> requestParams)
+                throws IOException
+        {
+                List<String> searchQueries = new ArrayList<>(new LinkedHashSet<>(
+                        requestParams.getOrDefault("text", Collections.singletonList(null))));
+                CountEntriesParamHolder paramHolder = createParamHolder(null, searchQueries.get(0), searchMode,
+                        startDate, numberOfDays, startTime, endTime, requestParams);
+                log.info("The batch of {} zip files is analysed with the texts {}", zipFiles.size(), searchQueries);
+                List<CountEntriesParamHolder> queries = new ArrayList<>();
+                searchQueries.forEach(searchQuery -> queries.add(paramHolder.toBuilder()
+                        .searchQuery(searchQuery)
+                        .build()));
+                List<List<Map<String, Integer>>> results = logsAnalyzer.countEntriesInZipFiles(zipFiles, queries);
+                Map<String, Map<String, Map<String, Integer>>> result = new LinkedHashMap<>();
+                for (int i = 0; i < zipFiles.size(); i++)
+                {
+                        String originalName = Objects.requireNonNullElse(zipFiles.get(i).getOriginalFilename(), "");
+                        String zipFileName = originalName;
+                        for (int number = 2; result.containsKey(zipFileName); number++)
+                        {
+                                zipFileName = originalName + "#" + number;
+                        }
+                        Map<String, Map<String, Integer>> zipFileResult = new LinkedHashMap<>();
+                        for (int j = 0; j < searchQueries.size(); j++)
+                        {
+                                zipFileResult.put(Objects.requireNonNullElse(searchQueries.get(j), ""),
+                                        results.get(i).get(j));
+                        }
+                        result.put(zipFileName, zipFileResult);
+                }
+                log.info("Http request processed successfully. Sending batch result of {} zip files", result.size());
+                return result;
+        }
+
+        /**
+         * The controller's method representing POST endpoint for the log analysis request returning the matching lines
+         * (the request with the "lines" parameter). The response is streamed as NDJSON while the files are scanned:
+         * an object for each matching line with its file, byte offset and context lines, then the object with
+         * the counts of all files. The request parameters are validated before the first line is written, so invalid
+         * parameters are reported as usual. The failure after the first record is reported with the last record
+         * {"error": {...}} of the stream instead of the counts, because the status of the response is already sent.
+         *
+         * @param zipFile MultipartFile-object representing the zip file.
+         * @param maxLines maximum number of the matching lines of each file.
+         * @param linesBefore number of the context lines before each matching line.
+         * @param linesAfter number of the context lines after each matching line.
+         * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode way the text is matched with the lines: literal, icase (ASCII case-insensitive) or regex.
+         * @param startDate date to filter the entries of the zip file by date.
+         * @param numberOfDays another parameter to filter the entries of the zip file by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "filter" parameters.
+         * @param response the response the records are written to.
+         * @throws IOException if I/O problem was occurred during the log analysis or writing the response.
+         */
+        @PostMapping(params = "lines", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+        public void streamMatchingLines(
+                @RequestParam("file") MultipartFile zipFile,
+                @RequestParam(name = "lines") int maxLines,
+                @RequestParam(name = "before", defaultValue = "0") int linesBefore,
+                @RequestParam(name = "after", defaultValue = "0") int linesAfter,
+                @RequestParam(name = "text", required = false) String searchQuery,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
+                @RequestParam(name = "date", required = false)
+                @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam MultiValueMap<String, String> requestParams,
+                HttpServletResponse response)
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = createParamHolder(zipFile, searchQuery, searchMode, startDate,
+                        numberOfDays, startTime, endTime, requestParams);
+                log.info("The matching lines are streamed (lines = {}, before = {}, after = {})", maxLines,
+                        linesBefore, linesAfter);
+                Map<String, Integer> result;
+                try
+                {
+                        result = logsAnalyzer.streamMatchingLines(paramHolder, maxLines, linesBefore, linesAfter,
+                                matchedLine -> writeRecord(response, matchedLine));
+                } catch (IOException | RuntimeException exception)
+                {
+                        if (Objects.isNull(response.getContentType()))
+                        {
+                                throw exception;
+                        }
+                        writeErrorRecord(response, exception);
+                        return;
+                }
+                writeRecord(response, Map.of("counts", result));
+                response.flushBuffer();
+                log.info("Http request processed successfully. Streamed matching lines of {} entries", result.size());
+        }
+
+        /**
+         * The controller's method representing POST endpoint for the approximate log analysis request (the request
+         * with the "approximate=true" parameter): the lines are counted in the random sample of the blocks of each
+         * file and extrapolated.
+         *
+         * @param zipFile MultipartFile-object representing the zip file.
+         * @param targetError target relative margin of error of the estimates like 0.02 (for ±2%).
+         * @param timeBudgetMillis time budget of the request in milliseconds (the sampling stops when it is spent).
+         * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode way the text is matched with the lines: literal, icase (ASCII case-insensitive) or regex.
+         * @param startDate date to filter the entries of the zip file by date.
+         * @param numberOfDays another parameter to filter the entries of the zip file by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "filter" parameters.
+         * @return map of the entry paths and the estimated numbers of the lines with their confidence intervals.
+         * @throws IOException if I/O problem was occurred during the log analysis.
+         */
+        @PostMapping(params = "approximate=true", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+        public Map<String, ApproximateCount> approximateEntriesInZipFile(
+                @RequestParam("file") MultipartFile zipFile,
+                @RequestParam(name = "error", defaultValue = "0.02") double targetError,
+                @RequestParam(name = "budget", required = false) Long timeBudgetMillis,
+                @RequestParam(name = "text", required = false) String searchQuery,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
+                @RequestParam(name = "date", required = false)
+                @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam MultiValueMap<String, String> requestParams)
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = createParamHolder(zipFile, searchQuery, searchMode, startDate,
+                        numberOfDays, startTime, endTime, requestParams);
+                log.info("The log lines are counted approximately (target error = {}, time budget = {} ms)",
+                        targetError, timeBudgetMillis);
+                Map<String, ApproximateCount> result = logsAnalyzer.approximateEntriesInZipFile(paramHolder,
+                        targetError, timeBudgetMillis);
+                log.info("Http request processed successfully. Sending approximate result map with {} entries",
+                        result.size());
+                return result;
+        }
+
+        /**
+         * The controller's method representing POST endpoint for the group-by aggregation of the log lines.
+         *
+         * @param zipFile MultipartFile-object representing the zip file.
+         * @param groupByKeys names of the group-by keys like "status", "hour" or "url" (repeated or comma-separated).
+         * @param limit maximum number of the values of each key in the result.
+         * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode way the text is matched with the lines: literal, icase (ASCII case-insensitive) or regex.
+         * @param startDate date to filter the entries of the zip file by date.
+         * @param numberOfDays another parameter to filter the entries of the zip file by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "filter" parameters.
+         * @return map of the key names and the maps of the key values and the numbers of the lines.
+         * @throws IOException if I/O problem was occurred during the log analysis.
+         */
+        @PostMapping(path = "/aggregate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+        public Map<String, Map<String, Long>> aggregateEntriesInZipFile(
+                @RequestParam("file") MultipartFile zipFile,
+                @RequestParam(name = "groupBy") List<String> groupByKeys,
+                @RequestParam(name = "limit", defaultValue = "100") int limit,
+                @RequestParam(name = "text", required = false) String searchQuery,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
+                @RequestParam(name = "date", required = false)
+                @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam MultiValueMap<String, String> requestParams)
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = createParamHolder(zipFile, searchQuery, searchMode, startDate,
+                        numberOfDays, startTime, endTime, requestParams);
+                log.info("The log lines are aggregated by {} (limit = {})", groupByKeys, limit);
+                Map<String, Map<String, Long>> result =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, groupByKeys, limit);
+                log.info("Http request processed successfully. Sending aggregation result for {} keys", result.size());
+                return result;
+        }
+
+        /**
+         * The controller's method representing POST endpoint for the approximate group-by aggregation of the log lines
+         * in fixed memory (the request with the "sketch=true" parameter).
+         *
+         * @param zipFile MultipartFile-object representing the zip file.
+         * @param groupByKeys names of the group-by keys like "ip", "url" or "ua" (repeated or comma-separated).
+         * @param limit maximum number of the most frequent values of each key in the result (up to 1000).
+         * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode way the text is matched with the lines: literal, icase (ASCII case-insensitive) or regex.
+         * @param startDate date to filter the entries of the zip file by date.
+         * @param numberOfDays another parameter to filter the entries of the zip file by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "filter" parameters.
+         * @return map of the key names and the estimates of the key values with their error bounds.
+         * @throws IOException if I/O problem was occurred during the log analysis.
+         */
+        @PostMapping(path = "/aggregate", params = "sketch=true", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+        public Map<String, KeySketchSummary> sketchEntriesInZipFile(
                 @RequestParam("file") MultipartFile zipFile,
+                @RequestParam(name = "groupBy") List<String> groupByKeys,
+                @RequestParam(name = "limit", defaultValue = "100") int limit,
                 @RequestParam(name = "text", required = false) String searchQuery,
+                @RequestParam(name = "mode", defaultValue = "literal") String searchMode,
                 @RequestParam(name = "date", required = false)
                 @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate startDate,
-                @RequestParam(name = "days", required = false) Integer numberOfDays)
+                @RequestParam(name = "days", required = false) Integer numberOfDays,
+                @RequestParam(name = "from", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+                @RequestParam(name = "to", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+                @RequestParam MultiValueMap<String, String> requestParams)
                 throws IOException
         {
+                CountEntriesParamHolder paramHolder = createParamHolder(zipFile, searchQuery, searchMode, startDate,
+                        numberOfDays, startTime, endTime, requestParams);
+                log.info("The log lines are aggregated approximately by {} (limit = {})", groupByKeys, limit);
+                Map<String, KeySketchSummary> result = logsAnalyzer.sketchEntriesInZipFile(paramHolder, groupByKeys,
+                        limit);
+                log.info("Http request processed successfully. Sending approximate aggregation result for {} keys",
+                        result.size());
+                return result;
+        }
+
+        /**
+         * Creates the object containing the request parameters for the log analysis.
+         *
+         * @param zipFile MultipartFile-object representing the zip file.
+         * @param searchQuery text to be searched in the entries of the zip file.
+         * @param searchMode name of the search mode.
+         * @param startDate date to filter the entries of the zip file by date.
+         * @param numberOfDays another parameter to filter the entries of the zip file by date.
+         * @param startTime start time of day of the lines to analyse (inclusive) like "14:00".
+         * @param endTime end time of day of the lines to analyse (exclusive) like "15:30".
+         * @param requestParams all request parameters with the repeated "filter" parameters.
+         * @return the object containing the request parameters.
+         */
+        private CountEntriesParamHolder createParamHolder(MultipartFile zipFile, String searchQuery, String searchMode,
+                                                          LocalDate startDate, Integer numberOfDays,
+                                                          LocalTime startTime, LocalTime endTime,
+                                                          MultiValueMap<String, String> requestParams)
+        {
+                List<String> fieldFilters = requestParams.getOrDefault("filter", List.of());
                 log.info("Received new http request for the log files analysis with parameters: " +
-                        "searchQuery = {}, startDate = {}, numberOfDays = {}", searchQuery, startDate, numberOfDays);
-                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        "searchQuery = {}, searchMode = {}, fieldFilters = {}, startDate = {}, numberOfDays = {}, " +
+                        "startTime = {}, endTime = {}", searchQuery, searchMode, fieldFilters, startDate, numberOfDays,
+                        startTime, endTime);
+                return CountEntriesParamHolder.builder()
                         .searchQuery(searchQuery)
+                        .searchMode(SearchMode.of(searchMode))
+                        .fieldFilters(fieldFilters)
                         .zipMultipartFile(zipFile)
                         .startDate(startDate)
                         .numberOfDays(numberOfDays)
+                        .startTime(startTime)
+                        .endTime(endTime)
                         .build();
-                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
-                log.info("Http request processed successfully. Sending result map with {} entries", result.size());
-                return result;
+        }
+
+        /**
+         * Writes the record as the line of JSON. The content type is set with the first record, so the errors
+         * occurred before it are written by the exception handler as usual.
+         *
+         * @param response the response.
+         * @param record the record.
+         * @throws UncheckedIOException if the record cannot be written (the client is disconnected).
+         */
+        private void writeRecord(HttpServletResponse response, Object record)
+        {
+                try
+                {
+                        if (Objects.isNull(response.getContentType()))
+                        {
+                                response.setContentType(NDJSON_VALUE);
+                        }
+                        OutputStream output = response.getOutputStream();
+                        output.write(objectMapper.writeValueAsBytes(record));
+                        output.write('\n');
+                } catch (IOException exception)
+                {
+                        throw new UncheckedIOException(exception);
+                }
+        }
+
+        /**
+         * Writes the record with the exception DTO as the last line of the stream and flushes the response (the error
+         * record cannot be written to the disconnected client, so its failure is only logged).
+         *
+         * @param response the response.
+         * @param exception the exception occurred after the first record.
+         */
+        private void writeErrorRecord(HttpServletResponse response, Exception exception)
+        {
+                log.error("Exception occurred after the first streamed record: {} ({})",
+                        exception.getClass().getSimpleName(), exception.getMessage());
+                try
+                {
+                        writeRecord(response, Map.of("error", new ExceptionDto(exception.getClass().getSimpleName(),
+                                exception.getMessage(), LocalDateTime.now())));
+                        response.flushBuffer();
+                } catch (IOException | UncheckedIOException writeException)
+                {
+                        log.warn("Can't write the error record to the stream ({}).", writeException.getMessage());
+                }
+        }
+
+        /**
+         * Groups the analysis result by the directories of the entries (root entries are grouped under "/").
+         *
+         * @param result map of the full entry paths and the numbers of occurrences.
+         * @return map of the directories and the maps of the file names and the numbers of occurrences.
+         */
+        static Map<String, Map<String, Integer>> groupByDirectory(Map<String, Integer> result)
+        {
+                Map<String, Map<String, Integer>> groupedResult = new TreeMap<>();
+                result.forEach((entryPath, occurrences) ->
+                {
+                        int separatorIndex = entryPath.lastIndexOf('/');
+                        String directory = (separatorIndex < 0) ? "/" : entryPath.substring(0, separatorIndex + 1);
+                        groupedResult.computeIfAbsent(directory, key -> new TreeMap<>())
+                                .put(entryPath.substring(separatorIndex + 1), occurrences);
+                });
+                return groupedResult;
         }
 
 }
\ No newline at end of file
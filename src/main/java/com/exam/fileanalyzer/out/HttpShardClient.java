@@ -0,0 +1,184 @@
+package com.exam.fileanalyzer.out;
+
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import com.exam.fileanalyzer.service.ShardClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.util.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.client.*;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+
+/**
+ * ShardClient interface implementation - bean sending the shards to the log analysis endpoint of the worker nodes as
+ * the multipart requests. The request parameters are sent as the form fields of the multipart body, so the search
+ * query and the field filters are not encoded into the URL. The shard is streamed into the request body without
+ * buffering it in memory. The worker answering 429 Too Many Requests is treated as unavailable (the shard is sent
+ * again), 413 Payload Too Large means the shard exceeds the inflation budget of the worker.
+ */
+@Slf4j
+@Service
+public class HttpShardClient implements ShardClient
+{
+        /** Path of the log analysis endpoint of the worker nodes. */
+        private static final String ANALYZE_PATH = "/api/analyze/logs";
+        /** Format of the start date parameter. */
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        /** Response type of the log analysis endpoint. */
+        private static final ParameterizedTypeReference<Map<String, Integer>> RESULT_TYPE =
+                new ParameterizedTypeReference<>() {};
+        /** Client of the worker nodes. */
+        private final RestTemplate restTemplate;
+
+        /**
+         * Bean's constructor with bean and property value injection.
+         *
+         * @param restTemplateBuilder builder of the client of the worker nodes.
+         * @param connectTimeoutSeconds timeout of the connection to the worker node in seconds (property value).
+         * @param shardTimeoutSeconds timeout of the analysis of one shard in seconds (property value).
+         */
+        @Autowired
+        public HttpShardClient(RestTemplateBuilder restTemplateBuilder,
+                               @Value("${cluster.connect.timeout.seconds:5}") long connectTimeoutSeconds,
+                               @Value("${cluster.shard.timeout.seconds:300}") long shardTimeoutSeconds)
+        {
+                this.restTemplate = restTemplateBuilder
+                        .requestFactory(HttpShardClient::createRequestFactory)
+                        .setConnectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                        .setReadTimeout(Duration.ofSeconds(shardTimeoutSeconds))
+                        .build();
+        }
+
+        @Override
+        public Map<String, Integer> countEntries(@NonNull String workerUrl,
+                                                 @NonNull CountEntriesParamHolder shardParamHolder) throws IOException
+        {
+                MultiValueMap<String, Object> body = createRequestBody(shardParamHolder);
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+                headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                String url = StringUtils.trimTrailingCharacter(workerUrl, '/') + ANALYZE_PATH;
+                log.debug("Sending the shard '{}' to the worker {}",
+                        shardParamHolder.getZipMultipartFile().getOriginalFilename(), workerUrl);
+                try
+                {
+                        Map<String, Integer> result = restTemplate.exchange(url, HttpMethod.POST,
+                                new HttpEntity<>(body, headers), RESULT_TYPE).getBody();
+                        return Objects.isNull(result) ? Map.of() : result;
+                } catch (HttpClientErrorException.TooManyRequests exception)
+                {
+                        throw new IOException(String.format("The worker %s is overloaded: %s", workerUrl,
+                                exception.getResponseBodyAsString()), exception);
+                } catch (HttpClientErrorException exception)
+                {
+                        if (exception.getStatusCode() == HttpStatus.PAYLOAD_TOO_LARGE)
+                        {
+                                throw new InflationBudgetExceededException(String.format("The worker %s rejected " +
+                                        "the shard as too large: %s", workerUrl, exception.getResponseBodyAsString()));
+                        }
+                        throw new IllegalArgumentException(String.format("The worker %s rejected the request: %s",
+                                workerUrl, exception.getResponseBodyAsString()), exception);
+                } catch (RestClientException exception)
+                {
+                        throw new IOException(String.format("The worker %s failed to analyse the shard: %s",
+                                workerUrl, exception.getMessage()), exception);
+                }
+        }
+
+        /**
+         * Creates the factory of the requests streaming their bodies (the shard is not buffered in memory).
+         *
+         * @return the request factory.
+         */
+        private static SimpleClientHttpRequestFactory createRequestFactory()
+        {
+                SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+                requestFactory.setBufferRequestBody(false);
+                return requestFactory;
+        }
+
+        /**
+         * Creates the multipart body of the request with the shard and the request parameters.
+         *
+         * @param paramHolder object containing the search query, the shard, start date, and number of days.
+         * @return the parts of the body.
+         */
+        private static MultiValueMap<String, Object> createRequestBody(CountEntriesParamHolder paramHolder)
+        {
+                MultipartFile shard = paramHolder.getZipMultipartFile();
+                MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+                body.add("file", new AbstractResource()
+                {
+                        @Override
+                        public String getDescription()
+                        {
+                                return "shard " + shard.getOriginalFilename();
+                        }
+
+                        @Override
+                        public String getFilename()
+                        {
+                                return shard.getOriginalFilename();
+                        }
+
+                        @Override
+                        public long contentLength()
+                        {
+                                return shard.getSize();
+                        }
+
+                        @Override
+                        public boolean exists()
+                        {
+                                return true;
+                        }
+
+                        @Override
+                        public InputStream getInputStream() throws IOException
+                        {
+                                return shard.getInputStream();
+                        }
+                });
+                addIfPresent(body, "text", paramHolder.getSearchQuery());
+                body.add("mode", paramHolder.getSearchMode().name().toLowerCase(Locale.ROOT));
+                addIfPresent(body, "date", Objects.isNull(paramHolder.getStartDate()) ? null :
+                        DATE_FORMATTER.format(paramHolder.getStartDate()));
+                addIfPresent(body, "days", paramHolder.getNumberOfDays());
+                addIfPresent(body, "from", paramHolder.getStartTime());
+                addIfPresent(body, "to", paramHolder.getEndTime());
+                for (String fieldFilter : paramHolder.getFieldFilters())
+                {
+                        body.add("filter", fieldFilter);
+                }
+                return body;
+        }
+
+        /**
+         * Adds the request parameter to the body if it has the value.
+         *
+         * @param body the parts of the body.
+         * @param name name of the parameter.
+         * @param value value of the parameter or null.
+         */
+        private static void addIfPresent(MultiValueMap<String, Object> body, String name, Object value)
+        {
+                if (Objects.nonNull(value))
+                {
+                        body.add(name, value.toString());
+                }
+        }
+
+}
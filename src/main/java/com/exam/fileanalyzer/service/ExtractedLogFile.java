@@ -0,0 +1,69 @@
+package com.exam.fileanalyzer.service;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Log file extracted from the uploaded archive for the analysis (held in memory or spilled to the temp directory).
+ */
+public interface ExtractedLogFile
+{
+        /**
+         * Returns the full path of the log file entry inside the archive used as a key in the analysis result.
+         *
+         * @return name of the log file.
+         */
+        String getName();
+
+        /**
+         * Returns the CRC-32 checksum of the log file content (log files with equal checksum and size are treated as
+         * duplicates and analysed once).
+         *
+         * @return CRC-32 checksum of the content.
+         */
+        long getCrc();
+
+        /**
+         * Returns the size of the stored log file content (compressed size for the gzip-compressed log file).
+         *
+         * @return size of the stored content in bytes.
+         */
+        long getSize();
+
+        /**
+         * Checks if the log file content is stored gzip-compressed (it is decompressed by {@link #openStream()}).
+         *
+         * @return true if the stored content is compressed.
+         */
+        boolean isCompressed();
+
+        /**
+         * Checks if the log file content is held in the pooled memory buffer instead of the temp directory.
+         *
+         * @return true if the log file is held in memory, false if it was spilled to the disk.
+         */
+        boolean isInMemory();
+
+        /**
+         * Opens a new input stream with the decompressed content of the log file (the caller is responsible for
+         * closing it).
+         *
+         * @return input stream with the log file content.
+         * @throws IOException if the log file content cannot be read.
+         */
+        InputStream openStream() throws IOException;
+
+        /**
+         * Returns the stored content for the random access: the read-only view of the memory buffer or the read-only
+         * memory-mapped spilled file. The compressed content can be read only sequentially with {@link #openStream()}.
+         *
+         * @return the read-only buffer with the content or null if the content is compressed or too large to be mapped.
+         * @throws IOException if the spilled file cannot be mapped.
+         */
+        @Nullable
+        ByteBuffer mapContent() throws IOException;
+
+}
@@ -0,0 +1,21 @@
+package com.exam.fileanalyzer.service;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when the uploaded archive inflates to more bytes or with a higher compression ratio than
+ * the inflation budget of the request allows (the extraction is aborted and the workspace is released).
+ */
+public class InflationBudgetExceededException extends IOException
+{
+        /**
+         * Constructor with the exception message.
+         *
+         * @param message message of the exception.
+         */
+        public InflationBudgetExceededException(String message)
+        {
+                super(message);
+        }
+
+}
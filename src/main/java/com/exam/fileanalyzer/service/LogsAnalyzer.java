@@ -5,8 +5,9 @@ import org.springframework.lang.NonNull;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.time.LocalDate;
-import java.util.Map;
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Interface of the log analysing service.
@@ -17,20 +18,109 @@ public interface LogsAnalyzer
          * Counts the number of occurrences of the search query in each file inside the zip file given with paramHolder.
          *
          * @param paramHolder object containing the search query, zip file, start date, and number of days.
-         * @return A map of file names and the number of occurrences of the search query in the file.
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
          * @throws IOException if the zip file or its entries cannot be read.
          */
         Map<String, Integer> countEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder) throws IOException;
 
+        /**
+         * Counts the number of occurrences of each search query in each file inside each of the zip files like
+         * {@link #countEntriesInZipFile(CountEntriesParamHolder)}. Each zip file is extracted once for all queries and
+         * the files of all zip files are counted as the common set of tasks, so the files of the next zip file are
+         * counted while the previous ones are still being counted. The rollups are neither used nor recorded.
+         *
+         * @param zipFiles the multipart zip files to search in.
+         * @param queries objects containing the search queries with the same date and time range (their zip files are
+         *                ignored).
+         * @return A list with the result of each zip file: a list with the map of full entry paths and the number of
+         * occurrences of each search query in the file for each query.
+         * @throws IOException if the zip files or their entries cannot be read.
+         * @throws IllegalArgumentException if there are no zip files or queries or the queries have different date or
+         * time ranges.
+         */
+        List<List<Map<String, Integer>>> countEntriesInZipFiles(@NonNull List<MultipartFile> zipFiles,
+                                                                @NonNull List<CountEntriesParamHolder> queries)
+                throws IOException;
+
+        /**
+         * Counts the lines matching the request of paramHolder in all files inside the zip file grouped by the values
+         * of each group-by key (access log fields and tokens like "status", "hour" or "url").
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param groupByKeys names of the group-by keys.
+         * @param limit maximum number of the values of each key in the result (the rest are summed as "(other)").
+         * @return A map of the key names and the maps of the key values and the numbers of the lines sorted by
+         * the number in descending order.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        Map<String, Map<String, Long>> aggregateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                 @NonNull List<String> groupByKeys, int limit)
+                throws IOException;
+
+        /**
+         * Estimates the distinct values and the most frequent values of each group-by key of the lines matching
+         * the request of paramHolder in fixed memory (HyperLogLog and Count-Min sketches) regardless of the number of
+         * the lines and the distinct values.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param groupByKeys names of the group-by keys.
+         * @param limit maximum number of the most frequent values of each key in the result.
+         * @return A map of the key names and the estimates of the key values with their error bounds.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        Map<String, KeySketchSummary> sketchEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                             @NonNull List<String> groupByKeys, int limit)
+                throws IOException;
+
+        /**
+         * Counts the number of occurrences of the search query in each file inside the zip file like
+         * {@link #countEntriesInZipFile(CountEntriesParamHolder)} and passes the first matching lines of each file with
+         * their context lines to the listener in the same pass, so the lines are not kept until the end of
+         * the analysis. With the time range, the context lines of the uncompressed files are taken from the lines of
+         * the range only.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param maxLines maximum number of the matching lines of each file passed to the listener.
+         * @param linesBefore number of the context lines before each matching line.
+         * @param linesAfter number of the context lines after each matching line.
+         * @param listener receiver of the matching lines (the calls are serialized, but may come from different
+         *                 threads; the lines of different files may interleave).
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        Map<String, Integer> streamMatchingLines(@NonNull CountEntriesParamHolder paramHolder, int maxLines,
+                                                 int linesBefore, int linesAfter,
+                                                 @NonNull Consumer<MatchedLine> listener) throws IOException;
+
+        /**
+         * Estimates the number of the lines matching the request of paramHolder in each file inside the zip file by
+         * scanning the random sample of the blocks of the file until the target error or the time budget is reached.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param targetError target relative margin of error of the estimates (from 0 to 1).
+         * @param timeBudgetMillis time budget of the request in milliseconds or null for the target error only.
+         * @return A map of full entry paths and the estimated numbers of the lines with their confidence intervals.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        Map<String, ApproximateCount> approximateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                  double targetError, Long timeBudgetMillis)
+                throws IOException;
+
         /**
          * An object containing data used in the method of calculating the number of lines in the log files.
          */
         @Value
-        @Builder
+        @Builder(toBuilder = true)
         class CountEntriesParamHolder
         {
                 /** The string to search for in the file. */
                 String searchQuery;
+                /** The way the search query is matched with the lines. */
+                @Builder.Default
+                SearchMode searchMode = SearchMode.LITERAL;
+                /** The access log field filters like "status>=500" (all of them must be satisfied). */
+                @Builder.Default
+                List<String> fieldFilters = List.of();
                 /** The multipart zip file to search in uploaded with http-request. */
                 @ToString.Exclude
                 MultipartFile zipMultipartFile;
@@ -38,6 +128,110 @@ public interface LogsAnalyzer
                 LocalDate startDate;
                 /** The number of days to search for from the start date. */
                 Integer numberOfDays;
+                /** The start time of day of the lines to search (inclusive). */
+                LocalTime startTime;
+                /** The end time of day of the lines to search (exclusive). */
+                LocalTime endTime;
+        }
+
+        /**
+         * Approximate statistics of the values of one group-by key with their error bounds.
+         */
+        @Value
+        @Builder
+        class KeySketchSummary
+        {
+                /** The exact number of the counted lines. */
+                long lines;
+                /** The estimated number of the distinct values. */
+                long distinctValues;
+                /** The relative standard error of the estimated number of the distinct values. */
+                double distinctValuesRelativeError;
+                /** The most frequent values and the estimated numbers of their lines (not less than the real ones). */
+                Map<String, Long> topValues;
+                /** The maximum overestimate of the numbers of the lines of the most frequent values. */
+                long topValuesMaxOverestimate;
+                /** The probability that the overestimates are within the maximum one. */
+                double topValuesConfidence;
+        }
+
+        /**
+         * Estimated number of the matching lines of one log file with its confidence interval. The content to analyse
+         * is narrowed to the time range if any, the compressed log file is measured in the inflated bytes. The values
+         * unknown for the compressed log file skipped when the time budget ran out are null.
+         */
+        @Value
+        @Builder
+        class ApproximateCount
+        {
+                /** The estimated number of the lines (null if the log file was skipped). */
+                Long estimate;
+                /** The lower bound of the confidence interval. */
+                long lowerBound;
+                /** The upper bound of the confidence interval (null if unknown). */
+                Long upperBound;
+                /** The probability that the real number of the lines is within the confidence interval. */
+                double confidence;
+                /** The number of the scanned bytes. */
+                long scannedBytes;
+                /** The number of the bytes of the log file content to analyse (null if unknown). */
+                Long totalBytes;
+                /** True if all lines are scanned, so the estimate is the exact number. */
+                boolean exact;
+                /** True if the time budget cut the log file short or skipped it before the target error. */
+                boolean timedOut;
+        }
+
+        /**
+         * Matching line of the log file with its context lines.
+         */
+        @Value
+        @Builder
+        class MatchedLine
+        {
+                /** Full path of the log file in the archive. */
+                String file;
+                /** Offset of the first byte of the line in the log file. */
+                long offset;
+                /** The matching line (cut to 4096 bytes). */
+                String line;
+                /** The lines before the matching line. */
+                List<String> before;
+                /** The lines after the matching line. */
+                List<String> after;
+        }
+
+        /**
+         * The way the search query is matched with the log lines.
+         */
+        enum SearchMode
+        {
+                /** The line contains the search query (case-sensitive). */
+                LITERAL,
+                /** The line contains the search query regardless of the case of ASCII letters. */
+                ICASE,
+                /** The line contains a match of the search query as a regular expression. */
+                REGEX;
+
+                /**
+                 * Returns the search mode by its case-insensitive name.
+                 *
+                 * @param name name of the search mode.
+                 * @return the search mode.
+                 * @throws IllegalArgumentException if there is no search mode with the name.
+                 */
+                public static SearchMode of(@NonNull String name)
+                {
+                        for (SearchMode mode : values())
+                        {
+                                if (mode.name().equalsIgnoreCase(name.trim()))
+                                {
+                                        return mode;
+                                }
+                        }
+                        throw new IllegalArgumentException(String.format(
+                                "Unknown search mode '%s', supported modes are literal, icase and regex.", name));
+                }
         }
 
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.exam.fileanalyzer.service;
+
+import org.springframework.lang.NonNull;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Interface of the persistent store of the rollups of the analysed archives: the log files of each archive with their
+ * dates and the hourly counts of the lines matching each query in each log file. The rollups are populated as a side
+ * effect of the analysis, so the repeated queries over the same archive are answered without extracting and scanning
+ * the log files covered by the rollups.
+ */
+public interface RollupStore
+{
+        /**
+         * Checks if the rollups are enabled.
+         *
+         * @return true if the rollups are enabled.
+         */
+        boolean isEnabled();
+
+        /**
+         * Identifies the archive by its content (the rollups of different uploads of the same archive are shared).
+         *
+         * @param archive the uploaded archive.
+         * @return the identifier of the archive content.
+         * @throws IOException if the archive cannot be read.
+         */
+        String identifyArchive(@NonNull MultipartFile archive) throws IOException;
+
+        /**
+         * Returns the log files of the archive matching the name schemes with their dates.
+         *
+         * @param archiveId identifier of the archive.
+         * @return the map of the entry paths and the packed dates and hours of the log files in the order of
+         * the archive or empty if the archive has not been extracted yet.
+         */
+        Optional<Map<String, Long>> getLogFiles(@NonNull String archiveId);
+
+        /**
+         * Stores the log files of the archive matching the name schemes with their dates.
+         *
+         * @param archiveId identifier of the archive.
+         * @param logFiles the map of the entry paths and the packed dates and hours of all log files of the archive.
+         */
+        void putLogFiles(@NonNull String archiveId, @NonNull Map<String, Long> logFiles);
+
+        /**
+         * Returns the hourly counts of the lines of the log file matching the query.
+         *
+         * @param archiveId identifier of the archive.
+         * @param query the query (the search mode, the search query and the field filters).
+         * @param entryPath full path of the log file in the archive.
+         * @return the counts of the lines by the hour and the lines without the time or empty if the log file has
+         * not been scanned for the query yet.
+         */
+        Optional<long[]> getHourlyCounts(@NonNull String archiveId, @NonNull String query, @NonNull String entryPath);
+
+        /**
+         * Stores the hourly counts of the lines of the log file matching the query.
+         *
+         * @param archiveId identifier of the archive.
+         * @param query the query (the search mode, the search query and the field filters).
+         * @param entryPath full path of the log file in the archive.
+         * @param hourlyCounts the counts of the lines by the hour and the lines without the time.
+         */
+        void putHourlyCounts(@NonNull String archiveId, @NonNull String query, @NonNull String entryPath,
+                             @NonNull long[] hourlyCounts);
+
+}
@@ -0,0 +1,31 @@
+package com.exam.fileanalyzer.service;
+
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Interface of the client sending the shards of the uploaded archive (smaller archives with a part of its entries) to
+ * the worker nodes for the analysis.
+ */
+public interface ShardClient
+{
+        /**
+         * Counts the number of occurrences of the search query in each file inside the shard on the worker node like
+         * {@link LogsAnalyzer#countEntriesInZipFile(LogsAnalyzer.CountEntriesParamHolder)}.
+         *
+         * @param workerUrl base URL of the worker node like "http://localhost:8081".
+         * @param shardParamHolder object containing the search query, the shard, start date, and number of days.
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
+         * @throws InflationBudgetExceededException if the worker node rejected the shard as exceeding its inflation
+         * budget (the shard is not sent again).
+         * @throws IOException if the worker node is not available, overloaded or failed to analyse the shard
+         * (the shard can be sent again).
+         * @throws IllegalArgumentException if the worker node rejected the request as invalid.
+         */
+        Map<String, Integer> countEntries(@NonNull String workerUrl,
+                                          @NonNull LogsAnalyzer.CountEntriesParamHolder shardParamHolder)
+                throws IOException;
+
+}
@@ -0,0 +1,20 @@
+package com.exam.fileanalyzer.service;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when spilling the log file to the temp directory would exceed the global disk quota.
+ */
+public class TempDiskQuotaExceededException extends IOException
+{
+        /**
+         * Constructor with the exception message.
+         *
+         * @param message message of the exception.
+         */
+        public TempDiskQuotaExceededException(String message)
+        {
+                super(message);
+        }
+
+}
@@ -0,0 +1,98 @@
+package com.exam.fileanalyzer.service;
+
+import org.springframework.lang.NonNull;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Temporary workspace of the single analysis request. Holds the extracted log files and releases all memory buffers,
+ * disk quota and temp files on closing.
+ */
+public interface TempWorkspace extends Closeable
+{
+        /**
+         * Returns the unique directory of the workspace for spilled log files.
+         *
+         * @return path to the workspace directory.
+         */
+        Path getDirectory();
+
+        /**
+         * Stores the log file content in the pooled memory buffer or spills it to the workspace directory if
+         * the content is larger than the configured threshold. If the workspace already contains the content with
+         * the same CRC-32 and size, the stored copy is released and the returned log file shares the existing one.
+         *
+         * @param name name of the log file.
+         * @param content input stream with the log file content (is not closed by the method).
+         * @param compressed true if the content is gzip-compressed (it is stored as is and decompressed on reading).
+         * @return stored log file.
+         * @throws IOException if the content cannot be read or written.
+         * @throws TempDiskQuotaExceededException if spilling the content exceeds the global disk quota.
+         */
+        ExtractedLogFile store(@NonNull String name, @NonNull InputStream content, boolean compressed)
+                throws IOException;
+
+        /**
+         * Stores the uncompressed log file content (see {@link #store(String, InputStream, boolean)}).
+         *
+         * @param name name of the log file.
+         * @param content input stream with the log file content (is not closed by the method).
+         * @return stored log file.
+         * @throws IOException if the content cannot be read or written.
+         */
+        default ExtractedLogFile store(@NonNull String name, @NonNull InputStream content) throws IOException
+        {
+                return store(name, content, false);
+        }
+
+        /**
+         * Stages the content (for example, the uploaded archive) to the file of the workspace directory reserving
+         * the global disk quota for each written chunk. The file is deleted and the quota is released on closing
+         * the workspace.
+         *
+         * @param fileName name of the file in the workspace directory.
+         * @param content input stream with the staged content (is not closed by the method).
+         * @return path to the staged file.
+         * @throws IOException if the content cannot be read or written.
+         * @throws TempDiskQuotaExceededException if staging the content exceeds the global disk quota.
+         */
+        Path stage(@NonNull String fileName, @NonNull InputStream content) throws IOException;
+
+        /**
+         * Reserves the global disk quota for the bytes the caller writes to the workspace directory itself (for
+         * example, the chunk of the upload written without blocking). The quota is released on closing
+         * the workspace.
+         *
+         * @param bytes number of bytes to reserve.
+         * @throws TempDiskQuotaExceededException if there is not enough bytes in the quota.
+         */
+        void reserveStagedBytes(long bytes) throws TempDiskQuotaExceededException;
+
+        /**
+         * Stores the log file sharing the content already stored in the workspace.
+         *
+         * @param name name of the log file.
+         * @param crc CRC-32 checksum of the content.
+         * @param size size of the content in bytes.
+         * @return stored log file or empty if the workspace has no content with such checksum and size.
+         */
+        Optional<ExtractedLogFile> storeDuplicate(@NonNull String name, long crc, long size);
+
+        /**
+         * Returns the log files stored in the workspace in the order of storing.
+         *
+         * @return unmodifiable list of the stored log files.
+         */
+        List<ExtractedLogFile> getLogFiles();
+
+        /**
+         * Releases the memory buffers and the disk quota of the workspace and deletes its directory.
+         *
+         * @throws IOException if meets the problem on deleting some file.
+         */
+        @Override
+        void close() throws IOException;
+
+}
@@ -0,0 +1,18 @@
+package com.exam.fileanalyzer.service;
+
+import java.io.IOException;
+
+/**
+ * Interface of the service that creates isolated temporary workspaces for the analysis requests.
+ */
+public interface TempWorkspaceManager
+{
+        /**
+         * Creates a new workspace with the unique directory for the analysis request.
+         *
+         * @return created workspace (the caller is responsible for closing it).
+         * @throws IOException if the workspace directory cannot be created.
+         */
+        TempWorkspace createWorkspace() throws IOException;
+
+}
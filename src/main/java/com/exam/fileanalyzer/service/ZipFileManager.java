@@ -1,37 +1,80 @@
 package com.exam.fileanalyzer.service;
 
 import org.springframework.lang.NonNull;
-import org.springframework.lang.Nullable;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Path;
-import java.util.List;
+import java.util.function.Predicate;
 
 /**
- * Interface of the service that can unzips necessary log files from the zip file and delete the temporary files.
+ * Interface of the service that can extract necessary log files from the uploaded archive (zip, tar, tar.gz or gz)
+ * into the temporary workspace.
  */
 public interface ZipFileManager
 {
 
         /**
-         * Unzips necessary log files from the zip file.
+         * Extracts necessary log files from the uploaded archive into the new temporary workspace in a single pass
+         * (nested archives and gzip-compressed log files are decompressed while streaming, the charset of the zip entry
+         * names is chosen for each entry).
          *
          * @param paramHolder object containing the search query, zip file, start date, and number of days.
-         * @param charset (optional) charset used to read the zip file.
-         * @return a list of paths to the log files.
-         * @throws IOException if the zip file or its entries cannot be read.
+         * @return the workspace with the log files (the caller is responsible for closing it).
+         * @throws IOException if the archive or its entries cannot be read.
          */
-        List<Path> getPathsOfLogFilesForAnalysis(@NonNull LogsAnalyzer.CountEntriesParamHolder paramHolder,
-                                                 @Nullable Charset charset) throws IOException;
+        default TempWorkspace extractLogFilesForAnalysis(@NonNull LogsAnalyzer.CountEntriesParamHolder paramHolder)
+                throws IOException
+        {
+                return extractLogFilesForAnalysis(paramHolder, LogFileFilter.ALL);
+        }
 
         /**
-         * Deletes the temporary log files and their parent directory.
+         * Extracts necessary log files accepted by the filter from the uploaded archive into the new temporary
+         * workspace in a single pass (see {@link #extractLogFilesForAnalysis(LogsAnalyzer.CountEntriesParamHolder)}).
          *
-         * @param logFilePaths a list of paths to the log files.
-         * @throws IOException if meets the problem on deleting some file.
-         * @throws IllegalStateException if gets null or empty list.
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param filter filter of the log files matching the name schemes (is called for each of them before checking
+         *               the date conditions of the request, so it also sees the log files of other dates).
+         * @return the workspace with the log files (the caller is responsible for closing it).
+         * @throws IOException if the archive or its entries cannot be read.
          */
-        void deleteTempLogFiles(@NonNull List<Path> logFilePaths) throws IOException;
+        TempWorkspace extractLogFilesForAnalysis(@NonNull LogsAnalyzer.CountEntriesParamHolder paramHolder,
+                                                 @NonNull LogFileFilter filter) throws IOException;
+
+        /**
+         * Creates the selector of the archive entries the extraction of the request would look into: nested archives
+         * and log files matching the name schemes with the appropriate date. The selector allows to split the entries
+         * of the archive without extracting them.
+         *
+         * @param paramHolder object containing the start date, number of days and time range.
+         * @return the predicate accepting the full entry paths of the selected entries.
+         */
+        Predicate<String> createEntrySelector(@NonNull LogsAnalyzer.CountEntriesParamHolder paramHolder);
+
+        /**
+         * Returns the number of the extractions aborted because the upload exceeded the inflation budget.
+         *
+         * @return the number of the aborted extractions since the start.
+         */
+        long getInflationBudgetExceededCount();
+
+        /**
+         * Filter of the log files of the archive.
+         */
+        @FunctionalInterface
+        interface LogFileFilter
+        {
+                /** Filter accepting all log files. */
+                LogFileFilter ALL = (entryPath, dateAndHour) -> true;
+
+                /**
+                 * Checks if the log file must be extracted (if its date is appropriate).
+                 *
+                 * @param entryPath full path of the log file in the archive.
+                 * @param dateAndHour packed date and hour of the log file name {@code yyyyMMddHH} (the hour is 99 for
+                 *                    the log file of the whole day).
+                 * @return true if the log file must be extracted.
+                 */
+                boolean accept(@NonNull String entryPath, long dateAndHour);
+        }
 
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.exam.fileanalyzer.service.impl;
+
+import lombok.Getter;
+import org.springframework.lang.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of reusable byte buffers of the same size. Buffers are allocated lazily and never more than
+ * the configured maximum, so the memory held by the pool is constant regardless of the load.
+ */
+public class BufferPool
+{
+        /** Size of each buffer in the pool. */
+        @Getter
+        private final int bufferSize;
+        /** Maximum number of buffers allocated by the pool. */
+        private final int maxBuffers;
+        /** Buffers returned to the pool and available for acquiring. */
+        private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+        /** Number of buffers allocated by the pool. */
+        private final AtomicInteger allocatedBuffers = new AtomicInteger();
+
+        /**
+         * Constructor with the pool dimensions.
+         *
+         * @param bufferSize size of each buffer in the pool.
+         * @param maxBuffers maximum number of buffers allocated by the pool.
+         */
+        public BufferPool(int bufferSize, int maxBuffers)
+        {
+                if (bufferSize <= 0 || maxBuffers < 0)
+                {
+                        throw new IllegalArgumentException(String.format("Incorrect buffer pool dimensions: " +
+                                "buffer size = %d, max buffers = %d.", bufferSize, maxBuffers));
+                }
+                this.bufferSize = bufferSize;
+                this.maxBuffers = maxBuffers;
+        }
+
+        /**
+         * Takes a free buffer from the pool or allocates a new one if the maximum is not reached yet.
+         *
+         * @return buffer or null if all buffers of the pool are in use.
+         */
+        @Nullable
+        public byte[] tryAcquire()
+        {
+                byte[] buffer = freeBuffers.poll();
+                if (buffer != null)
+                {
+                        return buffer;
+                }
+                if (allocatedBuffers.incrementAndGet() <= maxBuffers)
+                {
+                        return new byte[bufferSize];
+                }
+                allocatedBuffers.decrementAndGet();
+                return null;
+        }
+
+        /**
+         * Returns the buffer acquired earlier to the pool.
+         *
+         * @param buffer buffer to be returned.
+         */
+        public void release(@NonNull byte[] buffer)
+        {
+                if (buffer.length != bufferSize)
+                {
+                        throw new IllegalArgumentException("The buffer does not belong to this pool.");
+                }
+                freeBuffers.offer(buffer);
+        }
+
+}
@@ -0,0 +1,491 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.RollupStore;
+import com.exam.fileanalyzer.service.scan.HourlyLineCounter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.*;
+import java.util.*;
+
+/**
+ * RollupStore interface implementation - bean keeping the rollups of each archive in the append-only binary file of
+ * the rollup directory named by the SHA-256 digest of the archive content.
+ * <p> The file consists of the records of the log files of the archive and the records of the hourly counts of
+ * the log file for the query (the counts are written as variable-length numbers, so the record of the log file with
+ * few matching lines takes tens of bytes). The rollups of the recently used archives are cached in memory, the file
+ * of the archive is read once when the archive is not in the cache. The incomplete record at the end of the file (left
+ * by the crash) is cut off on reading. Failures of writing the rollups are logged and do not fail the analysis.
+ * <p> The total size of the rollup files is limited: when an append goes over the limit, the files written or read
+ * least recently are deleted until the directory fits again (their archives are scanned again on the next request).
+ */
+@Slf4j
+@Service
+public class FileRollupStore implements RollupStore
+{
+        /** Suffix of the rollup file names. */
+        private static final String ROLLUP_FILE_SUFFIX = ".rollup";
+        /** Type of the record of the log files of the archive. */
+        private static final byte LOG_FILES_RECORD = 'L';
+        /** Type of the record of the hourly counts of the log file for the query. */
+        private static final byte HOURLY_COUNTS_RECORD = 'C';
+        /** Size of the buffer used for calculating the digest of the archive. */
+        private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+        /** Flag of the enabled rollups. */
+        @Getter
+        private final boolean enabled;
+        /** Directory of the rollup files. */
+        @Getter
+        private final Path rollupDir;
+        /** Maximum total size of the rollup files in bytes. */
+        private final long maxBytes;
+        /** Rollups of the recently used archives by the archive identifier (in the access order). */
+        private final Map<String, ArchiveRollup> cache;
+        /** Total size of the rollup files in bytes. */
+        private long usedBytes;
+
+        /**
+         * Bean's constructor with property value injection.
+         *
+         * @param enabled true to enable the rollups (property value).
+         * @param rollupDirPath path of the directory of the rollup files (property value).
+         * @param maxCachedArchives maximum number of the archives with the rollups cached in memory (property value).
+         * @param maxBytes maximum total size of the rollup files in bytes (property value).
+         */
+        @Autowired
+        public FileRollupStore(@Value("${rollup.enabled:false}") boolean enabled,
+                               @Value("${rollup.dir.path:${java.io.tmpdir}/file-analyzer-rollups}")
+                               String rollupDirPath,
+                               @Value("${rollup.cache.archives:64}") int maxCachedArchives,
+                               @Value("${rollup.max.bytes:67108864}") long maxBytes)
+        {
+                if (maxBytes <= 0)
+                {
+                        throw new IllegalArgumentException("The maximum size of the rollup files must be positive.");
+                }
+                this.enabled = enabled;
+                this.rollupDir = Paths.get(rollupDirPath);
+                this.maxBytes = maxBytes;
+                this.cache = new LinkedHashMap<>(16, 0.75f, true)
+                {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, ArchiveRollup> eldest)
+                        {
+                                return size() > maxCachedArchives;
+                        }
+                };
+        }
+
+        /**
+         * Creates the directory of the rollup files if the rollups are enabled and it does not exist, otherwise
+         * deletes the rollup files over the size limit.
+         *
+         * @throws IOException if meets problems with creating or listing the directory.
+         */
+        @PostConstruct
+        public synchronized void init() throws IOException
+        {
+                if (!enabled)
+                {
+                        return;
+                }
+                if (!Files.exists(rollupDir))
+                {
+                        log.info("There is no directory for the rollups. Creating...");
+                        Files.createDirectories(rollupDir);
+                }
+                usedBytes = listRollupFiles().stream()
+                        .mapToLong(RollupFile::getSize)
+                        .sum();
+                if (usedBytes > maxBytes)
+                {
+                        evictRollupFiles(null);
+                }
+        }
+
+        /**
+         * Identifies the archive by the SHA-256 digest of its content (the content is read without decompressing).
+         *
+         * @param archive the uploaded archive.
+         * @return the hexadecimal digest of the archive content.
+         * @throws IOException if the archive cannot be read.
+         */
+        @Override
+        public String identifyArchive(@NonNull MultipartFile archive) throws IOException
+        {
+                MessageDigest digest;
+                try
+                {
+                        digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException exception)
+                {
+                        throw new IllegalStateException("SHA-256 digest is not supported by the platform.", exception);
+                }
+                try (InputStream content = archive.getInputStream())
+                {
+                        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+                        for (int read = content.read(buffer); read >= 0; read = content.read(buffer))
+                        {
+                                digest.update(buffer, 0, read);
+                        }
+                }
+                StringBuilder archiveId = new StringBuilder();
+                for (byte digestByte : digest.digest())
+                {
+                        archiveId.append(Character.forDigit((digestByte >> 4) & 0xF, 16))
+                                .append(Character.forDigit(digestByte & 0xF, 16));
+                }
+                return archiveId.toString();
+        }
+
+        @Override
+        public synchronized Optional<Map<String, Long>> getLogFiles(@NonNull String archiveId)
+        {
+                Map<String, Long> logFiles = getRollup(archiveId).logFiles;
+                return Objects.isNull(logFiles) ? Optional.empty() : Optional.of(Collections.unmodifiableMap(logFiles));
+        }
+
+        @Override
+        public synchronized void putLogFiles(@NonNull String archiveId, @NonNull Map<String, Long> logFiles)
+        {
+                ArchiveRollup rollup = getRollup(archiveId);
+                if (Objects.nonNull(rollup.logFiles))
+                {
+                        return;
+                }
+                rollup.logFiles = new LinkedHashMap<>(logFiles);
+                append(archiveId, output ->
+                {
+                        output.writeByte(LOG_FILES_RECORD);
+                        writeNumber(output, logFiles.size());
+                        for (Map.Entry<String, Long> logFile : logFiles.entrySet())
+                        {
+                                output.writeUTF(logFile.getKey());
+                                writeNumber(output, logFile.getValue());
+                        }
+                });
+        }
+
+        @Override
+        public synchronized Optional<long[]> getHourlyCounts(@NonNull String archiveId, @NonNull String query,
+                                                             @NonNull String entryPath)
+        {
+                long[] hourlyCounts = getRollup(archiveId).hourlyCounts.get(createKey(query, entryPath));
+                return Optional.ofNullable(hourlyCounts).map(long[]::clone);
+        }
+
+        @Override
+        public synchronized void putHourlyCounts(@NonNull String archiveId, @NonNull String query,
+                                                 @NonNull String entryPath, @NonNull long[] hourlyCounts)
+        {
+                if (hourlyCounts.length != HourlyLineCounter.BUCKETS)
+                {
+                        throw new IllegalArgumentException(String.format(
+                                "The hourly counts must have %d buckets.", HourlyLineCounter.BUCKETS));
+                }
+                long[] previousCounts = getRollup(archiveId).hourlyCounts.put(createKey(query, entryPath),
+                        hourlyCounts.clone());
+                if (Arrays.equals(previousCounts, hourlyCounts))
+                {
+                        return;
+                }
+                append(archiveId, output ->
+                {
+                        output.writeByte(HOURLY_COUNTS_RECORD);
+                        output.writeUTF(query);
+                        output.writeUTF(entryPath);
+                        for (long count : hourlyCounts)
+                        {
+                                writeNumber(output, count);
+                        }
+                });
+        }
+
+        /**
+         * Returns the rollup of the archive from the cache or reads it from the rollup file.
+         *
+         * @param archiveId identifier of the archive.
+         * @return the rollup of the archive (empty if there is no rollup file).
+         */
+        private ArchiveRollup getRollup(String archiveId)
+        {
+                ArchiveRollup rollup = cache.get(archiveId);
+                if (Objects.isNull(rollup))
+                {
+                        rollup = readRollup(archiveId);
+                        cache.put(archiveId, rollup);
+                }
+                return rollup;
+        }
+
+        /**
+         * Reads the rollup of the archive from the rollup file cutting off the incomplete record at its end.
+         *
+         * @param archiveId identifier of the archive.
+         * @return the rollup of the archive (empty if there is no rollup file or it cannot be read).
+         */
+        private ArchiveRollup readRollup(String archiveId)
+        {
+                ArchiveRollup rollup = new ArchiveRollup();
+                Path rollupFile = rollupDir.resolve(archiveId + ROLLUP_FILE_SUFFIX);
+                if (!enabled || !Files.exists(rollupFile))
+                {
+                        return rollup;
+                }
+                try
+                {
+                        Files.setLastModifiedTime(rollupFile, FileTime.fromMillis(System.currentTimeMillis()));
+                        byte[] content = Files.readAllBytes(rollupFile);
+                        ByteArrayInputStream stream = new ByteArrayInputStream(content);
+                        DataInputStream input = new DataInputStream(stream);
+                        int completeLength = 0;
+                        try
+                        {
+                                while (stream.available() > 0)
+                                {
+                                        readRecord(input, rollup);
+                                        completeLength = content.length - stream.available();
+                                }
+                        } catch (EOFException exception)
+                        {
+                                log.warn("Incomplete record at the end of the rollup file '{}' is cut off.",
+                                        rollupFile.getFileName());
+                                try (FileChannel channel = FileChannel.open(rollupFile, StandardOpenOption.WRITE))
+                                {
+                                        channel.truncate(completeLength);
+                                }
+                                usedBytes -= content.length - completeLength;
+                        }
+                } catch (IOException | RuntimeException exception)
+                {
+                        log.warn("Cannot read the rollup file '{}': {}. The rollups of the archive are dropped.",
+                                rollupFile.getFileName(), exception.getMessage());
+                        return new ArchiveRollup();
+                }
+                return rollup;
+        }
+
+        /**
+         * Reads the record of the rollup file into the rollup.
+         *
+         * @param input stream of the rollup file.
+         * @param rollup the rollup of the archive.
+         * @throws IOException if the record is incomplete or has the unknown type.
+         */
+        private static void readRecord(DataInputStream input, ArchiveRollup rollup) throws IOException
+        {
+                byte type = input.readByte();
+                if (type == LOG_FILES_RECORD)
+                {
+                        long size = readNumber(input);
+                        Map<String, Long> logFiles = new LinkedHashMap<>();
+                        for (long i = 0; i < size; i++)
+                        {
+                                logFiles.put(input.readUTF(), readNumber(input));
+                        }
+                        rollup.logFiles = logFiles;
+                } else if (type == HOURLY_COUNTS_RECORD)
+                {
+                        String key = createKey(input.readUTF(), input.readUTF());
+                        long[] hourlyCounts = new long[HourlyLineCounter.BUCKETS];
+                        for (int i = 0; i < hourlyCounts.length; i++)
+                        {
+                                hourlyCounts[i] = readNumber(input);
+                        }
+                        rollup.hourlyCounts.put(key, hourlyCounts);
+                } else
+                {
+                        throw new IOException(String.format("Unknown record type %d", type));
+                }
+        }
+
+        /**
+         * Appends the record to the rollup file of the archive (the record is written with one write call).
+         *
+         * @param archiveId identifier of the archive.
+         * @param writer writer of the record.
+         */
+        private void append(String archiveId, RecordWriter writer)
+        {
+                if (!enabled)
+                {
+                        return;
+                }
+                Path rollupFile = rollupDir.resolve(archiveId + ROLLUP_FILE_SUFFIX);
+                try
+                {
+                        ByteArrayOutputStream record = new ByteArrayOutputStream();
+                        writer.write(new DataOutputStream(record));
+                        Files.write(rollupFile, record.toByteArray(), StandardOpenOption.CREATE,
+                                StandardOpenOption.APPEND);
+                        usedBytes += record.size();
+                        if (usedBytes > maxBytes)
+                        {
+                                evictRollupFiles(archiveId);
+                        }
+                } catch (IOException exception)
+                {
+                        log.warn("Cannot write the rollup file '{}': {}. The rollup is kept in memory only.",
+                                rollupFile.getFileName(), exception.getMessage());
+                }
+        }
+
+        /**
+         * Deletes the rollup files written or read least recently until their total size fits the limit (the file of
+         * the archive being written is deleted last) and drops their archives from the cache.
+         *
+         * @param currentArchiveId identifier of the archive being written or null.
+         * @throws IOException if the rollup directory cannot be listed.
+         */
+        private void evictRollupFiles(String currentArchiveId) throws IOException
+        {
+                List<RollupFile> rollupFiles = listRollupFiles();
+                usedBytes = rollupFiles.stream()
+                        .mapToLong(RollupFile::getSize)
+                        .sum();
+                rollupFiles.sort(Comparator.comparing((RollupFile rollupFile) ->
+                                rollupFile.getArchiveId().equals(currentArchiveId))
+                        .thenComparing(RollupFile::getLastModified));
+                int deletedFiles = 0;
+                for (RollupFile rollupFile : rollupFiles)
+                {
+                        if (usedBytes <= maxBytes)
+                        {
+                                break;
+                        }
+                        Files.deleteIfExists(rollupFile.getPath());
+                        cache.remove(rollupFile.getArchiveId());
+                        usedBytes -= rollupFile.getSize();
+                        deletedFiles++;
+                }
+                log.info("{} rollup files are deleted to fit the limit of {} bytes.", deletedFiles, maxBytes);
+        }
+
+        /**
+         * Lists the rollup files of the rollup directory.
+         *
+         * @return the rollup files with their sizes and modification times.
+         * @throws IOException if the rollup directory cannot be listed.
+         */
+        private List<RollupFile> listRollupFiles() throws IOException
+        {
+                List<RollupFile> rollupFiles = new ArrayList<>();
+                try (DirectoryStream<Path> paths = Files.newDirectoryStream(rollupDir, "*" + ROLLUP_FILE_SUFFIX))
+                {
+                        for (Path path : paths)
+                        {
+                                String fileName = path.getFileName().toString();
+                                rollupFiles.add(new RollupFile(path,
+                                        fileName.substring(0, fileName.length() - ROLLUP_FILE_SUFFIX.length()),
+                                        Files.size(path), Files.getLastModifiedTime(path)));
+                        }
+                }
+                return rollupFiles;
+        }
+
+        /**
+         * Writes the non-negative number with 7 bits per byte (the high bit marks the following byte).
+         *
+         * @param output stream of the record.
+         * @param number the non-negative number.
+         * @throws IOException if the number cannot be written.
+         */
+        private static void writeNumber(DataOutputStream output, long number) throws IOException
+        {
+                long rest = number;
+                while ((rest & ~0x7FL) != 0)
+                {
+                        output.writeByte((int) (rest & 0x7F) | 0x80);
+                        rest >>>= 7;
+                }
+                output.writeByte((int) rest);
+        }
+
+        /**
+         * Reads the number written by {@link #writeNumber(DataOutputStream, long)}.
+         *
+         * @param input stream of the rollup file.
+         * @return the number.
+         * @throws IOException if the number is incomplete or too long.
+         */
+        private static long readNumber(DataInputStream input) throws IOException
+        {
+                long number = 0;
+                for (int shift = 0; shift < Long.SIZE; shift += 7)
+                {
+                        int numberByte = input.readUnsignedByte();
+                        number |= (long) (numberByte & 0x7F) << shift;
+                        if ((numberByte & 0x80) == 0)
+                        {
+                                return number;
+                        }
+                }
+                throw new IOException("The number of the rollup file is too long.");
+        }
+
+        /**
+         * Creates the key of the hourly counts.
+         *
+         * @param query the query.
+         * @param entryPath full path of the log file in the archive.
+         * @return the key of the hourly counts.
+         */
+        private static String createKey(String query, String entryPath)
+        {
+                return query + '\u0000' + entryPath;
+        }
+
+        /**
+         * Rollup of one archive.
+         */
+        private static class ArchiveRollup
+        {
+                /** Log files of the archive with their packed dates and hours or null if they are unknown. */
+                private Map<String, Long> logFiles;
+                /** Hourly counts of the log files by the query and the entry path. */
+                private final Map<String, long[]> hourlyCounts = new HashMap<>();
+        }
+
+        /**
+         * Rollup file of the rollup directory.
+         */
+        @Getter
+        @RequiredArgsConstructor
+        private static class RollupFile
+        {
+                /** Path of the file. */
+                private final Path path;
+                /** Identifier of the archive of the file. */
+                private final String archiveId;
+                /** Size of the file in bytes. */
+                private final long size;
+                /** Time of the last modification of the file. */
+                private final FileTime lastModified;
+        }
+
+        /**
+         * Writer of the record of the rollup file.
+         */
+        @FunctionalInterface
+        private interface RecordWriter
+        {
+                /**
+                 * Writes the record.
+                 *
+                 * @param output stream of the record.
+                 * @throws IOException if the record cannot be written.
+                 */
+                void write(DataOutputStream output) throws IOException;
+        }
+
+}
@@ -0,0 +1,279 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import org.springframework.lang.NonNull;
+
+import java.io.*;
+
+/**
+ * Budget of the inflated bytes of the single extraction request. Limits the bytes read from each archive member,
+ * the bytes read from all members of the upload and the ratio of these bytes to the compressed bytes read from
+ * the upload so far.
+ * <p> The limits are checked on each read, so the extraction of the archive bomb is aborted as soon as it goes over
+ * the budget instead of filling the memory buffers and the temp directory first. The members of the nested archives
+ * are counted at every nesting level, and their compression ratio is computed against the bytes of the upload, so
+ * a nested archive bomb with a tiny outer archive is caught too. The members stored gzip-compressed are inflated
+ * through the budget once with their stored size as the compressed size. The bytes the archive readers consume
+ * themselves (headers and skipped entries) are charged with {@link #chargeArchive(long)}. The budget is used by one
+ * thread.
+ */
+public final class InflationBudget
+{
+        /** Inflated bytes from which the compression ratio is checked (small members are compressed too well). */
+        static final long RATIO_CHECK_MIN_BYTES = 1024 * 1024;
+        /** Maximum number of bytes skipped in the member stream at once (the skipped bytes are inflated too). */
+        private static final long SKIP_CHUNK_SIZE = 64 * 1024;
+        /** Maximum number of bytes read from all members of the upload. */
+        private final long maxRequestBytes;
+        /** Maximum number of bytes read from a single member. */
+        private final long maxEntryBytes;
+        /** Maximum ratio of the inflated bytes to the compressed bytes. */
+        private final int maxRatio;
+        /** Number of the compressed bytes read from the upload. */
+        private long compressedBytes;
+        /** Number of the bytes read from all members of the upload. */
+        private long inflatedBytes;
+
+        /**
+         * Constructor with the limits of the request.
+         *
+         * @param maxRequestBytes maximum number of bytes read from all members of the upload.
+         * @param maxEntryBytes maximum number of bytes read from a single member.
+         * @param maxRatio maximum ratio of the inflated bytes to the compressed bytes.
+         */
+        public InflationBudget(long maxRequestBytes, long maxEntryBytes, int maxRatio)
+        {
+                this.maxRequestBytes = maxRequestBytes;
+                this.maxEntryBytes = maxEntryBytes;
+                this.maxRatio = maxRatio;
+        }
+
+        /**
+         * Wraps the stream of the upload counting the compressed bytes read from it.
+         *
+         * @param uploadStream stream of the uploaded file (is closed with the returned stream).
+         * @return the counting stream.
+         */
+        public InputStream countCompressed(@NonNull InputStream uploadStream)
+        {
+                return new FilterInputStream(uploadStream)
+                {
+                        @Override
+                        public int read() throws IOException
+                        {
+                                int value = super.read();
+                                if (value != -1)
+                                {
+                                        compressedBytes++;
+                                }
+                                return value;
+                        }
+
+                        @Override
+                        public int read(byte[] buffer, int offset, int length) throws IOException
+                        {
+                                int read = super.read(buffer, offset, length);
+                                if (read > 0)
+                                {
+                                        compressedBytes += read;
+                                }
+                                return read;
+                        }
+
+                        @Override
+                        public long skip(long n) throws IOException
+                        {
+                                long skipped = super.skip(n);
+                                compressedBytes += Math.max(skipped, 0);
+                                return skipped;
+                        }
+                };
+        }
+
+        /**
+         * Wraps the stream of the archive member charging the budget with the bytes read from it.
+         *
+         * @param entryPath full path of the member.
+         * @param memberStream stream of the member content (is not closed by the returned stream).
+         * @return the stream throwing {@link InflationBudgetExceededException} when the budget is exceeded.
+         */
+        public InputStream limitMember(@NonNull String entryPath, @NonNull InputStream memberStream)
+        {
+                return new MemberStream(entryPath, memberStream, compressedBytes, -1);
+        }
+
+        /**
+         * Wraps the stream inflating the stored member charging the budget with the bytes read from it (the ratio of
+         * the member is computed against its stored size instead of the bytes read from the upload).
+         *
+         * @param entryPath full path of the member.
+         * @param memberStream stream with the inflated content of the member (is not closed by the returned stream).
+         * @param compressedSize stored size of the member.
+         * @return the stream throwing {@link InflationBudgetExceededException} when the budget is exceeded.
+         */
+        public InputStream limitMember(@NonNull String entryPath, @NonNull InputStream memberStream,
+                                       long compressedSize)
+        {
+                return new MemberStream(entryPath, memberStream, compressedBytes, Math.max(compressedSize, 0));
+        }
+
+        /**
+         * Charges the budget with the bytes the archive reader consumed itself (headers, skipped entries and
+         * padding), the limits of the whole upload are checked.
+         *
+         * @param bytes number of the consumed bytes.
+         * @throws InflationBudgetExceededException if the budget is exceeded.
+         */
+        public void chargeArchive(long bytes) throws InflationBudgetExceededException
+        {
+                inflatedBytes += bytes;
+                checkRequest();
+        }
+
+        /**
+         * Returns the number of the bytes read from all members of the upload.
+         *
+         * @return the inflated bytes.
+         */
+        public long getInflatedBytes()
+        {
+                return inflatedBytes;
+        }
+
+        /**
+         * Charges the budget with the bytes read from the member.
+         *
+         * @param entryPath full path of the member.
+         * @param entryBytes bytes read from the member so far.
+         * @param entryCompressedBytes compressed bytes of the member.
+         * @param read bytes of the last read.
+         * @throws InflationBudgetExceededException if the budget is exceeded.
+         */
+        private void charge(String entryPath, long entryBytes, long entryCompressedBytes, long read)
+                throws InflationBudgetExceededException
+        {
+                inflatedBytes += read;
+                if (entryBytes > maxEntryBytes)
+                {
+                        throw new InflationBudgetExceededException(String.format("The archive member '%s' inflates " +
+                                "to more than %d bytes.", entryPath, maxEntryBytes));
+                }
+                if (entryBytes >= RATIO_CHECK_MIN_BYTES && entryBytes / Math.max(entryCompressedBytes, 1) > maxRatio)
+                {
+                        throw new InflationBudgetExceededException(String.format("The archive member '%s' has " +
+                                "the compression ratio over %d.", entryPath, maxRatio));
+                }
+                checkRequest();
+        }
+
+        /**
+         * Checks the limits of the whole upload.
+         *
+         * @throws InflationBudgetExceededException if the budget is exceeded.
+         */
+        private void checkRequest() throws InflationBudgetExceededException
+        {
+                if (inflatedBytes > maxRequestBytes)
+                {
+                        throw new InflationBudgetExceededException(String.format("The archive inflates to more " +
+                                "than %d bytes.", maxRequestBytes));
+                }
+                if (inflatedBytes >= RATIO_CHECK_MIN_BYTES && inflatedBytes / Math.max(compressedBytes, 1) > maxRatio)
+                {
+                        throw new InflationBudgetExceededException(String.format("The archive has the compression " +
+                                "ratio over %d.", maxRatio));
+                }
+        }
+
+        /**
+         * Stream of the archive member charging the budget.
+         */
+        private class MemberStream extends FilterInputStream
+        {
+                /** Full path of the member. */
+                private final String entryPath;
+                /** Compressed bytes of the upload read before the member. */
+                private final long entryCompressedStart;
+                /** Stored size of the member or -1 if the compressed bytes are read from the upload. */
+                private final long compressedSize;
+                /** Bytes read from the member so far. */
+                private long entryBytes;
+
+                /**
+                 * Constructor with the member stream.
+                 *
+                 * @param entryPath full path of the member.
+                 * @param memberStream stream of the member content.
+                 * @param entryCompressedStart compressed bytes of the upload read before the member.
+                 * @param compressedSize stored size of the member or -1 if the compressed bytes are read from
+                 *                       the upload.
+                 */
+                private MemberStream(String entryPath, InputStream memberStream, long entryCompressedStart,
+                                     long compressedSize)
+                {
+                        super(memberStream);
+                        this.entryPath = entryPath;
+                        this.entryCompressedStart = entryCompressedStart;
+                        this.compressedSize = compressedSize;
+                }
+
+                @Override
+                public int read() throws IOException
+                {
+                        int value = super.read();
+                        if (value != -1)
+                        {
+                                entryBytes++;
+                                charge(entryPath, entryBytes, getCompressedBytes(), 1);
+                        }
+                        return value;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException
+                {
+                        int read = super.read(buffer, offset, length);
+                        if (read > 0)
+                        {
+                                entryBytes += read;
+                                charge(entryPath, entryBytes, getCompressedBytes(), read);
+                        }
+                        return read;
+                }
+
+                @Override
+                public long skip(long n) throws IOException
+                {
+                        long skipped = super.skip(Math.min(n, SKIP_CHUNK_SIZE));
+                        if (skipped > 0)
+                        {
+                                entryBytes += skipped;
+                                charge(entryPath, entryBytes, getCompressedBytes(), skipped);
+                        }
+                        return skipped;
+                }
+
+                /**
+                 * Returns the compressed bytes of the member: the stored size or the bytes read from the upload
+                 * since the member start.
+                 *
+                 * @return the compressed bytes.
+                 */
+                private long getCompressedBytes()
+                {
+                        return (compressedSize >= 0) ? compressedSize : compressedBytes - entryCompressedStart;
+                }
+
+                @Override
+                public boolean markSupported()
+                {
+                        return false;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+        }
+
+}
@@ -0,0 +1,81 @@
+package com.exam.fileanalyzer.service.impl;
+
+import org.springframework.lang.NonNull;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+
+/**
+ * Range of the dates (and the hours of the hourly log files) of the log files appropriate for the request.
+ * <p> The date conditions of the request are converted to the range of the packed dates {@code yyyyMMdd} once, so
+ * the date of each log file matched by the {@link LogFileNameScheme} is compared as a number.
+ */
+public final class LogFileDateRange
+{
+        /** First appropriate date (packed). */
+        private final int firstDate;
+        /** Date after the last appropriate date (packed). */
+        private final int endDate;
+        /** First appropriate hour of the hourly log files. */
+        private final int firstHour;
+        /** Hour after the last appropriate hour of the hourly log files. */
+        private final int endHour;
+
+        /**
+         * Constructor converting the date and time conditions of the request.
+         * <p> Without the start date and the number of days the log files of today are appropriate, without the start
+         * date - the log files of the last number of days, without the number of days - the log files of the start
+         * date. The hourly log files are appropriate if their hour overlaps the time range.
+         *
+         * @param paramHolder object containing the start date, number of days and time range.
+         */
+        public LogFileDateRange(@NonNull CountEntriesParamHolder paramHolder)
+        {
+                LocalDate startDate = paramHolder.getStartDate();
+                Integer numberOfDays = paramHolder.getNumberOfDays();
+                if (Objects.isNull(startDate))
+                {
+                        LocalDate today = LocalDate.now();
+                        firstDate = packDate(Objects.isNull(numberOfDays) ? today : today.minusDays(numberOfDays));
+                        endDate = Objects.isNull(numberOfDays) ? packDate(today.plusDays(1)) : Integer.MAX_VALUE;
+                } else
+                {
+                        firstDate = packDate(startDate);
+                        endDate = packDate(startDate.plusDays(Objects.isNull(numberOfDays) ? 1 : numberOfDays));
+                }
+                LocalTime startTime = paramHolder.getStartTime();
+                LocalTime endTime = paramHolder.getEndTime();
+                firstHour = Objects.isNull(startTime) ? 0 : startTime.getHour();
+                endHour = Objects.isNull(endTime) ? 24 :
+                        endTime.getHour() + (endTime.equals(endTime.truncatedTo(ChronoUnit.HOURS)) ? 0 : 1);
+        }
+
+        /**
+         * Checks if the date and hour of the log file are appropriate.
+         *
+         * @param dateAndHour packed date and hour of the log file {@code yyyyMMddHH} (see {@link LogFileNameScheme}).
+         * @return true if the log file is appropriate.
+         */
+        public boolean contains(long dateAndHour)
+        {
+                int date = (int) (dateAndHour / 100);
+                int hour = (int) (dateAndHour % 100);
+                return date >= firstDate && date < endDate &&
+                        (hour == LogFileNameScheme.WHOLE_DAY || hour >= firstHour && hour < endHour);
+        }
+
+        /**
+         * Packs the date into the number {@code yyyyMMdd}.
+         *
+         * @param date the date.
+         * @return the packed date.
+         */
+        private static int packDate(LocalDate date)
+        {
+                return LogFileNameScheme.packDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        }
+
+}
@@ -0,0 +1,321 @@
+package com.exam.fileanalyzer.service.impl;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+import java.util.*;
+
+/**
+ * Compiled template of the log file names like "logs_{date}-access.log" or "access-{basicDate}-{hour}.log.{n}".
+ * <p> The template consists of the literal parts and the fields: {@code {date}} (yyyy-MM-dd), {@code {basicDate}}
+ * (yyyyMMdd), {@code {hour}} (HH) and {@code {n}} (one or more digits of the rotation index). Exactly one date field
+ * is required. The name is matched part by part in one pass without regular expressions and without creating
+ * objects, the date and the hour are returned packed into one number ({@code yyyyMMddHH}), so the date ranges are
+ * compared as numbers.
+ */
+public final class LogFileNameScheme
+{
+        /** Hour of the packed key of the log file without the hour field (the log file of the whole day). */
+        public static final int WHOLE_DAY = 99;
+        /** Result of the match of the name not matching the scheme. */
+        public static final long NO_MATCH = -1;
+        /** Numbers of the days of the months of the non-leap year. */
+        private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+        /** The template of the scheme. */
+        @Getter
+        private final String template;
+        /** Literal parts of the template: the part before each field and the part after the last field. */
+        private final String[] literals;
+        /** Fields of the template in the order of the occurrence. */
+        private final Field[] fields;
+
+        /**
+         * Constructor with the parsed template.
+         *
+         * @param template the template of the scheme.
+         * @param literals literal parts of the template.
+         * @param fields fields of the template.
+         */
+        private LogFileNameScheme(String template, String[] literals, Field[] fields)
+        {
+                this.template = template;
+                this.literals = literals;
+                this.fields = fields;
+        }
+
+        /**
+         * Compiles the template of the log file names.
+         *
+         * @param template template like "logs_{date}-access.log".
+         * @return the compiled scheme.
+         * @throws IllegalArgumentException if the template has an unknown or repeated field, adjacent fields or
+         * no date field.
+         */
+        public static LogFileNameScheme compile(@NonNull String template)
+        {
+                List<String> literals = new ArrayList<>();
+                List<Field> fields = new ArrayList<>();
+                int position = 0;
+                for (int open = template.indexOf('{'); open >= 0; open = template.indexOf('{', position))
+                {
+                        int close = template.indexOf('}', open);
+                        if (close < 0)
+                        {
+                                throw new IllegalArgumentException(String.format(
+                                        "The log file name scheme '%s' has an unclosed field.", template));
+                        }
+                        Field field = Field.of(template.substring(open + 1, close), template);
+                        if (fields.contains(field) || (field.isDate() && fields.stream().anyMatch(Field::isDate)))
+                        {
+                                throw new IllegalArgumentException(String.format(
+                                        "The log file name scheme '%s' has the repeated field %s.", template, field));
+                        }
+                        if (open == position && !fields.isEmpty())
+                        {
+                                throw new IllegalArgumentException(String.format(
+                                        "The log file name scheme '%s' has adjacent fields.", template));
+                        }
+                        literals.add(template.substring(position, open));
+                        fields.add(field);
+                        position = close + 1;
+                }
+                literals.add(template.substring(position));
+                if (fields.stream().noneMatch(Field::isDate))
+                {
+                        throw new IllegalArgumentException(String.format(
+                                "The log file name scheme '%s' has no {date} or {basicDate} field.", template));
+                }
+                return new LogFileNameScheme(template, literals.toArray(new String[0]), fields.toArray(new Field[0]));
+        }
+
+        /**
+         * Matches the part of the string with the scheme.
+         *
+         * @param name string containing the name.
+         * @param from index of the first character of the name.
+         * @param to index after the last character of the name.
+         * @return the packed date and hour {@code yyyyMMddHH} (the hour is {@value #WHOLE_DAY} if the scheme has no
+         * hour field) or {@value #NO_MATCH} if the name does not match the scheme or has an invalid date.
+         */
+        public long match(@NonNull String name, int from, int to)
+        {
+                int position = from;
+                int date = 0;
+                int hour = WHOLE_DAY;
+                for (int i = 0; i < fields.length; i++)
+                {
+                        String literal = literals[i];
+                        if (to - position < literal.length() || !name.startsWith(literal, position))
+                        {
+                                return NO_MATCH;
+                        }
+                        position += literal.length();
+                        Field field = fields[i];
+                        switch (field)
+                        {
+                                case DATE:
+                                        date = parseDate(name, position, to, true);
+                                        break;
+                                case BASIC_DATE:
+                                        date = parseDate(name, position, to, false);
+                                        break;
+                                case HOUR:
+                                        hour = (to - position < 2) ? -1 : parseDigits(name, position, position + 2);
+                                        hour = (hour > 23) ? -1 : hour;
+                                        break;
+                                default:
+                                        int end = position;
+                                        while (end < to && isDigit(name.charAt(end)))
+                                        {
+                                                end++;
+                                        }
+                                        if (end == position)
+                                        {
+                                                return NO_MATCH;
+                                        }
+                                        position = end;
+                                        continue;
+                        }
+                        if (date < 0 || hour < 0)
+                        {
+                                return NO_MATCH;
+                        }
+                        position += field.getLength();
+                }
+                String lastLiteral = literals[fields.length];
+                if (to - position != lastLiteral.length() || !name.startsWith(lastLiteral, position))
+                {
+                        return NO_MATCH;
+                }
+                return date * 100L + hour;
+        }
+
+        /**
+         * Packs the date into the int {@code yyyyMMdd}.
+         *
+         * @param year the year.
+         * @param month the month from 1 to 12.
+         * @param day the day of the month.
+         * @return the packed date.
+         */
+        public static int packDate(int year, int month, int day)
+        {
+                return year * 10000 + month * 100 + day;
+        }
+
+        /**
+         * Parses the date of the name.
+         *
+         * @param name string containing the name.
+         * @param from index of the first character of the date.
+         * @param to index after the last character of the name.
+         * @param separated true for the yyyy-MM-dd format, false for the yyyyMMdd format.
+         * @return the packed date {@code yyyyMMdd} or -1 if there is no valid date.
+         */
+        private static int parseDate(String name, int from, int to, boolean separated)
+        {
+                int separator = separated ? 1 : 0;
+                if (to - from < 8 + 2 * separator ||
+                        separated && (name.charAt(from + 4) != '-' || name.charAt(from + 7) != '-'))
+                {
+                        return -1;
+                }
+                int year = parseDigits(name, from, from + 4);
+                int month = parseDigits(name, from + 4 + separator, from + 6 + separator);
+                int day = parseDigits(name, from + 6 + 2 * separator, from + 8 + 2 * separator);
+                if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month))
+                {
+                        return -1;
+                }
+                return packDate(year, month, day);
+        }
+
+        /**
+         * Returns the number of days of the month.
+         *
+         * @param year the year.
+         * @param month the month from 1 to 12.
+         * @return the number of days of the month.
+         */
+        private static int daysInMonth(int year, int month)
+        {
+                boolean leapYear = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+                return (month == 2 && leapYear) ? 29 : DAYS_IN_MONTH[month - 1];
+        }
+
+        /**
+         * Parses the decimal digits.
+         *
+         * @param name string containing the digits.
+         * @param from index of the first digit.
+         * @param to index after the last digit.
+         * @return the number or -1 if there are not only digits or the range is empty.
+         */
+        private static int parseDigits(String name, int from, int to)
+        {
+                if (from >= to)
+                {
+                        return -1;
+                }
+                int value = 0;
+                for (int i = from; i < to; i++)
+                {
+                        char digit = name.charAt(i);
+                        if (!isDigit(digit))
+                        {
+                                return -1;
+                        }
+                        value = value * 10 + (digit - '0');
+                }
+                return value;
+        }
+
+        /**
+         * Checks if the character is an ASCII digit.
+         *
+         * @param character the character.
+         * @return true if the character is from '0' to '9'.
+         */
+        private static boolean isDigit(char character)
+        {
+                return character >= '0' && character <= '9';
+        }
+
+        @Override
+        public String toString()
+        {
+                return template;
+        }
+
+        /**
+         * Fields of the template.
+         */
+        private enum Field
+        {
+                /** Date in the yyyy-MM-dd format. */
+                DATE("date", 10),
+                /** Date in the yyyyMMdd format. */
+                BASIC_DATE("basicDate", 8),
+                /** Hour in the HH format. */
+                HOUR("hour", 2),
+                /** One or more digits of the rotation index. */
+                NUMBER("n", -1);
+
+                /** Name of the field in the template. */
+                private final String fieldName;
+                /** Number of the characters of the field or -1 for the variable length. */
+                @Getter
+                private final int length;
+
+                /**
+                 * Constructor with the field name and length.
+                 *
+                 * @param fieldName name of the field in the template.
+                 * @param length number of the characters of the field.
+                 */
+                Field(String fieldName, int length)
+                {
+                        this.fieldName = fieldName;
+                        this.length = length;
+                }
+
+                /**
+                 * Checks if the field is one of the date fields.
+                 *
+                 * @return true for the date fields.
+                 */
+                private boolean isDate()
+                {
+                        return this == DATE || this == BASIC_DATE;
+                }
+
+                /**
+                 * Returns the field by its name in the template.
+                 *
+                 * @param fieldName name of the field.
+                 * @param template the template (for the error message).
+                 * @return the field.
+                 * @throws IllegalArgumentException if there is no field with the name.
+                 */
+                private static Field of(String fieldName, String template)
+                {
+                        for (Field field : values())
+                        {
+                                if (field.fieldName.equals(fieldName))
+                                {
+                                        return field;
+                                }
+                        }
+                        throw new IllegalArgumentException(String.format(
+                                "The log file name scheme '%s' has the unknown field {%s}, supported fields are " +
+                                        "{date}, {basicDate}, {hour} and {n}.", template, fieldName));
+                }
+
+                @Override
+                public String toString()
+                {
+                        return "{" + fieldName + "}";
+                }
+        }
+
+}
@@ -1,15 +1,18 @@
 package com.exam.fileanalyzer.service.impl;
 
 import com.exam.fileanalyzer.service.*;
+import com.exam.fileanalyzer.service.scan.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
 
 /**
  * LogsAnalyzer interface implementation - bean responsible for the single- and multi-thread log file analysis.
@@ -22,125 +25,409 @@ public class MultiThreadLogsAnalyzerImpl extends SingleThreadLogsAnalyzerImpl im
         private static final int AVAILABLE_THREADS = Runtime.getRuntime().availableProcessors();
         /** The minimum number of paths to use multithreading. */
         private final int minPathsForMultiThreading;
+        /** The number of threads for processing the logs of one request. */
+        private final int availableThreads;
+        /** Common pool of the threads counting the log files of all batch requests (the threads are started lazily). */
+        private final ExecutorService batchExecutor;
+
+        /**
+         * Constructor with property value and bean injection (without the rollups).
+         *
+         * @param zipFileManager bean responsible for managing zip files.
+         * @param minPathsForMultiThreading the minimum number of paths to use multithreading.
+         */
+        public MultiThreadLogsAnalyzerImpl(ZipFileManager zipFileManager, int minPathsForMultiThreading)
+	{
+                this(zipFileManager, null, minPathsForMultiThreading);
+        }
 
         /**
          * Constructor with property value and bean injection.
          *
          * @param zipFileManager bean responsible for managing zip files.
+         * @param rollupStore bean responsible for the rollups of the analysed archives.
          * @param minPathsForMultiThreading the minimum number of paths to use multithreading.
          */
         @Autowired
-        public MultiThreadLogsAnalyzerImpl(ZipFileManager zipFileManager,
+        public MultiThreadLogsAnalyzerImpl(ZipFileManager zipFileManager, RollupStore rollupStore,
                                            @Value("${min.paths.for.multithreading}") int minPathsForMultiThreading)
 	{
-                super(zipFileManager);
+                this(zipFileManager, rollupStore, minPathsForMultiThreading, AVAILABLE_THREADS);
+        }
+
+        /**
+         * Constructor with the number of threads (the tests run the multi-thread processing on any machine).
+         *
+         * @param zipFileManager bean responsible for managing zip files.
+         * @param rollupStore bean responsible for the rollups of the analysed archives.
+         * @param minPathsForMultiThreading the minimum number of paths to use multithreading.
+         * @param availableThreads the number of threads for processing the logs of one request.
+         */
+        MultiThreadLogsAnalyzerImpl(ZipFileManager zipFileManager, RollupStore rollupStore,
+                                    int minPathsForMultiThreading, int availableThreads)
+        {
+                super(zipFileManager, rollupStore);
                 this.minPathsForMultiThreading = minPathsForMultiThreading;
+                this.availableThreads = availableThreads;
+                this.batchExecutor = Executors.newFixedThreadPool(availableThreads, new BatchThreadFactory());
         }
 
         /**
          * Counts the number of occurrences of the search query in each file inside the zip file given with paramHolder.
          *
          * @param paramHolder object containing the search query, zip file, start date, and number of days.
-         * @return A map of file names and the number of occurrences of the search query in the file.
+         * @return A map of entry paths and the number of occurrences of the search query in the file.
          * @throws IOException if the zip file or its entries cannot be read.
          */
         @Override
         public Map<String, Integer> countEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder)
                 throws IOException
 	{
-                List<Path> paths = zipFileManager.getPathsOfLogFilesForAnalysis(paramHolder, null);
-                Map<String, Integer> result;
-                if (AVAILABLE_THREADS > 2 && paths.size() >= minPathsForMultiThreading)
-		{
-                        result = countEntriesInUnzippedLogFiles(new ConcurrentLinkedQueue<>(paths),
-                                paramHolder.getSearchQuery());
-                } else
+                LineMatcher matcher = createLineMatcher(paramHolder);
+                if (isRollupQuery(paramHolder))
+                {
+                        return countEntriesWithRollups(paramHolder);
+                }
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder))
 		{
-                        result = countEntriesInUnzippedLogFiles(paths, paramHolder.getSearchQuery());
+                        List<ExtractedLogFile> logFiles = workspace.getLogFiles();
+                        Map<ExtractedLogFile, List<ExtractedLogFile>> groups = groupByContent(logFiles);
+                        if (availableThreads > 2 && groups.size() >= minPathsForMultiThreading)
+			{
+                                return countEntriesInUnzippedLogFiles(groups, matcher);
+                        }
+                        return countEntriesInUnzippedLogFiles(logFiles, matcher);
                 }
-                zipFileManager.deleteTempLogFiles(paths);
+        }
+
+        /**
+         * Returns the common pool of the threads of all batch requests, so the log files of all zip files of
+         * the requests are counted by the same threads without creating a pool per request.
+         *
+         * @return the common pool of the batch requests.
+         */
+        @Override
+        protected Executor getBatchExecutor()
+        {
+                return batchExecutor;
+        }
+
+        /**
+         * Stops the threads of the batch requests when the application context is closed.
+         */
+        @PreDestroy
+        public void shutdownBatchExecutor()
+        {
+                batchExecutor.shutdownNow();
+        }
+
+        /**
+         * Starts the log file aggregation: multi-thread if there are enough log files and threads.
+         * <p> Each thread counts its log files into its own aggregator, the partial aggregates are merged when all
+         * threads are done.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param aggregatorFactory factory of the aggregator with the given matcher.
+         * @param matcher the matcher of the lines to count.
+         * @param <C> type of the counters of the key values.
+         * @return the aggregator with the counts of all log files.
+         */
+        @Override
+        protected <C extends KeyCounter<C>> LineAggregator<C> aggregateUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups,
+                Function<LineMatcher, LineAggregator<C>> aggregatorFactory, LineMatcher matcher)
+        {
+                if (availableThreads <= 2 || groups.size() < minPathsForMultiThreading)
+                {
+                        return super.aggregateUnzippedLogFiles(groups, aggregatorFactory, matcher);
+                }
+                Queue<Map.Entry<ExtractedLogFile, List<ExtractedLogFile>>> queue =
+                        new ConcurrentLinkedQueue<>(groups.entrySet());
+                int numberOfThreads = Math.min(queue.size(), availableThreads);
+                ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+                try
+                {
+                        List<Future<LineAggregator<C>>> partialAggregates = new ArrayList<>();
+                        for (int i = 0; i < numberOfThreads; i++)
+                        {
+                                LineAggregator<C> aggregator = aggregatorFactory.apply(matcher.copy());
+                                partialAggregates.add(executor.submit(() -> aggregateQueue(queue, aggregator)));
+                        }
+                        throwIfFailed(awaitTasks(partialAggregates, queue));
+                        LineAggregator<C> result = aggregatorFactory.apply(matcher);
+                        for (Future<LineAggregator<C>> partialAggregate : partialAggregates)
+                        {
+                                result.addAll(partialAggregate.get());
+                        }
+                        return result;
+                } catch (ExecutionException exception)
+                {
+                        throw new IllegalStateException(exception.getCause().getMessage(), exception.getCause());
+                } catch (InterruptedException exception)
+                {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("The log files aggregation was interrupted.");
+                } finally
+                {
+                        shutdownExecutorService(executor);
+                }
+        }
+
+        /**
+         * Starts the counting of the matching lines of the log files by the hour: multi-thread if there are enough
+         * log files and threads.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param matcher the matcher of the lines to count (without the time range).
+         * @return the map of each extracted log file and the counts of its matching lines by the hour.
+         */
+        @Override
+        protected Map<ExtractedLogFile, long[]> countHourlyOccurrencesInUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups, LineMatcher matcher)
+        {
+                if (availableThreads <= 2 || groups.size() < minPathsForMultiThreading)
+                {
+                        return super.countHourlyOccurrencesInUnzippedLogFiles(groups, matcher);
+                }
+                Queue<Map.Entry<ExtractedLogFile, List<ExtractedLogFile>>> queue =
+                        new ConcurrentLinkedQueue<>(groups.entrySet());
+                Map<ExtractedLogFile, long[]> counts = new ConcurrentHashMap<>();
+                int numberOfThreads = Math.min(queue.size(), availableThreads);
+                ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+                try
+                {
+                        List<Future<?>> tasks = new ArrayList<>();
+                        for (int i = 0; i < numberOfThreads; i++)
+                        {
+                                LineMatcher threadMatcher = matcher.copy();
+                                tasks.add(executor.submit(() ->
+                                {
+                                        for (Map.Entry<ExtractedLogFile, List<ExtractedLogFile>> group = queue.poll();
+                                             group != null; group = queue.poll())
+                                        {
+                                                counts.put(group.getKey(),
+                                                        countHourlyOccurrencesInFile(group.getKey(), threadMatcher));
+                                        }
+                                }));
+                        }
+                        throwIfFailed(awaitTasks(tasks, queue));
+                } finally
+                {
+                        shutdownExecutorService(executor);
+                }
+                Map<ExtractedLogFile, long[]> result = new LinkedHashMap<>();
+                groups.forEach((logFile, duplicates) ->
+                        duplicates.forEach(duplicate -> result.put(duplicate, counts.get(logFile))));
                 return result;
         }
 
-	/**
-	 * Starts the multi-thread file processing.
-	 *
-	 * @param paths the paths of the log files in blocking queue.
-	 * @param searchQuery the search query to count lines.
-	 * @return the map of file names and the number of occurrences of the search query in lines of the file.
-	 */
-        private Map<String, Integer> countEntriesInUnzippedLogFiles(Queue<Path> paths, String searchQuery)
-	{
-                Map<String, Integer> result = new ConcurrentSkipListMap<>();
-                Runnable threadTask = createThreadTask(paths, searchQuery, result);
-                int numberOfThreads = Math.min(paths.size(), AVAILABLE_THREADS);
+        /**
+         * Starts the counting of the matching lines of the log files passing the first of them to the collectors:
+         * multi-thread if there are enough log files and threads.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param collectorFactory factory of the collector of the log files with the same content with the given
+         *                         matcher.
+         * @param matcher the matcher of the lines to count.
+         * @return the map of entry paths and the number of occurrences of the search query in lines of the file.
+         */
+        @Override
+        protected Map<String, Integer> streamMatchingLinesInUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups,
+                BiFunction<LineMatcher, List<ExtractedLogFile>, MatchedLineCollector> collectorFactory,
+                LineMatcher matcher)
+        {
+                if (availableThreads <= 2 || groups.size() < minPathsForMultiThreading)
+                {
+                        return super.streamMatchingLinesInUnzippedLogFiles(groups, collectorFactory, matcher);
+                }
+                Queue<Map.Entry<ExtractedLogFile, List<ExtractedLogFile>>> queue =
+                        new ConcurrentLinkedQueue<>(groups.entrySet());
+                Map<ExtractedLogFile, Integer> counts = new ConcurrentHashMap<>();
+                int numberOfThreads = Math.min(queue.size(), availableThreads);
                 ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+                try
+                {
+                        List<Future<?>> tasks = new ArrayList<>();
+                        for (int i = 0; i < numberOfThreads; i++)
+                        {
+                                LineMatcher threadMatcher = matcher.copy();
+                                tasks.add(executor.submit(() ->
+                                {
+                                        for (Map.Entry<ExtractedLogFile, List<ExtractedLogFile>> group = queue.poll();
+                                             group != null; group = queue.poll())
+                                        {
+                                                counts.put(group.getKey(), streamMatchingLinesInFile(group.getKey(),
+                                                        collectorFactory.apply(threadMatcher, group.getValue())));
+                                        }
+                                }));
+                        }
+                        throwIfFailed(awaitTasks(tasks, queue));
+                } finally
+                {
+                        shutdownExecutorService(executor);
+                }
+                Map<String, Integer> result = new LinkedHashMap<>();
+                groups.forEach((logFile, duplicates) ->
+                        duplicates.forEach(duplicate -> result.put(duplicate.getName(), counts.get(logFile))));
+                return result;
+        }
 
-                for (int i = 0; i < numberOfThreads; i++)
-		{
-                        executor.execute(threadTask);
+        /**
+         * Adds the log files of the queue to the aggregator of the thread until the queue is empty.
+         *
+         * @param groups the extracted log files grouped by the same content in the queue.
+         * @param aggregator the aggregator of the thread.
+         * @param <C> type of the counters of the key values.
+         * @return the aggregator of the thread.
+         */
+        private <C extends KeyCounter<C>> LineAggregator<C> aggregateQueue(
+                Queue<Map.Entry<ExtractedLogFile, List<ExtractedLogFile>>> groups, LineAggregator<C> aggregator)
+        {
+                for (Map.Entry<ExtractedLogFile, List<ExtractedLogFile>> group = groups.poll(); group != null;
+                     group = groups.poll())
+                {
+                        aggregateFile(group.getKey(), group.getValue().size(), aggregator);
+                }
+                return aggregator;
+        }
+
+        /**
+         * Starts the multi-thread file processing. All tasks are finished before the method returns, so no thread reads
+         * the log files after the workspace is closed.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param matcher the matcher of the lines to count.
+         * @return the map of entry paths and the number of occurrences of the search query in lines of the file.
+         * @throws IOException if a log file cannot be read.
+         */
+        private Map<String, Integer> countEntriesInUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups, LineMatcher matcher) throws IOException
+        {
+                Map<String, Integer> result = new ConcurrentSkipListMap<>();
+                Queue<Map.Entry<ExtractedLogFile, List<ExtractedLogFile>>> queue =
+                        new ConcurrentLinkedQueue<>(groups.entrySet());
+                int numberOfThreads = Math.min(queue.size(), availableThreads);
+                ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+                try
+                {
+                        List<Future<?>> tasks = new ArrayList<>();
+                        for (int i = 0; i < numberOfThreads; i++)
+                        {
+                                LineMatcher threadMatcher = matcher.copy();
+                                tasks.add(executor.submit(() ->
+                                {
+                                        for (Map.Entry<ExtractedLogFile, List<ExtractedLogFile>> group = queue.poll();
+                                             group != null; group = queue.poll())
+                                        {
+                                                int occurrences = countOccurrencesInFile(group.getKey(), threadMatcher);
+                                                group.getValue().forEach(logFile ->
+                                                        result.put(logFile.getName(), occurrences));
+                                        }
+                                }));
+                        }
+                        Throwable failure = awaitTasks(tasks, queue);
+                        if (failure instanceof IOException)
+                        {
+                                throw (IOException) failure;
+                        }
+                        throwIfFailed(failure);
+                } finally
+                {
+                        shutdownExecutorService(executor);
                 }
-                shutdownExecutorService(executor);
                 return result;
         }
 
-	/**
-	 * Creates the task for each thread to count the occurrences of the search query in each log file.
-	 *
-	 * @param paths the paths of the log files in blocking queue.
-	 * @param searchQuery the search query to count lines.
-	 * @param result the map of file names and the number of occurrences of the search query in lines of the file.
-	 * @return the multithreading task.
-	 */
-        private Runnable createThreadTask(Queue<Path> paths, String searchQuery, Map<String, Integer> result)
-	{
-                return () ->
-		{
+        /**
+         * Waits for all tasks of the request. After the first failure the queue of the log files is cleared, so
+         * the other tasks finish their current log files and stop, and the method still waits for them.
+         *
+         * @param tasks the tasks of the request.
+         * @param queue the queue of the log files of the tasks.
+         * @return the cause of the first failed task or null if all tasks succeeded.
+         * @throws IllegalStateException if the waiting thread is interrupted (after all tasks are finished).
+         */
+        private static Throwable awaitTasks(List<? extends Future<?>> tasks, Queue<?> queue)
+        {
+                Throwable failure = null;
+                boolean interrupted = false;
+                for (Future<?> task : tasks)
+                {
                         while (true)
-			{
-                                Path path = paths.poll();
-                                if (path == null)
-				{
-                                        break;
-                                }
-                                if (Files.isDirectory(path))
-				{
-                                        continue;
-                                }
+                        {
                                 try
-				{
-                                        int occurrences = countOccurrencesInFile(path, searchQuery);
-                                        result.put(path.getFileName().toString(), occurrences);
-                                } catch (Exception exception)
-				{
-                                        log.warn("Exception was occurred during multithreaded file processing: " +
-                                                        "{} ({}). Thread {} is going to be interrupted.",
-                                                exception.getClass().getSimpleName(), exception.getMessage(),
-                                                Thread.currentThread().getName());
-                                        Thread.currentThread().interrupt();
+                                {
+                                        task.get();
                                         break;
+                                } catch (ExecutionException exception)
+                                {
+                                        if (failure == null)
+                                        {
+                                                failure = exception.getCause();
+                                                queue.clear();
+                                        }
+                                        break;
+                                } catch (InterruptedException exception)
+                                {
+                                        interrupted = true;
+                                        queue.clear();
                                 }
                         }
-                };
+                }
+                if (interrupted)
+                {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("The log files processing was interrupted.");
+                }
+                return failure;
+        }
+
+        /**
+         * Rethrows the failure of the task: unchecked exceptions and errors as they are, checked exceptions wrapped.
+         *
+         * @param failure the cause of the failed task or null.
+         */
+        private static void throwIfFailed(Throwable failure)
+        {
+                if (failure instanceof RuntimeException)
+                {
+                        throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error)
+                {
+                        throw (Error) failure;
+                }
+                if (failure != null)
+                {
+                        throw new IllegalStateException(failure.getMessage(), failure);
+                }
         }
 
 	/**
-	 * Shuts down the executor service with timeout for threads termination.
+	 * Shuts down the executor service (its tasks are already finished).
 	 *
 	 * @param executor the executor service to shut down.
 	 */
         private void shutdownExecutorService(ExecutorService executor)
 	{
-                executor.shutdown();
-                try
-		{
-                        if (!executor.awaitTermination(3, TimeUnit.SECONDS))
-			{
-                                executor.shutdownNow();
-                        }
-                } catch (InterruptedException e)
-		{
-                        Thread.currentThread().interrupt();
+                executor.shutdownNow();
+        }
+
+        /**
+         * Factory of the daemon threads of the batch requests.
+         */
+        private static class BatchThreadFactory implements ThreadFactory
+        {
+                /** Number of the created threads. */
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable task)
+                {
+                        Thread thread = new Thread(task, "batch-analysis-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
                 }
         }
 
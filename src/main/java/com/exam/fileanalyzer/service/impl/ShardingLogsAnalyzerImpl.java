@@ -0,0 +1,400 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.Collectors;
+
+/**
+ * LogsAnalyzer interface implementation of the coordinator node - bean splitting the counting of the entries of
+ * the uploaded zip archive into the shards analysed by the worker nodes.
+ * <p> The upload is staged to the request workspace within the global disk quota of the temp directory and
+ * the entries the request would look into (log files of the appropriate dates and nested archives) are selected by
+ * the central directory of the staged archive and split into the contiguous shards of about the same number of
+ * the compressed bytes. Each shard is the smaller archive of the local entries streamed from the staged file, so it is
+ * neither recompressed nor copied to the heap and the worker analyses it as a usual upload. The shards are sent in
+ * parallel; the failed shard is sent again to the next workers and, when the attempts are exhausted, analysed by
+ * the coordinator itself. The shard rejected by the worker as an archive bomb is not sent again. The per-file results
+ * of the shards are merged in the order of the shards. The staged archive without the readable central directory or
+ * with less than two selected entries is analysed by the local analyzer from the staged file. Other uploads and other
+ * kinds of the analysis are processed by the local analyzer.
+ */
+@Slf4j
+public class ShardingLogsAnalyzerImpl implements LogsAnalyzer
+{
+        /** Suffix of the zip archive names. */
+        private static final String ZIP_SUFFIX = ".zip";
+        /** Name of the file of the staged upload in the request workspace. */
+        private static final String UPLOAD_FILE_NAME = "upload.zip";
+        /** Analyzer of the coordinator node. */
+        private final LogsAnalyzer localAnalyzer;
+        /** Bean responsible for managing zip files (selects the entries of the request). */
+        private final ZipFileManager zipFileManager;
+        /** Manager of the temporary workspaces the uploads are staged to. */
+        private final TempWorkspaceManager workspaceManager;
+        /** Client sending the shards to the worker nodes. */
+        private final ShardClient shardClient;
+        /** Base URLs of the worker nodes. */
+        private final List<String> workerUrls;
+        /** Number of the shards of the archive for each worker node. */
+        private final int shardsPerWorker;
+        /** Maximum number of the attempts to analyse the shard by the worker nodes. */
+        private final int shardAttempts;
+
+        /**
+         * Constructor with the local analyzer, beans and cluster settings.
+         *
+         * @param localAnalyzer analyzer of the coordinator node.
+         * @param zipFileManager bean responsible for managing zip files.
+         * @param workspaceManager manager of the temporary workspaces the uploads are staged to.
+         * @param shardClient client sending the shards to the worker nodes.
+         * @param workerUrls base URLs of the worker nodes.
+         * @param shardsPerWorker number of the shards of the archive for each worker node.
+         * @param shardAttempts maximum number of the attempts to analyse the shard by the worker nodes.
+         * @throws IllegalArgumentException if there are no worker nodes or the numbers are not positive.
+         */
+        public ShardingLogsAnalyzerImpl(LogsAnalyzer localAnalyzer, ZipFileManager zipFileManager,
+                                        TempWorkspaceManager workspaceManager, ShardClient shardClient,
+                                        List<String> workerUrls, int shardsPerWorker, int shardAttempts)
+        {
+                if (workerUrls.isEmpty() || shardsPerWorker < 1 || shardAttempts < 1)
+                {
+                        throw new IllegalArgumentException("The coordinator needs at least one worker, the numbers " +
+                                "of the shards per worker and the shard attempts must be positive.");
+                }
+                this.localAnalyzer = localAnalyzer;
+                this.zipFileManager = zipFileManager;
+                this.workspaceManager = workspaceManager;
+                this.shardClient = shardClient;
+                this.workerUrls = List.copyOf(workerUrls);
+                this.shardsPerWorker = shardsPerWorker;
+                this.shardAttempts = shardAttempts;
+                log.info("Coordinator of the workers {} ({} shards per worker, {} attempts per shard)",
+                        this.workerUrls, shardsPerWorker, shardAttempts);
+        }
+
+        /**
+         * Counts the number of occurrences of the search query in each file inside the zip file given with paramHolder
+         * by the worker nodes (the archives without the readable central directory, other uploads and the archives
+         * with less than two selected entries are analysed locally).
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
+         * @throws IOException if the zip file or its entries cannot be read.
+         * @throws TempDiskQuotaExceededException if staging the upload exceeds the global disk quota.
+         */
+        @Override
+        public Map<String, Integer> countEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder)
+                throws IOException
+        {
+                MultipartFile upload = paramHolder.getZipMultipartFile();
+                String uploadName = Objects.isNull(upload) ? null : upload.getOriginalFilename();
+                if (Objects.isNull(uploadName) || !uploadName.toLowerCase(Locale.ROOT).endsWith(ZIP_SUFFIX))
+                {
+                        return localAnalyzer.countEntriesInZipFile(paramHolder);
+                }
+                try (TempWorkspace workspace = workspaceManager.createWorkspace())
+                {
+                        Path uploadPath;
+                        try (InputStream content = upload.getInputStream())
+                        {
+                                uploadPath = workspace.stage(UPLOAD_FILE_NAME, content);
+                        }
+                        CountEntriesParamHolder stagedParamHolder = paramHolder.toBuilder()
+                                .zipMultipartFile(new StagedMultipartFile(uploadName, Files.size(uploadPath),
+                                        () -> Files.newInputStream(uploadPath)))
+                                .build();
+                        ZipCentralDirectory centralDirectory = ZipCentralDirectory.read(uploadPath);
+                        if (Objects.isNull(centralDirectory))
+                        {
+                                log.warn("The central directory of '{}' cannot be read, the archive is analysed " +
+                                        "locally.", uploadName);
+                                return localAnalyzer.countEntriesInZipFile(stagedParamHolder);
+                        }
+                        Predicate<String> entrySelector = zipFileManager.createEntrySelector(paramHolder);
+                        List<ZipCentralDirectory.Entry> selectedEntries = centralDirectory.getEntries().stream()
+                                .filter(entry -> !entry.isDirectory() && entrySelector.test(entry.getName()))
+                                .collect(Collectors.toList());
+                        if (selectedEntries.size() < 2)
+                        {
+                                return localAnalyzer.countEntriesInZipFile(stagedParamHolder);
+                        }
+                        List<List<ZipCentralDirectory.Entry>> shards =
+                                splitIntoShards(selectedEntries, workerUrls.size() * shardsPerWorker);
+                        log.debug("Sending {} selected entries of '{}' to the workers in {} shards.",
+                                selectedEntries.size(), uploadName, shards.size());
+                        return countEntriesInShards(paramHolder, centralDirectory, shards);
+                }
+        }
+
+        @Override
+        public Map<String, Map<String, Long>> aggregateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                        @NonNull List<String> groupByKeys, int limit)
+                throws IOException
+        {
+                return localAnalyzer.aggregateEntriesInZipFile(paramHolder, groupByKeys, limit);
+        }
+
+        @Override
+        public Map<String, KeySketchSummary> sketchEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                    @NonNull List<String> groupByKeys, int limit)
+                throws IOException
+        {
+                return localAnalyzer.sketchEntriesInZipFile(paramHolder, groupByKeys, limit);
+        }
+
+        @Override
+        public Map<String, Integer> streamMatchingLines(@NonNull CountEntriesParamHolder paramHolder, int maxLines,
+                                                        int linesBefore, int linesAfter,
+                                                        @NonNull Consumer<MatchedLine> listener) throws IOException
+        {
+                return localAnalyzer.streamMatchingLines(paramHolder, maxLines, linesBefore, linesAfter, listener);
+        }
+
+        @Override
+        public List<List<Map<String, Integer>>> countEntriesInZipFiles(@NonNull List<MultipartFile> zipFiles,
+                                                                       @NonNull List<CountEntriesParamHolder> queries)
+                throws IOException
+        {
+                return localAnalyzer.countEntriesInZipFiles(zipFiles, queries);
+        }
+
+        @Override
+        public Map<String, ApproximateCount> approximateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                         double targetError, Long timeBudgetMillis)
+                throws IOException
+        {
+                return localAnalyzer.approximateEntriesInZipFile(paramHolder, targetError, timeBudgetMillis);
+        }
+
+        /**
+         * Splits the entries into the contiguous shards of about the same number of the bytes.
+         *
+         * @param entries the selected entries in the order of the central directory.
+         * @param maxShards maximum number of the shards.
+         * @return the not empty shards.
+         */
+        static List<List<ZipCentralDirectory.Entry>> splitIntoShards(List<ZipCentralDirectory.Entry> entries,
+                                                                    int maxShards)
+        {
+                long totalBytes = 0;
+                for (ZipCentralDirectory.Entry entry : entries)
+                {
+                        totalBytes += entry.getLength();
+                }
+                List<List<ZipCentralDirectory.Entry>> shards = new ArrayList<>();
+                long bytesBefore = 0;
+                long currentShard = -1;
+                for (ZipCentralDirectory.Entry entry : entries)
+                {
+                        long shard = Math.min(maxShards - 1, bytesBefore * maxShards / Math.max(totalBytes, 1));
+                        if (shard != currentShard)
+                        {
+                                shards.add(new ArrayList<>());
+                                currentShard = shard;
+                        }
+                        shards.get(shards.size() - 1).add(entry);
+                        bytesBefore += entry.getLength();
+                }
+                return shards;
+        }
+
+        /**
+         * Analyses the shards in parallel and merges their results in the order of the shards.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param centralDirectory central directory of the uploaded archive.
+         * @param shards the shards of the selected entries.
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
+         * @throws IOException if the shard cannot be analysed by the workers and the coordinator.
+         */
+        private Map<String, Integer> countEntriesInShards(CountEntriesParamHolder paramHolder,
+                                                          ZipCentralDirectory centralDirectory,
+                                                          List<List<ZipCentralDirectory.Entry>> shards)
+                throws IOException
+        {
+                String uploadName = paramHolder.getZipMultipartFile().getOriginalFilename();
+                ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+                try
+                {
+                        List<Future<Map<String, Integer>>> shardResults = new ArrayList<>();
+                        for (int i = 0; i < shards.size(); i++)
+                        {
+                                int shardIndex = i;
+                                List<ZipCentralDirectory.Entry> shard = shards.get(i);
+                                long shardSize = shard.stream()
+                                        .mapToLong(ZipCentralDirectory.Entry::getLength)
+                                        .sum();
+                                CountEntriesParamHolder shardParamHolder = paramHolder.toBuilder()
+                                        .zipMultipartFile(new StagedMultipartFile(uploadName, shardSize,
+                                                () -> centralDirectory.openEntries(shard)))
+                                        .build();
+                                shardResults.add(executor.submit(() -> countEntriesInShard(shardIndex,
+                                        shardParamHolder)));
+                        }
+                        Map<String, Integer> result = new LinkedHashMap<>();
+                        for (Future<Map<String, Integer>> shardResult : shardResults)
+                        {
+                                result.putAll(shardResult.get());
+                        }
+                        return result;
+                } catch (ExecutionException exception)
+                {
+                        Throwable cause = exception.getCause();
+                        if (cause instanceof IOException)
+                        {
+                                throw (IOException) cause;
+                        }
+                        if (cause instanceof RuntimeException)
+                        {
+                                throw (RuntimeException) cause;
+                        }
+                        throw new IllegalStateException(cause.getMessage(), cause);
+                } catch (InterruptedException exception)
+                {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("The analysis of the shards was interrupted.");
+                } finally
+                {
+                        executor.shutdownNow();
+                }
+        }
+
+        /**
+         * Analyses the shard by the workers starting with the worker of the shard index and trying the next workers
+         * on failures, then by the coordinator itself. The request rejected by the worker as invalid or as the archive
+         * bomb is not repeated.
+         *
+         * @param shardIndex index of the shard.
+         * @param shardParamHolder object containing the search query, the shard, start date, and number of days.
+         * @return A map of full entry paths and the number of occurrences of the search query in the file.
+         * @throws InflationBudgetExceededException if the worker rejected the shard as the archive bomb.
+         * @throws IOException if the shard cannot be analysed by the coordinator.
+         */
+        private Map<String, Integer> countEntriesInShard(int shardIndex, CountEntriesParamHolder shardParamHolder)
+                throws IOException
+        {
+                for (int attempt = 0; attempt < shardAttempts; attempt++)
+                {
+                        String workerUrl = workerUrls.get((shardIndex + attempt) % workerUrls.size());
+                        try
+                        {
+                                return shardClient.countEntries(workerUrl, shardParamHolder);
+                        } catch (InflationBudgetExceededException exception)
+                        {
+                                throw exception;
+                        } catch (IOException exception)
+                        {
+                                log.warn("Attempt {} of the shard {} failed: {}", attempt + 1, shardIndex,
+                                        exception.getMessage());
+                        }
+                }
+                log.warn("The shard {} is analysed by the coordinator after {} failed attempts.", shardIndex,
+                        shardAttempts);
+                return localAnalyzer.countEntriesInZipFile(shardParamHolder);
+        }
+
+        /**
+         * Source of the content of the staged file.
+         */
+        @FunctionalInterface
+        private interface ContentSource
+        {
+                /**
+                 * Opens the stream with the content.
+                 *
+                 * @return the stream with the content.
+                 * @throws IOException if the content cannot be opened.
+                 */
+                InputStream open() throws IOException;
+        }
+
+        /**
+         * Uploaded file streamed from the staged archive (the whole upload or the archive of the shard entries).
+         */
+        private static class StagedMultipartFile implements MultipartFile
+        {
+                /** Original name of the uploaded archive. */
+                private final String originalFilename;
+                /** Size of the file. */
+                private final long size;
+                /** Source of the file content. */
+                private final ContentSource contentSource;
+
+                /**
+                 * Constructor with the name, the size and the content of the file.
+                 *
+                 * @param originalFilename original name of the uploaded archive.
+                 * @param size size of the file.
+                 * @param contentSource source of the file content.
+                 */
+                StagedMultipartFile(String originalFilename, long size, ContentSource contentSource)
+                {
+                        this.originalFilename = originalFilename;
+                        this.size = size;
+                        this.contentSource = contentSource;
+                }
+
+                @Override
+                public String getName()
+                {
+                        return "file";
+                }
+
+                @Override
+                public String getOriginalFilename()
+                {
+                        return originalFilename;
+                }
+
+                @Override
+                public String getContentType()
+                {
+                        return "application/zip";
+                }
+
+                @Override
+                public boolean isEmpty()
+                {
+                        return size == 0;
+                }
+
+                @Override
+                public long getSize()
+                {
+                        return size;
+                }
+
+                @Override
+                public byte[] getBytes() throws IOException
+                {
+                        try (InputStream content = getInputStream())
+                        {
+                                return content.readAllBytes();
+                        }
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException
+                {
+                        return contentSource.open();
+                }
+
+                @Override
+                public void transferTo(File destination) throws IOException
+                {
+                        try (InputStream content = getInputStream())
+                        {
+                                Files.copy(content, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                }
+        }
+
+}
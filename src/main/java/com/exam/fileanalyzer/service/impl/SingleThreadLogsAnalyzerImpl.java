@@ -1,15 +1,21 @@
 package com.exam.fileanalyzer.service.impl;
 
 import com.exam.fileanalyzer.service.*;
+import com.exam.fileanalyzer.service.scan.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.*;
 
 /**
  * LogsAnalyzer interface implementation - bean responsible for the single-thread only log file analysis.
@@ -18,71 +24,911 @@ import java.util.stream.Stream;
 @Service
 public class SingleThreadLogsAnalyzerImpl implements LogsAnalyzer
 {
+        /** Maximum number of the most frequent values of each key in the approximate aggregation result. */
+        private static final int MAX_SKETCH_LIMIT = 1000;
+        /** Minimum number of the heavy hitter candidates of the sketch of each key. */
+        private static final int MIN_SKETCH_CAPACITY = 64;
         /** Bean responsible for managing zip files. */
         protected final ZipFileManager zipFileManager;
+        /** Bean responsible for the rollups of the analysed archives (null if the rollups are not used). */
+        protected final RollupStore rollupStore;
+
+        /**
+         * Constructor with bean injection (without the rollups).
+         *
+         * @param zipFileManager bean responsible for managing zip files.
+         */
+        public SingleThreadLogsAnalyzerImpl(ZipFileManager zipFileManager) {
+                this(zipFileManager, null);
+        }
 
         /**
          * Constructor with bean injection.
          *
          * @param zipFileManager bean responsible for managing zip files.
+         * @param rollupStore bean responsible for the rollups of the analysed archives.
          */
         @Autowired
-        public SingleThreadLogsAnalyzerImpl(ZipFileManager zipFileManager) {
+        public SingleThreadLogsAnalyzerImpl(ZipFileManager zipFileManager, RollupStore rollupStore) {
                 this.zipFileManager = zipFileManager;
+                this.rollupStore = rollupStore;
         }
 
         /**
          * Counts the number of occurrences of the search query in each file inside the zip file given with paramHolder.
          *
          * @param paramHolder object containing the search query, zip file, start date, and number of days.
-         * @return A map of file names and the number of occurrences of the search query in the file.
+         * @return A map of entry paths and the number of occurrences of the search query in the file.
          * @throws IOException if the zip file or its entries cannot be read.
          */
         @Override
         public Map<String, Integer> countEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder)
                 throws IOException
         {
-                List<Path> paths = zipFileManager.getPathsOfLogFilesForAnalysis(paramHolder, null);
-                Map<String, Integer> result = countEntriesInUnzippedLogFiles(paths, paramHolder.getSearchQuery());
-                zipFileManager.deleteTempLogFiles(paths);
+                LineMatcher matcher = createLineMatcher(paramHolder);
+                if (isRollupQuery(paramHolder))
+                {
+                        return countEntriesWithRollups(paramHolder);
+                }
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder))
+                {
+                        return countEntriesInUnzippedLogFiles(workspace.getLogFiles(), matcher);
+                }
+        }
+
+        /**
+         * Counts the number of occurrences of each search query in each file inside each of the zip files. The zip
+         * files are extracted one by one and the counting tasks of the files of each zip file are passed to
+         * the {@link #getBatchExecutor() batch executor} as soon as the zip file is extracted.
+         *
+         * @param zipFiles the multipart zip files to search in.
+         * @param queries objects containing the search queries with the same date and time range.
+         * @return A list with the result of each zip file: a list with the map of entry paths and the number of
+         * occurrences of each search query in the file for each query.
+         * @throws IOException if the zip files or their entries cannot be read.
+         */
+        @Override
+        public List<List<Map<String, Integer>>> countEntriesInZipFiles(@NonNull List<MultipartFile> zipFiles,
+                                                                       @NonNull List<CountEntriesParamHolder> queries)
+                throws IOException
+        {
+                checkBatchRequest(zipFiles, queries);
+                List<LineMatcher> matchers = new ArrayList<>();
+                for (CountEntriesParamHolder query : queries)
+                {
+                        matchers.add(createLineMatcher(query));
+                }
+                Executor executor = getBatchExecutor();
+                AtomicBoolean cancelled = new AtomicBoolean();
+                List<TempWorkspace> workspaces = new ArrayList<>();
+                List<List<CompletableFuture<Map<String, Integer>>>> tasks = new ArrayList<>();
+                try
+                {
+                        for (MultipartFile zipFile : zipFiles)
+                        {
+                                TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(
+                                        queries.get(0).toBuilder().zipMultipartFile(zipFile).build());
+                                workspaces.add(workspace);
+                                Map<ExtractedLogFile, List<ExtractedLogFile>> groups =
+                                        groupByContent(workspace.getLogFiles());
+                                List<CompletableFuture<Map<String, Integer>>> zipFileTasks = new ArrayList<>();
+                                for (LineMatcher matcher : matchers)
+                                {
+                                        zipFileTasks.add(submitBatchTasks(groups, matcher, executor, cancelled));
+                                }
+                                tasks.add(zipFileTasks);
+                        }
+                        List<List<Map<String, Integer>>> result = new ArrayList<>();
+                        for (List<CompletableFuture<Map<String, Integer>>> zipFileTasks : tasks)
+                        {
+                                List<Map<String, Integer>> zipFileResult = new ArrayList<>();
+                                for (CompletableFuture<Map<String, Integer>> task : zipFileTasks)
+                                {
+                                        zipFileResult.add(task.join());
+                                }
+                                result.add(zipFileResult);
+                        }
+                        return result;
+                } catch (CompletionException exception)
+                {
+                        if (exception.getCause() instanceof RuntimeException)
+                        {
+                                throw (RuntimeException) exception.getCause();
+                        }
+                        throw new IllegalStateException(exception.getCause().getMessage(), exception.getCause());
+                } finally
+                {
+                        cancelled.set(true);
+                        tasks.stream()
+                                .flatMap(List::stream)
+                                .forEach(task -> task.handle((counts, exception) -> null).join());
+                        for (TempWorkspace workspace : workspaces)
+                        {
+                                workspace.close();
+                        }
+                }
+        }
+
+        /**
+         * Counts the lines matching the request of paramHolder in all files inside the zip file grouped by the values
+         * of each group-by key.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param groupByKeys names of the group-by keys.
+         * @param limit maximum number of the values of each key in the result.
+         * @return A map of the key names and the maps of the key values and the numbers of the lines.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        @Override
+        public Map<String, Map<String, Long>> aggregateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                        @NonNull List<String> groupByKeys, int limit)
+                throws IOException
+        {
+                List<GroupByKey> keys = parseGroupByKeys(groupByKeys);
+                if (limit < 1)
+                {
+                        throw new IllegalArgumentException("The limit of the aggregation result must be positive.");
+                }
+                Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+                aggregateZipFile(paramHolder, keys, () -> new ByteSliceCountMap(LineAggregator.MAX_KEYS)).forEach(
+                        (keyName, counts) -> result.put(keyName, counts.toTopMap(limit, LineAggregator.OTHER_KEY)));
+                return result;
+        }
+
+        /**
+         * Estimates the distinct values and the most frequent values of each group-by key of the lines matching
+         * the request of paramHolder in fixed memory.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param groupByKeys names of the group-by keys.
+         * @param limit maximum number of the most frequent values of each key in the result.
+         * @return A map of the key names and the estimates of the key values with their error bounds.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        @Override
+        public Map<String, KeySketchSummary> sketchEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                    @NonNull List<String> groupByKeys, int limit)
+                throws IOException
+        {
+                List<GroupByKey> keys = parseGroupByKeys(groupByKeys);
+                if (limit < 1 || limit > MAX_SKETCH_LIMIT)
+                {
+                        throw new IllegalArgumentException(String.format(
+                                "The limit of the approximate aggregation result must be from 1 to %d.",
+                                MAX_SKETCH_LIMIT));
+                }
+                int capacity = Math.max(limit * 4, MIN_SKETCH_CAPACITY);
+                Map<String, KeySketchSummary> result = new LinkedHashMap<>();
+                aggregateZipFile(paramHolder, keys, () -> new KeySketch(capacity)).forEach((keyName, sketch) ->
+                        result.put(keyName, KeySketchSummary.builder()
+                                .lines(sketch.getCount())
+                                .distinctValues(sketch.estimateDistinctValues())
+                                .distinctValuesRelativeError(HyperLogLog.RELATIVE_STANDARD_ERROR)
+                                .topValues(sketch.getTopValues(limit))
+                                .topValuesMaxOverestimate(sketch.getMaxCountOverestimate())
+                                .topValuesConfidence(CountMinTopK.CONFIDENCE)
+                                .build()));
+                return result;
+        }
+
+        /**
+         * Checks if the counting request can be answered with the rollups: the rollups are enabled, there is
+         * the uploaded file and the time range (if any) consists of whole hours.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @return true if the request can be answered with the rollups.
+         */
+        protected boolean isRollupQuery(CountEntriesParamHolder paramHolder)
+        {
+                LocalTime startTime = paramHolder.getStartTime();
+                LocalTime endTime = paramHolder.getEndTime();
+                return Objects.nonNull(rollupStore) && rollupStore.isEnabled() &&
+                        Objects.nonNull(paramHolder.getZipMultipartFile()) &&
+                        (Objects.isNull(startTime) || startTime.equals(startTime.truncatedTo(ChronoUnit.HOURS))) &&
+                        (Objects.isNull(endTime) || endTime.equals(endTime.truncatedTo(ChronoUnit.HOURS)));
+        }
+
+        /**
+         * Counts the number of occurrences of the search query in each file inside the zip file with the rollups.
+         * <p> The log files of the archive known from the previous requests are selected by the date conditions, their
+         * hourly counts for the query are taken from the rollups, so the request fully covered by the rollups does not
+         * extract the archive. Otherwise only the log files without the rollups are extracted and scanned (the first
+         * extraction of the archive also records all its log files), their hourly counts are stored as the rollups.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @return A map of entry paths and the number of occurrences of the search query in the file.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        protected Map<String, Integer> countEntriesWithRollups(CountEntriesParamHolder paramHolder) throws IOException
+        {
+                String archiveId = rollupStore.identifyArchive(paramHolder.getZipMultipartFile());
+                String query = createRollupQuery(paramHolder);
+                LogFileDateRange dateRange = new LogFileDateRange(paramHolder);
+                Optional<Map<String, Long>> knownLogFiles = rollupStore.getLogFiles(archiveId);
+                Map<String, Long> logFiles = new LinkedHashMap<>(knownLogFiles.orElse(Map.of()));
+                Map<String, long[]> hourlyCounts = new HashMap<>();
+                Set<String> uncoveredLogFiles = new HashSet<>();
+                logFiles.forEach((entryPath, dateAndHour) ->
+                {
+                        if (dateRange.contains(dateAndHour))
+                        {
+                                rollupStore.getHourlyCounts(archiveId, query, entryPath).ifPresentOrElse(
+                                        counts -> hourlyCounts.put(entryPath, counts),
+                                        () -> uncoveredLogFiles.add(entryPath));
+                        }
+                });
+                if (knownLogFiles.isEmpty() || !uncoveredLogFiles.isEmpty())
+                {
+                        log.debug("Scanning {} log files not covered by the rollups.",
+                                knownLogFiles.isEmpty() ? "all" : uncoveredLogFiles.size());
+                        ZipFileManager.LogFileFilter filter = (entryPath, dateAndHour) ->
+                        {
+                                if (knownLogFiles.isEmpty())
+                                {
+                                        logFiles.put(entryPath, dateAndHour);
+                                        return true;
+                                }
+                                return uncoveredLogFiles.contains(entryPath);
+                        };
+                        try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder, filter))
+                        {
+                                if (knownLogFiles.isEmpty())
+                                {
+                                        rollupStore.putLogFiles(archiveId, logFiles);
+                                }
+                                countHourlyOccurrencesInUnzippedLogFiles(groupByContent(workspace.getLogFiles()),
+                                        createContentMatcher(paramHolder)).forEach((logFile, counts) ->
+                                {
+                                        hourlyCounts.put(logFile.getName(), counts);
+                                        rollupStore.putHourlyCounts(archiveId, query, logFile.getName(), counts);
+                                });
+                        }
+                } else
+                {
+                        log.debug("The request is answered with the rollups of {} log files.", hourlyCounts.size());
+                }
+                boolean allDay = Objects.isNull(paramHolder.getStartTime()) && Objects.isNull(paramHolder.getEndTime());
+                int firstHour = Objects.isNull(paramHolder.getStartTime()) ? 0 : paramHolder.getStartTime().getHour();
+                int endHour = Objects.isNull(paramHolder.getEndTime()) ? 24 : paramHolder.getEndTime().getHour();
+                Map<String, Integer> result = new LinkedHashMap<>();
+                logFiles.forEach((entryPath, dateAndHour) ->
+                {
+                        long[] counts = hourlyCounts.get(entryPath);
+                        if (Objects.nonNull(counts))
+                        {
+                                result.put(entryPath, (int) HourlyLineCounter.sum(counts, firstHour, endHour, allDay));
+                        }
+                });
+                return result;
+        }
+
+        /**
+         * Starts the single-thread counting of the matching lines of the log files by the hour.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param matcher the matcher of the lines to count (without the time range).
+         * @return the map of each extracted log file and the counts of its matching lines by the hour.
+         */
+        protected Map<ExtractedLogFile, long[]> countHourlyOccurrencesInUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups, LineMatcher matcher)
+        {
+                Map<ExtractedLogFile, long[]> result = new LinkedHashMap<>();
+                groups.forEach((logFile, duplicates) ->
+                {
+                        long[] counts = countHourlyOccurrencesInFile(logFile, matcher);
+                        duplicates.forEach(duplicate -> result.put(duplicate, counts));
+                });
                 return result;
         }
 
+        /**
+         * Counts the number of occurrences of the search query in each file inside the zip file and passes the first
+         * matching lines of each file with their context lines to the listener in the same pass.
+         * <p> The log files with the same content are scanned once, their matching lines are passed for each of them.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param maxLines maximum number of the matching lines of each file passed to the listener.
+         * @param linesBefore number of the context lines before each matching line.
+         * @param linesAfter number of the context lines after each matching line.
+         * @param listener receiver of the matching lines (the calls are serialized).
+         * @return A map of entry paths and the number of occurrences of the search query in the file.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        @Override
+        public Map<String, Integer> streamMatchingLines(@NonNull CountEntriesParamHolder paramHolder, int maxLines,
+                                                        int linesBefore, int linesAfter,
+                                                        @NonNull Consumer<MatchedLine> listener) throws IOException
+        {
+                MatchedLineCollector.validateLimits(maxLines, linesBefore, linesAfter);
+                LineMatcher matcher = createLineMatcher(paramHolder);
+                Object listenerLock = new Object();
+                BiFunction<LineMatcher, List<ExtractedLogFile>, MatchedLineCollector> collectorFactory =
+                        (fileMatcher, duplicates) -> new MatchedLineCollector(fileMatcher, maxLines, linesBefore,
+                                linesAfter, (offset, line, before, after) ->
+                        {
+                                synchronized (listenerLock)
+                                {
+                                        duplicates.forEach(duplicate -> listener.accept(MatchedLine.builder()
+                                                .file(duplicate.getName())
+                                                .offset(offset)
+                                                .line(line)
+                                                .before(before)
+                                                .after(after)
+                                                .build()));
+                                }
+                        });
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder))
+                {
+                        return streamMatchingLinesInUnzippedLogFiles(groupByContent(workspace.getLogFiles()),
+                                collectorFactory, matcher);
+                }
+        }
+
+        /**
+         * Estimates the number of the lines matching the request of paramHolder in each file inside the zip file by
+         * the random sample of the blocks of the file.
+         * <p> The time budget is counted from the start of the request. The log file started before the time is up
+         * is cut short after its current block, the log files after it are skipped (both are marked as timed out).
+         * The compressed log files cannot be read randomly, so they are counted exactly over their inflated bytes.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param targetError target relative margin of error of the estimates (from 0 to 1).
+         * @param timeBudgetMillis time budget of the request in milliseconds or null for the target error only.
+         * @return A map of entry paths and the estimated numbers of the lines with their confidence intervals.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        @Override
+        public Map<String, ApproximateCount> approximateEntriesInZipFile(@NonNull CountEntriesParamHolder paramHolder,
+                                                                         double targetError, Long timeBudgetMillis)
+                throws IOException
+        {
+                long startNanos = System.nanoTime();
+                if (!(targetError > 0 && targetError < 1))
+                {
+                        throw new IllegalArgumentException(
+                                "The target error of the approximate count must be between 0 and 1.");
+                }
+                if (Objects.nonNull(timeBudgetMillis) && timeBudgetMillis < 1)
+                {
+                        throw new IllegalArgumentException(
+                                "The time budget of the approximate count must be positive.");
+                }
+                BooleanSupplier timeIsUp = Objects.isNull(timeBudgetMillis) ? () -> false :
+                        () -> System.nanoTime() - startNanos >= timeBudgetMillis * 1_000_000;
+                LineMatcher matcher = createLineMatcher(paramHolder);
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder))
+                {
+                        Random random = new Random();
+                        Map<String, ApproximateCount> result = new LinkedHashMap<>();
+                        groupByContent(workspace.getLogFiles()).forEach((logFile, duplicates) ->
+                        {
+                                ApproximateCount count = timeIsUp.getAsBoolean() ? skipFile(logFile, matcher) :
+                                        approximateOccurrencesInFile(logFile, matcher, targetError, timeIsUp, random);
+                                duplicates.forEach(duplicate -> result.put(duplicate.getName(), count));
+                        });
+                        return result;
+                }
+        }
+
+        /**
+         * Extracts the log files of the request and counts the values of the group-by keys of the matching lines.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param keys the group-by keys.
+         * @param counterFactory factory of the counter of the values of each key.
+         * @param <C> type of the counters of the key values.
+         * @return the map of the key names and the counters of the key values.
+         * @throws IOException if the zip file or its entries cannot be read.
+         */
+        private <C extends KeyCounter<C>> Map<String, C> aggregateZipFile(CountEntriesParamHolder paramHolder,
+                                                                          List<GroupByKey> keys,
+                                                                          Supplier<C> counterFactory)
+                throws IOException
+        {
+                LineMatcher matcher = createLineMatcher(paramHolder);
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(paramHolder))
+                {
+                        return aggregateUnzippedLogFiles(groupByContent(workspace.getLogFiles()),
+                                lineMatcher -> new LineAggregator<>(keys, lineMatcher, counterFactory), matcher)
+                                .getCounters();
+                }
+        }
+
+        /**
+         * Starts the single-thread log file aggregation.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param aggregatorFactory factory of the aggregator with the given matcher.
+         * @param matcher the matcher of the lines to count.
+         * @param <C> type of the counters of the key values.
+         * @return the aggregator with the counts of all log files.
+         */
+        protected <C extends KeyCounter<C>> LineAggregator<C> aggregateUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups,
+                Function<LineMatcher, LineAggregator<C>> aggregatorFactory, LineMatcher matcher)
+        {
+                LineAggregator<C> aggregator = aggregatorFactory.apply(matcher);
+                groups.forEach((logFile, duplicates) -> aggregateFile(logFile, duplicates.size(), aggregator));
+                return aggregator;
+        }
+
         /**
          * Starts the single-thread log file processing.
          *
-         * @param paths the paths of the log files in list.
-         * @param searchQuery the search query to count lines.
-         * @return the map of file names and the number of occurrences of the search query in lines of the file.
+         * @param logFiles the extracted log files in list.
+         * @param matcher the matcher of the lines to count.
+         * @return the map of entry paths and the number of occurrences of the search query in lines of the file.
          */
-        protected Map<String, Integer> countEntriesInUnzippedLogFiles(List<Path> paths, String searchQuery)
+        protected Map<String, Integer> countEntriesInUnzippedLogFiles(List<ExtractedLogFile> logFiles,
+                                                                      LineMatcher matcher)
         {
                 Map<String, Integer> result = new LinkedHashMap<>();
-                paths.stream()
-                        .filter(Files::isRegularFile)
-                        .forEach(path -> result.put(path.getFileName().toString(),
-                                countOccurrencesInFile(path, searchQuery)));
+                groupByContent(logFiles).forEach((logFile, duplicates) ->
+                {
+                        int occurrences = countOccurrencesInFile(logFile, matcher);
+                        duplicates.forEach(duplicate -> result.put(duplicate.getName(), occurrences));
+                });
                 return result;
         }
 
+        /**
+         * Returns the executor of the counting tasks of the batch requests.
+         *
+         * @return the executor running the tasks in the calling thread.
+         */
+        protected Executor getBatchExecutor()
+        {
+                return Runnable::run;
+        }
+
+        /**
+         * Passes the counting tasks of the log files of one zip file with one search query to the executor.
+         * The tasks started after the cancellation of the request are skipped.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param matcher the matcher of the lines to count (each task uses its own copy).
+         * @param executor the executor of the tasks.
+         * @param cancelled flag of the cancelled request.
+         * @return the future of the map of entry paths and the number of occurrences in the order of the entries.
+         */
+        private CompletableFuture<Map<String, Integer>> submitBatchTasks(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups, LineMatcher matcher, Executor executor,
+                AtomicBoolean cancelled)
+        {
+                Map<ExtractedLogFile, CompletableFuture<Integer>> groupTasks = new LinkedHashMap<>();
+                groups.keySet().forEach(logFile -> groupTasks.put(logFile, CompletableFuture.supplyAsync(() ->
+                {
+                        if (cancelled.get())
+                        {
+                                throw new CancellationException("The batch request is cancelled.");
+                        }
+                        return countOccurrencesInFile(logFile, matcher.copy());
+                }, executor)));
+                return CompletableFuture.allOf(groupTasks.values().toArray(new CompletableFuture<?>[0]))
+                        .thenApply(ignored ->
+                        {
+                                Map<String, Integer> result = new LinkedHashMap<>();
+                                groups.forEach((logFile, duplicates) ->
+                                {
+                                        int occurrences = groupTasks.get(logFile).join();
+                                        duplicates.forEach(duplicate -> result.put(duplicate.getName(), occurrences));
+                                });
+                                return result;
+                        });
+        }
+
+        /**
+         * Checks that the batch request has the zip files and the queries with the same date and time range.
+         *
+         * @param zipFiles the multipart zip files to search in.
+         * @param queries objects containing the search queries.
+         * @throws IllegalArgumentException if the batch request is invalid.
+         */
+        private void checkBatchRequest(List<MultipartFile> zipFiles, List<CountEntriesParamHolder> queries)
+        {
+                if (zipFiles.isEmpty() || queries.isEmpty())
+                {
+                        throw new IllegalArgumentException("The batch request needs at least one zip file and one " +
+                                "query.");
+                }
+                CountEntriesParamHolder first = queries.get(0);
+                for (CountEntriesParamHolder query : queries)
+                {
+                        if (!Objects.equals(query.getStartDate(), first.getStartDate()) ||
+                                !Objects.equals(query.getNumberOfDays(), first.getNumberOfDays()) ||
+                                !Objects.equals(query.getStartTime(), first.getStartTime()) ||
+                                !Objects.equals(query.getEndTime(), first.getEndTime()))
+                        {
+                                throw new IllegalArgumentException("The queries of the batch request must have " +
+                                        "the same date and time range.");
+                        }
+                }
+        }
+
+        /**
+         * Starts the single-thread counting of the matching lines of the log files passing the first of them to
+         * the collectors.
+         *
+         * @param groups the extracted log files grouped by the same content.
+         * @param collectorFactory factory of the collector of the log files with the same content with the given
+         *                         matcher.
+         * @param matcher the matcher of the lines to count.
+         * @return the map of entry paths and the number of occurrences of the search query in lines of the file.
+         */
+        protected Map<String, Integer> streamMatchingLinesInUnzippedLogFiles(
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups,
+                BiFunction<LineMatcher, List<ExtractedLogFile>, MatchedLineCollector> collectorFactory,
+                LineMatcher matcher)
+        {
+                Map<String, Integer> result = new LinkedHashMap<>();
+                groups.forEach((logFile, duplicates) ->
+                {
+                        int occurrences = streamMatchingLinesInFile(logFile,
+                                collectorFactory.apply(matcher, duplicates));
+                        duplicates.forEach(duplicate -> result.put(duplicate.getName(), occurrences));
+                });
+                return result;
+        }
+
+        /**
+         * Creates the matcher of the lines to count by the request parameters.
+         *
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @return the matcher of the lines containing the search query (in the search mode of the request),
+         * satisfying the field filters and the time range, or matching all lines if there are no conditions.
+         * @throws IllegalArgumentException if the search query of the regex mode, the field filter or the time range
+         * is invalid.
+         */
+        protected LineMatcher createLineMatcher(CountEntriesParamHolder paramHolder)
+        {
+                LineMatcher matcher = createContentMatcher(paramHolder);
+                if (Objects.nonNull(paramHolder.getStartTime()) || Objects.nonNull(paramHolder.getEndTime()))
+                {
+                        matcher = new TimeRangeLineMatcher(
+                                new TimeOfDayRange(paramHolder.getStartTime(), paramHolder.getEndTime()), matcher);
+                }
+                return matcher;
+        }
+
+        /**
+         * Creates the matcher of the lines by the search query and the field filters (regardless of the time range).
+         *
+         * @param paramHolder object containing the search query, the search mode and the field filters.
+         * @return the matcher of the lines containing the search query and satisfying the field filters.
+         * @throws IllegalArgumentException if the search query of the regex mode or the field filter is invalid.
+         */
+        protected LineMatcher createContentMatcher(CountEntriesParamHolder paramHolder)
+        {
+                LineMatcher matcher = createTextMatcher(paramHolder);
+                List<String> fieldFilters = paramHolder.getFieldFilters();
+                if (Objects.nonNull(fieldFilters) && !fieldFilters.isEmpty())
+                {
+                        List<FieldPredicate> predicates = new ArrayList<>();
+                        fieldFilters.forEach(fieldFilter -> predicates.add(FieldPredicate.parse(fieldFilter)));
+                        matcher = new FieldFilterLineMatcher(predicates, matcher);
+                }
+                return matcher;
+        }
+
+        /**
+         * Creates the query of the rollups: the search mode, the search query and the sorted field filters.
+         *
+         * @param paramHolder object containing the search query, the search mode and the field filters.
+         * @return the query of the rollups.
+         */
+        private String createRollupQuery(CountEntriesParamHolder paramHolder)
+        {
+                StringBuilder query = new StringBuilder(paramHolder.getSearchMode().name());
+                query.append(Objects.isNull(paramHolder.getSearchQuery()) ? "*" : "=" + paramHolder.getSearchQuery());
+                List<String> fieldFilters = new ArrayList<>(Objects.requireNonNullElse(paramHolder.getFieldFilters(),
+                        List.of()));
+                Collections.sort(fieldFilters);
+                fieldFilters.forEach(fieldFilter -> query.append('\n').append(fieldFilter.trim()));
+                return query.toString();
+        }
+
+        /**
+         * Creates the matcher of the line text by the search query and the search mode.
+         *
+         * @param paramHolder object containing the search query and the search mode.
+         * @return the matcher of the lines containing the search query or matching all lines if the query is null.
+         */
+        private LineMatcher createTextMatcher(CountEntriesParamHolder paramHolder)
+        {
+                String searchQuery = paramHolder.getSearchQuery();
+                if (Objects.isNull(searchQuery))
+                {
+                        return LineMatcher.ALL;
+                }
+                switch (paramHolder.getSearchMode())
+                {
+                        case ICASE:
+                                return new LiteralLineMatcher(searchQuery, true);
+                        case REGEX:
+                                return new RegexLineMatcher(searchQuery);
+                        default:
+                                return new LiteralLineMatcher(searchQuery);
+                }
+        }
+
+        /**
+         * Groups the log files with the same CRC-32 and size so that each content is analysed once.
+         *
+         * @param logFiles the extracted log files in list.
+         * @return the map of the first log file with the content and all log files with this content.
+         */
+        protected Map<ExtractedLogFile, List<ExtractedLogFile>> groupByContent(List<ExtractedLogFile> logFiles)
+        {
+                Map<String, ExtractedLogFile> firstByContent = new HashMap<>();
+                Map<ExtractedLogFile, List<ExtractedLogFile>> groups = new LinkedHashMap<>();
+                for (ExtractedLogFile logFile : logFiles)
+                {
+                        ExtractedLogFile first = firstByContent.computeIfAbsent(
+                                logFile.getCrc() + ":" + logFile.getSize(), key -> logFile);
+                        groups.computeIfAbsent(first, key -> new ArrayList<>()).add(logFile);
+                }
+                return groups;
+        }
+
+        /**
+         * Adds the lines of the given log file to the aggregator.
+         *
+         * @param logFile the extracted log file.
+         * @param weight the number of the entries with the content of the log file.
+         * @param aggregator the aggregator of the lines (is used by the calling thread only).
+         */
+        protected void aggregateFile(ExtractedLogFile logFile, long weight, LineAggregator<?> aggregator)
+        {
+                try
+                {
+                        aggregator.setWeight(weight);
+                        scanLogFile(logFile, aggregator.getMatcher(), aggregator, 0);
+                } catch (IOException exception)
+                {
+                        throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
+                                logFile.getName()));
+                }
+        }
+
+        /**
+         * Parses the names of the group-by keys.
+         *
+         * @param groupByKeys names of the group-by keys.
+         * @return the group-by keys.
+         * @throws IllegalArgumentException if there are no keys or the key name is unknown.
+         */
+        private List<GroupByKey> parseGroupByKeys(List<String> groupByKeys)
+        {
+                if (groupByKeys.isEmpty())
+                {
+                        throw new IllegalArgumentException("At least one group-by key is required.");
+                }
+                List<GroupByKey> keys = new ArrayList<>();
+                groupByKeys.forEach(keyName -> keys.add(GroupByKey.of(keyName)));
+                return keys;
+        }
+
         /**
          * Counts the number of occurrences of the search query in the given log file.
+         * <p> The log file is scanned over the pooled byte buffer without creating a string per line.
          *
-         * @param path the path of the log file.
-         * @param searchQuery the search query to count lines in the log file.
+         * @param logFile the extracted log file.
+         * @param matcher the matcher of the lines to count (is used by the calling thread only).
          * @return the number of occurrences of the search query in lines of the log file or the number of lines
          * if the search query is null.
          */
-        protected int countOccurrencesInFile(Path path, String searchQuery)
+        protected int countOccurrencesInFile(ExtractedLogFile logFile, LineMatcher matcher)
+        {
+                try
+                {
+                        LineCounter counter = new LineCounter(matcher);
+                        scanLogFile(logFile, matcher, counter, matcher.getWindowOverlap());
+                        return (int) counter.getCount();
+                } catch (IOException exception)
+                {
+                        throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
+                                logFile.getName()), exception);
+                }
+        }
+
+        /**
+         * Counts the matching lines of the given log file passing the first of them to the collector.
+         *
+         * @param logFile the extracted log file.
+         * @param collector the collector of the matching lines (is used by the calling thread only).
+         * @return the number of occurrences of the search query in lines of the log file.
+         */
+        protected int streamMatchingLinesInFile(ExtractedLogFile logFile, MatchedLineCollector collector)
+        {
+                try
+                {
+                        LineMatcher matcher = collector.getMatcher();
+                        scanLogFile(logFile, matcher, collector, matcher.getWindowOverlap());
+                        collector.finish();
+                        return (int) collector.getCount();
+                } catch (IOException exception)
+                {
+                        throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
+                                logFile.getName()));
+                }
+        }
+
+        /**
+         * Counts the matching lines of the given log file by the hour.
+         *
+         * @param logFile the extracted log file.
+         * @param matcher the matcher of the lines to count (is used by the calling thread only).
+         * @return the counts of the matching lines by the hour and the lines without the time.
+         */
+        protected long[] countHourlyOccurrencesInFile(ExtractedLogFile logFile, LineMatcher matcher)
+        {
+                try
+                {
+                        HourlyLineCounter counter = new HourlyLineCounter(matcher);
+                        scanLogFile(logFile, matcher, counter, matcher.getWindowOverlap());
+                        return counter.getCounts();
+                } catch (IOException exception)
+                {
+                        throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
+                                logFile.getName()));
+                }
+        }
+
+        /**
+         * Estimates the number of the matching lines of the given log file by the random sample of its blocks.
+         * The confidence interval is clamped to the sampled matching lines and to one line per unsampled byte, so
+         * the sample cut short by the time budget has the wide but honest interval.
+         *
+         * @param logFile the extracted log file.
+         * @param matcher the matcher of the lines to count (is used by the calling thread only).
+         * @param targetError target relative margin of error of the estimate.
+         * @param timeIsUp check of the time budget of the request.
+         * @param random source of the random block order.
+         * @return the estimated number of the lines with its confidence interval.
+         */
+        private ApproximateCount approximateOccurrencesInFile(ExtractedLogFile logFile, LineMatcher matcher,
+                                                              double targetError, BooleanSupplier timeIsUp,
+                                                              Random random)
         {
-                boolean withoutSearch = Objects.isNull(searchQuery);
-                try (Stream<String> lines = Files.lines(path))
+                try
                 {
-                        return (int) lines.filter(line -> withoutSearch || line.contains(searchQuery)).count();
+                        ByteBuffer content = logFile.mapContent();
+                        if (Objects.isNull(content))
+                        {
+                                return countInflatedOccurrencesInFile(logFile, matcher);
+                        }
+                        TimeOfDayRange timeRange = matcher.getTimeRange();
+                        ByteBuffer sampledContent = Objects.isNull(timeRange) ? content : timeRange.narrow(content);
+                        BlockSampler sampler = new BlockSampler(sampledContent);
+                        sampler.sample(matcher, targetError, timeIsUp, random);
+                        double estimate = sampler.estimateCount();
+                        double marginOfError = sampler.getMarginOfError();
+                        long unsampledBytes = sampledContent.remaining() - sampler.getSampledBytes();
+                        long lowerBound = Math.max(sampler.getSampledCount(),
+                                (long) Math.floor(estimate - marginOfError));
+                        long upperBound = Math.min(sampler.getSampledCount() + unsampledBytes,
+                                (long) Math.ceil(estimate + marginOfError));
+                        return ApproximateCount.builder()
+                                .estimate(Math.min(Math.max(Math.round(estimate), lowerBound), upperBound))
+                                .lowerBound(lowerBound)
+                                .upperBound(upperBound)
+                                .confidence(BlockSampler.CONFIDENCE)
+                                .scannedBytes(sampler.getSampledBytes())
+                                .totalBytes((long) sampledContent.remaining())
+                                .exact(sampler.isExact())
+                                .timedOut(sampler.isTimedOut())
+                                .build();
                 } catch (IOException exception)
                 {
                         throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
-                                path.getFileName()));
+                                logFile.getName()));
+                }
+        }
+
+        /**
+         * Counts the matching lines of the log file that cannot be read randomly (compressed or too large to be
+         * mapped) exactly, measuring its content in the inflated bytes.
+         *
+         * @param logFile the extracted log file.
+         * @param matcher the matcher of the lines to count (is used by the calling thread only).
+         * @return the exact number of the lines.
+         * @throws IOException if the log file cannot be read.
+         */
+        private ApproximateCount countInflatedOccurrencesInFile(ExtractedLogFile logFile, LineMatcher matcher)
+                throws IOException
+        {
+                LineCounter counter = new LineCounter(matcher);
+                long[] inflatedBytes = new long[1];
+                try (InputStream stream = new FilterInputStream(logFile.openStream())
+                {
+                        @Override
+                        public int read() throws IOException
+                        {
+                                int value = super.read();
+                                inflatedBytes[0] += (value == -1) ? 0 : 1;
+                                return value;
+                        }
+
+                        @Override
+                        public int read(byte[] buffer, int offset, int length) throws IOException
+                        {
+                                int read = super.read(buffer, offset, length);
+                                inflatedBytes[0] += Math.max(read, 0);
+                                return read;
+                        }
+                })
+                {
+                        LineScanner.scan(stream, counter, matcher.getWindowOverlap());
+                }
+                long count = counter.getCount();
+                return ApproximateCount.builder()
+                        .estimate(count)
+                        .lowerBound(count)
+                        .upperBound(count)
+                        .confidence(BlockSampler.CONFIDENCE)
+                        .scannedBytes(inflatedBytes[0])
+                        .totalBytes(inflatedBytes[0])
+                        .exact(true)
+                        .build();
+        }
+
+        /**
+         * Marks the log file skipped because the time budget ran out before its start. The random-access content
+         * has at most one line per byte, the size of the compressed content is unknown without inflating it.
+         *
+         * @param logFile the extracted log file.
+         * @param matcher the matcher with the time range of the request if any.
+         * @return the count without the estimate.
+         */
+        private ApproximateCount skipFile(ExtractedLogFile logFile, LineMatcher matcher)
+        {
+                try
+                {
+                        ByteBuffer content = logFile.mapContent();
+                        TimeOfDayRange timeRange = matcher.getTimeRange();
+                        if (Objects.nonNull(content) && Objects.nonNull(timeRange))
+                        {
+                                content = timeRange.narrow(content);
+                        }
+                        Long totalBytes = Objects.isNull(content) ? null : (long) content.remaining();
+                        return ApproximateCount.builder()
+                                .upperBound(totalBytes)
+                                .confidence(BlockSampler.CONFIDENCE)
+                                .totalBytes(totalBytes)
+                                .timedOut(true)
+                                .build();
+                } catch (IOException exception)
+                {
+                        throw new IllegalStateException(String.format("Cannot read log file '%s' during analysing.",
+                                logFile.getName()));
+                }
+        }
+
+        /**
+         * Passes the lines of the log file to the consumer.
+         * <p> If the matcher has the time range, the random-access content of the log file is narrowed to the lines
+         * of the range by the binary search. The compressed log file is scanned as a whole (the matcher checks
+         * the time of each line anyway).
+         *
+         * @param logFile the extracted log file.
+         * @param matcher the matcher of the lines used by the consumer.
+         * @param consumer the receiver of the lines.
+         * @param windowOverlap number of bytes the windows of the overlong line overlap.
+         * @throws IOException if the log file cannot be read.
+         */
+        private void scanLogFile(ExtractedLogFile logFile, LineMatcher matcher, LineConsumer consumer,
+                                 int windowOverlap) throws IOException
+        {
+                TimeOfDayRange timeRange = matcher.getTimeRange();
+                ByteBuffer content = Objects.isNull(timeRange) ? null : logFile.mapContent();
+                if (Objects.nonNull(content))
+                {
+                        LineScanner.scan(timeRange.select(content), consumer, windowOverlap);
+                        return;
+                }
+                try (InputStream stream = logFile.openStream())
+                {
+                        LineScanner.scan(stream, consumer, windowOverlap);
                 }
         }
 
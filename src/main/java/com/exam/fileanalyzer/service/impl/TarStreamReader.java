@@ -0,0 +1,426 @@
+package com.exam.fileanalyzer.service.impl;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming reader of tar archives (POSIX ustar, GNU long names and pax path headers).
+ * <p> Entries are read sequentially: {@link #getNextEntry()} skips the unread rest of the previous entry, and
+ * {@link #getEntryStream()} returns the stream limited by the size of the current entry. The reader does not close
+ * the underlying stream. The bytes the reader consumes itself (headers, header entries, skipped content and padding)
+ * are reported to the {@link ConsumedBytesListener} while they are read.
+ */
+public class TarStreamReader
+{
+        /** Size of the tar block. */
+        private static final int BLOCK_SIZE = 512;
+        /** Maximum size of the GNU long name and pax headers read into memory. */
+        private static final int MAX_META_ENTRY_SIZE = 64 * 1024;
+        /** Maximum number of bytes skipped at once (the listener is called after each chunk). */
+        private static final long SKIP_CHUNK_SIZE = 64 * 1024;
+        /** Underlying stream of the tar archive. */
+        private final InputStream input;
+        /** Listener of the bytes consumed by the reader itself. */
+        private final ConsumedBytesListener listener;
+        /** Buffer for the header block. */
+        private final byte[] header = new byte[BLOCK_SIZE];
+        /** Stream of the current entry. */
+        private EntryStream entryStream;
+
+        /**
+         * Constructor with the stream of the tar archive.
+         *
+         * @param input stream of the tar archive.
+         */
+        public TarStreamReader(InputStream input)
+        {
+                this(input, ConsumedBytesListener.NONE);
+        }
+
+        /**
+         * Constructor with the stream of the tar archive and the listener of the bytes consumed by the reader.
+         *
+         * @param input stream of the tar archive.
+         * @param listener listener of the bytes consumed by the reader itself.
+         */
+        public TarStreamReader(InputStream input, ConsumedBytesListener listener)
+        {
+                this.input = input;
+                this.listener = listener;
+        }
+
+        /**
+         * Moves to the next entry of the archive: file, directory or other entry (link, device, unknown type).
+         *
+         * @return the next entry or null if the end of the archive is reached.
+         * @throws IOException if the archive cannot be read or is corrupted.
+         */
+        @Nullable
+        public TarEntry getNextEntry() throws IOException
+        {
+                String longName = null;
+                while (true)
+                {
+                        if (entryStream != null)
+                        {
+                                entryStream.skipToEnd();
+                                entryStream = null;
+                        }
+                        int read = input.readNBytes(header, 0, BLOCK_SIZE);
+                        listener.consumed(read);
+                        if (read < BLOCK_SIZE || isZeroBlock(header))
+                        {
+                                return null;
+                        }
+                        verifyChecksum();
+                        long size = parseOctal(124, 12);
+                        char type = (char) header[156];
+                        entryStream = new EntryStream(size);
+                        if (type == 'L' || type == 'x')
+                        {
+                                String metaName = readMetaName(type, size);
+                                if (metaName != null)
+                                {
+                                        longName = metaName;
+                                }
+                                continue;
+                        }
+                        if (type == 'g')
+                        {
+                                continue;
+                        }
+                        String name = (longName != null) ? longName : parseName();
+                        return new TarEntry(name, size, type == '5' || name.endsWith("/"),
+                                type == '0' || type == '\0' || type == '7');
+                }
+        }
+
+        /**
+         * Returns the stream of the current entry content.
+         *
+         * @return stream limited by the entry size (closing it does not close the archive).
+         */
+        public InputStream getEntryStream()
+        {
+                if (entryStream == null)
+                {
+                        throw new IllegalStateException("There is no current tar entry.");
+                }
+                return entryStream;
+        }
+
+        /**
+         * Reads the name from the GNU long name ('L') or pax ('x') header entry.
+         *
+         * @param type type of the header entry.
+         * @param size size of the header entry content.
+         * @return the name of the next entry or null if the pax header has no path.
+         * @throws IOException if the header entry cannot be read.
+         */
+        private String readMetaName(char type, long size) throws IOException
+        {
+                if (size > MAX_META_ENTRY_SIZE)
+                {
+                        throw new IOException("Tar header entry is too large: " + size + " bytes.");
+                }
+                byte[] content = entryStream.readAllBytes();
+                listener.consumed(content.length);
+                if (type == 'L')
+                {
+                        int length = 0;
+                        while (length < content.length && content[length] != 0)
+                        {
+                                length++;
+                        }
+                        return new String(content, 0, length, StandardCharsets.UTF_8);
+                }
+                String path = null;
+                int position = 0;
+                while (position < content.length)
+                {
+                        int space = position;
+                        while (space < content.length && content[space] != ' ')
+                        {
+                                space++;
+                        }
+                        int recordLength;
+                        try
+                        {
+                                recordLength = Integer.parseInt(new String(content, position, space - position,
+                                        StandardCharsets.US_ASCII).trim());
+                        } catch (NumberFormatException exception)
+                        {
+                                throw new IOException("Corrupted tar pax header: incorrect record length.");
+                        }
+                        if (recordLength <= space - position + 1 || position + recordLength > content.length)
+                        {
+                                break;
+                        }
+                        String record = new String(content, space + 1, position + recordLength - space - 2,
+                                StandardCharsets.UTF_8);
+                        if (record.startsWith("path="))
+                        {
+                                path = record.substring(5);
+                        }
+                        position += recordLength;
+                }
+                return path;
+        }
+
+        /**
+         * Parses the entry name from the header (with the ustar prefix if present).
+         *
+         * @return name of the entry.
+         */
+        private String parseName()
+        {
+                String name = parseString(0, 100);
+                boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't' &&
+                        header[260] == 'a' && header[261] == 'r';
+                if (ustar && header[345] != 0)
+                {
+                        name = parseString(345, 155) + "/" + name;
+                }
+                return name;
+        }
+
+        /**
+         * Parses the zero-terminated string field of the header.
+         *
+         * @param offset offset of the field.
+         * @param length length of the field.
+         * @return value of the field.
+         */
+        private String parseString(int offset, int length)
+        {
+                int end = offset;
+                while (end < offset + length && header[end] != 0)
+                {
+                        end++;
+                }
+                return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the octal number field of the header (GNU base-256 encoding is supported for large sizes).
+         *
+         * @param offset offset of the field.
+         * @param length length of the field.
+         * @return value of the field.
+         * @throws IOException if the field is not a number.
+         */
+        private long parseOctal(int offset, int length) throws IOException
+        {
+                if ((header[offset] & 0x80) != 0)
+                {
+                        long value = header[offset] & 0x7F;
+                        for (int i = offset + 1; i < offset + length; i++)
+                        {
+                                value = (value << 8) | (header[i] & 0xFF);
+                        }
+                        return value;
+                }
+                long value = 0;
+                for (int i = offset; i < offset + length; i++)
+                {
+                        byte current = header[i];
+                        if (current == 0 || current == ' ')
+                        {
+                                if (value > 0)
+                                {
+                                        break;
+                                }
+                                continue;
+                        }
+                        if (current < '0' || current > '7')
+                        {
+                                throw new IOException("Corrupted tar header: not octal number in the size field.");
+                        }
+                        value = (value << 3) + (current - '0');
+                }
+                return value;
+        }
+
+        /**
+         * Verifies the checksum of the header block.
+         *
+         * @throws IOException if the checksum does not match (the stream is not a tar archive).
+         */
+        private void verifyChecksum() throws IOException
+        {
+                long expected = parseOctal(148, 8);
+                long actual = 0;
+                for (int i = 0; i < BLOCK_SIZE; i++)
+                {
+                        actual += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xFF);
+                }
+                if (expected != actual)
+                {
+                        throw new IOException("Corrupted tar header: checksum does not match.");
+                }
+        }
+
+        /**
+         * Checks if the block consists of zero bytes (the end of the archive marker).
+         *
+         * @param block block to check.
+         * @return true if all bytes of the block are zero.
+         */
+        private static boolean isZeroBlock(byte[] block)
+        {
+                for (byte current : block)
+                {
+                        if (current != 0)
+                        {
+                                return false;
+                        }
+                }
+                return true;
+        }
+
+        /**
+         * Listener of the bytes consumed by the reader itself, not through the entry stream.
+         */
+        @FunctionalInterface
+        public interface ConsumedBytesListener
+        {
+                /** Listener ignoring the consumed bytes. */
+                ConsumedBytesListener NONE = bytes -> { };
+
+                /**
+                 * Is called after the reader consumed the bytes of the archive.
+                 *
+                 * @param bytes number of the consumed bytes.
+                 * @throws IOException to abort the reading.
+                 */
+                void consumed(long bytes) throws IOException;
+        }
+
+        /**
+         * Entry of the tar archive.
+         */
+        @Getter
+        public static class TarEntry
+        {
+                /** Path of the entry inside the archive. */
+                private final String name;
+                /** Size of the entry content. */
+                private final long size;
+                /** Flag of the directory entry. */
+                private final boolean directory;
+                /** Flag of the regular file entry. */
+                private final boolean file;
+
+                /**
+                 * Constructor of the entry.
+                 *
+                 * @param name path of the entry inside the archive.
+                 * @param size size of the entry content.
+                 * @param directory flag of the directory entry.
+                 * @param file flag of the regular file entry.
+                 */
+                private TarEntry(String name, long size, boolean directory, boolean file)
+                {
+                        this.name = name;
+                        this.size = size;
+                        this.directory = directory;
+                        this.file = file && !directory;
+                }
+
+        }
+
+        /**
+         * Stream of the entry content limited by the entry size.
+         */
+        private class EntryStream extends InputStream
+        {
+                /** Number of the content bytes not read yet. */
+                private long remaining;
+                /** Number of the padding bytes after the content up to the block border. */
+                private final long padding;
+
+                /**
+                 * Constructor with the entry size.
+                 *
+                 * @param size size of the entry content.
+                 */
+                private EntryStream(long size)
+                {
+                        this.remaining = size;
+                        this.padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+                }
+
+                @Override
+                public int read() throws IOException
+                {
+                        if (remaining <= 0)
+                        {
+                                return -1;
+                        }
+                        int value = input.read();
+                        if (value == -1)
+                        {
+                                throw new EOFException("Unexpected end of the tar archive.");
+                        }
+                        remaining--;
+                        return value;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException
+                {
+                        if (remaining <= 0)
+                        {
+                                return -1;
+                        }
+                        int read = input.read(buffer, offset, (int) Math.min(length, remaining));
+                        if (read == -1)
+                        {
+                                throw new EOFException("Unexpected end of the tar archive.");
+                        }
+                        remaining -= read;
+                        return read;
+                }
+
+                @Override
+                public int available() throws IOException
+                {
+                        return (int) Math.min(input.available(), remaining);
+                }
+
+                @Override
+                public void close()
+                {
+                }
+
+                /**
+                 * Skips the unread content and the padding of the entry.
+                 *
+                 * @throws IOException if the archive cannot be read.
+                 */
+                private void skipToEnd() throws IOException
+                {
+                        long toSkip = remaining + padding;
+                        remaining = 0;
+                        while (toSkip > 0)
+                        {
+                                long skipped = input.skip(Math.min(toSkip, SKIP_CHUNK_SIZE));
+                                if (skipped <= 0)
+                                {
+                                        if (input.read() == -1)
+                                        {
+                                                throw new EOFException("Unexpected end of the tar archive.");
+                                        }
+                                        skipped = 1;
+                                }
+                                toSkip -= skipped;
+                                listener.consumed(skipped);
+                        }
+                }
+
+        }
+
+}
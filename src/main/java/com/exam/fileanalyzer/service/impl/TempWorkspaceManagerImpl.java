@@ -0,0 +1,631 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.*;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.*;
+
+/**
+ * TempWorkspaceManager interface implementation - bean responsible for the request workspaces, the global disk quota
+ * of the temp directory, the pool of memory buffers for small log files and the removing of orphaned directories.
+ */
+@Slf4j
+@Service
+public class TempWorkspaceManagerImpl implements TempWorkspaceManager
+{
+        /** Prefix of the workspace directory names. */
+        private static final String WORKSPACE_DIR_PREFIX = "request-";
+        /** Size of the chunk used for copying the spilled log file content. */
+        private static final int COPY_CHUNK_SIZE = 64 * 1024;
+        /** Path of temp directory for operated log files. */
+        @Getter
+        private final Path tempDir;
+        /** Maximum number of bytes of all spilled log files in the temp directory. */
+        private final long diskQuotaBytes;
+        /** Number of bytes of spilled log files currently stored in the temp directory. */
+        private final AtomicLong usedDiskBytes = new AtomicLong();
+        /** Pool of memory buffers for log files smaller than the spill threshold. */
+        private final BufferPool memoryPool;
+        /** Minimum age of the directory without active workspace to be removed by the janitor. */
+        private final Duration orphanMaxAge;
+        /** Period of the janitor launches. */
+        private final Duration janitorPeriod;
+        /** Directories of the workspaces that are not closed yet. */
+        private final Set<Path> activeDirectories = ConcurrentHashMap.newKeySet();
+        /** Executor of the janitor removing orphaned directories. */
+        private ScheduledExecutorService janitor;
+
+        /**
+         * Bean's constructor with property value injection.
+         *
+         * @param tempDirPath path of temp directory for operated log files (property value).
+         * @param diskQuotaBytes maximum number of bytes of all spilled log files (property value).
+         * @param spillThresholdBytes maximum size of the log file held in memory (property value).
+         * @param memoryPoolBuffers maximum number of memory buffers for log files (property value).
+         * @param orphanMaxAgeSeconds minimum age of the orphaned directory to be removed (property value).
+         * @param janitorPeriodSeconds period of the janitor launches (property value).
+         */
+        @Autowired
+        public TempWorkspaceManagerImpl(@Value("${temp.dir.path}") String tempDirPath,
+                                        @Value("${temp.disk.quota.bytes:1073741824}") long diskQuotaBytes,
+                                        @Value("${temp.memory.spill.threshold.bytes:1048576}") int spillThresholdBytes,
+                                        @Value("${temp.memory.pool.buffers:32}") int memoryPoolBuffers,
+                                        @Value("${temp.janitor.max.age.seconds:3600}") long orphanMaxAgeSeconds,
+                                        @Value("${temp.janitor.period.seconds:300}") long janitorPeriodSeconds)
+        {
+                Path inspectPath = Paths.get(tempDirPath);
+                if (Files.exists(inspectPath.toAbsolutePath().getParent()))
+                {
+                        tempDir = inspectPath;
+                } else
+                {
+                        tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "logs-tmp");
+                }
+                this.diskQuotaBytes = diskQuotaBytes;
+                this.memoryPool = new BufferPool(spillThresholdBytes, memoryPoolBuffers);
+                this.orphanMaxAge = Duration.ofSeconds(orphanMaxAgeSeconds);
+                this.janitorPeriod = Duration.ofSeconds(janitorPeriodSeconds);
+        }
+
+        /**
+         * Creates temp directory for operated log files if it not exists and starts the janitor (the first launch
+         * removes directories orphaned by the previous crashes).
+         *
+         * @throws IOException if meets problems with creating temp directory.
+         */
+        @PostConstruct
+        public void init() throws IOException
+        {
+                if (Files.exists(tempDir))
+                {
+                        log.info("Temp directory for log files already exists.");
+                } else
+                {
+                        log.info("There is no temp directory for log files. Creating...");
+                        Files.createDirectories(tempDir);
+                        log.info("Temp directory for log files successfully created.");
+                }
+                janitor = Executors.newSingleThreadScheduledExecutor(runnable ->
+                {
+                        Thread thread = new Thread(runnable, "temp-workspace-janitor");
+                        thread.setDaemon(true);
+                        return thread;
+                });
+                janitor.scheduleWithFixedDelay(this::removeOrphanedDirectories,
+                        0, janitorPeriod.getSeconds(), TimeUnit.SECONDS);
+        }
+
+        /**
+         * Stops the janitor.
+         */
+        @PreDestroy
+        public void shutdown()
+        {
+                if (janitor != null)
+                {
+                        janitor.shutdownNow();
+                }
+        }
+
+        /**
+         * Creates a new workspace with the unique directory for the analysis request.
+         *
+         * @return created workspace (the caller is responsible for closing it).
+         * @throws IOException if the workspace directory cannot be created.
+         */
+        @Override
+        public TempWorkspace createWorkspace() throws IOException
+        {
+                Path directory = Files.createTempDirectory(tempDir, WORKSPACE_DIR_PREFIX);
+                activeDirectories.add(directory);
+                log.debug("Workspace directory '{}' created.", directory.getFileName());
+                return new Workspace(directory);
+        }
+
+        /**
+         * Returns the number of bytes of spilled log files currently stored in the temp directory.
+         *
+         * @return used bytes of the disk quota.
+         */
+        public long getUsedDiskBytes()
+        {
+                return usedDiskBytes.get();
+        }
+
+        /**
+         * Removes the directories of the temp directory that do not belong to the active workspaces and were not
+         * modified for longer than the configured maximum age.
+         */
+        public void removeOrphanedDirectories()
+        {
+                Instant border = Instant.now().minus(orphanMaxAge);
+                try (Stream<Path> directories = Files.list(tempDir))
+                {
+                        directories.filter(Files::isDirectory)
+                                .filter(directory -> !activeDirectories.contains(directory))
+                                .filter(directory -> isModifiedBefore(directory, border))
+                                .forEach(directory ->
+                                {
+                                        log.info("Removing orphaned temp directory '{}'.", directory.getFileName());
+                                        deleteRecursively(directory);
+                                });
+                } catch (IOException | RuntimeException exception)
+                {
+                        log.warn("Exception was occurred during removing orphaned temp directories: {} ({}).",
+                                exception.getClass().getSimpleName(), exception.getMessage());
+                }
+        }
+
+        /**
+         * Reserves the bytes of the global disk quota.
+         *
+         * @param bytes number of bytes to reserve.
+         * @throws TempDiskQuotaExceededException if there is not enough bytes in the quota.
+         */
+        private void reserveDiskBytes(long bytes) throws TempDiskQuotaExceededException
+        {
+                long used;
+                do
+                {
+                        used = usedDiskBytes.get();
+                        if (used + bytes > diskQuotaBytes)
+                        {
+                                throw new TempDiskQuotaExceededException(String.format("Temp directory disk quota " +
+                                        "(%d bytes) is exceeded. Try again later.", diskQuotaBytes));
+                        }
+                } while (!usedDiskBytes.compareAndSet(used, used + bytes));
+        }
+
+        /**
+         * Checks if the last modification time of the directory is before the given instant.
+         *
+         * @param directory directory to check.
+         * @param border instant to compare with.
+         * @return true if the directory was modified before the border.
+         */
+        private static boolean isModifiedBefore(Path directory, Instant border)
+        {
+                try
+                {
+                        FileTime modified = Files.getLastModifiedTime(directory);
+                        return modified.toInstant().isBefore(border);
+                } catch (IOException exception)
+                {
+                        return false;
+                }
+        }
+
+        /**
+         * Deletes the directory with all its content ignoring the files that cannot be deleted.
+         *
+         * @param directory directory to delete.
+         */
+        private static void deleteRecursively(Path directory)
+        {
+                try (Stream<Path> walk = Files.walk(directory))
+                {
+                        walk.sorted(Comparator.reverseOrder()).forEach(path ->
+                        {
+                                try
+                                {
+                                        Files.deleteIfExists(path);
+                                } catch (IOException exception)
+                                {
+                                        log.warn("Can't delete temp file '{}' ({}).", path, exception.getMessage());
+                                }
+                        });
+                } catch (IOException exception)
+                {
+                        log.warn("Can't walk temp directory '{}' ({}).", directory, exception.getMessage());
+                }
+        }
+
+        /**
+         * Workspace of the single analysis request.
+         */
+        @RequiredArgsConstructor
+        private class Workspace implements TempWorkspace
+        {
+                /** Unique directory of the workspace. */
+                @Getter
+                private final Path directory;
+                /** Log files stored in the workspace. */
+                private final List<ExtractedLogFile> logFiles = new ArrayList<>();
+                /** Stored log files indexed by the CRC-32 and size of their content. */
+                private final Map<String, ExtractedLogFile> filesByContent = new HashMap<>();
+                /** Memory buffers acquired by the workspace. */
+                private final List<byte[]> acquiredBuffers = new ArrayList<>();
+                /** Number of the disk quota bytes reserved by the workspace. */
+                private long reservedDiskBytes;
+                /** Number of the spilled files (used for unique file naming). */
+                private int spilledFiles;
+                /** Flag of the closed workspace. */
+                private boolean closed;
+
+                /**
+                 * Stores the log file content in the pooled memory buffer or spills it to the workspace directory if
+                 * the content is larger than the configured threshold. If the workspace already contains the content
+                 * with the same CRC-32 and size, the stored copy is released and the returned log file shares
+                 * the existing one.
+                 *
+                 * @param name name of the log file.
+                 * @param content input stream with the log file content (is not closed by the method).
+                 * @param compressed true if the content is gzip-compressed.
+                 * @return stored log file.
+                 * @throws IOException if the content cannot be read or written.
+                 */
+                @Override
+                public synchronized ExtractedLogFile store(@NonNull String name, @NonNull InputStream content,
+                                                           boolean compressed) throws IOException
+                {
+                        if (closed)
+                        {
+                                throw new IllegalStateException("The workspace is already closed.");
+                        }
+                        CheckedInputStream checkedContent = new CheckedInputStream(content, new CRC32());
+                        byte[] buffer = memoryPool.tryAcquire();
+                        int length = 0;
+                        int nextByte = -1;
+                        if (buffer != null)
+                        {
+                                acquiredBuffers.add(buffer);
+                                length = checkedContent.readNBytes(buffer, 0, buffer.length);
+                                nextByte = (length < buffer.length) ? -1 : checkedContent.read();
+                                if (nextByte == -1)
+                                {
+                                        long crc = checkedContent.getChecksum().getValue();
+                                        Optional<ExtractedLogFile> duplicate = storeDuplicate(name, crc, length);
+                                        if (duplicate.isPresent())
+                                        {
+                                                releaseBuffer(buffer);
+                                                return duplicate.get();
+                                        }
+                                        return register(new InMemoryLogFile(name, crc, compressed, buffer, length));
+                                }
+                        }
+                        Path filePath = directory.resolve(String.format("%05d.log", ++spilledFiles));
+                        long size = 0;
+                        try (OutputStream output = Files.newOutputStream(filePath))
+                        {
+                                if (buffer != null)
+                                {
+                                        reserve(length + 1);
+                                        output.write(buffer, 0, length);
+                                        output.write(nextByte);
+                                        size = length + 1;
+                                        releaseBuffer(buffer);
+                                }
+                                byte[] chunk = new byte[COPY_CHUNK_SIZE];
+                                int read;
+                                while ((read = checkedContent.read(chunk)) != -1)
+                                {
+                                        reserve(read);
+                                        output.write(chunk, 0, read);
+                                        size += read;
+                                }
+                        }
+                        long crc = checkedContent.getChecksum().getValue();
+                        Optional<ExtractedLogFile> duplicate = storeDuplicate(name, crc, size);
+                        if (duplicate.isPresent())
+                        {
+                                Files.delete(filePath);
+                                usedDiskBytes.addAndGet(-size);
+                                reservedDiskBytes -= size;
+                                return duplicate.get();
+                        }
+                        log.debug("Log file '{}' is spilled to the disk ({} bytes).", name, size);
+                        return register(new SpilledLogFile(name, crc, compressed, filePath, size));
+                }
+
+                /**
+                 * Stages the content to the file of the workspace directory reserving the global disk quota for
+                 * each written chunk.
+                 *
+                 * @param fileName name of the file in the workspace directory.
+                 * @param content input stream with the staged content (is not closed by the method).
+                 * @return path to the staged file.
+                 * @throws IOException if the content cannot be read or written.
+                 */
+                @Override
+                public Path stage(@NonNull String fileName, @NonNull InputStream content) throws IOException
+                {
+                        Path filePath = directory.resolve(fileName);
+                        if (!directory.equals(filePath.getParent()))
+                        {
+                                throw new IllegalArgumentException(String.format("The staged file name '%s' is " +
+                                        "not a plain file name.", fileName));
+                        }
+                        long size = 0;
+                        try (OutputStream output = Files.newOutputStream(filePath, StandardOpenOption.CREATE_NEW,
+                                StandardOpenOption.WRITE))
+                        {
+                                byte[] chunk = new byte[COPY_CHUNK_SIZE];
+                                int read;
+                                while ((read = content.read(chunk)) != -1)
+                                {
+                                        reserveStagedBytes(read);
+                                        output.write(chunk, 0, read);
+                                        size += read;
+                                }
+                        }
+                        log.debug("Content of '{}' is staged to the disk ({} bytes).", fileName, size);
+                        return filePath;
+                }
+
+                /**
+                 * Reserves the global disk quota for the bytes the caller writes to the workspace directory itself.
+                 *
+                 * @param bytes number of bytes to reserve.
+                 * @throws TempDiskQuotaExceededException if there is not enough bytes in the quota.
+                 */
+                @Override
+                public synchronized void reserveStagedBytes(long bytes) throws TempDiskQuotaExceededException
+                {
+                        if (closed)
+                        {
+                                throw new IllegalStateException("The workspace is already closed.");
+                        }
+                        reserve(bytes);
+                }
+
+                /**
+                 * Stores the log file sharing the content already stored in the workspace.
+                 *
+                 * @param name name of the log file.
+                 * @param crc CRC-32 checksum of the content.
+                 * @param size size of the content in bytes.
+                 * @return stored log file or empty if the workspace has no content with such checksum and size.
+                 */
+                @Override
+                public synchronized Optional<ExtractedLogFile> storeDuplicate(@NonNull String name, long crc, long size)
+                {
+                        ExtractedLogFile original = filesByContent.get(contentKey(crc, size));
+                        if (original == null)
+                        {
+                                return Optional.empty();
+                        }
+                        log.debug("Log file '{}' has the same content as '{}'.", name, original.getName());
+                        return Optional.of(register(new DuplicateLogFile(name, original)));
+                }
+
+                /**
+                 * Returns the log files stored in the workspace in the order of storing.
+                 *
+                 * @return unmodifiable list of the stored log files.
+                 */
+                @Override
+                public synchronized List<ExtractedLogFile> getLogFiles()
+                {
+                        return Collections.unmodifiableList(new ArrayList<>(logFiles));
+                }
+
+                /**
+                 * Releases the memory buffers and the disk quota of the workspace and deletes its directory.
+                 */
+                @Override
+                public synchronized void close()
+                {
+                        if (closed)
+                        {
+                                return;
+                        }
+                        closed = true;
+                        acquiredBuffers.forEach(memoryPool::release);
+                        acquiredBuffers.clear();
+                        logFiles.clear();
+                        filesByContent.clear();
+                        deleteRecursively(directory);
+                        usedDiskBytes.addAndGet(-reservedDiskBytes);
+                        reservedDiskBytes = 0;
+                        activeDirectories.remove(directory);
+                        log.debug("Workspace directory '{}' closed.", directory.getFileName());
+                }
+
+                /**
+                 * Reserves the bytes of the global disk quota for the workspace.
+                 *
+                 * @param bytes number of bytes to reserve.
+                 * @throws TempDiskQuotaExceededException if there is not enough bytes in the quota.
+                 */
+                private void reserve(long bytes) throws TempDiskQuotaExceededException
+                {
+                        reserveDiskBytes(bytes);
+                        reservedDiskBytes += bytes;
+                }
+
+                /**
+                 * Returns the buffer that is no longer needed by the workspace to the pool.
+                 *
+                 * @param buffer buffer to release.
+                 */
+                private void releaseBuffer(byte[] buffer)
+                {
+                        acquiredBuffers.remove(buffer);
+                        memoryPool.release(buffer);
+                }
+
+                /**
+                 * Adds the log file to the workspace list and to the content index.
+                 *
+                 * @param logFile stored log file.
+                 * @return the same log file.
+                 */
+                private ExtractedLogFile register(ExtractedLogFile logFile)
+                {
+                        logFiles.add(logFile);
+                        filesByContent.putIfAbsent(contentKey(logFile.getCrc(), logFile.getSize()), logFile);
+                        return logFile;
+                }
+
+                /**
+                 * Creates the key of the content index.
+                 *
+                 * @param crc CRC-32 checksum of the content.
+                 * @param size size of the content in bytes.
+                 * @return key of the content index.
+                 */
+                private String contentKey(long crc, long size)
+                {
+                        return crc + ":" + size;
+                }
+
+        }
+
+        /**
+         * Log file held in the pooled memory buffer.
+         */
+        @Getter
+        @RequiredArgsConstructor
+        private static class InMemoryLogFile implements ExtractedLogFile
+        {
+                /** Name of the log file. */
+                private final String name;
+                /** CRC-32 checksum of the content. */
+                private final long crc;
+                /** Flag of the gzip-compressed content. */
+                private final boolean compressed;
+                /** Pooled buffer with the log file content. */
+                private final byte[] buffer;
+                /** Number of the content bytes in the buffer. */
+                private final int length;
+
+                @Override
+                public long getSize()
+                {
+                        return length;
+                }
+
+                @Override
+                public boolean isInMemory()
+                {
+                        return true;
+                }
+
+                @Override
+                public InputStream openStream() throws IOException
+                {
+                        InputStream content = new ByteArrayInputStream(buffer, 0, length);
+                        return compressed ? new GZIPInputStream(content, COPY_CHUNK_SIZE) : content;
+                }
+
+                @Override
+                public ByteBuffer mapContent()
+                {
+                        return compressed ? null : ByteBuffer.wrap(buffer, 0, length).asReadOnlyBuffer();
+                }
+
+        }
+
+        /**
+         * Log file spilled to the workspace directory.
+         */
+        @Getter
+        @RequiredArgsConstructor
+        private static class SpilledLogFile implements ExtractedLogFile
+        {
+                /** Name of the log file. */
+                private final String name;
+                /** CRC-32 checksum of the content. */
+                private final long crc;
+                /** Flag of the gzip-compressed content. */
+                private final boolean compressed;
+                /** Path of the spilled file. */
+                private final Path path;
+                /** Size of the spilled file. */
+                private final long size;
+
+                @Override
+                public boolean isInMemory()
+                {
+                        return false;
+                }
+
+                @Override
+                public InputStream openStream() throws IOException
+                {
+                        InputStream content = Files.newInputStream(path);
+                        return compressed ? new GZIPInputStream(content, COPY_CHUNK_SIZE) : content;
+                }
+
+                @Override
+                public ByteBuffer mapContent() throws IOException
+                {
+                        if (compressed || size > Integer.MAX_VALUE)
+                        {
+                                return null;
+                        }
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+                        {
+                                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        }
+                }
+
+        }
+
+        /**
+         * Log file sharing the content of another log file stored in the same workspace.
+         */
+        @RequiredArgsConstructor
+        private static class DuplicateLogFile implements ExtractedLogFile
+        {
+                /** Name of the log file. */
+                @Getter
+                private final String name;
+                /** Log file with the same content. */
+                private final ExtractedLogFile original;
+
+                @Override
+                public long getCrc()
+                {
+                        return original.getCrc();
+                }
+
+                @Override
+                public long getSize()
+                {
+                        return original.getSize();
+                }
+
+                @Override
+                public boolean isCompressed()
+                {
+                        return original.isCompressed();
+                }
+
+                @Override
+                public boolean isInMemory()
+                {
+                        return original.isInMemory();
+                }
+
+                @Override
+                public InputStream openStream() throws IOException
+                {
+                        return original.openStream();
+                }
+
+                @Override
+                public ByteBuffer mapContent() throws IOException
+                {
+                        return original.mapContent();
+                }
+
+        }
+
+}
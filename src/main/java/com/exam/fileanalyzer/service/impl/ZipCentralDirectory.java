@@ -0,0 +1,332 @@
+package com.exam.fileanalyzer.service.impl;
+
+import lombok.Getter;
+import lombok.Value;
+import org.springframework.lang.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Entries of the zip archive read from its central directory without reading the entry contents.
+ * <p> Each entry takes the bytes of the archive from its local header to the local header of the next entry
+ * (the header, the compressed content and the data descriptor), so the entries can be copied into the smaller
+ * archive without recompressing: the copied local entries are read by {@link java.util.zip.ZipInputStream} as is,
+ * because it does not need the central directory. The archive is read from the file: only its central directory is
+ * kept in memory and the entries are streamed from the file. Zip64 and multi-disk archives are not supported.
+ */
+public final class ZipCentralDirectory
+{
+        /** Signature of the end of central directory record. */
+        private static final int END_SIGNATURE = 0x06054b50;
+        /** Signature of the central directory file header. */
+        private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+        /** Signature of the local file header. */
+        private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+        /** Size of the end of central directory record without the comment. */
+        private static final int END_RECORD_SIZE = 22;
+        /** Size of the central directory file header without the name, extra field and comment. */
+        private static final int CENTRAL_HEADER_SIZE = 46;
+        /** Maximum size of the archive comment. */
+        private static final int MAX_COMMENT_SIZE = 0xFFFF;
+        /** Flag of the entry name encoded in UTF-8 (EFS). */
+        private static final int UTF8_FLAG = 1 << 11;
+        /** Value of the 16-bit fields moved to the zip64 records. */
+        private static final int ZIP64_SHORT_MARKER = 0xFFFF;
+        /** Value of the 32-bit fields moved to the zip64 records. */
+        private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+        /** Path to the file of the archive. */
+        private final Path archive;
+        /** Entries of the archive in the order of the central directory. */
+        @Getter
+        private final List<Entry> entries;
+
+        /**
+         * Constructor with the file of the archive and its entries.
+         *
+         * @param archive path to the file of the archive.
+         * @param entries entries of the archive.
+         */
+        private ZipCentralDirectory(Path archive, List<Entry> entries)
+        {
+                this.archive = archive;
+                this.entries = entries;
+        }
+
+        /**
+         * Reads the central directory of the zip archive from the file.
+         *
+         * @param archive path to the file of the archive.
+         * @return the central directory or null if the content is not a zip archive, the archive is zip64 or
+         * multi-disk or the offsets of its entries are invalid.
+         * @throws IOException if the file cannot be read.
+         */
+        @Nullable
+        public static ZipCentralDirectory read(@NonNull Path archive) throws IOException
+        {
+                try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ))
+                {
+                        return read(archive, channel);
+                }
+        }
+
+        /**
+         * Reads the central directory of the zip archive from the channel of its file.
+         *
+         * @param archive path to the file of the archive.
+         * @param channel channel of the file.
+         * @return the central directory or null if the content is not a zip archive, the archive is zip64 or
+         * multi-disk or the offsets of its entries are invalid.
+         * @throws IOException if the file cannot be read.
+         */
+        private static ZipCentralDirectory read(Path archive, FileChannel channel) throws IOException
+        {
+                long tailOffset = Math.max(0, channel.size() - END_RECORD_SIZE - MAX_COMMENT_SIZE);
+                byte[] tail = readBytes(channel, tailOffset, (int) (channel.size() - tailOffset));
+                int endInTail = findEndRecord(tail);
+                if (endInTail < 0 || readShort(tail, endInTail + 4) != 0 || readShort(tail, endInTail + 6) != 0)
+                {
+                        return null;
+                }
+                long end = tailOffset + endInTail;
+                int numberOfEntries = readShort(tail, endInTail + 10);
+                long directorySize = readInt(tail, endInTail + 12);
+                long directoryOffset = readInt(tail, endInTail + 16);
+                if (numberOfEntries == ZIP64_SHORT_MARKER || directorySize == ZIP64_MARKER ||
+                        directoryOffset == ZIP64_MARKER || directoryOffset + directorySize > end ||
+                        directorySize > Integer.MAX_VALUE)
+                {
+                        return null;
+                }
+                byte[] directory = readBytes(channel, directoryOffset, (int) directorySize);
+                List<Entry> entries = new ArrayList<>(numberOfEntries);
+                long[] localHeaderOffsets = new long[numberOfEntries];
+                int position = 0;
+                for (int i = 0; i < numberOfEntries; i++)
+                {
+                        if (position + CENTRAL_HEADER_SIZE > directory.length ||
+                                readInt(directory, position) != CENTRAL_HEADER_SIGNATURE)
+                        {
+                                return null;
+                        }
+                        int flags = readShort(directory, position + 8);
+                        long compressedSize = readInt(directory, position + 20);
+                        int nameLength = readShort(directory, position + 28);
+                        int extraLength = readShort(directory, position + 30);
+                        int commentLength = readShort(directory, position + 32);
+                        long localHeaderOffset = readInt(directory, position + 42);
+                        if (compressedSize == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER ||
+                                localHeaderOffset + 4 > directoryOffset ||
+                                readInt(readBytes(channel, localHeaderOffset, 4), 0) != LOCAL_HEADER_SIGNATURE ||
+                                position + CENTRAL_HEADER_SIZE + nameLength > directory.length)
+                        {
+                                return null;
+                        }
+                        String name = new String(directory, position + CENTRAL_HEADER_SIZE, nameLength,
+                                (flags & UTF8_FLAG) != 0 ? StandardCharsets.UTF_8 : ZipEntryNameCharset.INSTANCE);
+                        entries.add(new Entry(name, localHeaderOffset, 0, compressedSize));
+                        localHeaderOffsets[i] = localHeaderOffset;
+                        position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+                }
+                Arrays.sort(localHeaderOffsets);
+                for (int i = 0; i < numberOfEntries; i++)
+                {
+                        Entry entry = entries.get(i);
+                        int next = Arrays.binarySearch(localHeaderOffsets, entry.offset) + 1;
+                        while (next < numberOfEntries && localHeaderOffsets[next] == entry.offset)
+                        {
+                                next++;
+                        }
+                        long entryEnd = (next < numberOfEntries) ? localHeaderOffsets[next] : directoryOffset;
+                        entries.set(i, new Entry(entry.name, entry.offset, entryEnd, entry.compressedSize));
+                }
+                return new ZipCentralDirectory(archive, Collections.unmodifiableList(entries));
+        }
+
+        /**
+         * Opens the stream of the new archive of the local entries without the central directory (readable by
+         * {@link java.util.zip.ZipInputStream}), the entries are read from the file of this archive.
+         *
+         * @param selectedEntries entries of this archive.
+         * @return the stream of the new archive with the entries in the given order.
+         * @throws IOException if the file of the archive cannot be opened.
+         */
+        public InputStream openEntries(@NonNull List<Entry> selectedEntries) throws IOException
+        {
+                return new EntriesInputStream(FileChannel.open(archive, StandardOpenOption.READ), selectedEntries);
+        }
+
+        /**
+         * Reads the bytes of the file.
+         *
+         * @param channel channel of the file.
+         * @param offset offset of the first byte.
+         * @param length number of the bytes.
+         * @return the bytes.
+         * @throws IOException if the file cannot be read or ends before the last byte.
+         */
+        private static byte[] readBytes(FileChannel channel, long offset, int length) throws IOException
+        {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining())
+                {
+                        if (channel.read(buffer, offset + buffer.position()) < 0)
+                        {
+                                throw new EOFException("The zip archive ends unexpectedly.");
+                        }
+                }
+                return buffer.array();
+        }
+
+        /**
+         * Finds the end of central directory record searching backwards over the possible archive comment.
+         *
+         * @param tail the last bytes of the archive (the record and the longest comment).
+         * @return the offset of the record in the tail or -1 if there is no record.
+         */
+        private static int findEndRecord(byte[] tail)
+        {
+                for (int position = tail.length - END_RECORD_SIZE; position >= 0; position--)
+                {
+                        if (readInt(tail, position) == END_SIGNATURE &&
+                                position + END_RECORD_SIZE + readShort(tail, position + 20) == tail.length)
+                        {
+                                return position;
+                        }
+                }
+                return -1;
+        }
+
+        /**
+         * Reads the little-endian unsigned 16-bit value.
+         *
+         * @param bytes bytes of the archive.
+         * @param position offset of the value.
+         * @return the value.
+         */
+        private static int readShort(byte[] bytes, int position)
+        {
+                return (bytes[position] & 0xFF) | (bytes[position + 1] & 0xFF) << 8;
+        }
+
+        /**
+         * Reads the little-endian unsigned 32-bit value.
+         *
+         * @param bytes bytes of the archive.
+         * @param position offset of the value.
+         * @return the value.
+         */
+        private static long readInt(byte[] bytes, int position)
+        {
+                return readShort(bytes, position) | (long) readShort(bytes, position + 2) << 16;
+        }
+
+        /**
+         * Stream of the local entries read from the file of the archive one after another.
+         */
+        private static class EntriesInputStream extends InputStream
+        {
+                /** Channel of the file of the archive (closed with the stream). */
+                private final FileChannel channel;
+                /** Entries to read. */
+                private final Iterator<Entry> entries;
+                /** Offset of the next byte of the current entry. */
+                private long position;
+                /** Offset after the last byte of the current entry. */
+                private long end;
+
+                /**
+                 * Constructor with the channel of the file and the entries.
+                 *
+                 * @param channel channel of the file of the archive.
+                 * @param entries entries to read.
+                 */
+                EntriesInputStream(FileChannel channel, List<Entry> entries)
+                {
+                        this.channel = channel;
+                        this.entries = List.copyOf(entries).iterator();
+                }
+
+                @Override
+                public int read() throws IOException
+                {
+                        byte[] single = new byte[1];
+                        return (read(single, 0, 1) < 0) ? -1 : single[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException
+                {
+                        Objects.checkFromIndexSize(offset, length, buffer.length);
+                        if (length == 0)
+                        {
+                                return 0;
+                        }
+                        while (position >= end)
+                        {
+                                if (!entries.hasNext())
+                                {
+                                        return -1;
+                                }
+                                Entry entry = entries.next();
+                                position = entry.offset;
+                                end = entry.end;
+                        }
+                        int read = channel.read(ByteBuffer.wrap(buffer, offset,
+                                (int) Math.min(length, end - position)), position);
+                        if (read < 0)
+                        {
+                                throw new EOFException("The zip archive ends unexpectedly.");
+                        }
+                        position += read;
+                        return read;
+                }
+
+                @Override
+                public void close() throws IOException
+                {
+                        channel.close();
+                }
+        }
+
+        /**
+         * Entry of the archive.
+         */
+        @Value
+        public static class Entry
+        {
+                /** Full path of the entry. */
+                String name;
+                /** Offset of the local header of the entry. */
+                long offset;
+                /** Offset after the last byte of the entry (the next local header or the central directory). */
+                long end;
+                /** Size of the compressed content of the entry. */
+                long compressedSize;
+
+                /**
+                 * Returns the number of the bytes of the entry in the archive.
+                 *
+                 * @return the number of the bytes from the local header to the end of the entry.
+                 */
+                public long getLength()
+                {
+                        return end - offset;
+                }
+
+                /**
+                 * Checks if the entry is a directory.
+                 *
+                 * @return true if the name ends with the slash.
+                 */
+                public boolean isDirectory()
+                {
+                        return name.endsWith("/");
+                }
+        }
+
+}
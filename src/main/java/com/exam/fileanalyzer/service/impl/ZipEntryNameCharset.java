@@ -0,0 +1,94 @@
+package com.exam.fileanalyzer.service.impl;
+
+import java.nio.*;
+import java.nio.charset.*;
+
+/**
+ * Charset for decoding names of zip entries without the EFS (UTF-8) flag of the general purpose bit field.
+ * <p> {@link java.util.zip.ZipInputStream} decodes names of entries with the EFS flag as UTF-8 itself and passes
+ * the raw name bytes of other entries to this charset. Each name is decoded as UTF-8 if the bytes are valid UTF-8
+ * (archivers on Linux and macOS often omit the flag) and as CP437 otherwise (the default zip charset used by Windows),
+ * so the archive with mixed entry names is processed in a single pass.
+ */
+public class ZipEntryNameCharset extends Charset
+{
+        /** Shared instance of the charset. */
+        public static final Charset INSTANCE = new ZipEntryNameCharset();
+        /** Charset used for names that are not valid UTF-8 (CP437 maps all 256 byte values). */
+        private static final Charset FALLBACK_CHARSET = Charset.forName("CP437");
+
+        /**
+         * Private constructor of the shared instance.
+         */
+        private ZipEntryNameCharset()
+        {
+                super("X-ZIP-ENTRY-NAME-UTF-8-CP437", null);
+        }
+
+        @Override
+        public boolean contains(Charset charset)
+        {
+                return charset == this || StandardCharsets.UTF_8.contains(charset);
+        }
+
+        @Override
+        public CharsetDecoder newDecoder()
+        {
+                return new Decoder(this);
+        }
+
+        @Override
+        public CharsetEncoder newEncoder()
+        {
+                return StandardCharsets.UTF_8.newEncoder();
+        }
+
+        @Override
+        public boolean canEncode()
+        {
+                return false;
+        }
+
+        /**
+         * Decoder choosing the charset for the whole entry name (a name is always decoded in one call).
+         */
+        private static class Decoder extends CharsetDecoder
+        {
+                /** Strict UTF-8 decoder reporting malformed input. */
+                private final CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+                /**
+                 * Constructor of the decoder (both charsets produce no more than one char per byte).
+                 *
+                 * @param charset charset of the decoder.
+                 */
+                private Decoder(Charset charset)
+                {
+                        super(charset, 1.0f, 1.0f);
+                }
+
+                @Override
+                protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out)
+                {
+                        CharBuffer decoded;
+                        try
+                        {
+                                decoded = utf8Decoder.reset().decode(in.duplicate());
+                        } catch (CharacterCodingException exception)
+                        {
+                                decoded = FALLBACK_CHARSET.decode(in.duplicate());
+                        }
+                        if (out.remaining() < decoded.remaining())
+                        {
+                                return CoderResult.OVERFLOW;
+                        }
+                        out.put(decoded);
+                        in.position(in.limit());
+                        return CoderResult.UNDERFLOW;
+                }
+
+        }
+
+}
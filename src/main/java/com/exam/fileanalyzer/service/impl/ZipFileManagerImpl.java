@@ -6,252 +6,350 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.lang.*;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 
-import javax.annotation.PostConstruct;
 import java.io.*;
-import java.nio.charset.*;
-import java.nio.file.*;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.zip.*;
 
 import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.ZipFileManager.LogFileFilter;
 
 /**
- * ZipFileManager interface implementation - bean responsible for unzip necessary log files from zip file and delete
- * them after work.
+ * ZipFileManager interface implementation - bean responsible for extracting necessary log files from the uploaded
+ * archive (zip, tar, tar.gz or gz) into the temporary workspace.
  */
 @Slf4j
 @Service
 public class ZipFileManagerImpl implements ZipFileManager
 {
-        /** Constant with pattern for log file name. */
-        private static final Pattern LOG_FILE_NAME_PATTERN =
-                Pattern.compile("logs_\\d{4}-\\d{2}-\\d{2}-access\\.log");
-        /** Constant with date format in log file name. */
-        private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        /** Path of temp directory for operated log files. */
-        private final Path tempDir;
+        /** Suffix of the gzip-compressed file names. */
+        private static final String GZIP_SUFFIX = ".gz";
+        /** Separator between the path of the nested archive and the paths of its entries. */
+        private static final String NESTED_PATH_SEPARATOR = "!/";
+        /** Maximum nesting depth of the archives inside the upload. */
+        private static final int MAX_NESTING_DEPTH = 3;
+        /** Size of the gzip decompression buffer. */
+        private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+        /** Bean responsible for the temporary workspaces of the requests. */
+        private final TempWorkspaceManager workspaceManager;
+        /** Compiled schemes of the log file names (the first matching scheme gives the date of the log file). */
+        private final List<LogFileNameScheme> fileNameSchemes = new ArrayList<>();
+        /** Maximum number of bytes inflated from all members of the upload. */
+        private final long maxInflatedRequestBytes;
+        /** Maximum number of bytes inflated from a single member of the upload. */
+        private final long maxInflatedEntryBytes;
+        /** Maximum ratio of the inflated bytes to the compressed bytes of the upload. */
+        private final int maxCompressionRatio;
+        /** Number of the extractions aborted because the upload exceeded the inflation budget. */
+        private final AtomicLong inflationBudgetExceededCount = new AtomicLong();
 
         /**
-         * Bean's constructor with property value injection.
+         * Bean's constructor with bean and property value injection.
          *
-         * @param tempDirPath path of temp directory for operated log files (property value).
+         * @param workspaceManager bean responsible for the temporary workspaces of the requests.
+         * @param fileNameSchemes templates of the log file names like "logs_{date}-access.log" (property value).
+         * @param maxInflatedRequestBytes maximum number of bytes inflated from all members (property value).
+         * @param maxInflatedEntryBytes maximum number of bytes inflated from a single member (property value).
+         * @param maxCompressionRatio maximum ratio of the inflated bytes to the compressed bytes (property value).
+         * @throws IllegalArgumentException if the template is invalid or the inflation limit is not positive.
          */
         @Autowired
-        public ZipFileManagerImpl(@Value("${temp.dir.path}") String tempDirPath)
+        public ZipFileManagerImpl(TempWorkspaceManager workspaceManager,
+                                  @Value("${log.file.name.schemes:logs_{date}-access.log}") String[] fileNameSchemes,
+                                  @Value("${inflation.max.request.bytes:536870912}") long maxInflatedRequestBytes,
+                                  @Value("${inflation.max.entry.bytes:268435456}") long maxInflatedEntryBytes,
+                                  @Value("${inflation.max.ratio:200}") int maxCompressionRatio)
         {
-                Path inspectPath = Paths.get(tempDirPath);
-                if (Files.exists(inspectPath.getParent()))
+                if (maxInflatedRequestBytes < 1 || maxInflatedEntryBytes < 1 || maxCompressionRatio < 1)
                 {
-                        tempDir = inspectPath;
-                } else
+                        throw new IllegalArgumentException("The inflation limits must be positive.");
+                }
+                this.workspaceManager = workspaceManager;
+                this.maxInflatedRequestBytes = maxInflatedRequestBytes;
+                this.maxInflatedEntryBytes = maxInflatedEntryBytes;
+                this.maxCompressionRatio = maxCompressionRatio;
+                for (String fileNameScheme : fileNameSchemes)
                 {
-                        tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "logs-tmp");
+                        this.fileNameSchemes.add(LogFileNameScheme.compile(fileNameScheme.trim()));
                 }
+                log.info("Log file name schemes: {}", this.fileNameSchemes);
         }
 
         /**
-         * Creates temp directory for operated log files if it not exists.
+         * Extracts necessary log files from the uploaded archive into the new temporary workspace in a single pass.
+         * <p> Supported uploads are zip, tar, tar.gz (tgz) archives and single gzip-compressed log files. Archive
+         * members can be plain or gzip-compressed log files and nested archives, all of them are decompressed while
+         * streaming without intermediate files (gzip-compressed log files are stored as is and decompressed during
+         * the analysis).
+         * <p> Names of the zip entries with the EFS flag are decoded as UTF-8, names of other entries are decoded with
+         * {@link ZipEntryNameCharset} choosing between UTF-8 and CP437 for each entry, so archives created in Windows
+         * with not ASCII characters in directory and file names are not inflated twice.
+         * <p> Every member is read through the {@link InflationBudget} of the request, including the skipped members,
+         * directory entries and tar headers, so the archive bomb is aborted with
+         * {@link InflationBudgetExceededException} as soon as it inflates to more bytes or with a higher compression
+         * ratio than configured. The stored gzip-compressed log files are inflated through the budget once more.
          *
-         * @throws IOException if meets problems with creating temp directory.
+         * @param paramHolder object containing the search query, zip file, start date, and number of days.
+         * @param filter filter of the log files matching the name schemes (is called for each of them).
+         * @return the workspace with the log files (the caller is responsible for closing it).
+         * @throws IOException if the archive or its entries cannot be read.
+         * @throws InflationBudgetExceededException if the upload exceeds the inflation budget.
          */
-        @PostConstruct
-        public void createTempDirectoryIfNotExists() throws IOException
+        @Override
+        public TempWorkspace extractLogFilesForAnalysis(@NonNull CountEntriesParamHolder paramHolder,
+                                                        @NonNull LogFileFilter filter) throws IOException
         {
-                if (Files.exists(tempDir))
+                String uploadName = Objects.isNull(paramHolder.getZipMultipartFile()) ? null :
+                        paramHolder.getZipMultipartFile().getOriginalFilename();
+                if (Objects.isNull(uploadName) ||
+                        (ArchiveFormat.of(uploadName) == null && !uploadName.endsWith(GZIP_SUFFIX)))
                 {
-                        log.info("Temp directory for log files already exists.");
-                } else
+                        throw new IllegalArgumentException("There is no file to open or it is not a supported " +
+                                "archive (zip, tar, tar.gz, tgz, gz).");
+                }
+                log.debug("Extracting necessary log files from archive.");
+                TempWorkspace workspace = workspaceManager.createWorkspace();
+                InflationBudget budget = new InflationBudget(maxInflatedRequestBytes, maxInflatedEntryBytes,
+                        maxCompressionRatio);
+                TempFileCreatingParams params = new TempFileCreatingParams(workspace, new LogFileDateRange(paramHolder),
+                        filter, budget);
+                try (InputStream uploadStream = budget.countCompressed(paramHolder.getZipMultipartFile()
+                        .getInputStream()))
+                {
+                        ArchiveFormat format = ArchiveFormat.of(uploadName);
+                        if (format == null)
+                        {
+                                storeAppropriateLogFileInWorkspace(uploadName,
+                                        budget.limitMember(uploadName, uploadStream), -1, -1, params);
+                        } else
+                        {
+                                extractArchive(format, uploadStream, "", 0, params);
+                        }
+                } catch (InflationBudgetExceededException exception)
                 {
-                        log.info("There is no temp directory for log files. Creating...");
-                        Files.createDirectory(tempDir);
-                        log.info("Temp directory for log files successfully created.");
+                        workspace.close();
+                        log.warn("Extraction of '{}' is aborted after {} inflated bytes ({} uploads aborted): {}",
+                                uploadName, budget.getInflatedBytes(), inflationBudgetExceededCount.incrementAndGet(),
+                                exception.getMessage());
+                        throw exception;
+                } catch (IOException | RuntimeException exception)
+                {
+                        workspace.close();
+                        throw exception;
                 }
+                log.debug("Extracted {} necessary log files from archive.", workspace.getLogFiles().size());
+                return workspace;
+        }
+
+        @Override
+        public Predicate<String> createEntrySelector(@NonNull CountEntriesParamHolder paramHolder)
+        {
+                LogFileDateRange dateRange = new LogFileDateRange(paramHolder);
+                return entryPath ->
+                {
+                        if (ArchiveFormat.of(entryPath) != null)
+                        {
+                                return true;
+                        }
+                        int nameEnd = entryPath.endsWith(GZIP_SUFFIX) ?
+                                entryPath.length() - GZIP_SUFFIX.length() : entryPath.length();
+                        long dateAndHour = matchFileNameSchemes(entryPath, entryPath.lastIndexOf('/') + 1, nameEnd);
+                        return dateAndHour != LogFileNameScheme.NO_MATCH && dateRange.contains(dateAndHour);
+                };
+        }
+
+        @Override
+        public long getInflationBudgetExceededCount()
+        {
+                return inflationBudgetExceededCount.get();
         }
 
         /**
-         * Unzips necessary log files from the zip file.
+         * Walks through the entries of the archive stream and stores necessary log files in the workspace.
          *
-         * @param paramHolder object containing the search query, zip file, start date, and number of days.
-         * @param charset (optional) charset used to read the zip file.
-         * @return a list of paths to the log files.
-         * @throws IOException if the zip file or its entries cannot be read.
+         * @param format format of the archive.
+         * @param archiveStream stream of the archive (is not closed by the method).
+         * @param pathPrefix prefix of the entry paths (the path of the nested archive in the outer one).
+         * @param depth nesting depth of the archive.
+         * @param params parameters for creating and filtering necessary log files.
+         * @throws IOException if the archive or its entries cannot be read.
          */
-        @Override
-        public List<Path> getPathsOfLogFilesForAnalysis(@NonNull CountEntriesParamHolder paramHolder,
-                                                        @Nullable Charset charset) throws IOException
+        private void extractArchive(ArchiveFormat format, InputStream archiveStream, String pathPrefix, int depth,
+                                    TempFileCreatingParams params) throws IOException
         {
-                if (Objects.isNull(paramHolder.getZipMultipartFile()) ||
-                        Objects.isNull(paramHolder.getZipMultipartFile().getOriginalFilename()) ||
-                        !paramHolder.getZipMultipartFile().getOriginalFilename().endsWith(".zip"))
-                {
-                        throw new IllegalArgumentException("There is no file to open or it is not a zip file.");
-                }
-                log.debug("Getting paths of necessary log files from zip file{}",
-                        Objects.isNull(charset) ? "." : " with charset '" + charset + "'.");
-                Set<Path> paths = new LinkedHashSet<>();
-                Path unzipDir = createUnzipDir();
-                paths.add(unzipDir);
-                try (ZipInputStream zipStream = new ZipInputStream(paramHolder.getZipMultipartFile().getInputStream(),
-                        Objects.isNull(charset) ? StandardCharsets.UTF_8 : charset))
+                InputStream nonClosingStream = StreamUtils.nonClosing(archiveStream);
+                if (format == ArchiveFormat.ZIP)
                 {
+                        ZipInputStream zipStream = new ZipInputStream(nonClosingStream, ZipEntryNameCharset.INSTANCE);
                         ZipEntry entry;
                         while ((entry = zipStream.getNextEntry()) != null)
                         {
-                                TempFileCreatingParams params = new TempFileCreatingParams(zipStream, entry, unzipDir,
-                                        paramHolder.getStartDate(), paramHolder.getNumberOfDays());
-                                if (!entry.isDirectory())
+                                if (entry.isDirectory())
                                 {
-                                        createAppropriateLogFileInTempDir(params).ifPresent(paths::add);
+                                        drain(params.budget.limitMember(pathPrefix + entry.getName(), zipStream));
+                                } else
+                                {
+                                        extractMember(pathPrefix + entry.getName(), zipStream,
+                                                entry.getCrc(), entry.getSize(), depth, params);
                                 }
                                 zipStream.closeEntry();
                         }
-                } catch (IllegalArgumentException exception)
+                        return;
+                }
+                InputStream tarStream = (format == ArchiveFormat.TAR) ? nonClosingStream :
+                        new GZIPInputStream(nonClosingStream, GZIP_BUFFER_SIZE);
+                TarStreamReader tarReader = new TarStreamReader(tarStream, params.budget::chargeArchive);
+                TarStreamReader.TarEntry entry;
+                while ((entry = tarReader.getNextEntry()) != null)
                 {
-                       deleteTempLogFiles(new ArrayList<>(paths));
-                       return handleIllegalArgumentExceptionWithZipFileEntries(exception, paramHolder);
+                        if (entry.isFile())
+                        {
+                                extractMember(pathPrefix + entry.getName(), tarReader.getEntryStream(),
+                                        -1, -1, depth, params);
+                        } else
+                        {
+                                drain(params.budget.limitMember(pathPrefix + entry.getName(),
+                                        tarReader.getEntryStream()));
+                        }
                 }
-                log.debug("Found {} paths of necessary log files in zip file.", paths.size());
-                return new ArrayList<>(paths);
         }
 
         /**
-         * Deletes the temporary log files and their parent directory.
+         * Extracts the archive member: walks through the nested archive or stores the log file. The member is read
+         * through the inflation budget of the request, including its rest skipped by the extraction.
          *
-         * @param logFilePaths a list of paths to the log files.
-         * @throws IOException if meets the problem on deleting some file.
-         * @throws IllegalStateException if gets null or empty list.
+         * @param entryPath full path of the member.
+         * @param memberStream stream of the member content (is not closed by the method).
+         * @param crc CRC-32 checksum of the member content or -1 if it is unknown.
+         * @param size size of the member content or -1 if it is unknown.
+         * @param depth nesting depth of the archive containing the member.
+         * @param params parameters for creating and filtering necessary log files.
+         * @throws IOException if the member cannot be read.
          */
-        @Override
-        public void deleteTempLogFiles(@NonNull List<Path> logFilePaths) throws IOException
+        private void extractMember(String entryPath, InputStream memberStream, long crc, long size, int depth,
+                                   TempFileCreatingParams params) throws IOException
         {
-                log.debug("Deleting temporary log files and their parent directory...");
-                if (logFilePaths.isEmpty())
+                InputStream limitedStream = params.budget.limitMember(entryPath, memberStream);
+                ArchiveFormat nestedFormat = ArchiveFormat.of(entryPath);
+                if (nestedFormat == null)
                 {
-                        throw new IllegalStateException("The log file paths list for deleting is null or empty. " +
-                                "There is must be at least one path (created temp directory) to delete.");
-                }
-                int size = logFilePaths.size();
-                Path parentDir = logFilePaths.get(0);
-                for (int i = 1; i < logFilePaths.size(); i++)
-                {
-                        Files.deleteIfExists(logFilePaths.get(i));
-                }
-                Files.deleteIfExists(parentDir);
-                try
+                        storeAppropriateLogFileInWorkspace(entryPath, limitedStream, crc, size, params);
+                } else if (depth < MAX_NESTING_DEPTH)
                 {
-                        logFilePaths.clear();
-                } catch (UnsupportedOperationException exception)
+                        extractArchive(nestedFormat, limitedStream, entryPath + NESTED_PATH_SEPARATOR, depth + 1,
+                                params);
+                } else
                 {
-                        log.warn("Can't clear the list of log file paths because it is unmodifiable!");
+                        log.warn("Nested archive '{}' is skipped: maximum nesting depth ({}) is reached.",
+                                entryPath, MAX_NESTING_DEPTH);
                 }
-                log.debug("Temporary log files and their parent directory successfully deleted ({} files).", size);
+                drain(limitedStream);
         }
 
         /**
-         * Creates a temporary directory for each zip file received in the http request.
-         * Guaranties that each thread will work with its directory.
+         * Checks if the log file name and date are appropriate for log analysis and stores it in the workspace under
+         * the full entry path (gzip-compressed log files are stored as is). If the entry header already has
+         * the CRC-32 and size of the content stored before, the entry shares the stored content and is not written to
+         * the workspace. Its content is still inflated when the entry stream is drained (and by the zip reader, which
+         * verifies the CRC-32 when the entry is closed), so the saving is the disk write only.
          *
-         * @return a path to the temporary directory.
-         * @throws IOException if the temporary directory cannot be created.
+         * @param entryPath full path of the entry.
+         * @param entryStream stream of the entry content (is not closed by the method).
+         * @param crc CRC-32 checksum of the entry content or -1 if it is unknown.
+         * @param size size of the entry content or -1 if it is unknown.
+         * @param params parameters for creating and filtering necessary log files.
+         * @throws IOException if the log file for analysis cannot be stored.
          */
-        private Path createUnzipDir() throws IOException
+        private void storeAppropriateLogFileInWorkspace(String entryPath, InputStream entryStream, long crc, long size,
+                                                        TempFileCreatingParams params) throws IOException
         {
-                String tmpDirName = String.valueOf(System.currentTimeMillis()).substring(5);
-                Path unzipDir = tempDir.resolve(tmpDirName);
-                if (Files.exists(unzipDir))
+                boolean compressed = entryPath.endsWith(GZIP_SUFFIX);
+                int nameStart = entryPath.lastIndexOf('/') + 1;
+                int nameEnd = compressed ? entryPath.length() - GZIP_SUFFIX.length() : entryPath.length();
+                if (isLogFileAppropriate(entryPath, nameStart, nameEnd, params))
                 {
-                        tmpDirName = String.valueOf(System.currentTimeMillis() - 5000).substring(5);
-                        unzipDir = tempDir.resolve(tmpDirName);
+                        if (crc == -1 || size == -1 || params.workspace.storeDuplicate(entryPath, crc, size).isEmpty())
+                        {
+                                ExtractedLogFile logFile = params.workspace.store(entryPath, entryStream, compressed);
+                                if (compressed)
+                                {
+                                        checkCompressedLogFile(entryPath, logFile, params);
+                                }
+                        }
                 }
-                Files.createDirectory(unzipDir);
-                return unzipDir;
         }
 
         /**
-         * Checks if the log file date is appropriate for log analysis by conditions received in the http request.
+         * Inflates the stored gzip-compressed log file once through the inflation budget, so the gzip bomb is
+         * rejected during the extraction instead of being inflated without limits during the analysis.
          *
-         * @param params parameters for creating and filtering necessary log files.
-         * @return optional value with the path to the log file or empty if there is no appropriate log file.
-         * @throws IOException if the temporary log file for analysis cannot be created.
+         * @param entryPath full path of the entry.
+         * @param logFile the stored log file.
+         * @param params parameters with the inflation budget of the request.
+         * @throws IOException if the log file cannot be inflated or exceeds the inflation budget.
          */
-        private Optional<Path> createAppropriateLogFileInTempDir(TempFileCreatingParams params) throws IOException
+        private void checkCompressedLogFile(String entryPath, ExtractedLogFile logFile,
+                                            TempFileCreatingParams params) throws IOException
         {
-                Optional<Path> mayBeFilePath = Optional.empty();
-                String fileName = params.zipEntry.getName();
-                if (fileName.contains("/"))
-                {
-                        fileName = fileName.substring(fileName.lastIndexOf("/") + 1);
-                }
-                if (LOG_FILE_NAME_PATTERN.matcher(fileName).matches() && isLogFileDateAppropriate(fileName, params))
+                try (InputStream content = logFile.openStream())
                 {
-                        Path filePath = params.unzipDir.resolve(fileName);
-                        Files.copy(params.zipStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-                        mayBeFilePath = Optional.of(filePath);
+                        drain(params.budget.limitMember(entryPath, content, logFile.getSize()));
                 }
-                return mayBeFilePath;
         }
 
         /**
-         * Checks if the log file date is appropriate for log analysis by conditions received in the http request.
+         * Reads the rest of the stream (the limited stream charges the inflation budget with the read bytes).
          *
-         * @param fileName name of the log file.
+         * @param stream the stream.
+         * @throws IOException if the stream cannot be read or exceeds the inflation budget.
+         */
+        private static void drain(InputStream stream) throws IOException
+        {
+                stream.transferTo(OutputStream.nullOutputStream());
+        }
+
+        /**
+         * Checks if the log file name matches one of the schemes, the log file is accepted by the filter and its date
+         * (and hour for the hourly log files) is appropriate for log analysis by conditions received in the http
+         * request.
+         *
+         * @param entryPath full path of the entry.
+         * @param nameStart index of the first character of the log file name in the path.
+         * @param nameEnd index after the last character of the log file name (without the gzip suffix).
          * @param params parameters for creating and filtering necessary log files.
-         * @return true if the log file date is appropriate, false otherwise.
+         * @return true if the log file is appropriate, false otherwise.
          */
-        private boolean isLogFileDateAppropriate(String fileName, TempFileCreatingParams params)
+        private boolean isLogFileAppropriate(String entryPath, int nameStart, int nameEnd,
+                                             TempFileCreatingParams params)
         {
-                String extractedDate = fileName.substring(5, 15);
-                LocalDate logDate = LocalDate.parse(extractedDate, DATE_FORMAT);
-                boolean isStartDateNull = Objects.isNull(params.startDate);
-                boolean isNumberOfDaysNull = Objects.isNull(params.numberOfDays);
-                if (isStartDateNull && isNumberOfDaysNull)
-                {
-                        return logDate.equals(LocalDate.now());
-                }
-                if (isStartDateNull)
-                {
-                        LocalDate point = LocalDate.now().minusDays(params.numberOfDays);
-                        return !logDate.isBefore(point);
-                }
-                if (isNumberOfDaysNull)
-                {
-                        return logDate.equals(params.startDate);
-                }
-                LocalDate endDate = params.startDate.plusDays(params.numberOfDays);
-                return !logDate.isBefore(params.startDate) && logDate.isBefore(endDate);
+                long dateAndHour = matchFileNameSchemes(entryPath, nameStart, nameEnd);
+                return dateAndHour != LogFileNameScheme.NO_MATCH && params.filter.accept(entryPath, dateAndHour) &&
+                        params.dateRange.contains(dateAndHour);
         }
 
         /**
-         * Additionally launch the method of unpacking the necessary files from the archive if the first attempt meets
-         * the UTF-8-charset error (IllegalArgumentException).
-         * <p> This happens when obtaining a ZIP archive created in Windows and containing not ASCII characters
-         * in directory and file names.
+         * Matches the log file name with the schemes (the first matching scheme gives the date of the log file).
          *
-         * @param exception IllegalArgumentException met in first attempt.
-         * @param paramHolder parameters for creating and filtering necessary log files.
-         * @return a list of paths to the log files.
-         * @throws IOException if the zip file or its entries cannot be read.
+         * @param entryPath full path of the entry.
+         * @param nameStart index of the first character of the log file name in the path.
+         * @param nameEnd index after the last character of the log file name (without the gzip suffix).
+         * @return the packed date and hour {@code yyyyMMddHH} or {@link LogFileNameScheme#NO_MATCH} if the name
+         * matches none of the schemes.
          */
-        private List<Path> handleIllegalArgumentExceptionWithZipFileEntries(IllegalArgumentException exception,
-                                                                            CountEntriesParamHolder paramHolder)
-                throws IOException
+        private long matchFileNameSchemes(String entryPath, int nameStart, int nameEnd)
         {
-                Throwable cause = exception.getCause();
-                String exceptionName = Objects.isNull(cause) ? exception.getClass().getSimpleName() :
-                        cause.getClass().getSimpleName();
-                log.warn("There is problem with zip file - {} ({}). Trying CP437-charset instead UTF-8.",
-                        exceptionName, exception.getMessage());
-                try
-                {
-                        return getPathsOfLogFilesForAnalysis(paramHolder, Charset.forName("CP437"));
-                } catch (IllegalArgumentException anotherException)
+                for (LogFileNameScheme fileNameScheme : fileNameSchemes)
                 {
-                        throw new IOException(anotherException.getMessage());
+                        long dateAndHour = fileNameScheme.match(entryPath, nameStart, nameEnd);
+                        if (dateAndHour != LogFileNameScheme.NO_MATCH)
+                        {
+                                return dateAndHour;
+                        }
                 }
+                return LogFileNameScheme.NO_MATCH;
         }
 
         /**
@@ -260,16 +358,52 @@ public class ZipFileManagerImpl implements ZipFileManager
         @RequiredArgsConstructor
         private static class TempFileCreatingParams
         {
-                /** Input stream of the zip file. */
-                private final ZipInputStream zipStream;
-                /** Entry of the zip file that can be necessary log file. */
-                private final ZipEntry zipEntry;
-                /** Path of the temporary directory for unzipped log files. */
-                private final Path unzipDir;
-                /** Start date for the log file filtering. */
-                private final LocalDate startDate;
-                /** Number of days for the log file filtering. */
-                private final Integer numberOfDays;
+                /** Workspace for the extracted log files. */
+                private final TempWorkspace workspace;
+                /** Range of the dates of the appropriate log files. */
+                private final LogFileDateRange dateRange;
+                /** Filter of the log files of the caller. */
+                private final LogFileFilter filter;
+                /** Inflation budget of the request. */
+                private final InflationBudget budget;
+        }
+
+        /**
+         * Supported archive formats recognized by the file name extension.
+         */
+        private enum ArchiveFormat
+        {
+                /** Zip archive. */
+                ZIP,
+                /** Uncompressed tar archive. */
+                TAR,
+                /** Gzip-compressed tar archive. */
+                TAR_GZ;
+
+                /**
+                 * Recognizes the archive format by the file name.
+                 *
+                 * @param fileName name or path of the file.
+                 * @return archive format or null if the file is not an archive.
+                 */
+                @Nullable
+                private static ArchiveFormat of(String fileName)
+                {
+                        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+                        if (lowerCaseName.endsWith(".zip"))
+                        {
+                                return ZIP;
+                        }
+                        if (lowerCaseName.endsWith(".tar"))
+                        {
+                                return TAR;
+                        }
+                        if (lowerCaseName.endsWith(".tar.gz") || lowerCaseName.endsWith(".tgz"))
+                        {
+                                return TAR_GZ;
+                        }
+                        return null;
+                }
 
         }
 
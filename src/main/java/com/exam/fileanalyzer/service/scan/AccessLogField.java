@@ -0,0 +1,59 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+
+/**
+ * Field of the access log line in the common or combined log format:
+ * {@code ip ident user [time] "method path protocol" status size "referer" "user agent"}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AccessLogField
+{
+        /** Client IP address. */
+        IP("ip", false),
+        /** Time of the request (without the brackets). */
+        TIME("time", false),
+        /** Method of the request. */
+        METHOD("method", false),
+        /** Path of the request. */
+        PATH("path", false),
+        /** Protocol of the request. */
+        PROTOCOL("protocol", false),
+        /** Status code of the response. */
+        STATUS("status", true),
+        /** Size of the response in bytes ('-' is zero). */
+        SIZE("size", true),
+        /** Referer header of the request (combined log format only). */
+        REFERER("referer", false),
+        /** User agent of the request (combined log format only). */
+        USER_AGENT("ua", false);
+
+        /** Name of the field in the filter expressions. */
+        private final String fieldName;
+        /** Flag of the numeric field compared as a number. */
+        private final boolean numeric;
+
+        /**
+         * Returns the field by its name in the filter expressions.
+         *
+         * @param fieldName name of the field.
+         * @return the field.
+         * @throws IllegalArgumentException if there is no field with the name.
+         */
+        public static AccessLogField of(@NonNull String fieldName)
+        {
+                for (AccessLogField field : values())
+                {
+                        if (field.fieldName.equalsIgnoreCase(fieldName))
+                        {
+                                return field;
+                        }
+                }
+                throw new IllegalArgumentException(String.format("Unknown access log field '%s', supported fields " +
+                        "are ip, time, method, path, protocol, status, size, referer and ua.", fieldName));
+        }
+
+}
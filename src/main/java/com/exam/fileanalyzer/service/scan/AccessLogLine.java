@@ -0,0 +1,361 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Lazy offset-based view of the access log line in the common or combined log format.
+ * <p> The view does not copy the line bytes and does not create objects per line: {@link #reset(byte[], int, int)}
+ * only remembers the byte range, the fields are located when they are requested for the first time, and only
+ * the part of the line needed for the requested field is scanned (for example, the user agent is found from the end
+ * of the line). The view is reused for all lines and must be used by one thread at a time.
+ */
+public class AccessLogLine
+{
+        /** Number of the access log fields. */
+        private static final int FIELD_COUNT = AccessLogField.values().length;
+        /** Bytes of the current line. */
+        private byte[] buffer;
+        /** Index of the first byte of the current line. */
+        private int from;
+        /** Index after the last byte of the current line. */
+        private int to;
+        /** Indexes of the first bytes of the fields by the field ordinal. */
+        private final int[] starts = new int[FIELD_COUNT];
+        /** Indexes after the last bytes of the fields by the field ordinal. */
+        private final int[] ends = new int[FIELD_COUNT];
+        /** Bits of the fields (by the ordinal) located in the current line. */
+        private int locatedFields;
+        /** Bits of the located fields present in the current line. */
+        private int presentFields;
+        /** Index of the closing quote of the request or -1 if the request is not found. */
+        private int requestEnd;
+
+        /**
+         * Sets the current line of the view.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         */
+        public void reset(@NonNull byte[] buffer, int from, int to)
+        {
+                this.buffer = buffer;
+                this.from = from;
+                this.to = to;
+                this.locatedFields = 0;
+                this.presentFields = 0;
+        }
+
+        /**
+         * Locates the field in the current line.
+         *
+         * @param field the field to locate.
+         * @return true if the line contains the field.
+         */
+        public boolean locate(@NonNull AccessLogField field)
+        {
+                if ((locatedFields & bit(field)) == 0)
+                {
+                        switch (field)
+                        {
+                                case IP:
+                                        locateIp();
+                                        break;
+                                case TIME:
+                                case METHOD:
+                                case PATH:
+                                case PROTOCOL:
+                                        locateRequest();
+                                        break;
+                                case STATUS:
+                                case SIZE:
+                                        locateStatusAndSize();
+                                        break;
+                                default:
+                                        locateQuotedTail();
+                        }
+                }
+                return (presentFields & bit(field)) != 0;
+        }
+
+        /**
+         * Returns the index of the first byte of the located field.
+         *
+         * @param field the located field.
+         * @return index of the first byte of the field.
+         */
+        public int getStart(@NonNull AccessLogField field)
+        {
+                return starts[field.ordinal()];
+        }
+
+        /**
+         * Returns the index after the last byte of the located field.
+         *
+         * @param field the located field.
+         * @return index after the last byte of the field.
+         */
+        public int getEnd(@NonNull AccessLogField field)
+        {
+                return ends[field.ordinal()];
+        }
+
+        /**
+         * Returns the buffer with the bytes of the current line.
+         *
+         * @return the buffer of the current line.
+         */
+        public byte[] getBuffer()
+        {
+                return buffer;
+        }
+
+        /**
+         * Parses the located numeric field ('-' is zero).
+         *
+         * @param field the located field.
+         * @return value of the field or -1 if the field is not a non-negative number.
+         */
+        public long getNumber(@NonNull AccessLogField field)
+        {
+                int start = getStart(field);
+                int end = getEnd(field);
+                if (end - start == 1 && buffer[start] == '-')
+                {
+                        return 0;
+                }
+                if (start == end || end - start > 18)
+                {
+                        return -1;
+                }
+                long value = 0;
+                for (int i = start; i < end; i++)
+                {
+                        int digit = buffer[i] - '0';
+                        if (digit < 0 || digit > 9)
+                        {
+                                return -1;
+                        }
+                        value = value * 10 + digit;
+                }
+                return value;
+        }
+
+        /**
+         * Locates the IP address (the first token of the line).
+         */
+        private void locateIp()
+        {
+                int end = indexOf((byte) ' ', from);
+                if (end > from)
+                {
+                        setField(AccessLogField.IP, from, end);
+                }
+                locatedFields |= bit(AccessLogField.IP);
+        }
+
+        /**
+         * Locates the time in brackets and the method, the path and the protocol of the quoted request following it.
+         */
+        private void locateRequest()
+        {
+                locatedFields |= bit(AccessLogField.TIME) | bit(AccessLogField.METHOD) | bit(AccessLogField.PATH) |
+                        bit(AccessLogField.PROTOCOL);
+                requestEnd = -1;
+                int timeStart = indexOf((byte) '[', from);
+                int timeEnd = (timeStart < 0) ? -1 : indexOf((byte) ']', timeStart + 1);
+                if (timeEnd < 0)
+                {
+                        return;
+                }
+                setField(AccessLogField.TIME, timeStart + 1, timeEnd);
+                if (timeEnd + 2 >= to || buffer[timeEnd + 1] != ' ' || buffer[timeEnd + 2] != '"')
+                {
+                        return;
+                }
+                int start = timeEnd + 3;
+                int end = indexOfClosingQuote(start);
+                if (end < 0)
+                {
+                        return;
+                }
+                requestEnd = end;
+                int methodEnd = start;
+                while (methodEnd < end && buffer[methodEnd] != ' ')
+                {
+                        methodEnd++;
+                }
+                setField(AccessLogField.METHOD, start, methodEnd);
+                if (methodEnd == end)
+                {
+                        return;
+                }
+                int protocolStart = end;
+                while (protocolStart > methodEnd + 1 && buffer[protocolStart - 1] != ' ')
+                {
+                        protocolStart--;
+                }
+                if (protocolStart > methodEnd + 1)
+                {
+                        setField(AccessLogField.PATH, methodEnd + 1, protocolStart - 1);
+                        setField(AccessLogField.PROTOCOL, protocolStart, end);
+                } else
+                {
+                        setField(AccessLogField.PATH, methodEnd + 1, end);
+                }
+        }
+
+        /**
+         * Locates the status code and the response size following the request.
+         */
+        private void locateStatusAndSize()
+        {
+                locate(AccessLogField.METHOD);
+                locatedFields |= bit(AccessLogField.STATUS) | bit(AccessLogField.SIZE);
+                int statusStart = requestEnd + 2;
+                if (requestEnd < 0 || statusStart >= to || buffer[statusStart - 1] != ' ')
+                {
+                        return;
+                }
+                int statusEnd = indexOfSpaceOrEnd(statusStart);
+                setField(AccessLogField.STATUS, statusStart, statusEnd);
+                if (statusEnd + 1 < to)
+                {
+                        setField(AccessLogField.SIZE, statusEnd + 1, indexOfSpaceOrEnd(statusEnd + 1));
+                }
+        }
+
+        /**
+         * Locates the user agent (the last quoted field) and the referer (the quoted field before it) from the end
+         * of the line. The quoted field following the time is the request, not the referer or the user agent.
+         */
+        private void locateQuotedTail()
+        {
+                locatedFields |= bit(AccessLogField.REFERER) | bit(AccessLogField.USER_AGENT);
+                int userAgentEnd = to - 1;
+                if (userAgentEnd <= from || buffer[userAgentEnd] != '"')
+                {
+                        return;
+                }
+                int userAgentQuote = lastIndexOfOpeningQuote(userAgentEnd - 1);
+                if (userAgentQuote < 0 || followsTime(userAgentQuote))
+                {
+                        return;
+                }
+                setField(AccessLogField.USER_AGENT, userAgentQuote + 1, userAgentEnd);
+                int refererEnd = userAgentQuote - 2;
+                if (refererEnd <= from || buffer[refererEnd + 1] != ' ' || buffer[refererEnd] != '"')
+                {
+                        return;
+                }
+                int refererQuote = lastIndexOfOpeningQuote(refererEnd - 1);
+                if (refererQuote >= 0 && !followsTime(refererQuote))
+                {
+                        setField(AccessLogField.REFERER, refererQuote + 1, refererEnd);
+                }
+        }
+
+        /**
+         * Checks if the opening quote follows the time field (so it is the quote of the request).
+         *
+         * @param quote index of the opening quote.
+         * @return true if the quote follows "] ".
+         */
+        private boolean followsTime(int quote)
+        {
+                return quote - 2 >= from && buffer[quote - 1] == ' ' && buffer[quote - 2] == ']';
+        }
+
+        /**
+         * Finds the first not escaped quote starting at the index.
+         *
+         * @param start index to start searching from.
+         * @return index of the quote or -1 if there is no such quote.
+         */
+        private int indexOfClosingQuote(int start)
+        {
+                for (int i = start; i < to; i++)
+                {
+                        if (buffer[i] == '"' && (i == start || buffer[i - 1] != '\\'))
+                        {
+                                return i;
+                        }
+                }
+                return -1;
+        }
+
+        /**
+         * Finds the last not escaped quote at or before the index.
+         *
+         * @param start index to start searching backwards from.
+         * @return index of the quote or -1 if there is no such quote.
+         */
+        private int lastIndexOfOpeningQuote(int start)
+        {
+                for (int i = start; i >= from; i--)
+                {
+                        if (buffer[i] == '"' && (i == from || buffer[i - 1] != '\\'))
+                        {
+                                return i;
+                        }
+                }
+                return -1;
+        }
+
+        /**
+         * Finds the byte in the current line starting at the index.
+         *
+         * @param value byte to find.
+         * @param start index to start searching from.
+         * @return index of the byte or -1 if there is no such byte.
+         */
+        private int indexOf(byte value, int start)
+        {
+                for (int i = start; i < to; i++)
+                {
+                        if (buffer[i] == value)
+                        {
+                                return i;
+                        }
+                }
+                return -1;
+        }
+
+        /**
+         * Finds the end of the token starting at the index.
+         *
+         * @param start index of the token.
+         * @return index of the space after the token or the end of the line.
+         */
+        private int indexOfSpaceOrEnd(int start)
+        {
+                int end = indexOf((byte) ' ', start);
+                return (end < 0) ? to : end;
+        }
+
+        /**
+         * Sets the range of the present field.
+         *
+         * @param field the field.
+         * @param start index of the first byte of the field.
+         * @param end index after the last byte of the field.
+         */
+        private void setField(AccessLogField field, int start, int end)
+        {
+                starts[field.ordinal()] = start;
+                ends[field.ordinal()] = end;
+                presentFields |= bit(field);
+        }
+
+        /**
+         * Returns the bit of the field in the bit sets.
+         *
+         * @param field the field.
+         * @return the bit of the field.
+         */
+        private static int bit(AccessLogField field)
+        {
+                return 1 << field.ordinal();
+        }
+
+}
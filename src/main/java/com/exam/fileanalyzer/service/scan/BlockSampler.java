@@ -0,0 +1,194 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Estimator of the number of the matching lines of the random-access log file content by the random sample of its
+ * blocks.
+ * <p> The content is divided into the blocks of {@link #BLOCK_SIZE} bytes aligned to the lines (each line belongs to
+ * the block it starts in). The blocks are scanned in the random order without repetition until the margin of error of
+ * the extrapolated count falls to the target relative error with at least {@link #MIN_SAMPLED_BLOCKS} blocks and
+ * {@link #MIN_SAMPLED_LINES} matching lines sampled, so the rare lines are not estimated as absent by the first blocks.
+ * The time budget is checked after each block and stops the sampling at once (the sample is marked as timed out).
+ * The count is estimated as the mean count of the sampled blocks multiplied by the number of the blocks, its margin of
+ * error is calculated from the variance of the block counts with the finite population correction, so the fully
+ * scanned content has the exact count. The variance of less than {@link #MIN_SAMPLED_BLOCKS} blocks is not trusted
+ * and the margin of error of such sample is unbounded. When no matching line is sampled, the variance says nothing
+ * and the margin of error is the upper bound of the rule of three. The sampler is used by one thread once.
+ */
+public class BlockSampler
+{
+        /** Size of the block of the content in bytes. */
+        public static final int BLOCK_SIZE = 16 * 1024;
+        /** Minimum number of the sampled blocks for the variance estimate (the smaller content is scanned fully). */
+        public static final int MIN_SAMPLED_BLOCKS = 30;
+        /** Minimum number of the sampled matching lines for stopping at the target error. */
+        public static final int MIN_SAMPLED_LINES = 30;
+        /** Probability that the real count is within the margin of error of the estimate. */
+        public static final double CONFIDENCE = 0.95;
+        /** Two-sided quantile of the standard normal distribution for the confidence. */
+        private static final double Z_SCORE = 1.959964;
+        /** Upper bound of the matching lines per sampled block without the matching lines for the confidence. */
+        private static final double RULE_OF_THREE = 3.0;
+        /** Sampled content. */
+        private final ByteBuffer content;
+        /** Number of the blocks of the content. */
+        @Getter
+        private final int totalBlocks;
+        /** Number of the sampled blocks. */
+        @Getter
+        private int sampledBlocks;
+        /** Number of the bytes of the sampled blocks. */
+        @Getter
+        private long sampledBytes;
+        /** Number of the matching lines of the sampled blocks. */
+        @Getter
+        private long sampledCount;
+        /** Flag of the sampling stopped by the time budget before the target error. */
+        @Getter
+        private boolean timedOut;
+        /** Mean count of the sampled blocks. */
+        private double mean;
+        /** Sum of the squared deviations of the counts of the sampled blocks from the mean. */
+        private double squaredDeviations;
+
+        /**
+         * Constructor with the content.
+         *
+         * @param content read-only content of the log file (from its position to its limit, which are not changed).
+         */
+        public BlockSampler(@NonNull ByteBuffer content)
+        {
+                this.content = content.slice();
+                this.totalBlocks = (int) Math.max(1, (this.content.limit() + (long) BLOCK_SIZE - 1) / BLOCK_SIZE);
+        }
+
+        /**
+         * Scans the random blocks of the content until the estimate is precise enough with enough blocks and matching
+         * lines or the time is up.
+         *
+         * @param matcher matcher of the lines to count (is used by the calling thread only).
+         * @param targetError target relative margin of error of the estimate.
+         * @param timeIsUp check of the time budget (the sampling is stopped after the block when it returns true).
+         * @param random source of the random block order.
+         * @throws IOException if the content cannot be read.
+         */
+        public void sample(@NonNull LineMatcher matcher, double targetError, @NonNull BooleanSupplier timeIsUp,
+                           @NonNull Random random) throws IOException
+        {
+                int[] order = new int[totalBlocks];
+                for (int i = 0; i < totalBlocks; i++)
+                {
+                        order[i] = i;
+                }
+                LineCounter counter = new LineCounter(matcher);
+                while (sampledBlocks < totalBlocks)
+                {
+                        int next = sampledBlocks + random.nextInt(totalBlocks - sampledBlocks);
+                        int block = order[next];
+                        order[next] = order[sampledBlocks];
+                        order[sampledBlocks] = block;
+                        long countBefore = counter.getCount();
+                        LineScanner.scan(getBlock(block), counter, matcher.getWindowOverlap());
+                        addBlockCount(counter.getCount() - countBefore);
+                        if (sampledBlocks >= MIN_SAMPLED_BLOCKS && sampledCount >= MIN_SAMPLED_LINES &&
+                                getMarginOfError() <= targetError * estimateCount())
+                        {
+                                return;
+                        }
+                        if (sampledBlocks < totalBlocks && timeIsUp.getAsBoolean())
+                        {
+                                timedOut = true;
+                                return;
+                        }
+                }
+        }
+
+        /**
+         * Estimates the number of the matching lines of the content.
+         *
+         * @return the extrapolated count.
+         */
+        public double estimateCount()
+        {
+                return mean * totalBlocks;
+        }
+
+        /**
+         * Returns the margin of error of the estimated count with the probability of {@link #CONFIDENCE}. When no
+         * matching line is sampled, it is the rule of three upper bound: at most 3 / n matching lines per block of
+         * the unsampled blocks, where n is the number of the sampled blocks.
+         *
+         * @return the margin of error (zero if all blocks are sampled, infinite if less than
+         * {@link #MIN_SAMPLED_BLOCKS} blocks are sampled).
+         */
+        public double getMarginOfError()
+        {
+                if (sampledBlocks == totalBlocks)
+                {
+                        return 0;
+                }
+                if (sampledBlocks < MIN_SAMPLED_BLOCKS)
+                {
+                        return Double.POSITIVE_INFINITY;
+                }
+                if (sampledCount == 0)
+                {
+                        return RULE_OF_THREE * (totalBlocks - sampledBlocks) / sampledBlocks;
+                }
+                double variance = squaredDeviations / (sampledBlocks - 1);
+                double unsampledFraction = 1 - (double) sampledBlocks / totalBlocks;
+                return Z_SCORE * totalBlocks * Math.sqrt(unsampledFraction * variance / sampledBlocks);
+        }
+
+        /**
+         * Checks if all blocks of the content are sampled.
+         *
+         * @return true if the count is exact.
+         */
+        public boolean isExact()
+        {
+                return sampledBlocks == totalBlocks;
+        }
+
+        /**
+         * Returns the lines of the block: from the first line starting in the block to the first line starting in
+         * the next block.
+         *
+         * @param block index of the block.
+         * @return the slice of the content.
+         */
+        private ByteBuffer getBlock(int block)
+        {
+                int limit = content.limit();
+                int start = TimeOfDayRange.nextLineStart(content, (int) Math.min((long) block * BLOCK_SIZE, limit));
+                int end = TimeOfDayRange.nextLineStart(content,
+                        (int) Math.min((long) (block + 1) * BLOCK_SIZE, limit));
+                ByteBuffer slice = content.duplicate();
+                slice.limit(Math.max(start, end));
+                slice.position(start);
+                sampledBytes += slice.remaining();
+                return slice.slice();
+        }
+
+        /**
+         * Adds the count of the sampled block to the mean and the squared deviations (Welford's algorithm).
+         *
+         * @param count number of the matching lines of the block.
+         */
+        private void addBlockCount(long count)
+        {
+                sampledBlocks++;
+                sampledCount += count;
+                double deviation = count - mean;
+                mean += deviation / sampledBlocks;
+                squaredDeviations += deviation * (count - mean);
+        }
+
+}
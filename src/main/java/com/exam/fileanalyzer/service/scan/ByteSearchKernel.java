@@ -0,0 +1,87 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Kernel searching the bytes in the byte ranges: the newlines of the {@link LineScanner} and the rarest byte of
+ * the query of the {@link LiteralLineMatcher}. The kernels are stateless.
+ */
+public interface ByteSearchKernel
+{
+        /** Name of the kernel built on the Vector API (compiled with the "vector" Maven profile only). */
+        String VECTOR_KERNEL_CLASS_NAME = "com.exam.fileanalyzer.service.scan.VectorByteSearchKernel";
+        /** System property disabling the vector kernel ("-Dscan.vector.enabled=false"). */
+        String VECTOR_ENABLED_PROPERTY = "scan.vector.enabled";
+        /**
+         * Kernel of the scanners: the vector kernel if it is compiled and the jdk.incubator.vector module is
+         * available ("--add-modules jdk.incubator.vector"), the scalar kernel otherwise.
+         */
+        ByteSearchKernel INSTANCE = Loader.load();
+
+        /**
+         * Finds the first occurrence of the byte in the range.
+         *
+         * @param buffer buffer to search in.
+         * @param from index of the first byte of the range.
+         * @param to index after the last byte of the range.
+         * @param value byte to find.
+         * @return index of the byte or -1 if there is no such byte.
+         */
+        int indexOf(byte[] buffer, int from, int to, byte value);
+
+        /**
+         * Finds the first occurrence of any of the two bytes in the range.
+         *
+         * @param buffer buffer to search in.
+         * @param from index of the first byte of the range.
+         * @param to index after the last byte of the range.
+         * @param first first byte to find.
+         * @param second second byte to find (may be equal to the first one).
+         * @return index of the byte or -1 if there is no such byte.
+         */
+        int indexOfAny(byte[] buffer, int from, int to, byte first, byte second);
+
+        /**
+         * Loader of the kernel of the scanners.
+         */
+        @Slf4j
+        final class Loader
+        {
+                /**
+                 * Utility class constructor.
+                 */
+                private Loader()
+                {
+                }
+
+                /**
+                 * Loads the vector kernel falling back to the scalar one if the vector kernel is disabled, is not
+                 * compiled or the jdk.incubator.vector module is not available.
+                 *
+                 * @return the kernel of the scanners.
+                 */
+                static ByteSearchKernel load()
+                {
+                        if (!Boolean.parseBoolean(System.getProperty(VECTOR_ENABLED_PROPERTY, "true")))
+                        {
+                                return new ScalarByteSearchKernel();
+                        }
+                        try
+                        {
+                                ByteSearchKernel kernel = (ByteSearchKernel) Class.forName(VECTOR_KERNEL_CLASS_NAME)
+                                        .getDeclaredConstructor().newInstance();
+                                log.info("Byte search kernel: {}", kernel);
+                                return kernel;
+                        } catch (ClassNotFoundException exception)
+                        {
+                                return new ScalarByteSearchKernel();
+                        } catch (ReflectiveOperationException | LinkageError | RuntimeException exception)
+                        {
+                                log.info("The vector byte search kernel is not available ({}), the scalar one is used.",
+                                        exception.toString());
+                                return new ScalarByteSearchKernel();
+                        }
+                }
+        }
+
+}
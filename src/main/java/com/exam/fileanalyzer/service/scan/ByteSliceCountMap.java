@@ -0,0 +1,248 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Open-addressing hash map of the byte slice keys and the primitive long counts.
+ * <p> The keys are copied into one growing byte array when they are added for the first time, the entries are kept
+ * in parallel primitive arrays and the slots of the linear probing table refer to them, so counting an existing key
+ * does not create objects. Keys over the maximum number of keys are counted as the overflow. Strings are created only
+ * for the final result. The map must be used by one thread at a time.
+ */
+public class ByteSliceCountMap implements KeyCounter<ByteSliceCountMap>
+{
+        /** Initial number of the slots of the table (power of two). */
+        private static final int INITIAL_CAPACITY = 64;
+        /** Maximum number of the distinct keys. */
+        private final int maxKeys;
+        /** Slots of the table: the index of the entry plus one or zero for the empty slot. */
+        private int[] slots = new int[INITIAL_CAPACITY];
+        /** Offsets of the keys of the entries in the key bytes. */
+        private int[] keyOffsets = new int[INITIAL_CAPACITY / 2];
+        /** Lengths of the keys of the entries. */
+        private int[] keyLengths = new int[INITIAL_CAPACITY / 2];
+        /** Hashes of the keys of the entries. */
+        private int[] keyHashes = new int[INITIAL_CAPACITY / 2];
+        /** Counts of the entries. */
+        private long[] counts = new long[INITIAL_CAPACITY / 2];
+        /** Bytes of all keys. */
+        private byte[] keyBytes = new byte[1024];
+        /** Number of the used key bytes. */
+        private int keyBytesSize;
+        /** Number of the entries. */
+        private int size;
+        /** Sum of the counts of the keys over the maximum number of keys. */
+        private long overflowCount;
+
+        /**
+         * Constructor with the maximum number of the distinct keys.
+         *
+         * @param maxKeys maximum number of the distinct keys.
+         */
+        public ByteSliceCountMap(int maxKeys)
+        {
+                this.maxKeys = maxKeys;
+        }
+
+        /**
+         * Adds the delta to the count of the key.
+         *
+         * @param buffer buffer with the key bytes.
+         * @param from index of the first byte of the key.
+         * @param to index after the last byte of the key.
+         * @param delta value to add to the count.
+         */
+        @Override
+        public void add(byte[] buffer, int from, int to, long delta)
+        {
+                add(buffer, from, to - from, hash(buffer, from, to), delta);
+        }
+
+        /**
+         * Adds all counts of another map to the counts of this map.
+         *
+         * @param other map to add the counts of.
+         */
+        @Override
+        public void addAll(@NonNull ByteSliceCountMap other)
+        {
+                for (int i = 0; i < other.size; i++)
+                {
+                        add(other.keyBytes, other.keyOffsets[i], other.keyLengths[i], other.keyHashes[i],
+                                other.counts[i]);
+                }
+                overflowCount += other.overflowCount;
+        }
+
+        /**
+         * Returns the number of the distinct keys.
+         *
+         * @return the number of the distinct keys.
+         */
+        public int size()
+        {
+                return size;
+        }
+
+        /**
+         * Returns the sum of the counts of the keys over the maximum number of keys.
+         *
+         * @return the overflow count.
+         */
+        public long getOverflowCount()
+        {
+                return overflowCount;
+        }
+
+        /**
+         * Creates the map of the keys with the largest counts (sorted by the count in descending order, then by the
+         * key). The sum of the counts of the rest keys and the overflow is put with the other key if it is not zero.
+         *
+         * @param limit maximum number of the keys in the result.
+         * @param otherKey key of the sum of the rest counts.
+         * @return the map of the string keys and the counts.
+         */
+        public Map<String, Long> toTopMap(int limit, @NonNull String otherKey)
+        {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++)
+                {
+                        order[i] = i;
+                }
+                String[] keys = new String[size];
+                for (int i = 0; i < size; i++)
+                {
+                        keys[i] = new String(keyBytes, keyOffsets[i], keyLengths[i], StandardCharsets.UTF_8);
+                }
+                Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -counts[i]).thenComparing(i -> keys[i]));
+                Map<String, Long> result = new LinkedHashMap<>();
+                long otherCount = overflowCount;
+                for (int i = 0; i < size; i++)
+                {
+                        if (i < limit)
+                        {
+                                result.merge(keys[order[i]], counts[order[i]], Long::sum);
+                        } else
+                        {
+                                otherCount += counts[order[i]];
+                        }
+                }
+                if (otherCount > 0)
+                {
+                        result.merge(otherKey, otherCount, Long::sum);
+                }
+                return result;
+        }
+
+        /**
+         * Adds the delta to the count of the key with the known hash.
+         *
+         * @param buffer buffer with the key bytes.
+         * @param from index of the first byte of the key.
+         * @param length length of the key.
+         * @param hash hash of the key.
+         * @param delta value to add to the count.
+         */
+        private void add(byte[] buffer, int from, int length, int hash, long delta)
+        {
+                int mask = slots.length - 1;
+                int slot = hash & mask;
+                while (slots[slot] != 0)
+                {
+                        int entry = slots[slot] - 1;
+                        if (keyHashes[entry] == hash && keyLengths[entry] == length &&
+                                Arrays.equals(keyBytes, keyOffsets[entry], keyOffsets[entry] + length,
+                                        buffer, from, from + length))
+                        {
+                                counts[entry] += delta;
+                                return;
+                        }
+                        slot = (slot + 1) & mask;
+                }
+                if (size == maxKeys)
+                {
+                        overflowCount += delta;
+                        return;
+                }
+                slots[slot] = addEntry(buffer, from, length, hash, delta) + 1;
+                if (size * 2 > slots.length)
+                {
+                        rehash(slots.length * 2);
+                }
+        }
+
+        /**
+         * Adds the entry copying the key bytes.
+         *
+         * @param buffer buffer with the key bytes.
+         * @param from index of the first byte of the key.
+         * @param length length of the key.
+         * @param hash hash of the key.
+         * @param count count of the entry.
+         * @return index of the entry.
+         */
+        private int addEntry(byte[] buffer, int from, int length, int hash, long count)
+        {
+                if (size == counts.length)
+                {
+                        int capacity = size * 2;
+                        keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+                        keyLengths = Arrays.copyOf(keyLengths, capacity);
+                        keyHashes = Arrays.copyOf(keyHashes, capacity);
+                        counts = Arrays.copyOf(counts, capacity);
+                }
+                if (keyBytesSize + length > keyBytes.length)
+                {
+                        keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, keyBytesSize + length));
+                }
+                System.arraycopy(buffer, from, keyBytes, keyBytesSize, length);
+                keyOffsets[size] = keyBytesSize;
+                keyLengths[size] = length;
+                keyHashes[size] = hash;
+                counts[size] = count;
+                keyBytesSize += length;
+                return size++;
+        }
+
+        /**
+         * Rebuilds the table of the slots with the new capacity.
+         *
+         * @param capacity new number of the slots (power of two).
+         */
+        private void rehash(int capacity)
+        {
+                slots = new int[capacity];
+                int mask = capacity - 1;
+                for (int entry = 0; entry < size; entry++)
+                {
+                        int slot = keyHashes[entry] & mask;
+                        while (slots[slot] != 0)
+                        {
+                                slot = (slot + 1) & mask;
+                        }
+                        slots[slot] = entry + 1;
+                }
+        }
+
+        /**
+         * Calculates the hash of the key bytes (FNV-1a with the final mixing of the high bits).
+         *
+         * @param buffer buffer with the key bytes.
+         * @param from index of the first byte of the key.
+         * @param to index after the last byte of the key.
+         * @return the hash of the key.
+         */
+        private static int hash(byte[] buffer, int from, int to)
+        {
+                int hash = 0x811C9DC5;
+                for (int i = from; i < to; i++)
+                {
+                        hash = (hash ^ (buffer[i] & 0xFF)) * 0x01000193;
+                }
+                return hash ^ (hash >>> 16);
+        }
+
+}
@@ -0,0 +1,316 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Count-Min sketch with the fixed set of the heavy hitter candidates.
+ * <p> The sketch ({@value #DEPTH} rows of {@value #WIDTH} counters) estimates the count of any value with
+ * the overestimate of at most {@code e / WIDTH} of the total count with the probability of {@code 1 - e^-DEPTH}.
+ * The candidates are kept in the min-heap ordered by the estimated count: the value whose estimate exceeds the smallest
+ * candidate replaces it. The candidate keys are stored in the fixed byte array (the keys longer than
+ * {@value #MAX_KEY_LENGTH} bytes are truncated in the result), the heap positions of the candidates are found by
+ * the 64-bit hash of the key in the open-addressing index. Sketches are merged by summing the counters and offering
+ * the candidates of both sketches with the merged estimates.
+ */
+public class CountMinTopK
+{
+        /** Number of the rows of the sketch. */
+        public static final int DEPTH = 5;
+        /** Number of the counters of each row (power of two). */
+        public static final int WIDTH = 1 << 13;
+        /** Maximum overestimate of the count relative to the total count: e / WIDTH. */
+        public static final double RELATIVE_ERROR = Math.E / WIDTH;
+        /** Probability of the overestimate to be within the relative error: 1 - e^-DEPTH. */
+        public static final double CONFIDENCE = 1 - Math.exp(-DEPTH);
+        /** Maximum number of the stored bytes of the candidate key. */
+        public static final int MAX_KEY_LENGTH = 256;
+        /** The counters of the sketch by the row. */
+        private final long[][] counters = new long[DEPTH][WIDTH];
+        /** Maximum number of the candidates. */
+        private final int capacity;
+        /** Min-heap of the candidates: indexes of the candidate slots ordered by the estimated count. */
+        private final int[] heap;
+        /** Estimated counts of the candidate slots. */
+        private final long[] slotCounts;
+        /** Hashes of the keys of the candidate slots. */
+        private final long[] slotHashes;
+        /** Lengths of the stored keys of the candidate slots. */
+        private final int[] slotKeyLengths;
+        /** Positions of the candidate slots in the heap. */
+        private final int[] slotPositions;
+        /** Stored keys of the candidate slots ({@value #MAX_KEY_LENGTH} bytes per slot). */
+        private final byte[] slotKeys;
+        /** Index of the candidates: the slot plus one or zero for the empty index cell. */
+        private final int[] index;
+        /** Number of the candidates. */
+        private int size;
+
+        /**
+         * Constructor with the maximum number of the candidates.
+         *
+         * @param capacity maximum number of the candidates.
+         */
+        public CountMinTopK(int capacity)
+        {
+                this.capacity = capacity;
+                this.heap = new int[capacity];
+                this.slotCounts = new long[capacity];
+                this.slotHashes = new long[capacity];
+                this.slotKeyLengths = new int[capacity];
+                this.slotPositions = new int[capacity];
+                this.slotKeys = new byte[capacity * MAX_KEY_LENGTH];
+                this.index = new int[Integer.highestOneBit(capacity * 4 - 1) << 1];
+        }
+
+        /**
+         * Adds the delta to the count of the value and offers the value as the candidate.
+         *
+         * @param hash 64-bit hash of the value.
+         * @param buffer buffer with the value bytes.
+         * @param from index of the first byte of the value.
+         * @param to index after the last byte of the value.
+         * @param delta value to add to the count.
+         */
+        public void add(long hash, byte[] buffer, int from, int to, long delta)
+        {
+                long estimate = Long.MAX_VALUE;
+                for (int row = 0; row < DEPTH; row++)
+                {
+                        int column = column(hash, row);
+                        counters[row][column] += delta;
+                        estimate = Math.min(estimate, counters[row][column]);
+                }
+                offer(hash, buffer, from, Math.min(to - from, MAX_KEY_LENGTH), estimate);
+        }
+
+        /**
+         * Merges another sketch with the same capacity into this one.
+         *
+         * @param other sketch to merge.
+         */
+        public void addAll(@NonNull CountMinTopK other)
+        {
+                for (int row = 0; row < DEPTH; row++)
+                {
+                        for (int column = 0; column < WIDTH; column++)
+                        {
+                                counters[row][column] += other.counters[row][column];
+                        }
+                }
+                for (int slot = 0; slot < size; slot++)
+                {
+                        slotCounts[slot] = estimate(slotHashes[slot]);
+                }
+                for (int position = size / 2 - 1; position >= 0; position--)
+                {
+                        siftDown(position);
+                }
+                for (int slot = 0; slot < other.size; slot++)
+                {
+                        offer(other.slotHashes[slot], other.slotKeys, slot * MAX_KEY_LENGTH, other.slotKeyLengths[slot],
+                                estimate(other.slotHashes[slot]));
+                }
+        }
+
+        /**
+         * Returns the candidates with the largest estimated counts.
+         *
+         * @param limit maximum number of the candidates in the result.
+         * @return the map of the candidate keys and the estimated counts sorted by the count in descending order.
+         */
+        public Map<String, Long> getTop(int limit)
+        {
+                Integer[] slots = new Integer[size];
+                for (int slot = 0; slot < size; slot++)
+                {
+                        slots[slot] = slot;
+                }
+                Arrays.sort(slots, Comparator.comparingLong(slot -> -slotCounts[slot]));
+                Map<String, Long> result = new LinkedHashMap<>();
+                for (int i = 0; i < Math.min(limit, size); i++)
+                {
+                        int slot = slots[i];
+                        result.merge(new String(slotKeys, slot * MAX_KEY_LENGTH, slotKeyLengths[slot],
+                                StandardCharsets.UTF_8), slotCounts[slot], Math::max);
+                }
+                return result;
+        }
+
+        /**
+         * Estimates the count of the value by the sketch.
+         *
+         * @param hash 64-bit hash of the value.
+         * @return the estimated count (never less than the real one).
+         */
+        public long estimate(long hash)
+        {
+                long estimate = Long.MAX_VALUE;
+                for (int row = 0; row < DEPTH; row++)
+                {
+                        estimate = Math.min(estimate, counters[row][column(hash, row)]);
+                }
+                return estimate;
+        }
+
+        /**
+         * Offers the value with the estimated count as the candidate.
+         *
+         * @param hash 64-bit hash of the value.
+         * @param buffer buffer with the value bytes.
+         * @param from index of the first byte of the value.
+         * @param length number of the stored bytes of the value.
+         * @param estimate estimated count of the value.
+         */
+        private void offer(long hash, byte[] buffer, int from, int length, long estimate)
+        {
+                int cell = findCell(hash);
+                if (index[cell] != 0)
+                {
+                        int slot = index[cell] - 1;
+                        slotCounts[slot] = Math.max(slotCounts[slot], estimate);
+                        siftDown(slotPositions[slot]);
+                        return;
+                }
+                int slot;
+                if (size < capacity)
+                {
+                        slot = size;
+                        heap[size] = slot;
+                        slotPositions[slot] = size++;
+                } else if (estimate > slotCounts[heap[0]])
+                {
+                        slot = heap[0];
+                        removeFromIndex(slotHashes[slot]);
+                        cell = findCell(hash);
+                } else
+                {
+                        return;
+                }
+                index[cell] = slot + 1;
+                slotHashes[slot] = hash;
+                slotCounts[slot] = estimate;
+                slotKeyLengths[slot] = length;
+                System.arraycopy(buffer, from, slotKeys, slot * MAX_KEY_LENGTH, length);
+                siftUp(slotPositions[slot]);
+                siftDown(slotPositions[slot]);
+        }
+
+        /**
+         * Moves the candidate to the leaves of the heap while it is larger than its children.
+         *
+         * @param position position of the candidate in the heap.
+         */
+        private void siftDown(int position)
+        {
+                int slot = heap[position];
+                while (true)
+                {
+                        int child = position * 2 + 1;
+                        if (child >= size)
+                        {
+                                break;
+                        }
+                        if (child + 1 < size && slotCounts[heap[child + 1]] < slotCounts[heap[child]])
+                        {
+                                child++;
+                        }
+                        if (slotCounts[heap[child]] >= slotCounts[slot])
+                        {
+                                break;
+                        }
+                        moveInHeap(heap[child], position);
+                        position = child;
+                }
+                moveInHeap(slot, position);
+        }
+
+        /**
+         * Moves the candidate to the root of the heap while it is smaller than its parent.
+         *
+         * @param position position of the candidate in the heap.
+         */
+        private void siftUp(int position)
+        {
+                int slot = heap[position];
+                while (position > 0)
+                {
+                        int parent = (position - 1) / 2;
+                        if (slotCounts[heap[parent]] <= slotCounts[slot])
+                        {
+                                break;
+                        }
+                        moveInHeap(heap[parent], position);
+                        position = parent;
+                }
+                moveInHeap(slot, position);
+        }
+
+        /**
+         * Puts the candidate slot to the heap position.
+         *
+         * @param slot the candidate slot.
+         * @param position the heap position.
+         */
+        private void moveInHeap(int slot, int position)
+        {
+                heap[position] = slot;
+                slotPositions[slot] = position;
+        }
+
+        /**
+         * Finds the index cell of the hash: the cell with the hash or the empty cell where it should be put.
+         *
+         * @param hash 64-bit hash of the value.
+         * @return the index cell.
+         */
+        private int findCell(long hash)
+        {
+                int mask = index.length - 1;
+                int cell = (int) hash & mask;
+                while (index[cell] != 0 && slotHashes[index[cell] - 1] != hash)
+                {
+                        cell = (cell + 1) & mask;
+                }
+                return cell;
+        }
+
+        /**
+         * Removes the hash from the index shifting back the following cells of the probe sequence.
+         *
+         * @param hash 64-bit hash of the removed value.
+         */
+        private void removeFromIndex(long hash)
+        {
+                int mask = index.length - 1;
+                int empty = findCell(hash);
+                index[empty] = 0;
+                for (int cell = (empty + 1) & mask; index[cell] != 0; cell = (cell + 1) & mask)
+                {
+                        int home = (int) slotHashes[index[cell] - 1] & mask;
+                        boolean movable = (empty <= cell) ? (home <= empty || home > cell)
+                                : (home <= empty && home > cell);
+                        if (movable)
+                        {
+                                index[empty] = index[cell];
+                                index[cell] = 0;
+                                empty = cell;
+                        }
+                }
+        }
+
+        /**
+         * Returns the counter column of the row for the hash (double hashing of the two halves of the hash).
+         *
+         * @param hash 64-bit hash of the value.
+         * @param row row of the sketch.
+         * @return the column of the counter.
+         */
+        private static int column(long hash, int row)
+        {
+                return ((int) hash + row * (int) (hash >>> 32)) & (WIDTH - 1);
+        }
+
+}
@@ -0,0 +1,73 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Matcher of the access log lines satisfying all field predicates and matching the text matcher.
+ * <p> The predicates are checked first through the lazy {@link AccessLogLine} view, so only the fields they need are
+ * located, and the text is searched only in the lines passing them. Only the first window of the overlong line is
+ * matched (access log lines are much shorter than the window).
+ */
+public class FieldFilterLineMatcher implements LineMatcher
+{
+        /** Predicates of the fields (immutable, shared by the copies of the matcher). */
+        private final FieldPredicate[] predicates;
+        /** Matcher of the line text. */
+        private final LineMatcher textMatcher;
+        /** Reusable view of the current line. */
+        private final AccessLogLine line = new AccessLogLine();
+
+        /**
+         * Constructor with the field predicates and the text matcher.
+         *
+         * @param predicates predicates of the fields.
+         * @param textMatcher matcher of the line text ({@link LineMatcher#ALL} if only the fields are filtered).
+         */
+        public FieldFilterLineMatcher(@NonNull List<FieldPredicate> predicates, @NonNull LineMatcher textMatcher)
+        {
+                this(predicates.toArray(new FieldPredicate[0]), textMatcher);
+        }
+
+        /**
+         * Constructor with the field predicates array and the text matcher (used for the copies of the matcher).
+         *
+         * @param predicates predicates of the fields.
+         * @param textMatcher matcher of the line text.
+         */
+        private FieldFilterLineMatcher(FieldPredicate[] predicates, LineMatcher textMatcher)
+        {
+                this.predicates = predicates;
+                this.textMatcher = textMatcher;
+        }
+
+        /**
+         * Checks if the line satisfies all field predicates and matches the text matcher.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return true if the line matches.
+         */
+        @Override
+        public boolean matches(byte[] buffer, int from, int to)
+        {
+                line.reset(buffer, from, to);
+                for (FieldPredicate predicate : predicates)
+                {
+                        if (!predicate.test(line))
+                        {
+                                return false;
+                        }
+                }
+                return textMatcher.matches(buffer, from, to);
+        }
+
+        @Override
+        public LineMatcher copy()
+        {
+                return new FieldFilterLineMatcher(predicates, textMatcher.copy());
+        }
+
+}
@@ -0,0 +1,244 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.*;
+
+/**
+ * Predicate of the access log field parsed from the filter expression like {@code status>=500}, {@code method=POST}
+ * or {@code ua~Mozilla}. The predicate is immutable and compares the field bytes of the {@link AccessLogLine} without
+ * creating objects; lines without the field do not match.
+ */
+public class FieldPredicate
+{
+        /** Pattern of the filter expression: field name, operator and value. */
+        private static final Pattern EXPRESSION = Pattern.compile("\\s*(\\w+)\\s*(!=|!~|>=|<=|=|~|>|<)\\s*(.*?)\\s*");
+        /** The compared field. */
+        @Getter
+        private final AccessLogField field;
+        /** The comparison operator. */
+        @Getter
+        private final Operator operator;
+        /** The compared value bytes. */
+        private final byte[] value;
+        /** The compared value as a number (for the numeric comparison). */
+        private final long number;
+        /** Matcher of the value in the field (for the containment operators). */
+        private final LiteralLineMatcher valueMatcher;
+
+        /**
+         * Constructor with the parsed expression parts.
+         *
+         * @param field the compared field.
+         * @param operator the comparison operator.
+         * @param value the compared value.
+         */
+        private FieldPredicate(AccessLogField field, Operator operator, String value)
+        {
+                this.field = field;
+                this.operator = operator;
+                this.value = value.getBytes(StandardCharsets.UTF_8);
+                this.valueMatcher = new LiteralLineMatcher(value);
+                this.number = isNumericComparison(field, operator) ? parseNumber(value) : -1;
+        }
+
+        /**
+         * Parses the filter expression.
+         *
+         * @param expression the filter expression (field name, operator and value).
+         * @return the predicate.
+         * @throws IllegalArgumentException if the expression, the field name or the value is invalid.
+         */
+        public static FieldPredicate parse(@NonNull String expression)
+        {
+                Matcher matcher = EXPRESSION.matcher(expression);
+                if (!matcher.matches())
+                {
+                        throw new IllegalArgumentException(String.format("Invalid filter '%s', expected " +
+                                "<field><operator><value> with one of the operators =, !=, ~, !~, >, >=, <, <=.",
+                                expression));
+                }
+                AccessLogField field = AccessLogField.of(matcher.group(1));
+                Operator operator = Operator.of(matcher.group(2));
+                if (operator.isOrdering() && !field.isNumeric())
+                {
+                        throw new IllegalArgumentException(String.format("Invalid filter '%s', the operator %s is " +
+                                "supported only for the numeric fields status and size.", expression, operator.symbol));
+                }
+                return new FieldPredicate(field, operator, matcher.group(3));
+        }
+
+        /**
+         * Checks if the field of the line satisfies the predicate.
+         *
+         * @param line the current line view.
+         * @return true if the line contains the field and it satisfies the predicate.
+         */
+        public boolean test(@NonNull AccessLogLine line)
+        {
+                if (!line.locate(field))
+                {
+                        return false;
+                }
+                byte[] buffer = line.getBuffer();
+                int start = line.getStart(field);
+                int end = line.getEnd(field);
+                switch (operator)
+                {
+                        case CONTAINS:
+                                return valueMatcher.indexOf(buffer, start, end) >= 0;
+                        case NOT_CONTAINS:
+                                return valueMatcher.indexOf(buffer, start, end) < 0;
+                        case EQUAL:
+                                return field.isNumeric() ? line.getNumber(field) == number :
+                                        equalsValue(buffer, start, end);
+                        case NOT_EQUAL:
+                                return field.isNumeric() ? line.getNumber(field) != number :
+                                        !equalsValue(buffer, start, end);
+                        default:
+                                long fieldNumber = line.getNumber(field);
+                                return fieldNumber >= 0 && operator.compare(fieldNumber, number);
+                }
+        }
+
+        /**
+         * Compares the field bytes with the value.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param start index of the first byte of the field.
+         * @param end index after the last byte of the field.
+         * @return true if the field is equal to the value.
+         */
+        private boolean equalsValue(byte[] buffer, int start, int end)
+        {
+                if (end - start != value.length)
+                {
+                        return false;
+                }
+                for (int i = 0; i < value.length; i++)
+                {
+                        if (buffer[start + i] != value[i])
+                        {
+                                return false;
+                        }
+                }
+                return true;
+        }
+
+        /**
+         * Checks if the field value is compared as a number.
+         *
+         * @param field the compared field.
+         * @param operator the comparison operator.
+         * @return true for the numeric field and the operator other than the containment ones.
+         */
+        private static boolean isNumericComparison(AccessLogField field, Operator operator)
+        {
+                return field.isNumeric() && operator != Operator.CONTAINS && operator != Operator.NOT_CONTAINS;
+        }
+
+        /**
+         * Parses the numeric value of the filter.
+         *
+         * @param value the value of the filter.
+         * @return the number.
+         * @throws IllegalArgumentException if the value is not a non-negative number.
+         */
+        private static long parseNumber(String value)
+        {
+                try
+                {
+                        long number = Long.parseLong(value);
+                        if (number >= 0)
+                        {
+                                return number;
+                        }
+                } catch (NumberFormatException exception)
+                {
+                        // handled below
+                }
+                throw new IllegalArgumentException(String.format("Invalid filter value '%s', a non-negative number " +
+                        "is expected.", value));
+        }
+
+        /**
+         * Comparison operator of the filter expression.
+         */
+        @RequiredArgsConstructor
+        public enum Operator
+        {
+                /** The field is equal to the value. */
+                EQUAL("="),
+                /** The field is not equal to the value. */
+                NOT_EQUAL("!="),
+                /** The field contains the value. */
+                CONTAINS("~"),
+                /** The field does not contain the value. */
+                NOT_CONTAINS("!~"),
+                /** The numeric field is greater than the value. */
+                GREATER(">"),
+                /** The numeric field is greater than or equal to the value. */
+                GREATER_OR_EQUAL(">="),
+                /** The numeric field is less than the value. */
+                LESS("<"),
+                /** The numeric field is less than or equal to the value. */
+                LESS_OR_EQUAL("<=");
+
+                /** Symbol of the operator in the filter expressions. */
+                private final String symbol;
+
+                /**
+                 * Returns the operator by its symbol.
+                 *
+                 * @param symbol symbol of the operator.
+                 * @return the operator.
+                 */
+                static Operator of(String symbol)
+                {
+                        for (Operator operator : values())
+                        {
+                                if (operator.symbol.equals(symbol))
+                                {
+                                        return operator;
+                                }
+                        }
+                        throw new IllegalArgumentException(String.format("Unknown filter operator '%s'.", symbol));
+                }
+
+                /**
+                 * Checks if the operator compares the order of the numbers.
+                 *
+                 * @return true for the ordering operators.
+                 */
+                boolean isOrdering()
+                {
+                        return ordinal() >= GREATER.ordinal();
+                }
+
+                /**
+                 * Compares the field number with the value by the ordering operator.
+                 *
+                 * @param fieldNumber number of the field.
+                 * @param number number of the value.
+                 * @return the result of the comparison.
+                 */
+                boolean compare(long fieldNumber, long number)
+                {
+                        switch (this)
+                        {
+                                case GREATER:
+                                        return fieldNumber > number;
+                                case GREATER_OR_EQUAL:
+                                        return fieldNumber >= number;
+                                case LESS:
+                                        return fieldNumber < number;
+                                default:
+                                        return fieldNumber <= number;
+                        }
+                }
+        }
+
+}
@@ -0,0 +1,62 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+
+/**
+ * Key of the group-by aggregation: an access log field or a token extracted from it.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum GroupByKey
+{
+        /** Client IP address. */
+        IP("ip", AccessLogField.IP),
+        /** Date of the request (the part of the time before the first ':'). */
+        DATE("date", AccessLogField.TIME),
+        /** Hour of the request (two digits after the first ':' of the time). */
+        HOUR("hour", AccessLogField.TIME),
+        /** Method of the request. */
+        METHOD("method", AccessLogField.METHOD),
+        /** Path of the request with the query string. */
+        PATH("path", AccessLogField.PATH),
+        /** Path of the request without the query string. */
+        URL("url", AccessLogField.PATH),
+        /** Protocol of the request. */
+        PROTOCOL("protocol", AccessLogField.PROTOCOL),
+        /** Status code of the response. */
+        STATUS("status", AccessLogField.STATUS),
+        /** Class of the status code of the response like "5xx". */
+        STATUS_CLASS("statusClass", AccessLogField.STATUS),
+        /** Referer header of the request. */
+        REFERER("referer", AccessLogField.REFERER),
+        /** User agent of the request. */
+        USER_AGENT("ua", AccessLogField.USER_AGENT);
+
+        /** Name of the key in the requests. */
+        private final String keyName;
+        /** The access log field the key is extracted from. */
+        private final AccessLogField field;
+
+        /**
+         * Returns the key by its name in the requests.
+         *
+         * @param keyName name of the key.
+         * @return the key.
+         * @throws IllegalArgumentException if there is no key with the name.
+         */
+        public static GroupByKey of(@NonNull String keyName)
+        {
+                for (GroupByKey key : values())
+                {
+                        if (key.keyName.equalsIgnoreCase(keyName.trim()))
+                        {
+                                return key;
+                        }
+                }
+                throw new IllegalArgumentException(String.format("Unknown group-by key '%s', supported keys are ip, " +
+                        "date, hour, method, path, url, protocol, status, statusClass, referer and ua.", keyName));
+        }
+
+}
@@ -0,0 +1,116 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Consumer counting the lines matching the matcher by the hour of the time field of the access log line.
+ * <p> The counts are kept in {@link #BUCKETS} buckets: one for each hour of the day and one for the lines without
+ * the valid time, so the number of the matching lines of any range of whole hours is the sum of the buckets.
+ */
+public class HourlyLineCounter implements LineConsumer
+{
+        /** Number of the buckets of the counts. */
+        public static final int BUCKETS = 25;
+        /** Bucket of the lines without the valid time. */
+        public static final int NO_TIME_BUCKET = 24;
+        /** Matcher of the lines. */
+        private final LineMatcher matcher;
+        /** Flag of the matcher applied to all windows of the overlong line. */
+        private final boolean windowed;
+        /** Reusable view of the current line. */
+        private final AccessLogLine line = new AccessLogLine();
+        /** Counts of the matching lines by the bucket. */
+        private final long[] counts = new long[BUCKETS];
+        /** Flag of the first chunk of the current line. */
+        private boolean firstChunk = true;
+        /** Flag of the current line matching the matcher. */
+        private boolean matched;
+        /** Bucket of the current line. */
+        private int bucket;
+
+        /**
+         * Constructor with the matcher.
+         *
+         * @param matcher matcher of the lines (is used by the counter thread only).
+         */
+        public HourlyLineCounter(@NonNull LineMatcher matcher)
+        {
+                this.matcher = matcher;
+                this.windowed = matcher.isWindowed();
+        }
+
+        @Override
+        public void onLineChunk(byte[] buffer, int from, int to)
+        {
+                if (firstChunk)
+                {
+                        bucket = findBucket(buffer, from, to);
+                }
+                if (!matched && (firstChunk || windowed))
+                {
+                        matched = matcher.matches(buffer, from, to);
+                }
+                firstChunk = false;
+        }
+
+        @Override
+        public void onLineEnd()
+        {
+                if (matched)
+                {
+                        counts[bucket]++;
+                }
+                matched = false;
+                firstChunk = true;
+        }
+
+        /**
+         * Returns the counts of the matching lines by the bucket.
+         *
+         * @return the copy of the counts: the hours from 0 to 23 and the lines without the time.
+         */
+        public long[] getCounts()
+        {
+                return counts.clone();
+        }
+
+        /**
+         * Sums the counts of the range of the hours.
+         *
+         * @param counts counts of the matching lines by the bucket.
+         * @param firstHour first hour of the range.
+         * @param endHour hour after the last hour of the range (24 for the end of the day).
+         * @param withoutTime true to add the lines without the time.
+         * @return the sum of the counts.
+         */
+        public static long sum(@NonNull long[] counts, int firstHour, int endHour, boolean withoutTime)
+        {
+                long sum = withoutTime ? counts[NO_TIME_BUCKET] : 0;
+                for (int hour = firstHour; hour < endHour; hour++)
+                {
+                        sum += counts[hour];
+                }
+                return sum;
+        }
+
+        /**
+         * Finds the bucket of the line by its time.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return the hour of the line or {@link #NO_TIME_BUCKET}.
+         */
+        private int findBucket(byte[] buffer, int from, int to)
+        {
+                line.reset(buffer, from, to);
+                if (!line.locate(AccessLogField.TIME))
+                {
+                        return NO_TIME_BUCKET;
+                }
+                int secondOfDay = TimeOfDayRange.parseSecondOfDay(buffer, line.getStart(AccessLogField.TIME),
+                        line.getEnd(AccessLogField.TIME));
+                return (secondOfDay < 0) ? NO_TIME_BUCKET : secondOfDay / 3600;
+        }
+
+}
@@ -0,0 +1,78 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct values by their 64-bit hashes in fixed memory
+ * ({@value #REGISTER_COUNT} one-byte registers). Sketches are merged by the maximum of the registers, so the estimate
+ * of the merged sketch is the estimate of the union of the values.
+ */
+public class HyperLogLog
+{
+        /** Number of the hash bits selecting the register. */
+        private static final int PRECISION = 14;
+        /** Number of the registers. */
+        public static final int REGISTER_COUNT = 1 << PRECISION;
+        /** Relative standard error of the estimate: 1.04 / sqrt(number of the registers). */
+        public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTER_COUNT);
+        /** The registers: the maximum rank of the hashes selecting the register. */
+        private final byte[] registers = new byte[REGISTER_COUNT];
+
+        /**
+         * Adds the value by its hash.
+         *
+         * @param hash 64-bit hash of the value.
+         */
+        public void add(long hash)
+        {
+                int index = (int) (hash >>> (Long.SIZE - PRECISION));
+                byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+                if (registers[index] < rank)
+                {
+                        registers[index] = rank;
+                }
+        }
+
+        /**
+         * Merges another sketch into this one.
+         *
+         * @param other sketch to merge.
+         */
+        public void addAll(@NonNull HyperLogLog other)
+        {
+                for (int i = 0; i < REGISTER_COUNT; i++)
+                {
+                        if (registers[i] < other.registers[i])
+                        {
+                                registers[i] = other.registers[i];
+                        }
+                }
+        }
+
+        /**
+         * Estimates the number of the distinct values (linear counting is used for the small cardinalities).
+         *
+         * @return the estimated number of the distinct values.
+         */
+        public long estimate()
+        {
+                double sum = 0;
+                int zeroRegisters = 0;
+                for (byte register : registers)
+                {
+                        sum += 1.0 / (1L << register);
+                        if (register == 0)
+                        {
+                                zeroRegisters++;
+                        }
+                }
+                double alpha = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+                double estimate = alpha * REGISTER_COUNT * REGISTER_COUNT / sum;
+                if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0)
+                {
+                        estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+                }
+                return Math.round(estimate);
+        }
+
+}
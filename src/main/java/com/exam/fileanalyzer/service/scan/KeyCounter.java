@@ -0,0 +1,30 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Counter of the byte slice values of the group-by key. Counters of different threads (and files) are merged with
+ * {@link #addAll(KeyCounter)}; the counter must be used by one thread at a time.
+ *
+ * @param <C> type of the counter.
+ */
+public interface KeyCounter<C extends KeyCounter<C>>
+{
+        /**
+         * Adds the delta to the count of the value.
+         *
+         * @param buffer buffer with the value bytes.
+         * @param from index of the first byte of the value.
+         * @param to index after the last byte of the value.
+         * @param delta value to add to the count.
+         */
+        void add(byte[] buffer, int from, int to, long delta);
+
+        /**
+         * Adds all counts of another counter of the same type.
+         *
+         * @param other counter to add the counts of.
+         */
+        void addAll(@NonNull C other);
+
+}
@@ -0,0 +1,104 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+import java.util.Map;
+
+/**
+ * Fixed-memory approximate counter of the group-by key values: the HyperLogLog sketch of the distinct values and
+ * the Count-Min sketch of the heavy hitters. The memory of the counter does not depend on the number of the lines
+ * and the distinct values.
+ */
+public class KeySketch implements KeyCounter<KeySketch>
+{
+        /** Sketch of the distinct values. */
+        private final HyperLogLog distinctValues = new HyperLogLog();
+        /** Sketch of the heavy hitters. */
+        private final CountMinTopK topValues;
+        /** Total count of the values. */
+        @Getter
+        private long count;
+
+        /**
+         * Constructor with the number of the heavy hitter candidates.
+         *
+         * @param capacity maximum number of the heavy hitter candidates.
+         */
+        public KeySketch(int capacity)
+        {
+                this.topValues = new CountMinTopK(capacity);
+        }
+
+        @Override
+        public void add(byte[] buffer, int from, int to, long delta)
+        {
+                long hash = hash(buffer, from, to);
+                distinctValues.add(hash);
+                topValues.add(hash, buffer, from, to, delta);
+                count += delta;
+        }
+
+        @Override
+        public void addAll(@NonNull KeySketch other)
+        {
+                distinctValues.addAll(other.distinctValues);
+                topValues.addAll(other.topValues);
+                count += other.count;
+        }
+
+        /**
+         * Estimates the number of the distinct values.
+         *
+         * @return the estimated number of the distinct values.
+         */
+        public long estimateDistinctValues()
+        {
+                return distinctValues.estimate();
+        }
+
+        /**
+         * Returns the heavy hitters with the estimated counts.
+         *
+         * @param limit maximum number of the values in the result.
+         * @return the map of the values and the estimated counts sorted by the count in descending order.
+         */
+        public Map<String, Long> getTopValues(int limit)
+        {
+                return topValues.getTop(limit);
+        }
+
+        /**
+         * Returns the maximum overestimate of the counts of the heavy hitters (with the probability of
+         * {@link CountMinTopK#CONFIDENCE}).
+         *
+         * @return the maximum overestimate of the counts.
+         */
+        public long getMaxCountOverestimate()
+        {
+                return (long) Math.ceil(CountMinTopK.RELATIVE_ERROR * count);
+        }
+
+        /**
+         * Calculates the 64-bit hash of the value bytes (FNV-1a with the MurmurHash3 finalizer).
+         *
+         * @param buffer buffer with the value bytes.
+         * @param from index of the first byte of the value.
+         * @param to index after the last byte of the value.
+         * @return the hash of the value.
+         */
+        static long hash(byte[] buffer, int from, int to)
+        {
+                long hash = 0xCBF29CE484222325L;
+                for (int i = from; i < to; i++)
+                {
+                        hash = (hash ^ (buffer[i] & 0xFF)) * 0x100000001B3L;
+                }
+                hash ^= hash >>> 33;
+                hash *= 0xFF51AFD7ED558CCDL;
+                hash ^= hash >>> 33;
+                hash *= 0xC4CEB9FE1A85EC53L;
+                return hash ^ (hash >>> 33);
+        }
+
+}
@@ -0,0 +1,184 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Consumer counting the lines matching the matcher by the group-by keys.
+ * <p> The keys are located in the line through the lazy {@link AccessLogLine} view and counted by the
+ * {@link KeyCounter}s (exact {@link ByteSliceCountMap}s or fixed-memory {@link KeySketch}es) as byte slices, so no
+ * strings or boxed numbers are created per line. Each line is counted with the current weight (the number of
+ * the entries with the same content). Aggregators of different threads are merged with {@link #addAll(LineAggregator)}.
+ *
+ * @param <C> type of the counters of the key values.
+ */
+public class LineAggregator<C extends KeyCounter<C>> implements LineConsumer
+{
+        /** Maximum number of the distinct values of one key (the rest are counted as the overflow). */
+        public static final int MAX_KEYS = 100_000;
+        /** Key of the lines without the grouped field. */
+        public static final String MISSING_KEY = "-";
+        /** Key of the sum of the counts of the keys out of the result limit. */
+        public static final String OTHER_KEY = "(other)";
+        /** Bytes of the key of the lines without the grouped field. */
+        private static final byte[] MISSING_KEY_BYTES = { '-' };
+        /** The group-by keys. */
+        private final GroupByKey[] keys;
+        /** Counters of the values by the group-by key index. */
+        private final List<C> counters = new ArrayList<>();
+        /** Matcher of the lines to count. */
+        @Getter
+        private final LineMatcher matcher;
+        /** Reusable view of the current line. */
+        private final AccessLogLine line = new AccessLogLine();
+        /** Reusable bytes of the status class key. */
+        private final byte[] statusClass = { '0', 'x', 'x' };
+        /** Weight of each counted line. */
+        private long weight = 1;
+        /** Flag of the first chunk of the current line. */
+        private boolean firstChunk = true;
+
+        /**
+         * Constructor with the group-by keys, the matcher and the factory of the counters.
+         *
+         * @param keys the group-by keys.
+         * @param matcher matcher of the lines to count (is used by the aggregator thread only).
+         * @param counterFactory factory of the counter of the values of each key.
+         */
+        public LineAggregator(@NonNull List<GroupByKey> keys, @NonNull LineMatcher matcher,
+                              @NonNull Supplier<C> counterFactory)
+        {
+                this.keys = keys.toArray(new GroupByKey[0]);
+                for (int i = 0; i < this.keys.length; i++)
+                {
+                        counters.add(counterFactory.get());
+                }
+                this.matcher = matcher;
+        }
+
+        /**
+         * Sets the weight of each counted line.
+         *
+         * @param weight the weight of the lines of the next scanned file.
+         */
+        public void setWeight(long weight)
+        {
+                this.weight = weight;
+        }
+
+        @Override
+        public void onLineChunk(byte[] buffer, int from, int to)
+        {
+                if (firstChunk && matcher.matches(buffer, from, to))
+                {
+                        line.reset(buffer, from, to);
+                        for (int i = 0; i < keys.length; i++)
+                        {
+                                countKey(i, buffer);
+                        }
+                }
+                firstChunk = false;
+        }
+
+        @Override
+        public void onLineEnd()
+        {
+                firstChunk = true;
+        }
+
+        /**
+         * Adds all counts of another aggregator with the same keys.
+         *
+         * @param other aggregator to add the counts of.
+         */
+        public void addAll(@NonNull LineAggregator<C> other)
+        {
+                for (int i = 0; i < counters.size(); i++)
+                {
+                        counters.get(i).addAll(other.counters.get(i));
+                }
+        }
+
+        /**
+         * Returns the counters of the values of the group-by keys.
+         *
+         * @return the map of the key names and the counters of the key values in the order of the keys.
+         */
+        public Map<String, C> getCounters()
+        {
+                Map<String, C> result = new LinkedHashMap<>();
+                for (int i = 0; i < keys.length; i++)
+                {
+                        result.put(keys[i].getKeyName(), counters.get(i));
+                }
+                return result;
+        }
+
+        /**
+         * Counts the value of the group-by key in the current line.
+         *
+         * @param index index of the group-by key.
+         * @param buffer buffer with the line bytes.
+         */
+        private void countKey(int index, byte[] buffer)
+        {
+                GroupByKey key = keys[index];
+                C counter = counters.get(index);
+                AccessLogField field = key.getField();
+                if (!line.locate(field))
+                {
+                        counter.add(MISSING_KEY_BYTES, 0, 1, weight);
+                        return;
+                }
+                int start = line.getStart(field);
+                int end = line.getEnd(field);
+                switch (key)
+                {
+                        case DATE:
+                                end = indexOf(buffer, start, end, (byte) ':');
+                                break;
+                        case HOUR:
+                                start = Math.min(indexOf(buffer, start, end, (byte) ':') + 1, end);
+                                end = Math.min(start + 2, end);
+                                break;
+                        case URL:
+                                end = indexOf(buffer, start, end, (byte) '?');
+                                break;
+                        case STATUS_CLASS:
+                                if (end - start != 3)
+                                {
+                                        break;
+                                }
+                                statusClass[0] = buffer[start];
+                                counter.add(statusClass, 0, 3, weight);
+                                return;
+                        default:
+                }
+                counter.add(buffer, start, end, weight);
+        }
+
+        /**
+         * Finds the byte in the range.
+         *
+         * @param buffer buffer to search in.
+         * @param from index of the first byte of the range.
+         * @param to index after the last byte of the range.
+         * @param value byte to find.
+         * @return index of the byte or the end of the range if there is no such byte.
+         */
+        private static int indexOf(byte[] buffer, int from, int to, byte value)
+        {
+                for (int i = from; i < to; i++)
+                {
+                        if (buffer[i] == value)
+                        {
+                                return i;
+                        }
+                }
+                return to;
+        }
+
+}
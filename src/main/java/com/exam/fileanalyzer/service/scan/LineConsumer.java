@@ -0,0 +1,36 @@
+package com.exam.fileanalyzer.service.scan;
+
+/**
+ * Receiver of the lines found by the {@link LineScanner}.
+ * <p> Each line is passed as one or more chunks followed by {@link #onLineEnd()}. A line that fits the scanner buffer
+ * is passed as a single chunk; a longer line is passed as consecutive windows of the buffer size overlapping by
+ * the number of bytes requested by the scan, so memory stays constant whatever the line length is.
+ * The chunk bytes belong to the scanner buffer and are valid only during the call.
+ */
+public interface LineConsumer
+{
+        /**
+         * Marks the start of the next line (before its first chunk). The consumers not needing the line offsets
+         * ignore it.
+         *
+         * @param offset offset of the first byte of the line in the scanned content.
+         */
+        default void onLineStart(long offset)
+        {
+        }
+
+        /**
+         * Accepts the chunk of the current line (without the line terminator).
+         *
+         * @param buffer scanner buffer with the line bytes.
+         * @param from index of the first byte of the chunk.
+         * @param to index after the last byte of the chunk.
+         */
+        void onLineChunk(byte[] buffer, int from, int to);
+
+        /**
+         * Marks the end of the current line.
+         */
+        void onLineEnd();
+
+}
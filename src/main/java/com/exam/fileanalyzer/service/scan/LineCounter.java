@@ -0,0 +1,55 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+/**
+ * Consumer counting the lines matching the matcher.
+ */
+public class LineCounter implements LineConsumer
+{
+        /** Matcher of the lines. */
+        private final LineMatcher matcher;
+        /** Flag of the matcher applied to all windows of the overlong line. */
+        private final boolean windowed;
+        /** Number of the matching lines. */
+        @Getter
+        private long count;
+        /** Flag of the first chunk of the current line. */
+        private boolean firstChunk = true;
+        /** Flag of the current line matching the matcher. */
+        private boolean matched;
+
+        /**
+         * Constructor with the matcher.
+         *
+         * @param matcher matcher of the lines.
+         */
+        public LineCounter(@NonNull LineMatcher matcher)
+        {
+                this.matcher = matcher;
+                this.windowed = matcher.isWindowed();
+        }
+
+        @Override
+        public void onLineChunk(byte[] buffer, int from, int to)
+        {
+                if (!matched && (firstChunk || windowed))
+                {
+                        matched = matcher.matches(buffer, from, to);
+                }
+                firstChunk = false;
+        }
+
+        @Override
+        public void onLineEnd()
+        {
+                if (matched)
+                {
+                        count++;
+                }
+                matched = false;
+                firstChunk = true;
+        }
+
+}
@@ -0,0 +1,78 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Predicate of the log line bytes. Implementations must not allocate memory per line and must be used by one thread
+ * at a time (use {@link #copy()} to get an instance for another thread).
+ */
+public interface LineMatcher
+{
+        /** Matcher accepting all lines. */
+        LineMatcher ALL = new LineMatcher()
+        {
+                @Override
+                public boolean matches(byte[] buffer, int from, int to)
+                {
+                        return true;
+                }
+
+                @Override
+                public LineMatcher copy()
+                {
+                        return this;
+                }
+        };
+
+        /**
+         * Checks if the line (or the window of the overlong line) matches the predicate.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return true if the line matches.
+         */
+        boolean matches(byte[] buffer, int from, int to);
+
+        /**
+         * Returns the number of bytes the windows of the overlong line must overlap so that a match crossing
+         * the window border is not missed.
+         *
+         * @return overlap of the windows in bytes.
+         */
+        default int getWindowOverlap()
+        {
+                return 0;
+        }
+
+        /**
+         * Checks if the matcher can be applied to any window of the overlong line (a match at any position of
+         * the line). Otherwise only the first window is matched.
+         *
+         * @return true if all windows of the overlong line are matched.
+         */
+        default boolean isWindowed()
+        {
+                return false;
+        }
+
+        /**
+         * Returns the range of the time of day of the matching lines, so that the chronologically ordered log file can
+         * be narrowed to it before scanning.
+         *
+         * @return the time range or null if the lines of any time can match.
+         */
+        @Nullable
+        default TimeOfDayRange getTimeRange()
+        {
+                return null;
+        }
+
+        /**
+         * Returns the matcher with the same predicate for use in another thread.
+         *
+         * @return matcher instance for another thread (the same instance if the matcher is stateless).
+         */
+        LineMatcher copy();
+
+}
@@ -0,0 +1,226 @@
+package com.exam.fileanalyzer.service.scan;
+
+import com.exam.fileanalyzer.service.impl.BufferPool;
+import org.springframework.lang.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Scanner of the log lines working over reusable pooled byte buffers.
+ * <p> The scanner does not create objects per line: lines are passed to the {@link LineConsumer} as byte ranges of
+ * the buffer. Lines longer than the buffer are passed in overlapping windows, so the memory used by the worker
+ * thread is constant (one buffer) regardless of the line length. Lines are terminated by '\n', the '\r' before it
+ * is not passed to the consumer. The newlines are found by the {@link ByteSearchKernel} (vectorized if available).
+ */
+public final class LineScanner
+{
+        /** Size of the scanner buffer (and the maximum size of the line window). */
+        public static final int BUFFER_SIZE = 64 * 1024;
+        /** Pool of the scanner buffers (the buffer is allocated out of the pool if all of them are in use). */
+        private static final BufferPool BUFFER_POOL =
+                new BufferPool(BUFFER_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+        /** Kernel searching the newlines. */
+        private static final ByteSearchKernel BYTE_SEARCH = ByteSearchKernel.INSTANCE;
+
+        /**
+         * Utility class constructor.
+         */
+        private LineScanner()
+        {
+        }
+
+        /**
+         * Counts the lines of the stream matching the matcher.
+         *
+         * @param content stream with the log lines (is not closed by the method).
+         * @param matcher matcher of the lines (is used by the calling thread only).
+         * @return the number of the matching lines.
+         * @throws IOException if the stream cannot be read.
+         */
+        public static long countMatchingLines(@NonNull InputStream content, @NonNull LineMatcher matcher)
+                throws IOException
+        {
+                LineCounter counter = new LineCounter(matcher);
+                scan(content, counter, matcher.getWindowOverlap());
+                return counter.getCount();
+        }
+
+        /**
+         * Passes all lines of the random-access content to the consumer (the content is copied to the pooled buffer
+         * window by window like the stream). The line offsets are counted from the start of the content, so the lines
+         * of the content part between its position and limit get their offsets in the whole content.
+         *
+         * @param content read-only content with the log lines (its position and limit are not changed).
+         * @param consumer receiver of the lines.
+         * @param windowOverlap number of bytes the windows of the overlong line overlap (no more than half
+         *                      of the buffer).
+         * @throws IOException if the content cannot be read.
+         */
+        public static void scan(@NonNull ByteBuffer content, @NonNull LineConsumer consumer, int windowOverlap)
+                throws IOException
+        {
+                scan(new ByteBufferInputStream(content.duplicate()), consumer, windowOverlap, content.position());
+        }
+
+        /**
+         * Passes all lines of the stream to the consumer.
+         *
+         * @param content stream with the log lines (is not closed by the method).
+         * @param consumer receiver of the lines.
+         * @param windowOverlap number of bytes the windows of the overlong line overlap (no more than half
+         *                      of the buffer).
+         * @throws IOException if the stream cannot be read.
+         */
+        public static void scan(@NonNull InputStream content, @NonNull LineConsumer consumer, int windowOverlap)
+                throws IOException
+        {
+                scan(content, consumer, windowOverlap, 0);
+        }
+
+        /**
+         * Passes all lines of the stream to the consumer using the pooled buffer.
+         *
+         * @param content stream with the log lines (is not closed by the method).
+         * @param consumer receiver of the lines.
+         * @param windowOverlap number of bytes the windows of the overlong line overlap.
+         * @param startOffset offset of the first byte of the stream.
+         * @throws IOException if the stream cannot be read.
+         */
+        private static void scan(InputStream content, LineConsumer consumer, int windowOverlap, long startOffset)
+                throws IOException
+        {
+                byte[] pooledBuffer = BUFFER_POOL.tryAcquire();
+                byte[] buffer = (pooledBuffer != null) ? pooledBuffer : new byte[BUFFER_SIZE];
+                int overlap = Math.max(0, Math.min(windowOverlap, BUFFER_SIZE / 2));
+                try
+                {
+                        scan(content, consumer, buffer, overlap, startOffset);
+                } finally
+                {
+                        if (pooledBuffer != null)
+                        {
+                                BUFFER_POOL.release(pooledBuffer);
+                        }
+                }
+        }
+
+        /**
+         * Passes all lines of the stream to the consumer using the given buffer.
+         *
+         * @param content stream with the log lines.
+         * @param consumer receiver of the lines.
+         * @param buffer buffer for reading the stream.
+         * @param overlap number of bytes the windows of the overlong line overlap.
+         * @param startOffset offset of the first byte of the stream.
+         * @throws IOException if the stream cannot be read.
+         */
+        private static void scan(InputStream content, LineConsumer consumer, byte[] buffer, int overlap,
+                                 long startOffset) throws IOException
+        {
+                long bufferOffset = startOffset;
+                boolean lineStarted = false;
+                int lineStart = 0;
+                int scanFrom = 0;
+                int limit = 0;
+                boolean endOfStream = false;
+                while (true)
+                {
+                        int newline = BYTE_SEARCH.indexOf(buffer, scanFrom, limit, (byte) '\n');
+                        if (newline >= 0)
+                        {
+                                int lineEnd = (newline > lineStart && buffer[newline - 1] == '\r') ?
+                                        newline - 1 : newline;
+                                if (!lineStarted)
+                                {
+                                        consumer.onLineStart(bufferOffset + lineStart);
+                                }
+                                consumer.onLineChunk(buffer, lineStart, lineEnd);
+                                consumer.onLineEnd();
+                                lineStarted = false;
+                                lineStart = newline + 1;
+                                scanFrom = lineStart;
+                                continue;
+                        }
+                        if (endOfStream)
+                        {
+                                if (lineStart < limit)
+                                {
+                                        if (!lineStarted)
+                                        {
+                                                consumer.onLineStart(bufferOffset + lineStart);
+                                        }
+                                        consumer.onLineChunk(buffer, lineStart, limit);
+                                        consumer.onLineEnd();
+                                }
+                                return;
+                        }
+                        if (lineStart == 0 && limit == buffer.length)
+                        {
+                                if (!lineStarted)
+                                {
+                                        consumer.onLineStart(bufferOffset);
+                                        lineStarted = true;
+                                }
+                                consumer.onLineChunk(buffer, 0, limit);
+                                System.arraycopy(buffer, limit - overlap, buffer, 0, overlap);
+                                bufferOffset += limit - overlap;
+                                limit = overlap;
+                        } else if (lineStart > 0)
+                        {
+                                System.arraycopy(buffer, lineStart, buffer, 0, limit - lineStart);
+                                bufferOffset += lineStart;
+                                limit -= lineStart;
+                                lineStart = 0;
+                        }
+                        scanFrom = limit;
+                        int read = content.read(buffer, limit, buffer.length - limit);
+                        if (read == -1)
+                        {
+                                endOfStream = true;
+                        } else
+                        {
+                                limit += read;
+                        }
+                }
+        }
+
+        /**
+         * Input stream reading the remaining bytes of the byte buffer.
+         */
+        private static class ByteBufferInputStream extends InputStream
+        {
+                /** Buffer to read. */
+                private final ByteBuffer content;
+
+                /**
+                 * Constructor with the buffer to read.
+                 *
+                 * @param content buffer to read (its position is moved by reading).
+                 */
+                ByteBufferInputStream(ByteBuffer content)
+                {
+                        this.content = content;
+                }
+
+                @Override
+                public int read()
+                {
+                        return content.hasRemaining() ? content.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length)
+                {
+                        if (!content.hasRemaining())
+                        {
+                                return -1;
+                        }
+                        int read = Math.min(length, content.remaining());
+                        content.get(buffer, offset, read);
+                        return read;
+                }
+
+        }
+
+}
@@ -0,0 +1,203 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Matcher of the lines containing the literal search query (compared as UTF-8 bytes).
+ * <p> The line is scanned for the rarest byte of the query (estimated by the typical frequency of bytes in access
+ * logs) by the {@link ByteSearchKernel}, and the whole query is compared only around its occurrences.
+ * The case-insensitive matcher folds ASCII letters byte by byte through the lookup table (non-ASCII characters are
+ * compared exactly), so no lowercased copy of the line is created. The matcher is stateless.
+ */
+public class LiteralLineMatcher implements LineMatcher
+{
+        /** Bytes of the typical access log sorted from the most to the least frequent ones. */
+        private static final String FREQUENT_BYTES =
+                " etao/.\"0i1n2s-r:3c8l4h5d769Mum(pg;)fAbSw,GKTyxWCvLEPHkFINXOBjRDU_q=zV&?%+JQYZ";
+        /** Table of the bytes with the ASCII upper case letters replaced by the lower case ones. */
+        private static final byte[] ASCII_LOWER_CASE = new byte[256];
+        /** Kernel searching the rarest byte of the query. */
+        private static final ByteSearchKernel BYTE_SEARCH = ByteSearchKernel.INSTANCE;
+        /** The search query bytes (in the ASCII lower case if the case is ignored). */
+        private final byte[] query;
+        /** Flag of the ASCII case-insensitive matching. */
+        private final boolean ignoreCase;
+        /** Index of the rarest byte in the query. */
+        private final int anchorIndex;
+        /** The rarest byte of the query. */
+        private final byte anchor;
+        /** The rarest byte of the query in another ASCII case (the same byte if it is not a letter). */
+        private final byte alternativeAnchor;
+
+        static
+        {
+                for (int i = 0; i < ASCII_LOWER_CASE.length; i++)
+                {
+                        ASCII_LOWER_CASE[i] = (byte) ((i >= 'A' && i <= 'Z') ? i + ('a' - 'A') : i);
+                }
+        }
+
+        /**
+         * Constructor of the case-sensitive matcher with the search query.
+         *
+         * @param searchQuery the search query.
+         */
+        public LiteralLineMatcher(@NonNull String searchQuery)
+        {
+                this(searchQuery, false);
+        }
+
+        /**
+         * Constructor with the search query and the case sensitivity.
+         *
+         * @param searchQuery the search query.
+         * @param ignoreCase if true, ASCII letters are matched regardless of their case.
+         */
+        public LiteralLineMatcher(@NonNull String searchQuery, boolean ignoreCase)
+        {
+                byte[] queryBytes = searchQuery.getBytes(StandardCharsets.UTF_8);
+                if (ignoreCase)
+                {
+                        for (int i = 0; i < queryBytes.length; i++)
+                        {
+                                queryBytes[i] = toLowerCase(queryBytes[i]);
+                        }
+                }
+                this.query = queryBytes;
+                this.ignoreCase = ignoreCase;
+                this.anchorIndex = findRarestByteIndex(query);
+                this.anchor = (query.length == 0) ? 0 : query[anchorIndex];
+                this.alternativeAnchor = (ignoreCase && anchor >= 'a' && anchor <= 'z') ?
+                        (byte) (anchor - ('a' - 'A')) : anchor;
+        }
+
+        /**
+         * Checks if the line contains the search query.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return true if the line contains the search query.
+         */
+        @Override
+        public boolean matches(byte[] buffer, int from, int to)
+        {
+                return indexOf(buffer, from, to) >= 0;
+        }
+
+        /**
+         * Finds the first occurrence of the search query in the byte range.
+         *
+         * @param buffer buffer to search in.
+         * @param from index of the first byte of the range.
+         * @param to index after the last byte of the range.
+         * @return index of the first occurrence or -1 if there is no occurrence.
+         */
+        public int indexOf(byte[] buffer, int from, int to)
+        {
+                int length = query.length;
+                if (length == 0)
+                {
+                        return from;
+                }
+                int anchorEnd = to - length + anchorIndex + 1;
+                for (int i = from + anchorIndex; i < anchorEnd; i++)
+                {
+                        i = BYTE_SEARCH.indexOfAny(buffer, i, anchorEnd, anchor, alternativeAnchor);
+                        if (i < 0)
+                        {
+                                return -1;
+                        }
+                        if (regionMatches(buffer, i - anchorIndex))
+                        {
+                                return i - anchorIndex;
+                        }
+                }
+                return -1;
+        }
+
+        @Override
+        public int getWindowOverlap()
+        {
+                return Math.max(query.length - 1, 0);
+        }
+
+        @Override
+        public boolean isWindowed()
+        {
+                return true;
+        }
+
+        @Override
+        public LineMatcher copy()
+        {
+                return this;
+        }
+
+        /**
+         * Compares the search query with the buffer bytes starting at the given position.
+         *
+         * @param buffer buffer to compare with.
+         * @param start position of the compared bytes.
+         * @return true if the bytes are equal to the search query.
+         */
+        private boolean regionMatches(byte[] buffer, int start)
+        {
+                if (ignoreCase)
+                {
+                        for (int i = 0; i < query.length; i++)
+                        {
+                                if (toLowerCase(buffer[start + i]) != query[i])
+                                {
+                                        return false;
+                                }
+                        }
+                        return true;
+                }
+                for (int i = 0; i < query.length; i++)
+                {
+                        if (buffer[start + i] != query[i])
+                        {
+                                return false;
+                        }
+                }
+                return true;
+        }
+
+        /**
+         * Converts the ASCII upper case letter byte to the lower case one.
+         *
+         * @param value byte to convert.
+         * @return the lower case letter byte or the same byte if it is not an ASCII upper case letter.
+         */
+        private static byte toLowerCase(byte value)
+        {
+                return ASCII_LOWER_CASE[value & 0xFF];
+        }
+
+        /**
+         * Finds the index of the byte of the query that is expected to be the rarest one in the access log.
+         *
+         * @param query the search query bytes.
+         * @return index of the rarest byte (0 for the empty query).
+         */
+        static int findRarestByteIndex(byte[] query)
+        {
+                int rarestIndex = 0;
+                int rarestRank = -1;
+                for (int i = 0; i < query.length; i++)
+                {
+                        int frequencyIndex = FREQUENT_BYTES.indexOf(query[i]);
+                        int rank = (frequencyIndex < 0) ? FREQUENT_BYTES.length() : frequencyIndex;
+                        if (rank > rarestRank)
+                        {
+                                rarestRank = rank;
+                                rarestIndex = i;
+                        }
+                }
+                return rarestIndex;
+        }
+
+}
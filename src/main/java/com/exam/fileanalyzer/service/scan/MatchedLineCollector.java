@@ -0,0 +1,270 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Consumer counting the lines matching the matcher and passing the first matching lines with their context lines to
+ * the listener in the same pass.
+ * <p> The current line and the lines before it are copied into the fixed-size ring of the line buffers (each line is
+ * cut to {@link #MAX_LINE_LENGTH} bytes), so the memory does not depend on the number of the lines. The matching line
+ * is passed to the listener as soon as its lines after are read; strings are created only for the passed lines. When
+ * the maximum number of the lines is passed, the rest lines are only counted.
+ */
+public class MatchedLineCollector implements LineConsumer
+{
+        /** Maximum number of the kept bytes of each line (the rest of the longer line is cut off). */
+        public static final int MAX_LINE_LENGTH = 4096;
+        /** Maximum number of the context lines before and after the matching line. */
+        public static final int MAX_CONTEXT_LINES = 20;
+        /** Matcher of the lines. */
+        @Getter
+        private final LineMatcher matcher;
+        /** Flag of the matcher applied to all windows of the overlong line. */
+        private final boolean windowed;
+        /** Maximum number of the matching lines passed to the listener. */
+        private final int maxLines;
+        /** Number of the context lines after the matching line. */
+        private final int linesAfter;
+        /** Receiver of the matching lines. */
+        private final Listener listener;
+        /** Ring of the buffers of the lines before the current line and the current line. */
+        private final byte[][] ring;
+        /** Numbers of the kept bytes of the lines of the ring. */
+        private final int[] ringLengths;
+        /** Matching lines waiting for their lines after. */
+        private final Deque<PendingLine> pendingLines = new ArrayDeque<>();
+        /** Number of the matching lines. */
+        @Getter
+        private long count;
+        /** Number of the matching lines passed to the listener or waiting for their lines after. */
+        private int collected;
+        /** Index of the buffer of the current line in the ring. */
+        private int current;
+        /** Number of the lines before the current line in the ring. */
+        private int linesInRing;
+        /** Offset of the current line. */
+        private long lineOffset;
+        /** Flag of the first chunk of the current line. */
+        private boolean firstChunk = true;
+        /** Flag of the current line matching the matcher. */
+        private boolean matched;
+
+        /**
+         * Constructor with the matcher, the limits and the listener.
+         *
+         * @param matcher matcher of the lines.
+         * @param maxLines maximum number of the matching lines passed to the listener.
+         * @param linesBefore number of the context lines before the matching line.
+         * @param linesAfter number of the context lines after the matching line.
+         * @param listener receiver of the matching lines (is called by the scanning thread).
+         * @throws IllegalArgumentException if the number of the lines is not positive or the number of the context
+         * lines is out of range.
+         */
+        public MatchedLineCollector(@NonNull LineMatcher matcher, int maxLines, int linesBefore, int linesAfter,
+                                    @NonNull Listener listener)
+        {
+                validateLimits(maxLines, linesBefore, linesAfter);
+                this.matcher = matcher;
+                this.windowed = matcher.isWindowed();
+                this.maxLines = maxLines;
+                this.linesAfter = linesAfter;
+                this.listener = listener;
+                this.ring = new byte[linesBefore + 1][MAX_LINE_LENGTH];
+                this.ringLengths = new int[linesBefore + 1];
+        }
+
+        /**
+         * Checks the limits of the collected lines.
+         *
+         * @param maxLines maximum number of the matching lines passed to the listener.
+         * @param linesBefore number of the context lines before the matching line.
+         * @param linesAfter number of the context lines after the matching line.
+         * @throws IllegalArgumentException if the number of the lines is not positive or the number of the context
+         * lines is out of range.
+         */
+        public static void validateLimits(int maxLines, int linesBefore, int linesAfter)
+        {
+                if (maxLines < 1)
+                {
+                        throw new IllegalArgumentException("The number of the matching lines must be positive.");
+                }
+                if (linesBefore < 0 || linesBefore > MAX_CONTEXT_LINES || linesAfter < 0 ||
+                        linesAfter > MAX_CONTEXT_LINES)
+                {
+                        throw new IllegalArgumentException(String.format(
+                                "The number of the context lines must be from 0 to %d.", MAX_CONTEXT_LINES));
+                }
+        }
+
+        @Override
+        public void onLineStart(long offset)
+        {
+                lineOffset = offset;
+        }
+
+        @Override
+        public void onLineChunk(byte[] buffer, int from, int to)
+        {
+                if (firstChunk && isCollecting())
+                {
+                        int length = Math.min(to - from, MAX_LINE_LENGTH);
+                        System.arraycopy(buffer, from, ring[current], 0, length);
+                        ringLengths[current] = length;
+                }
+                if (!matched && (firstChunk || windowed))
+                {
+                        matched = matcher.matches(buffer, from, to);
+                }
+                firstChunk = false;
+        }
+
+        @Override
+        public void onLineEnd()
+        {
+                if (matched)
+                {
+                        count++;
+                }
+                if (isCollecting())
+                {
+                        collectLine();
+                }
+                matched = false;
+                firstChunk = true;
+        }
+
+        /**
+         * Passes the matching lines waiting for their lines after to the listener (at the end of the content).
+         */
+        public void finish()
+        {
+                while (!pendingLines.isEmpty())
+                {
+                        pass(pendingLines.poll());
+                }
+        }
+
+        /**
+         * Checks if the lines are still needed: the maximum number of the lines is not reached or the lines after are
+         * awaited.
+         *
+         * @return true if the lines are kept.
+         */
+        private boolean isCollecting()
+        {
+                return collected < maxLines || !pendingLines.isEmpty();
+        }
+
+        /**
+         * Adds the current line to the lines after of the waiting matching lines, starts waiting for the lines after
+         * of the current line if it matches and moves the ring to the next line.
+         */
+        private void collectLine()
+        {
+                String line = null;
+                if (!pendingLines.isEmpty())
+                {
+                        line = decode(current);
+                        for (PendingLine pendingLine : pendingLines)
+                        {
+                                pendingLine.after.add(line);
+                        }
+                        while (!pendingLines.isEmpty() && pendingLines.peek().after.size() == linesAfter)
+                        {
+                                pass(pendingLines.poll());
+                        }
+                }
+                if (matched && collected < maxLines)
+                {
+                        collected++;
+                        List<String> before = new ArrayList<>(linesInRing);
+                        for (int i = linesInRing; i > 0; i--)
+                        {
+                                before.add(decode((current - i + ring.length) % ring.length));
+                        }
+                        PendingLine pendingLine = new PendingLine(lineOffset,
+                                Objects.isNull(line) ? decode(current) : line, before);
+                        if (linesAfter == 0)
+                        {
+                                pass(pendingLine);
+                        } else
+                        {
+                                pendingLines.add(pendingLine);
+                        }
+                }
+                current = (current + 1) % ring.length;
+                linesInRing = Math.min(linesInRing + 1, ring.length - 1);
+        }
+
+        /**
+         * Passes the matching line to the listener.
+         *
+         * @param pendingLine the matching line with its context lines.
+         */
+        private void pass(PendingLine pendingLine)
+        {
+                listener.onMatchedLine(pendingLine.offset, pendingLine.line, pendingLine.before, pendingLine.after);
+        }
+
+        /**
+         * Decodes the kept bytes of the line of the ring.
+         *
+         * @param index index of the buffer of the line in the ring.
+         * @return the line.
+         */
+        private String decode(int index)
+        {
+                return new String(ring[index], 0, ringLengths[index], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Receiver of the matching lines.
+         */
+        @FunctionalInterface
+        public interface Listener
+        {
+                /**
+                 * Accepts the matching line with its context lines.
+                 *
+                 * @param offset offset of the first byte of the line in the log file.
+                 * @param line the matching line (cut to {@link #MAX_LINE_LENGTH} bytes).
+                 * @param before the lines before the matching line.
+                 * @param after the lines after the matching line.
+                 */
+                void onMatchedLine(long offset, String line, List<String> before, List<String> after);
+        }
+
+        /**
+         * Matching line waiting for its lines after.
+         */
+        private static class PendingLine
+        {
+                /** Offset of the matching line. */
+                private final long offset;
+                /** The matching line. */
+                private final String line;
+                /** The lines before the matching line. */
+                private final List<String> before;
+                /** The lines after the matching line. */
+                private final List<String> after = new ArrayList<>();
+
+                /**
+                 * Constructor with the matching line.
+                 *
+                 * @param offset offset of the matching line.
+                 * @param line the matching line.
+                 * @param before the lines before the matching line.
+                 */
+                PendingLine(long offset, String line, List<String> before)
+                {
+                        this.offset = offset;
+                        this.line = line;
+                        this.before = before;
+                }
+        }
+
+}
@@ -0,0 +1,324 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.regex.*;
+
+/**
+ * Matcher of the lines containing a match of the regular expression.
+ * <p> The pattern is compiled once per request and shared by the copies of the matcher. The literal required by
+ * every match of the pattern (if there is one) is searched in the line bytes first, so the regular expression engine
+ * runs only for the lines containing it. The line is decoded into the reusable char buffer of the matcher (ASCII lines
+ * without the decoder), only the first window of the overlong line is matched.
+ */
+public class RegexLineMatcher implements LineMatcher
+{
+        /** Pattern of the inline flags group enabling the case-insensitive matching. */
+        private static final Pattern CASE_INSENSITIVE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z]*i");
+        /** Pattern of the inline flags group enabling the comments mode (whitespaces are not literals). */
+        private static final Pattern COMMENTS_FLAGS = Pattern.compile("\\(\\?[a-zA-Z]*x");
+        /** The compiled pattern shared by the copies of the matcher. */
+        private final Pattern pattern;
+        /** Matcher of the literal required by the pattern (null if there is no such literal). */
+        @Nullable
+        private final LiteralLineMatcher prefilter;
+        /** Reusable matcher of the pattern. */
+        private final Matcher matcher;
+        /** Reusable decoder of the non-ASCII lines. */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        /** Reusable buffer of the decoded line. */
+        private CharBuffer text = CharBuffer.allocate(LineScanner.BUFFER_SIZE);
+        /** Reusable view of the line bytes for the decoder. */
+        private ByteBuffer bytes;
+
+        /**
+         * Constructor with the regular expression.
+         *
+         * @param regex the regular expression.
+         * @throws PatternSyntaxException if the regular expression is invalid.
+         */
+        public RegexLineMatcher(@NonNull String regex)
+        {
+                this(Pattern.compile(regex), createPrefilter(regex));
+        }
+
+        /**
+         * Constructor with the compiled pattern and the prefilter (used for the copies of the matcher).
+         *
+         * @param pattern the compiled pattern.
+         * @param prefilter matcher of the literal required by the pattern.
+         */
+        private RegexLineMatcher(Pattern pattern, @Nullable LiteralLineMatcher prefilter)
+        {
+                this.pattern = pattern;
+                this.prefilter = prefilter;
+                this.matcher = pattern.matcher("");
+        }
+
+        /**
+         * Checks if the line contains the match of the regular expression.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return true if the line contains the match.
+         */
+        @Override
+        public boolean matches(byte[] buffer, int from, int to)
+        {
+                if (prefilter != null && prefilter.indexOf(buffer, from, to) < 0)
+                {
+                        return false;
+                }
+                return matcher.reset(decode(buffer, from, to)).find();
+        }
+
+        @Override
+        public LineMatcher copy()
+        {
+                return new RegexLineMatcher(pattern, prefilter);
+        }
+
+        /**
+         * Decodes the line bytes into the reusable char buffer.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return the char buffer with the decoded line.
+         */
+        private CharBuffer decode(byte[] buffer, int from, int to)
+        {
+                int length = to - from;
+                if (text.capacity() < length)
+                {
+                        text = CharBuffer.allocate(length);
+                }
+                char[] chars = text.array();
+                for (int i = 0; i < length; i++)
+                {
+                        byte value = buffer[from + i];
+                        if (value < 0)
+                        {
+                                return decodeUtf8(buffer, from, to);
+                        }
+                        chars[i] = (char) value;
+                }
+                text.clear();
+                text.limit(length);
+                return text;
+        }
+
+        /**
+         * Decodes the UTF-8 line bytes into the reusable char buffer (malformed bytes are replaced).
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return the char buffer with the decoded line.
+         */
+        private CharBuffer decodeUtf8(byte[] buffer, int from, int to)
+        {
+                if (bytes == null || bytes.array() != buffer)
+                {
+                        bytes = ByteBuffer.wrap(buffer);
+                }
+                bytes.limit(to);
+                bytes.position(from);
+                text.clear();
+                decoder.reset();
+                decoder.decode(bytes, text, true);
+                decoder.flush(text);
+                text.flip();
+                return text;
+        }
+
+        /**
+         * Creates the matcher of the longest literal required by the regular expression.
+         *
+         * @param regex the regular expression.
+         * @return the matcher of the literal or null if the regular expression does not require one (or the non-ASCII
+         * literal is matched case-insensitively, which the ASCII case folding of the prefilter does not cover).
+         */
+        @Nullable
+        private static LiteralLineMatcher createPrefilter(String regex)
+        {
+                if (COMMENTS_FLAGS.matcher(regex).find())
+                {
+                        return null;
+                }
+                String literal = findRequiredLiteral(regex);
+                boolean ignoreCase = CASE_INSENSITIVE_FLAGS.matcher(regex).find();
+                if (literal.isEmpty() || (ignoreCase && !literal.chars().allMatch(c -> c < 0x80)))
+                {
+                        return null;
+                }
+                return new LiteralLineMatcher(literal, ignoreCase);
+        }
+
+        /**
+         * Finds the longest run of literal characters that every match of the regular expression contains.
+         * <p> Only the top level of the expression is analysed: groups and character classes break the runs,
+         * the alternation on the top level means that there is no required literal, optional characters
+         * (followed by '?', '*' or '{0,n}') are excluded.
+         *
+         * @param regex the regular expression.
+         * @return the longest required literal (empty if there is no such literal).
+         */
+        static String findRequiredLiteral(String regex)
+        {
+                String longest = "";
+                StringBuilder current = new StringBuilder();
+                int i = 0;
+                while (i < regex.length())
+                {
+                        char c = regex.charAt(i);
+                        if (c == '|')
+                        {
+                                return "";
+                        }
+                        if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1)))
+                        {
+                                current.append(regex.charAt(i + 1));
+                                i += 2;
+                        } else if (c == '\\' && i + 1 < regex.length() && regex.charAt(i + 1) == 'Q')
+                        {
+                                int end = regex.indexOf("\\E", i + 2);
+                                current.append(regex, i + 2, (end < 0) ? regex.length() : end);
+                                i = (end < 0) ? regex.length() : end + 2;
+                        } else if (c == '?' || c == '*' || c == '+' || c == '{')
+                        {
+                                int end = (c == '{') ? regex.indexOf('}', i) : i;
+                                if (end < 0)
+                                {
+                                        return "";
+                                }
+                                if (c != '+' && (c != '{' || isZeroMinimum(regex.substring(i + 1, end))))
+                                {
+                                        removeLastCharacter(current);
+                                }
+                                longest = longer(longest, current);
+                                i = end + 1;
+                                if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+'))
+                                {
+                                        i++;
+                                }
+                        } else if (c == '\\' || c == '[' || c == '(' || c == '.' || c == '^' || c == '$')
+                        {
+                                longest = longer(longest, current);
+                                i = skipToken(regex, i);
+                        } else
+                        {
+                                current.append(c);
+                                i++;
+                        }
+                }
+                return longer(longest, current);
+        }
+
+        /**
+         * Skips the metacharacter token of the regular expression (escape sequence, character class or group).
+         *
+         * @param regex the regular expression.
+         * @param start index of the token.
+         * @return index after the token.
+         */
+        private static int skipToken(String regex, int start)
+        {
+                char c = regex.charAt(start);
+                if (c == '\\')
+                {
+                        int end = Math.min(start + 2, regex.length());
+                        if (end < regex.length() && (regex.charAt(end) == '{' || regex.charAt(end) == '<'))
+                        {
+                                int close = regex.indexOf(regex.charAt(end) == '{' ? '}' : '>', end);
+                                return (close < 0) ? regex.length() : close + 1;
+                        }
+                        while (end < regex.length() && Character.isLetterOrDigit(regex.charAt(end)) &&
+                                "xuc0123456789".indexOf(regex.charAt(start + 1)) >= 0 && end - start < 6)
+                        {
+                                end++;
+                        }
+                        return end;
+                }
+                if (c != '[' && c != '(')
+                {
+                        return start + 1;
+                }
+                int depth = 0;
+                boolean inClass = false;
+                for (int i = start; i < regex.length(); i++)
+                {
+                        char current = regex.charAt(i);
+                        if (current == '\\')
+                        {
+                                i++;
+                        } else if (current == '[')
+                        {
+                                inClass = true;
+                                depth += (c == '[') ? 1 : 0;
+                        } else if (current == ']' && inClass)
+                        {
+                                depth -= (c == '[') ? 1 : 0;
+                                inClass = (c == '[') && depth > 0;
+                        } else if (!inClass && current == '(')
+                        {
+                                depth++;
+                        } else if (!inClass && current == ')')
+                        {
+                                depth--;
+                        }
+                        if (depth == 0 && !inClass)
+                        {
+                                return i + 1;
+                        }
+                }
+                return regex.length();
+        }
+
+        /**
+         * Checks if the minimum of the '{n,m}' quantifier is zero.
+         *
+         * @param bounds the content of the quantifier braces.
+         * @return true if the quantified token is optional.
+         */
+        private static boolean isZeroMinimum(String bounds)
+        {
+                int comma = bounds.indexOf(',');
+                String minimum = ((comma < 0) ? bounds : bounds.substring(0, comma)).trim();
+                return minimum.isEmpty() || minimum.chars().allMatch(digit -> digit == '0');
+        }
+
+        /**
+         * Removes the last character (code point) of the literal run.
+         *
+         * @param run the literal run.
+         */
+        private static void removeLastCharacter(StringBuilder run)
+        {
+                if (run.length() > 0)
+                {
+                        run.setLength(run.length() - Character.charCount(run.codePointBefore(run.length())));
+                }
+        }
+
+        /**
+         * Returns the longer of the found literal and the current run and clears the current run.
+         *
+         * @param longest the longest literal found before.
+         * @param current the current run of literal characters.
+         * @return the longer literal.
+         */
+        private static String longer(String longest, StringBuilder current)
+        {
+                String result = (current.length() > longest.length()) ? current.toString() : longest;
+                current.setLength(0);
+                return result;
+        }
+
+}
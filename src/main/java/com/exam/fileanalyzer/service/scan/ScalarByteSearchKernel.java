@@ -0,0 +1,42 @@
+package com.exam.fileanalyzer.service.scan;
+
+/**
+ * Kernel searching the bytes one by one (the fallback of the vector kernel).
+ */
+public class ScalarByteSearchKernel implements ByteSearchKernel
+{
+
+        @Override
+        public int indexOf(byte[] buffer, int from, int to, byte value)
+        {
+                for (int i = from; i < to; i++)
+                {
+                        if (buffer[i] == value)
+                        {
+                                return i;
+                        }
+                }
+                return -1;
+        }
+
+        @Override
+        public int indexOfAny(byte[] buffer, int from, int to, byte first, byte second)
+        {
+                for (int i = from; i < to; i++)
+                {
+                        byte current = buffer[i];
+                        if (current == first || current == second)
+                        {
+                                return i;
+                        }
+                }
+                return -1;
+        }
+
+        @Override
+        public String toString()
+        {
+                return "scalar";
+        }
+
+}
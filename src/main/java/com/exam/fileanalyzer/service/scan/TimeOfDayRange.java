@@ -0,0 +1,287 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+
+/**
+ * Range of the time of day of the access log lines: from the start time inclusive to the end time exclusive.
+ * <p> The time is taken from the time field of the line as written ("27/Feb/2018:14:05:03 +0000" is 14:05:03)
+ * regardless of the zone offset. As the lines of the access log file are chronologically ordered, the byte range
+ * of the lines of the time range is found by the binary search over the line starts: each probe reads the time of
+ * the nearest line only, so the file is narrowed in O(log n) line reads before scanning. If the probed lines turn out
+ * to be out of order, the file is not narrowed.
+ */
+public class TimeOfDayRange
+{
+        /** Number of the seconds of the day (the end of the range without the end time). */
+        public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+        /** Maximum number of the line bytes copied to find the time field of the probed line. */
+        private static final int PROBE_LENGTH = 1024;
+        /** Start second of the day (inclusive). */
+        private final int startSecond;
+        /** End second of the day (exclusive). */
+        private final int endSecond;
+
+        /**
+         * Constructor with the start and end time.
+         *
+         * @param startTime start time (inclusive) or null for the start of the day.
+         * @param endTime end time (exclusive) or null for the end of the day.
+         * @throws IllegalArgumentException if the start time is not before the end time.
+         */
+        public TimeOfDayRange(LocalTime startTime, LocalTime endTime)
+        {
+                this.startSecond = (startTime == null) ? 0 : startTime.toSecondOfDay();
+                this.endSecond = (endTime == null) ? SECONDS_PER_DAY : endTime.toSecondOfDay();
+                if (startSecond >= endSecond)
+                {
+                        throw new IllegalArgumentException(String.format(
+                                "The start time of the range must be before the end time, got %s and %s.",
+                                startTime, endTime));
+                }
+        }
+
+        /**
+         * Checks if the second of the day is in the range.
+         *
+         * @param secondOfDay second of the day or -1 for the line without the time.
+         * @return true if the second is in the range.
+         */
+        public boolean contains(int secondOfDay)
+        {
+                return secondOfDay >= startSecond && secondOfDay < endSecond;
+        }
+
+        /**
+         * Finds the lines of the range in the chronologically ordered log file content.
+         *
+         * @param content read-only content of the log file (its position and limit are not changed).
+         * @return the slice of the content from the first line with the time in the range to the first line with
+         * the time after the range (the lines without the time inside the slice are left for the matcher) or
+         * the whole content if the lines are out of order.
+         */
+        public ByteBuffer narrow(@NonNull ByteBuffer content)
+        {
+                return select(content).slice();
+        }
+
+        /**
+         * Finds the lines of the range in the chronologically ordered log file content like
+         * {@link #narrow(ByteBuffer)}, but keeps the indexes of the content.
+         *
+         * @param content read-only content of the log file (its position and limit are not changed).
+         * @return the duplicate of the content with the position and the limit of the lines of the range or the whole
+         * content if the lines are out of order.
+         */
+        public ByteBuffer select(@NonNull ByteBuffer content)
+        {
+                byte[] probe = new byte[PROBE_LENGTH];
+                AccessLogLine line = new AccessLogLine();
+                int start = findFirstLineAtOrAfter(content, startSecond, probe, line);
+                int end = (endSecond == SECONDS_PER_DAY) ? content.limit() :
+                        findFirstLineAtOrAfter(content, endSecond, probe, line);
+                ByteBuffer selection = content.duplicate();
+                if (start < 0 || end < 0)
+                {
+                        return selection;
+                }
+                selection.limit(Math.max(start, end));
+                selection.position(start);
+                return selection;
+        }
+
+        /**
+         * Parses the second of the day of the access log time field value like "27/Feb/2018:14:05:03 +0000".
+         *
+         * @param buffer buffer with the time field bytes.
+         * @param from index of the first byte of the time field.
+         * @param to index after the last byte of the time field.
+         * @return the second of the day or -1 if there is no valid time.
+         */
+        public static int parseSecondOfDay(byte[] buffer, int from, int to)
+        {
+                int colon = from;
+                while (colon < to && buffer[colon] != ':')
+                {
+                        colon++;
+                }
+                if (to - colon < 9 || buffer[colon + 3] != ':' || buffer[colon + 6] != ':')
+                {
+                        return -1;
+                }
+                int hours = parseTwoDigits(buffer, colon + 1);
+                int minutes = parseTwoDigits(buffer, colon + 4);
+                int seconds = parseTwoDigits(buffer, colon + 7);
+                if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59)
+                {
+                        return -1;
+                }
+                return hours * 3600 + minutes * 60 + seconds;
+        }
+
+        /**
+         * Finds the start of the first line with the time at or after the second of the day by the binary search.
+         * <p> Each probe takes the first line starting at or after the middle of the searched bytes (the lines without
+         * the time are skipped). When the rest of the searched bytes is inside one line, the lines before it are
+         * checked one by one. Each probed line lies between the lines probed before it, so its time must lie between
+         * their times, otherwise the lines are out of order.
+         *
+         * @param content read-only content of the log file.
+         * @param secondOfDay second of the day to find.
+         * @param probe reusable buffer for the bytes of the probed line.
+         * @param line reusable view of the probed line.
+         * @return the start of the line, the end of the content if there is no such line or -1 if the probed lines are
+         * out of order.
+         */
+        private static int findFirstLineAtOrAfter(ByteBuffer content, int secondOfDay, byte[] probe,
+                                                  AccessLogLine line)
+        {
+                int low = 0;
+                int high = content.limit();
+                int lowSecond = 0;
+                int highSecond = SECONDS_PER_DAY;
+                while (low < high)
+                {
+                        int lineStart = nextLineStart(content, low + (high - low) / 2);
+                        int lineSecond = -1;
+                        while (lineStart < high)
+                        {
+                                lineSecond = readSecondOfDay(content, lineStart, probe, line);
+                                if (lineSecond >= 0)
+                                {
+                                        break;
+                                }
+                                lineStart = nextLineStart(content, lineStart + 1);
+                        }
+                        if (lineStart >= high)
+                        {
+                                return findFirstLineLinearly(content, low, high, secondOfDay, lowSecond, highSecond,
+                                        probe, line);
+                        }
+                        if (lineSecond < lowSecond || lineSecond > highSecond)
+                        {
+                                return -1;
+                        }
+                        if (lineSecond < secondOfDay)
+                        {
+                                low = nextLineStart(content, lineStart + 1);
+                                lowSecond = lineSecond;
+                        } else
+                        {
+                                high = lineStart;
+                                highSecond = lineSecond;
+                        }
+                }
+                return high;
+        }
+
+        /**
+         * Finds the start of the first line with the time at or after the second of the day checking the lines one by
+         * one (their times must not decrease and must lie between the times of the lines around them).
+         *
+         * @param content read-only content of the log file.
+         * @param from start of the first checked line.
+         * @param to end of the checked bytes.
+         * @param secondOfDay second of the day to find.
+         * @param lowSecond time of the line before the checked lines.
+         * @param highSecond time of the line after the checked lines.
+         * @param probe reusable buffer for the bytes of the probed line.
+         * @param line reusable view of the probed line.
+         * @return the start of the line, the end of the checked bytes if there is no such line or -1 if the lines are
+         * out of order.
+         */
+        private static int findFirstLineLinearly(ByteBuffer content, int from, int to, int secondOfDay, int lowSecond,
+                                                 int highSecond, byte[] probe, AccessLogLine line)
+        {
+                int previousSecond = lowSecond;
+                for (int lineStart = from; lineStart < to; lineStart = nextLineStart(content, lineStart + 1))
+                {
+                        int lineSecond = readSecondOfDay(content, lineStart, probe, line);
+                        if (lineSecond < 0)
+                        {
+                                continue;
+                        }
+                        if (lineSecond < previousSecond || lineSecond > highSecond)
+                        {
+                                return -1;
+                        }
+                        if (lineSecond >= secondOfDay)
+                        {
+                                return lineStart;
+                        }
+                        previousSecond = lineSecond;
+                }
+                return to;
+        }
+
+        /**
+         * Reads the second of the day of the line.
+         *
+         * @param content read-only content of the log file.
+         * @param lineStart start of the line.
+         * @param probe reusable buffer for the bytes of the line.
+         * @param line reusable view of the line.
+         * @return the second of the day or -1 if the line has no valid time.
+         */
+        private static int readSecondOfDay(ByteBuffer content, int lineStart, byte[] probe, AccessLogLine line)
+        {
+                int length = 0;
+                int limit = Math.min(content.limit() - lineStart, probe.length);
+                while (length < limit && content.get(lineStart + length) != '\n')
+                {
+                        probe[length] = content.get(lineStart + length);
+                        length++;
+                }
+                line.reset(probe, 0, length);
+                if (!line.locate(AccessLogField.TIME))
+                {
+                        return -1;
+                }
+                return parseSecondOfDay(probe, line.getStart(AccessLogField.TIME), line.getEnd(AccessLogField.TIME));
+        }
+
+        /**
+         * Finds the start of the first line starting at or after the position.
+         *
+         * @param content read-only content of the log file.
+         * @param position position in the content.
+         * @return the start of the line or the end of the content if there is no such line.
+         */
+        static int nextLineStart(ByteBuffer content, int position)
+        {
+                if (position == 0)
+                {
+                        return 0;
+                }
+                int limit = content.limit();
+                for (int i = position - 1; i < limit; i++)
+                {
+                        if (content.get(i) == '\n')
+                        {
+                                return i + 1;
+                        }
+                }
+                return limit;
+        }
+
+        /**
+         * Parses two decimal digits.
+         *
+         * @param buffer buffer with the digits.
+         * @param index index of the first digit.
+         * @return the number or -1 if the bytes are not digits.
+         */
+        private static int parseTwoDigits(byte[] buffer, int index)
+        {
+                int high = buffer[index] - '0';
+                int low = buffer[index + 1] - '0';
+                if (high < 0 || high > 9 || low < 0 || low > 9)
+                {
+                        return -1;
+                }
+                return high * 10 + low;
+        }
+
+}
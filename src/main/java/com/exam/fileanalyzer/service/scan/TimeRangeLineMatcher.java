@@ -0,0 +1,60 @@
+package com.exam.fileanalyzer.service.scan;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+
+/**
+ * Matcher of the access log lines with the time of day in the range matching the other matcher.
+ * <p> The time is checked for each line, so the lines out of the range are not matched even if the log file is
+ * scanned as a whole (the compressed log file) or its lines are not strictly ordered. The range is also exposed
+ * with {@link #getTimeRange()} to narrow the random-access log file content before scanning.
+ */
+public class TimeRangeLineMatcher implements LineMatcher
+{
+        /** Range of the time of day of the matching lines (immutable, shared by the copies of the matcher). */
+        @Getter
+        private final TimeOfDayRange timeRange;
+        /** Matcher of the lines in the range. */
+        private final LineMatcher matcher;
+        /** Reusable view of the current line. */
+        private final AccessLogLine line = new AccessLogLine();
+
+        /**
+         * Constructor with the time range and the matcher of the lines in the range.
+         *
+         * @param timeRange range of the time of day of the matching lines.
+         * @param matcher matcher of the lines in the range ({@link LineMatcher#ALL} if only the time is filtered).
+         */
+        public TimeRangeLineMatcher(@NonNull TimeOfDayRange timeRange, @NonNull LineMatcher matcher)
+        {
+                this.timeRange = timeRange;
+                this.matcher = matcher;
+        }
+
+        /**
+         * Checks if the time of the line is in the range and the line matches the other matcher.
+         *
+         * @param buffer buffer with the line bytes.
+         * @param from index of the first byte of the line.
+         * @param to index after the last byte of the line.
+         * @return true if the line matches.
+         */
+        @Override
+        public boolean matches(byte[] buffer, int from, int to)
+        {
+                line.reset(buffer, from, to);
+                if (!line.locate(AccessLogField.TIME) || !timeRange.contains(TimeOfDayRange.parseSecondOfDay(buffer,
+                        line.getStart(AccessLogField.TIME), line.getEnd(AccessLogField.TIME))))
+                {
+                        return false;
+                }
+                return matcher.matches(buffer, from, to);
+        }
+
+        @Override
+        public LineMatcher copy()
+        {
+                return new TimeRangeLineMatcher(timeRange, matcher.copy());
+        }
+
+}
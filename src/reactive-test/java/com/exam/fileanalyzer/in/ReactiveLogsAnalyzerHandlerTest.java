@@ -0,0 +1,142 @@
+package com.exam.fileanalyzer.in;
+
+import com.exam.fileanalyzer.service.LogsAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "temp.dir.path=src/test/resources/tmp", "spring.servlet.multipart.max-file-size=1KB",
+                "temp.disk.quota.bytes=768" })
+public class ReactiveLogsAnalyzerHandlerTest
+{
+        private static final String URI = "/api/reactive/analyze/logs?text=Mozilla&date=27.02.2018&days=3";
+        @MockBean
+        private LogsAnalyzer logsAnalyzer;
+        @LocalServerPort
+        private int port;
+        private WebTestClient webTestClient;
+
+        @BeforeEach
+        void createClient()
+        {
+                webTestClient = WebTestClient.bindToServer()
+                        .baseUrl("http://localhost:" + port)
+                        .build();
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetFile_thenReturnsResultOfStagedUpload() throws IOException
+        {
+                byte[] archive = new byte[512];
+                when(logsAnalyzer.countEntriesInZipFile(any())).thenAnswer(invocation ->
+                {
+                        CountEntriesParamHolder paramHolder = invocation.getArgument(0);
+                        assertThat(paramHolder.getZipMultipartFile().getBytes()).isEqualTo(archive);
+                        return Map.of("logs_2018-02-27-access.log", 2);
+                });
+                MultipartBodyBuilder body = new MultipartBodyBuilder();
+                body.part("file", createFilePart(archive));
+
+                webTestClient.post()
+                        .uri(URI)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(body.build()))
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody()
+                        .jsonPath("$['logs_2018-02-27-access.log']").isEqualTo(2);
+
+                ArgumentCaptor<CountEntriesParamHolder> paramHolder =
+                        ArgumentCaptor.forClass(CountEntriesParamHolder.class);
+                verify(logsAnalyzer).countEntriesInZipFile(paramHolder.capture());
+                assertThat(paramHolder.getValue().getSearchQuery()).isEqualTo("Mozilla");
+                assertThat(paramHolder.getValue().getStartDate()).isEqualTo(LocalDate.of(2018, 2, 27));
+                assertThat(paramHolder.getValue().getNumberOfDays()).isEqualTo(3);
+                assertThat(paramHolder.getValue().getZipMultipartFile().getOriginalFilename()).isEqualTo("logs.zip");
+        }
+
+        @Test
+        void countEntriesInZipFile_whenFileIsMissing_thenReturnsBadRequest()
+        {
+                MultipartBodyBuilder body = new MultipartBodyBuilder();
+                body.part("text", "Opera");
+
+                webTestClient.post()
+                        .uri(URI)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(body.build()))
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                        .expectBody()
+                        .jsonPath("$.errorType").isEqualTo("IllegalArgumentException")
+                        .jsonPath("$.errorMessage").isEqualTo("Required request part 'file' is not present");
+                verifyNoInteractions(logsAnalyzer);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenFileExceedsMaxFileSize_thenReturnsBadRequest()
+        {
+                MultipartBodyBuilder body = new MultipartBodyBuilder();
+                body.part("file", createFilePart(new byte[4096]));
+
+                webTestClient.post()
+                        .uri(URI)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(body.build()))
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                        .expectBody()
+                        .jsonPath("$.errorMessage").isEqualTo("The uploaded file exceeds its maximum permitted " +
+                                "size of 1024 bytes.");
+                verifyNoInteractions(logsAnalyzer);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenUploadExceedsDiskQuota_thenReturnsServiceUnavailable()
+        {
+                MultipartBodyBuilder body = new MultipartBodyBuilder();
+                body.part("file", createFilePart(new byte[1000]));
+
+                webTestClient.post()
+                        .uri(URI)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(body.build()))
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                        .expectBody()
+                        .jsonPath("$.errorType").isEqualTo("TempDiskQuotaExceededException");
+                verifyNoInteractions(logsAnalyzer);
+        }
+
+        private static ByteArrayResource createFilePart(byte[] content)
+        {
+                return new ByteArrayResource(content)
+                {
+                        @Override
+                        public String getFilename()
+                        {
+                                return "logs.zip";
+                        }
+                };
+        }
+
+}
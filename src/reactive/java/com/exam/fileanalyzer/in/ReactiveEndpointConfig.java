@@ -0,0 +1,85 @@
+package com.exam.fileanalyzer.in;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+/**
+ * Configuration of the reactive endpoint. The WebFlux router is served by the same servlet container as the blocking
+ * endpoints through the asynchronous servlet with the non-blocking I/O, so the container threads are released while
+ * the request bodies are being received (the staged archives are analysed by the blocking analyzer afterwards).
+ */
+@Configuration
+public class ReactiveEndpointConfig
+{
+        /** Path of the servlet of the reactive endpoint (the router paths are relative to it). */
+        public static final String REACTIVE_SERVLET_PATH = "/api/reactive";
+
+        /**
+         * Creates the bounded scheduler the workspaces are created on and the archives are analysed on.
+         *
+         * @param threads maximum number of the threads of the scheduler.
+         * @param queuedTasks maximum number of the tasks waiting for the thread (the requests above it are rejected).
+         * @return the scheduler.
+         */
+        @Bean(destroyMethod = "dispose")
+        public Scheduler analysisScheduler(@Value("${reactive.analysis.threads:4}") int threads,
+                                           @Value("${reactive.analysis.queued.tasks:10000}") int queuedTasks)
+        {
+                return Schedulers.newBoundedElastic(threads, queuedTasks, "reactive-analysis");
+        }
+
+        /**
+         * Registers the servlet of the reactive endpoint: POST /api/reactive/analyze/logs with the multipart body.
+         * The parts are streamed (not buffered by the reader), so the handler stages the content of the file part
+         * to disk as it arrives.
+         *
+         * @param handler handler of the log analysis requests.
+         * @param objectMapper mapper of the responses to JSON (the same as of the blocking endpoints).
+         * @return the servlet registration.
+         */
+        @Bean
+        public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveEndpointServlet(
+                ReactiveLogsAnalyzerHandler handler, ObjectMapper objectMapper)
+        {
+                RouterFunction<ServerResponse> router = RouterFunctions.route(
+                        POST("/analyze/logs").and(contentType(MediaType.MULTIPART_FORM_DATA)),
+                        handler::countEntriesInZipFile);
+                DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+                partReader.setStreaming(true);
+                HandlerStrategies strategies = HandlerStrategies.builder()
+                        .codecs(codecs ->
+                        {
+                                codecs.defaultCodecs().multipartReader(new MultipartHttpMessageReader(partReader));
+                                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                        })
+                        .build();
+                ServletHttpHandlerAdapter servlet = new ServletHttpHandlerAdapter(
+                        RouterFunctions.toHttpHandler(router, strategies));
+                ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                        new ServletRegistrationBean<>(servlet, REACTIVE_SERVLET_PATH + "/*");
+                registration.setName("reactiveEndpoint");
+                registration.setAsyncSupported(true);
+                registration.setLoadOnStartup(1);
+                return registration;
+        }
+
+}
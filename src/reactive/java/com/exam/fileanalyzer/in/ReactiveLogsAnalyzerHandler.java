@@ -0,0 +1,385 @@
+package com.exam.fileanalyzer.in;
+
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import com.exam.fileanalyzer.service.LogsAnalyzer;
+import com.exam.fileanalyzer.service.TempDiskQuotaExceededException;
+import com.exam.fileanalyzer.service.TempWorkspace;
+import com.exam.fileanalyzer.service.TempWorkspaceManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.exam.fileanalyzer.in.FileAnalyzerExceptionHandler.ExceptionDto;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.SearchMode;
+
+/**
+ * Handler of the log analysis requests of the reactive endpoint receiving the uploads without blocking. The multipart
+ * body is read as the stream of data buffers and the uploaded archive is staged to the request workspace with
+ * the asynchronous file channel within the global disk quota of the temp directory, so a slow upload holds neither
+ * the servlet container thread nor the event loop thread. The staged archive is analysed by the usual blocking
+ * analyzer on the bounded scheduler after the upload is complete and the result is emitted as JSON (the same as
+ * the result of the blocking endpoint).
+ */
+@Slf4j
+@Component
+public class ReactiveLogsAnalyzerHandler
+{
+        /** Format of the "date" parameter. */
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        /** Name of the file of the uploaded archive in the request workspace. */
+        private static final String UPLOAD_FILE_NAME = "upload.zip";
+        /** Service bean to proceed the log analysis. */
+        private final LogsAnalyzer logsAnalyzer;
+        /** Manager of the temporary workspaces the uploaded archives are written to. */
+        private final TempWorkspaceManager workspaceManager;
+        /** Bounded scheduler of the blocking and CPU-bound work (the workspaces and the analysis). */
+        private final Scheduler analysisScheduler;
+        /** Maximum size of the uploaded archive in bytes. */
+        private final long maxFileSize;
+
+        /**
+         * ReactiveLogsAnalyzerHandler's constructor with spring bean injection.
+         *
+         * @param logsAnalyzer service bean to proceed the log analysis.
+         * @param workspaceManager manager of the temporary workspaces the uploaded archives are written to.
+         * @param analysisScheduler bounded scheduler of the blocking and CPU-bound work.
+         * @param maxFileSize maximum size of the uploaded archive (the same as of the blocking endpoint).
+         */
+        @Autowired
+        public ReactiveLogsAnalyzerHandler(LogsAnalyzer logsAnalyzer, TempWorkspaceManager workspaceManager,
+                                           @Qualifier("analysisScheduler") Scheduler analysisScheduler,
+                                           @Value("${spring.servlet.multipart.max-file-size:10MB}")
+                                           DataSize maxFileSize)
+        {
+                this.logsAnalyzer = logsAnalyzer;
+                this.workspaceManager = workspaceManager;
+                this.analysisScheduler = analysisScheduler;
+                this.maxFileSize = maxFileSize.toBytes();
+        }
+
+        /**
+         * Handles the log analysis request: the "file" part with the zip file and the same parameters as of
+         * the blocking endpoint (text, mode, date, days, from, to, repeated filter and groupByDirectory) in the query
+         * string or in the form fields.
+         *
+         * @param request the request.
+         * @return the response with the map of the entry paths and the counts (or grouped by the directories).
+         */
+        public Mono<ServerResponse> countEntriesInZipFile(ServerRequest request)
+        {
+                return Mono.usingWhen(
+                        Mono.fromCallable(workspaceManager::createWorkspace).subscribeOn(analysisScheduler),
+                        workspace -> receiveUpload(request, workspace).flatMap(this::countEntries),
+                        workspace -> Mono.fromRunnable(() -> closeWorkspace(workspace)).subscribeOn(analysisScheduler))
+                        .flatMap(result -> ServerResponse.ok()
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(result))
+                        .onErrorResume(this::createErrorResponse);
+        }
+
+        /**
+         * Reads the parts of the multipart body in their order: the form fields are added to the request parameters
+         * and the content of the "file" part is written to the workspace. The content of other parts is discarded.
+         *
+         * @param request the request.
+         * @param workspace the workspace of the request.
+         * @return the request parameters with the uploaded archive.
+         */
+        private Mono<UploadedRequest> receiveUpload(ServerRequest request, TempWorkspace workspace)
+        {
+                MultiValueMap<String, String> requestParams = new LinkedMultiValueMap<>(request.queryParams());
+                List<StagedMultipartFile> uploads = new ArrayList<>(1);
+                return request.body(BodyExtractors.toParts())
+                        .concatMap(part ->
+                        {
+                                if (part instanceof FormFieldPart)
+                                {
+                                        requestParams.add(part.name(), ((FormFieldPart) part).value());
+                                        return Mono.<Void>empty();
+                                }
+                                if ("file".equals(part.name()) && uploads.isEmpty())
+                                {
+                                        return receiveFile(part, workspace).doOnNext(uploads::add).then();
+                                }
+                                return part.content().doOnNext(DataBufferUtils::release).then();
+                        })
+                        .then(Mono.fromCallable(() ->
+                        {
+                                if (uploads.isEmpty())
+                                {
+                                        throw new IllegalArgumentException("Required request part 'file' is not " +
+                                                "present");
+                                }
+                                return new UploadedRequest(createParamHolder(uploads.get(0), requestParams),
+                                        Boolean.parseBoolean(requestParams.getFirst("groupByDirectory")));
+                        }));
+        }
+
+        /**
+         * Writes the content of the file part to the workspace without blocking, limits its size and reserves
+         * the global disk quota of the temp directory for each data buffer before writing it (the same as
+         * {@link TempWorkspace#stage(String, InputStream)} of the blocking staging).
+         *
+         * @param part the file part.
+         * @param workspace the workspace of the request.
+         * @return the uploaded file.
+         */
+        private Mono<StagedMultipartFile> receiveFile(Part part, TempWorkspace workspace)
+        {
+                Path uploadPath = workspace.getDirectory().resolve(UPLOAD_FILE_NAME);
+                AtomicLong size = new AtomicLong();
+                Flux<DataBuffer> content = part.content().<DataBuffer>handle((buffer, sink) ->
+                {
+                        int bytes = buffer.readableByteCount();
+                        if (size.addAndGet(bytes) > maxFileSize)
+                        {
+                                DataBufferUtils.release(buffer);
+                                sink.error(new IllegalArgumentException(String.format("The uploaded file exceeds " +
+                                        "its maximum permitted size of %d bytes.", maxFileSize)));
+                                return;
+                        }
+                        try
+                        {
+                                workspace.reserveStagedBytes(bytes);
+                                sink.next(buffer);
+                        } catch (TempDiskQuotaExceededException exception)
+                        {
+                                DataBufferUtils.release(buffer);
+                                sink.error(exception);
+                        }
+                });
+                String fileName = part.headers().getContentDisposition().getFilename();
+                return DataBufferUtils.write(content, uploadPath)
+                        .then(Mono.fromSupplier(() -> new StagedMultipartFile(fileName, uploadPath, size.get())));
+        }
+
+        /**
+         * Counts the entries of the uploaded archive on the analysis scheduler.
+         *
+         * @param uploadedRequest the request parameters with the uploaded archive.
+         * @return map with the result of the log analysis.
+         */
+        private Mono<Map<String, ?>> countEntries(UploadedRequest uploadedRequest)
+        {
+                return Mono.<Map<String, ?>>fromCallable(() ->
+                {
+                        Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(uploadedRequest.paramHolder);
+                        log.info("Reactive http request processed successfully. Sending result map with {} entries",
+                                result.size());
+                        return uploadedRequest.groupByDirectory ?
+                                LogsAnalyzerController.groupByDirectory(result) : result;
+                }).subscribeOn(analysisScheduler);
+        }
+
+        /**
+         * Creates the object containing the request parameters for the log analysis.
+         *
+         * @param upload the uploaded archive.
+         * @param requestParams the query parameters and the form fields of the request.
+         * @return the object containing the request parameters.
+         * @throws IllegalArgumentException if the parameters have invalid format.
+         */
+        private CountEntriesParamHolder createParamHolder(MultipartFile upload,
+                                                          MultiValueMap<String, String> requestParams)
+        {
+                log.info("Received new reactive http request for the log files analysis with parameters: {}",
+                        requestParams);
+                try
+                {
+                        String startDate = requestParams.getFirst("date");
+                        String numberOfDays = requestParams.getFirst("days");
+                        String startTime = requestParams.getFirst("from");
+                        String endTime = requestParams.getFirst("to");
+                        return CountEntriesParamHolder.builder()
+                                .searchQuery(requestParams.getFirst("text"))
+                                .searchMode(SearchMode.of(Objects.requireNonNullElse(requestParams.getFirst("mode"),
+                                        "literal")))
+                                .fieldFilters(requestParams.getOrDefault("filter", List.of()))
+                                .zipMultipartFile(upload)
+                                .startDate(Objects.isNull(startDate) ? null : LocalDate.parse(startDate,
+                                        DATE_FORMATTER))
+                                .numberOfDays(Objects.isNull(numberOfDays) ? null : Integer.valueOf(numberOfDays))
+                                .startTime(Objects.isNull(startTime) ? null : LocalTime.parse(startTime))
+                                .endTime(Objects.isNull(endTime) ? null : LocalTime.parse(endTime))
+                                .build();
+                } catch (DateTimeParseException | NumberFormatException exception)
+                {
+                        throw new IllegalArgumentException("Invalid request parameter: " + exception.getMessage(),
+                                exception);
+                }
+        }
+
+        /**
+         * Closes the workspace of the request (the uploaded archive is deleted with it).
+         *
+         * @param workspace the workspace.
+         */
+        private void closeWorkspace(TempWorkspace workspace)
+        {
+                try
+                {
+                        workspace.close();
+                } catch (IOException exception)
+                {
+                        log.warn("Can't close the workspace of the reactive request ({}).", exception.getMessage());
+                }
+        }
+
+        /**
+         * Creates the error response with the same statuses and DTO as of the exception handler of the blocking
+         * endpoints (the analysis rejected by the full scheduler queue can be repeated later).
+         *
+         * @param exception the exception.
+         * @return the error response.
+         */
+        private Mono<ServerResponse> createErrorResponse(Throwable exception)
+        {
+                HttpStatus status;
+                if (exception instanceof IllegalArgumentException || exception instanceof DecodingException)
+                {
+                        status = HttpStatus.BAD_REQUEST;
+                } else if (exception instanceof InflationBudgetExceededException)
+                {
+                        status = HttpStatus.PAYLOAD_TOO_LARGE;
+                } else if (exception instanceof TempDiskQuotaExceededException ||
+                        exception instanceof RejectedExecutionException)
+                {
+                        status = HttpStatus.SERVICE_UNAVAILABLE;
+                } else
+                {
+                        status = HttpStatus.INTERNAL_SERVER_ERROR;
+                }
+                log.error("Exception occurred: {} ({})", exception.getClass().getSimpleName(), exception.getMessage());
+                return ServerResponse.status(status)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new ExceptionDto(exception.getClass().getSimpleName(), exception.getMessage(),
+                                LocalDateTime.now()));
+        }
+
+        /**
+         * Parameters of the log analysis with the uploaded archive.
+         */
+        private static class UploadedRequest
+        {
+                /** Parameters of the log analysis. */
+                private final CountEntriesParamHolder paramHolder;
+                /** If true, the result is grouped by the directories of the entries. */
+                private final boolean groupByDirectory;
+
+                /**
+                 * Constructor with the parameters of the log analysis.
+                 *
+                 * @param paramHolder parameters of the log analysis.
+                 * @param groupByDirectory if true, the result is grouped by the directories of the entries.
+                 */
+                UploadedRequest(CountEntriesParamHolder paramHolder, boolean groupByDirectory)
+                {
+                        this.paramHolder = paramHolder;
+                        this.groupByDirectory = groupByDirectory;
+                }
+        }
+
+        /**
+         * Uploaded archive written to the request workspace.
+         */
+        private static class StagedMultipartFile implements MultipartFile
+        {
+                /** Original name of the uploaded archive. */
+                private final String originalFilename;
+                /** Path to the file of the uploaded archive. */
+                private final Path path;
+                /** Size of the uploaded archive. */
+                private final long size;
+
+                /**
+                 * Constructor with the name, the path and the size of the uploaded archive.
+                 *
+                 * @param originalFilename original name of the uploaded archive.
+                 * @param path path to the file of the uploaded archive.
+                 * @param size size of the uploaded archive.
+                 */
+                StagedMultipartFile(String originalFilename, Path path, long size)
+                {
+                        this.originalFilename = originalFilename;
+                        this.path = path;
+                        this.size = size;
+                }
+
+                @Override
+                public String getName()
+                {
+                        return "file";
+                }
+
+                @Override
+                public String getOriginalFilename()
+                {
+                        return originalFilename;
+                }
+
+                @Override
+                public String getContentType()
+                {
+                        return "application/zip";
+                }
+
+                @Override
+                public boolean isEmpty()
+                {
+                        return size == 0;
+                }
+
+                @Override
+                public long getSize()
+                {
+                        return size;
+                }
+
+                @Override
+                public byte[] getBytes() throws IOException
+                {
+                        return Files.readAllBytes(path);
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException
+                {
+                        return Files.newInputStream(path);
+                }
+
+                @Override
+                public void transferTo(File destination) throws IOException
+                {
+                        Files.copy(path, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+        }
+
+}
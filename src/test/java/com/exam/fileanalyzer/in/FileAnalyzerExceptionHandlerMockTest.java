@@ -1,5 +1,6 @@
 package com.exam.fileanalyzer.in;
 
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
 import com.exam.fileanalyzer.service.LogsAnalyzer;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -43,6 +44,21 @@ public class FileAnalyzerExceptionHandlerMockTest
                         .countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class));
         }
 
+        @Test
+        void countEntriesInZipFile_whenServiceThrowInflationBudgetException_thenReturnExceptionDtoWith413Status()
+                throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class)))
+                        .thenThrow(new InflationBudgetExceededException("The archive inflates to more than 1 bytes."));
+
+                mockMvc.perform(multipart(URL_TEMPLATE)
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isPayloadTooLarge())
+                        .andExpect(jsonPath("$.errorType").value("InflationBudgetExceededException"))
+                        .andExpect(jsonPath("$.errorMessage").value("The archive inflates to more than 1 bytes."));
+        }
+
         @Test
         void countEntriesInZipFile_whenServiceThrowRuntimeException_thenReturnExceptionDtoWith500Status()
                 throws Exception
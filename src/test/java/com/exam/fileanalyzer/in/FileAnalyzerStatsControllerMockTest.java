@@ -0,0 +1,34 @@
+package com.exam.fileanalyzer.in;
+
+import com.exam.fileanalyzer.service.ZipFileManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = FileAnalyzerStatsController.class)
+public class FileAnalyzerStatsControllerMockTest
+{
+        @MockBean
+        private ZipFileManager zipFileManager;
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Test
+        void getStats_whenUploadsWereAborted_thenReturnsInflationBudgetExceededCounter() throws Exception
+        {
+                when(zipFileManager.getInflationBudgetExceededCount()).thenReturn(3L);
+
+                mockMvc.perform(get("/api/stats")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.inflationBudgetExceeded").value(3));
+        }
+
+}
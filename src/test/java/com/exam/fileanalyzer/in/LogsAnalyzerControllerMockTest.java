@@ -14,12 +14,17 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.io.*;
 import java.nio.file.*;
-import java.time.LocalDate;
+import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.mockito.Mockito.*;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.ApproximateCount;
 import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.KeySketchSummary;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.MatchedLine;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -71,6 +76,282 @@ public class LogsAnalyzerControllerMockTest
                 }
         }
 
+        @Test
+        void countEntriesInZipFile_whenGroupByDirectory_thenReturnMapOfDirectories() throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class)))
+                        .thenReturn(Map.of("march/logs_2018-03-01-access.log", 23, "logs_2018-03-01-access.log", 5));
+
+                mockMvc.perform(multipart("/api/analyze/logs?groupByDirectory=true")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$['march/']['logs_2018-03-01-access.log']").value(23))
+                        .andExpect(jsonPath("$['/']['logs_2018-03-01-access.log']").value(5));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetSearchMode_thenPassesItToServiceBean() throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class)))
+                        .thenReturn(Map.of("logs_2018-03-01-access.log", 16));
+
+                mockMvc.perform(multipart("/api/analyze/logs?text=chrome&mode=ICase")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$['logs_2018-03-01-access.log']").value(16));
+
+                verify(logAnalyzer, Mockito.times(1)).countEntriesInZipFile(argThat(paramHolder ->
+                        paramHolder.getSearchMode() == LogsAnalyzer.SearchMode.ICASE));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetFieldFilters_thenPassesThemWithoutSplittingByCommas() throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class)))
+                        .thenReturn(Map.of("logs_2018-03-01-access.log", 2));
+
+                mockMvc.perform(multipart("/api/analyze/logs")
+                                .file(TEST_FILE)
+                                .param("filter", "status>=500")
+                                .param("filter", "ua~(KHTML, like Gecko)")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                verify(logAnalyzer, Mockito.times(1)).countEntriesInZipFile(argThat(paramHolder ->
+                        paramHolder.getFieldFilters().equals(List.of("status>=500", "ua~(KHTML, like Gecko)"))));
+        }
+
+        @Test
+        void countEntriesInZipFiles_whenGetSeveralFilesAndTexts_thenReturnResultsByFileNameAndText() throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFiles(Mockito.anyList(), Mockito.anyList()))
+                        .thenReturn(List.of(
+                                List.of(Map.of("logs_2018-03-01-access.log", 23), Map.of()),
+                                List.of(Map.of("a/logs_2018-03-01-access.log", 5), Map.of("logs.log", 1))));
+
+                mockMvc.perform(multipart("/api/analyze/logs/batch?date=01.03.2018")
+                                .file(TEST_FILE)
+                                .file(TEST_FILE)
+                                .param("text", "Mozilla")
+                                .param("text", "curl, wget")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$['logs-27_02_2018-03_03_2018.zip'].Mozilla['logs_2018-03-01-access.log']")
+                                .value(23))
+                        .andExpect(jsonPath("$['logs-27_02_2018-03_03_2018.zip#2']['curl, wget']['logs.log']")
+                                .value(1));
+
+                verify(logAnalyzer, Mockito.times(1)).countEntriesInZipFiles(argThat(zipFiles -> zipFiles.size() == 2),
+                        argThat(queries -> queries.size() == 2 &&
+                                "curl, wget".equals(queries.get(1).getSearchQuery()) &&
+                                LocalDate.of(2018, 3, 1).equals(queries.get(1).getStartDate())));
+        }
+
+        @Test
+        void aggregateEntriesInZipFile_whenGetGroupByKeys_thenCallsServiceBeanAndReturnMapDto() throws Exception
+        {
+                when(logAnalyzer.aggregateEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class),
+                        Mockito.anyList(), Mockito.anyInt()))
+                        .thenReturn(Map.of("status", Map.of("200", 60L)));
+
+                mockMvc.perform(multipart("/api/analyze/logs/aggregate?groupBy=status,hour&limit=5&text=Mozilla")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.status['200']").value(60));
+
+                verify(logAnalyzer, Mockito.times(1)).aggregateEntriesInZipFile(
+                        argThat(paramHolder -> "Mozilla".equals(paramHolder.getSearchQuery())),
+                        eq(List.of("status", "hour")), eq(5));
+        }
+
+        @Test
+        void sketchEntriesInZipFile_whenGetSketchParameter_thenCallsSketchServiceMethodAndReturnErrorBounds()
+                throws Exception
+        {
+                when(logAnalyzer.sketchEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class),
+                        Mockito.anyList(), Mockito.anyInt()))
+                        .thenReturn(Map.of("ip", KeySketchSummary.builder()
+                                .lines(61)
+                                .distinctValues(12)
+                                .distinctValuesRelativeError(0.008125)
+                                .topValues(Map.of("10.0.0.1", 20L))
+                                .topValuesMaxOverestimate(1)
+                                .topValuesConfidence(0.993)
+                                .build()));
+
+                mockMvc.perform(multipart("/api/analyze/logs/aggregate?groupBy=ip&limit=1&sketch=true")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.ip.distinctValues").value(12))
+                        .andExpect(jsonPath("$.ip.topValues['10.0.0.1']").value(20))
+                        .andExpect(jsonPath("$.ip.topValuesMaxOverestimate").value(1));
+
+                verify(logAnalyzer, Mockito.times(1)).sketchEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class),
+                        eq(List.of("ip")), eq(1));
+                verify(logAnalyzer, Mockito.never()).aggregateEntriesInZipFile(
+                        Mockito.any(CountEntriesParamHolder.class), Mockito.anyList(), Mockito.anyInt());
+        }
+
+        @Test
+        void approximateEntriesInZipFile_whenGetApproximateParameter_thenCallsSamplingServiceMethod() throws Exception
+        {
+                when(logAnalyzer.approximateEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class),
+                        Mockito.anyDouble(), Mockito.any()))
+                        .thenReturn(Map.of("logs_2018-02-27-access.log", ApproximateCount.builder()
+                                .estimate(43200L)
+                                .lowerBound(43010)
+                                .upperBound(43390L)
+                                .confidence(0.95)
+                                .scannedBytes(491520)
+                                .totalBytes(6553600L)
+                                .build()));
+
+                mockMvc.perform(multipart("/api/analyze/logs?text=Mozilla&approximate=true&error=0.05&budget=200")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$['logs_2018-02-27-access.log'].estimate").value(43200))
+                        .andExpect(jsonPath("$['logs_2018-02-27-access.log'].lowerBound").value(43010))
+                        .andExpect(jsonPath("$['logs_2018-02-27-access.log'].exact").value(false));
+
+                verify(logAnalyzer, Mockito.times(1)).approximateEntriesInZipFile(
+                        argThat(paramHolder -> "Mozilla".equals(paramHolder.getSearchQuery())), eq(0.05), eq(200L));
+                verify(logAnalyzer, Mockito.never()).countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void streamMatchingLines_whenGetLinesParameter_thenStreamsNdjsonRecordsAndCounts() throws Exception
+        {
+                when(logAnalyzer.streamMatchingLines(Mockito.any(CountEntriesParamHolder.class), eq(2), eq(1), eq(0),
+                        Mockito.any())).thenAnswer(invocation ->
+                {
+                        Consumer<MatchedLine> listener = invocation.getArgument(4);
+                        listener.accept(MatchedLine.builder()
+                                .file("logs_2018-02-27-access.log")
+                                .offset(118)
+                                .line("b Mozilla")
+                                .before(List.of("a"))
+                                .after(List.of())
+                                .build());
+                        return Map.of("logs_2018-02-27-access.log", 40);
+                });
+
+                String content = mockMvc.perform(multipart("/api/analyze/logs?text=Mozilla&lines=2&before=1")
+                                .file(TEST_FILE))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(LogsAnalyzerController.NDJSON_VALUE))
+                        .andReturn().getResponse().getContentAsString();
+
+                assertThat(content.split("\n")).containsExactly(
+                        "{\"file\":\"logs_2018-02-27-access.log\",\"offset\":118,\"line\":\"b Mozilla\"," +
+                                "\"before\":[\"a\"],\"after\":[]}",
+                        "{\"counts\":{\"logs_2018-02-27-access.log\":40}}");
+                verify(logAnalyzer, Mockito.never()).countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class));
+        }
+
+        @Test
+        void streamMatchingLines_whenFailsAfterFirstRecord_thenEndsStreamWithErrorRecord() throws Exception
+        {
+                when(logAnalyzer.streamMatchingLines(Mockito.any(CountEntriesParamHolder.class), eq(2), eq(0), eq(0),
+                        Mockito.any())).thenAnswer(invocation ->
+                {
+                        Consumer<MatchedLine> listener = invocation.getArgument(4);
+                        listener.accept(MatchedLine.builder()
+                                .file("logs_2018-02-27-access.log")
+                                .offset(0)
+                                .line("a Mozilla")
+                                .before(List.of())
+                                .after(List.of())
+                                .build());
+                        throw new IllegalStateException("Cannot read log file 'logs_2018-02-28-access.log' during " +
+                                "analysing.");
+                });
+
+                String content = mockMvc.perform(multipart("/api/analyze/logs?text=Mozilla&lines=2")
+                                .file(TEST_FILE))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(LogsAnalyzerController.NDJSON_VALUE))
+                        .andReturn().getResponse().getContentAsString();
+
+                String[] records = content.split("\n");
+                assertThat(records).hasSize(2);
+                assertThat(records[0]).isEqualTo("{\"file\":\"logs_2018-02-27-access.log\",\"offset\":0," +
+                        "\"line\":\"a Mozilla\",\"before\":[],\"after\":[]}");
+                assertThat(records[1]).startsWith("{\"error\":{\"errorType\":\"IllegalStateException\"," +
+                        "\"errorMessage\":\"Cannot read log file 'logs_2018-02-28-access.log' during analysing.\"");
+        }
+
+        @Test
+        void streamMatchingLines_whenServiceRejectsParameters_thenReturn400() throws Exception
+        {
+                when(logAnalyzer.streamMatchingLines(Mockito.any(CountEntriesParamHolder.class), Mockito.anyInt(),
+                        Mockito.anyInt(), Mockito.anyInt(), Mockito.any()))
+                        .thenThrow(new IllegalArgumentException("The number of the matching lines must be positive."));
+
+                mockMvc.perform(multipart("/api/analyze/logs?text=Mozilla&lines=0")
+                                .file(TEST_FILE))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                        .andExpect(jsonPath("$.errorType").value("IllegalArgumentException"));
+        }
+
+        @Test
+        void aggregateEntriesInZipFile_whenGetNoGroupByKeys_thenDoNotCallsServiceBeanAndReturn400() throws Exception
+        {
+                mockMvc.perform(multipart("/api/analyze/logs/aggregate")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isBadRequest());
+
+                verifyNoInteractions(logAnalyzer);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetTimeRange_thenCallsServiceBeanWithStartAndEndTime() throws Exception
+        {
+                when(logAnalyzer.countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class)))
+                        .thenReturn(Map.of("logs_2018-03-01-access.log", 7));
+
+                mockMvc.perform(multipart("/api/analyze/logs?date=01.03.2018&from=14:00&to=15:30:30")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$['logs_2018-03-01-access.log']").value(7));
+
+                verify(logAnalyzer, Mockito.times(1)).countEntriesInZipFile(argThat(paramHolder ->
+                        LocalTime.of(14, 0).equals(paramHolder.getStartTime()) &&
+                                LocalTime.of(15, 30, 30).equals(paramHolder.getEndTime())));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetInvalidTime_thenDoNotCallsServiceBeanAndReturn400() throws Exception
+        {
+                mockMvc.perform(multipart("/api/analyze/logs?from=25:00")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isBadRequest());
+
+                verifyNoInteractions(logAnalyzer);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetUnknownSearchMode_thenDoNotCallsServiceBeanAndReturn400() throws Exception
+        {
+                mockMvc.perform(multipart("/api/analyze/logs?text=chrome&mode=glob")
+                                .file(TEST_FILE)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(jsonPath("$.errorType").value("IllegalArgumentException"));
+
+                verify(logAnalyzer, Mockito.never())
+                        .countEntriesInZipFile(Mockito.any(CountEntriesParamHolder.class));
+        }
+
         @ParameterizedTest
         @CsvSource(value = {
                 "Сарделька, 3",
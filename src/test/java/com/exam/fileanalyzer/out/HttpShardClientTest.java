@@ -0,0 +1,93 @@
+package com.exam.fileanalyzer.out;
+
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+public class HttpShardClientTest
+{
+        private static final String WORKER_URL = "http://worker-1";
+        private static final String ANALYZE_URL = WORKER_URL + "/api/analyze/logs";
+        private static final CountEntriesParamHolder PARAM_HOLDER = CountEntriesParamHolder.builder()
+                .searchQuery("Mozilla")
+                .startDate(LocalDate.of(2018, 2, 27))
+                .numberOfDays(3)
+                .zipMultipartFile(new MockMultipartFile("file", "shards.zip", null,
+                        "shard content".getBytes(StandardCharsets.US_ASCII)))
+                .build();
+        private MockRestServiceServer server;
+        private HttpShardClient shardClient;
+
+        @BeforeEach
+        void createClient()
+        {
+                MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+                shardClient = new HttpShardClient(new RestTemplateBuilder(customizer), 5, 300);
+                server = customizer.getServer();
+        }
+
+        @Test
+        void countEntries_whenWorkerAnswers_thenStreamsShardAndReturnsResult() throws IOException
+        {
+                server.expect(requestTo(ANALYZE_URL))
+                        .andExpect(method(HttpMethod.POST))
+                        .andExpect(content().string(containsString("shard content")))
+                        .andExpect(content().string(containsString("27.02.2018")))
+                        .andRespond(withSuccess("{\"logs_2018-02-27-access.log\": 2}", MediaType.APPLICATION_JSON));
+
+                assertThat(shardClient.countEntries(WORKER_URL, PARAM_HOLDER))
+                        .isEqualTo(Map.of("logs_2018-02-27-access.log", 2));
+                server.verify();
+        }
+
+        @Test
+        void countEntries_whenWorkerIsOverloaded_thenThrowsIOExceptionToRetryShard()
+        {
+                server.expect(requestTo(ANALYZE_URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+
+                IOException exception = assertThrows(IOException.class, () ->
+                        shardClient.countEntries(WORKER_URL, PARAM_HOLDER));
+                assertThat(exception).isNotInstanceOf(InflationBudgetExceededException.class);
+                assertThat(exception.getMessage()).contains("overloaded");
+        }
+
+        @Test
+        void countEntries_whenWorkerRejectsShardAsTooLarge_thenThrowsInflationBudgetExceededException()
+        {
+                server.expect(requestTo(ANALYZE_URL)).andRespond(withStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"errorMessage\": \"The archive inflates to more than 1 bytes.\"}"));
+
+                InflationBudgetExceededException exception = assertThrows(InflationBudgetExceededException.class,
+                        () -> shardClient.countEntries(WORKER_URL, PARAM_HOLDER));
+                assertThat(exception.getMessage()).contains("The archive inflates to more than 1 bytes.");
+        }
+
+        @Test
+        void countEntries_whenWorkerRejectsRequest_thenThrowsIllegalArgumentException()
+        {
+                server.expect(requestTo(ANALYZE_URL)).andRespond(withBadRequest());
+
+                assertThrows(IllegalArgumentException.class, () -> shardClient.countEntries(WORKER_URL, PARAM_HOLDER));
+        }
+
+}
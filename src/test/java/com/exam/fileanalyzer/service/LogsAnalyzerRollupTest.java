@@ -0,0 +1,176 @@
+package com.exam.fileanalyzer.service;
+
+import com.exam.fileanalyzer.service.impl.FileRollupStore;
+import com.exam.fileanalyzer.service.impl.MultiThreadLogsAnalyzerImpl;
+import com.exam.fileanalyzer.service.impl.TempWorkspaceManagerImpl;
+import com.exam.fileanalyzer.service.impl.ZipFileManagerImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.*;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.ZipFileManager.LogFileFilter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(classes = { MultiThreadLogsAnalyzerImpl.class, ZipFileManagerImpl.class,
+        TempWorkspaceManagerImpl.class, FileRollupStore.class },
+        properties = { "temp.dir.path=src/test/resources/tmp", "rollup.enabled=true",
+                "log.file.name.schemes=logs_{date}-access.log,access-{basicDate}-{hour}.log"
+        })
+public class LogsAnalyzerRollupTest
+{
+        @TempDir
+        static Path rollupDir;
+        private final LogsAnalyzer logsAnalyzer;
+        @SpyBean
+        private ZipFileManager zipFileManager;
+
+        @Autowired
+        public LogsAnalyzerRollupTest(LogsAnalyzer logsAnalyzer)
+        {
+                this.logsAnalyzer = logsAnalyzer;
+        }
+
+        @DynamicPropertySource
+        static void rollupProperties(DynamicPropertyRegistry registry)
+        {
+                registry.add("rollup.dir.path", () -> rollupDir.toString());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenRepeatRequest_thenAnswersWithRollupsWithoutExtraction() throws IOException
+        {
+                MultipartFile archive = createArchive("repeat", 60, 30, 20);
+                Map<String, Integer> first = logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+                Map<String, Integer> second = logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+
+                assertThat(first).containsExactly(Map.entry("logs_2018-02-27-access.log", 1440),
+                        Map.entry("logs_2018-02-28-access.log", 2880), Map.entry("logs_2018-03-01-access.log", 4320));
+                assertThat(second).isEqualTo(first);
+                verify(zipFileManager, times(1)).extractLogFilesForAnalysis(any(), any());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenSlideDateWindow_thenExtractsOnlyLogFilesWithoutRollups() throws IOException
+        {
+                MultipartFile archive = createArchive("sliding", 60, 30, 20);
+                logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 2));
+                Map<String, Integer> slided = logsAnalyzer.countEntriesInZipFile(createParams(archive, 28, 2));
+                Map<String, Integer> covered = logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+                ArgumentCaptor<LogFileFilter> filters = ArgumentCaptor.forClass(LogFileFilter.class);
+
+                assertThat(slided).containsExactly(Map.entry("logs_2018-02-28-access.log", 2880),
+                        Map.entry("logs_2018-03-01-access.log", 4320));
+                assertThat(covered).hasSize(3).containsEntry("logs_2018-02-27-access.log", 1440);
+                verify(zipFileManager, times(2)).extractLogFilesForAnalysis(any(), filters.capture());
+                LogFileFilter secondFilter = filters.getAllValues().get(1);
+                assertThat(secondFilter.accept("logs_2018-02-28-access.log", 2018022899L)).isFalse();
+                assertThat(secondFilter.accept("logs_2018-03-01-access.log", 2018030199L)).isTrue();
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetWholeHourTimeRange_thenSumsHourlyRollups() throws IOException
+        {
+                MultipartFile archive = createArchive("hours", 60, 30, 20);
+                logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+                CountEntriesParamHolder paramHolder = createParamsBuilder(archive, 27, 3)
+                        .startTime(LocalTime.of(10, 0))
+                        .endTime(LocalTime.of(14, 0))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsExactly(Map.entry("logs_2018-02-27-access.log", 240),
+                        Map.entry("logs_2018-02-28-access.log", 480), Map.entry("logs_2018-03-01-access.log", 720));
+                verify(zipFileManager, times(1)).extractLogFilesForAnalysis(any(), any());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetNotWholeHourTimeRange_thenScansLogFiles() throws IOException
+        {
+                MultipartFile archive = createArchive("minutes", 60, 30, 20);
+                logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+                CountEntriesParamHolder paramHolder = createParamsBuilder(archive, 27, 1)
+                        .startTime(LocalTime.of(10, 30))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsExactly(Map.entry("logs_2018-02-27-access.log", 810));
+                verify(zipFileManager, times(2)).extractLogFilesForAnalysis(any(), any());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenChangeQuery_thenScansLogFilesForNewQuery() throws IOException
+        {
+                MultipartFile archive = createArchive("query", 60, 30, 20);
+                logsAnalyzer.countEntriesInZipFile(createParams(archive, 27, 3));
+                CountEntriesParamHolder paramHolder = createParamsBuilder(archive, 27, 3)
+                        .searchQuery(" 200 0 ")
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsExactly(Map.entry("logs_2018-02-27-access.log", 1),
+                        Map.entry("logs_2018-02-28-access.log", 1), Map.entry("logs_2018-03-01-access.log", 1));
+                verify(zipFileManager, times(2)).extractLogFilesForAnalysis(any(), any());
+        }
+
+        private static CountEntriesParamHolder createParams(MultipartFile archive, int startDay, int numberOfDays)
+        {
+                return createParamsBuilder(archive, startDay, numberOfDays).build();
+        }
+
+        private static CountEntriesParamHolder.CountEntriesParamHolderBuilder createParamsBuilder(
+                MultipartFile archive, int startDay, int numberOfDays)
+        {
+                return CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(archive)
+                        .startDate(LocalDate.of(2018, 2, startDay))
+                        .numberOfDays(numberOfDays);
+        }
+
+        private static MultipartFile createArchive(String name, int... stepsSeconds) throws IOException
+        {
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.setComment(name);
+                        String[] dates = { "2018-02-27", "2018-02-28", "2018-03-01" };
+                        for (int i = 0; i < stepsSeconds.length; i++)
+                        {
+                                zip.putNextEntry(new ZipEntry("logs_" + dates[i] + "-access.log"));
+                                zip.write(createOrderedLog(LocalDate.parse(dates[i]), stepsSeconds[i]));
+                        }
+                }
+                return new MockMultipartFile("MockFile", name + ".zip", null, zipContent.toByteArray());
+        }
+
+        private static byte[] createOrderedLog(LocalDate date, int stepSeconds)
+        {
+                String day = date.format(DateTimeFormatter.ofPattern("dd/MMM/yyyy", Locale.ENGLISH));
+                StringBuilder content = new StringBuilder();
+                for (int second = 0; second < 24 * 60 * 60; second += stepSeconds)
+                {
+                        content.append(String.format("81.143.7.%d - - [%s:%02d:%02d:%02d +0000] \"GET /index.html " +
+                                "HTTP/1.1\" 200 %d \"Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/64.0.3282\"\n",
+                                second % 256, day, second / 3600, second / 60 % 60, second % 60, second));
+                }
+                return content.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+}
@@ -1,11 +1,14 @@
 package com.exam.fileanalyzer.service;
 
+import com.exam.fileanalyzer.service.impl.FileRollupStore;
 import com.exam.fileanalyzer.service.impl.MultiThreadLogsAnalyzerImpl;
 import com.exam.fileanalyzer.service.impl.SingleThreadLogsAnalyzerImpl;
+import com.exam.fileanalyzer.service.impl.TempWorkspaceManagerImpl;
 import com.exam.fileanalyzer.service.impl.ZipFileManagerImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.*;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
@@ -13,15 +16,25 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
 import java.util.*;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.*;
 
+import static com.exam.fileanalyzer.service.LogsAnalyzer.ApproximateCount;
 import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.KeySketchSummary;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.MatchedLine;
+import static com.exam.fileanalyzer.service.LogsAnalyzer.SearchMode;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest(classes = { MultiThreadLogsAnalyzerImpl.class, ZipFileManagerImpl.class },
-        properties = { "temp.dir.path=src/test/resources/tmp" })
+@SpringBootTest(classes = { MultiThreadLogsAnalyzerImpl.class, ZipFileManagerImpl.class,
+        TempWorkspaceManagerImpl.class, FileRollupStore.class },
+        properties = { "temp.dir.path=src/test/resources/tmp", "rollup.enabled=false",
+                "log.file.name.schemes=logs_{date}-access.log,logs_{date}-access.log.{n},access-{basicDate}-{hour}.log"
+        })
 public class LogsAnalyzerTest
 {
         private final static String FILES_DIRECTORY = "src/test/resources/";
@@ -36,9 +49,13 @@ public class LogsAnalyzerTest
         }
 
         @ParameterizedTest
-        @ValueSource(strings = { "logs-27_02_2018-03_03_2018.zip", "logs_in_directories.zip", "проблемный зип.zip" })
-        void countEntriesInZipFile_whenGetCorrectNonNullParamsWithCorrectTestFile_thenReturnCorrectMap(String fileName)
-                throws IOException
+        @CsvSource(value = {
+                "logs-27_02_2018-03_03_2018.zip, 3",
+                "logs_in_directories.zip, 3",
+                "проблемный зип.zip, 6"
+        })
+        void countEntriesInZipFile_whenGetCorrectNonNullParamsWithCorrectTestFile_thenReturnCorrectMap(
+                String fileName, int expectedSize) throws IOException
         {
                 CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
                         .searchQuery("Mozilla")
@@ -49,10 +66,84 @@ public class LogsAnalyzerTest
                 Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
 
                 assertThat(result).isNotNull();
-                assertThat(result).hasSize(3);
-                assertThat(result.get("logs_2018-02-27-access.log")).isEqualTo(40);
-                assertThat(result.get("logs_2018-02-28-access.log")).isEqualTo(18);
-                assertThat(result.get("logs_2018-03-01-access.log")).isEqualTo(23);
+                assertThat(result).hasSize(expectedSize);
+                result.forEach((entryPath, occurrences) ->
+                {
+                        if (entryPath.endsWith("logs_2018-02-27-access.log"))
+                        {
+                                assertThat(occurrences).isEqualTo(40);
+                        } else if (entryPath.endsWith("logs_2018-02-28-access.log"))
+                        {
+                                assertThat(occurrences).isEqualTo(18);
+                        } else
+                        {
+                                assertThat(entryPath).endsWith("logs_2018-03-01-access.log");
+                                assertThat(occurrences).isEqualTo(23);
+                        }
+                });
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetSameFileNamesInDifferentDirectories_thenReturnFullEntryPaths()
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(createMockFile("проблемный зип.zip"))
+                        .startDate(LocalDate.of(2018, 3, 1))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(
+                        Map.entry("march/logs_2018-03-01-access.log", 23),
+                        Map.entry("logs_2018-03-01-access.log", 23));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetTarGzWithCompressedAndNestedMembers_thenReturnCorrectMap()
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(createMockFile("logs_gz_nested.tar.gz"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(3)
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(
+                        Map.entry("logs_2018-02-27-access.log", 40),
+                        Map.entry("gz/logs_2018-02-28-access.log.gz", 18),
+                        Map.entry("nested/inner.zip!/logs_2018-03-01-access.log.gz", 23));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetSingleGzipLogFile_thenReturnCorrectMap() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(createMockFile("logs_2018-02-27-access.log.gz"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-02-27-access.log.gz", 40));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetZipFileWithNotUtf8EntryNames_thenReadsItOnce() throws IOException
+        {
+                MultipartFile zipFile = Mockito.spy(createMockFile("проблемный зип.zip"));
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(zipFile)
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).hasSize(4);
+                Mockito.verify(zipFile, Mockito.times(1)).getInputStream();
         }
 
         @Test
@@ -73,6 +164,451 @@ public class LogsAnalyzerTest
                 assertThat(result.get("logs_2018-03-03-access.log")).isEqualTo(30);
         }
 
+        @ParameterizedTest
+        @CsvSource(value = {
+                "MOZILLA, ICASE, 40, 18",
+                "Chrome/3\\d, REGEX, 23, 13",
+                "(?i)chrome/\\d+\\.0, REGEX, 23, 13"
+        })
+        void countEntriesInZipFile_whenGetIcaseOrRegexSearchMode_thenReturnCorrectMap(
+                String searchQuery, SearchMode searchMode, int expectedFirst, int expectedSecond) throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery(searchQuery)
+                        .searchMode(searchMode)
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-02-27-access.log", expectedFirst),
+                        Map.entry("logs_2018-02-28-access.log", expectedSecond));
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "null, size>100000;path~/images, 8, 4",
+                "null, ip=81.143.7.216;ua~Chrome, 23, 13",
+                "Mozilla, ip != 81.143.7.216, 17, 5",
+                "null, status>=500, 0, 0"
+        }, nullValues = "null")
+        void countEntriesInZipFile_whenGetFieldFilters_thenCountsLinesSatisfyingAllOfThem(
+                String searchQuery, String fieldFilters, int expectedFirst, int expectedSecond) throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery(searchQuery)
+                        .fieldFilters(List.of(fieldFilters.split(";")))
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-02-27-access.log", expectedFirst),
+                        Map.entry("logs_2018-02-28-access.log", expectedSecond));
+        }
+
+        @Test
+        void aggregateEntriesInZipFile_whenGetGroupByKeys_thenReturnTopValuesOfEachKey() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, Map<String, Long>> result =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, List.of("status", "hour", "url"), 3);
+
+                assertThat(result).containsOnlyKeys("status", "hour", "url");
+                assertThat(result.get("status")).containsExactly(Map.entry("200", 60L), Map.entry("-", 1L));
+                assertThat(result.get("hour")).containsExactly(Map.entry("10", 60L), Map.entry("-", 1L));
+                assertThat(result.get("url")).containsExactly(Map.entry("/favicon.ico", 6L),
+                        Map.entry("/images/jordan-80.png", 3L), Map.entry("/images/web/2009/banner.png", 3L),
+                        Map.entry("(other)", 49L));
+        }
+
+        @Test
+        void aggregateEntriesInZipFile_whenGetDuplicateEntries_thenCountsEachEntry() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(createMockFile("logs_in_directories.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(3)
+                        .build();
+                Map<String, Integer> counts = logsAnalyzer.countEntriesInZipFile(paramHolder);
+                Map<String, Map<String, Long>> result =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, List.of("statusClass"), 10);
+
+                long expected = counts.values().stream().mapToLong(Integer::longValue).sum();
+                assertThat(result.get("statusClass")).containsExactly(Map.entry("2xx", expected));
+        }
+
+        @Test
+        void aggregateEntriesInZipFile_whenGetEnoughFilesForMultiThreading_thenMergesPartialAggregates()
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(5)
+                        .build();
+                Map<String, Integer> counts = logsAnalyzer.countEntriesInZipFile(paramHolder);
+                Map<String, Map<String, Long>> result =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, List.of("date"), 10);
+
+                assertThat(counts).hasSize(5);
+                assertThat(result.get("date").values().stream().mapToLong(Long::longValue).sum())
+                        .isEqualTo(counts.values().stream().mapToLong(Integer::longValue).sum());
+                assertThat(result.get("date")).containsEntry("27/02/2018", 42L).containsEntry("03/03/2018", 30L);
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = { "status;agent, 10", "status, 0", "'', 10" })
+        void aggregateEntriesInZipFile_whenGetInvalidKeysOrLimit_thenThrowsIllegalArgumentException(
+                String groupByKeys, int limit) throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+                List<String> keys = groupByKeys.isEmpty() ? List.of() : List.of(groupByKeys.split(";"));
+
+                assertThrows(IllegalArgumentException.class,
+                        () -> logsAnalyzer.aggregateEntriesInZipFile(paramHolder, keys, limit));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
+        @Test
+        void sketchEntriesInZipFile_whenGetGroupByKeys_thenEstimatesMatchExactAggregation() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(5)
+                        .build();
+                Map<String, Map<String, Long>> exact =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, List.of("url"), Integer.MAX_VALUE);
+                Map<String, KeySketchSummary> result =
+                        logsAnalyzer.sketchEntriesInZipFile(paramHolder, List.of("status", "url"), 3);
+
+                KeySketchSummary status = result.get("status");
+                assertThat(result).containsOnlyKeys("status", "url");
+                assertThat(status.getLines()).isEqualTo(137);
+                assertThat(status.getDistinctValues()).isEqualTo(2);
+                assertThat(status.getTopValues()).containsExactly(Map.entry("200", 136L), Map.entry("-", 1L));
+                assertThat(status.getTopValuesMaxOverestimate()).isEqualTo(1);
+                assertThat(status.getTopValuesConfidence()).isGreaterThan(0.99);
+                KeySketchSummary url = result.get("url");
+                long distinctUrls = exact.get("url").size();
+                assertThat(url.getDistinctValues()).isBetween(distinctUrls - 1, distinctUrls + 1);
+                assertThat(url.getDistinctValuesRelativeError()).isLessThan(0.01);
+                assertThat(url.getTopValues()).hasSize(3).allSatisfy((value, count) -> assertThat(count)
+                        .isBetween(exact.get("url").get(value), exact.get("url").get(value) + 1));
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = { "status, 0", "status, 1001", "agent, 10" })
+        void sketchEntriesInZipFile_whenGetInvalidKeysOrLimit_thenThrowsIllegalArgumentException(
+                String groupByKey, int limit) throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class,
+                        () -> logsAnalyzer.sketchEntriesInZipFile(paramHolder, List.of(groupByKey), limit));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetTimeRange_thenCountsLinesOfRangeInSpilledInMemoryAndCompressedFiles()
+                throws IOException
+        {
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-27-access.log"));
+                        zip.write(createOrderedLog("27/02/2018", 10));
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-28-access.log"));
+                        zip.write(createOrderedLog("28/02/2018", 60));
+                        zip.putNextEntry(new ZipEntry("logs_2018-03-01-access.log.gz"));
+                        try (GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(zip)
+                        {
+                                @Override
+                                public void close()
+                                {
+                                }
+                        }))
+                        {
+                                gzip.write(createOrderedLog("01/03/2018", 10));
+                        }
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "ordered.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(3)
+                        .startTime(LocalTime.of(14, 0))
+                        .endTime(LocalTime.of(15, 30))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+                Map<String, Map<String, Long>> hours =
+                        logsAnalyzer.aggregateEntriesInZipFile(paramHolder, List.of("hour"), 10);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-02-27-access.log", 540),
+                        Map.entry("logs_2018-02-28-access.log", 90), Map.entry("logs_2018-03-01-access.log.gz", 540));
+                assertThat(hours.get("hour")).containsExactly(Map.entry("14", 780L), Map.entry("15", 390L));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetFileNameSchemes_thenTakesRotatedAndHourlyFilesOfDateAndTimeRange()
+                throws IOException
+        {
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        for (String fileName : List.of("logs_2018-03-01-access.log.1", "logs_2018-03-01-access.log.",
+                                "access-20180301-13.log", "access-20180301-14.log", "logs/access-20180301-15.log",
+                                "access-20180301-16.log", "access-20180302-14.log", "access-20180230-14.log",
+                                "access-20180301-24.log"))
+                        {
+                                zip.putNextEntry(new ZipEntry(fileName));
+                                zip.write(createOrderedLog("01/03/2018", 60));
+                        }
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "hourly.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 3, 1))
+                        .startTime(LocalTime.of(14, 0))
+                        .endTime(LocalTime.of(15, 30))
+                        .build();
+                Map<String, Integer> result = logsAnalyzer.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-03-01-access.log.1", 90),
+                        Map.entry("access-20180301-14.log", 90), Map.entry("logs/access-20180301-15.log", 90));
+        }
+
+        @Test
+        void approximateEntriesInZipFile_whenGetLargeAndSmallFiles_thenSamplesLargeAndCountsSmallExactly()
+                throws IOException
+        {
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-27-access.log"));
+                        zip.write(createOrderedLog("27/02/2018", 2));
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-28-access.log"));
+                        zip.write(createOrderedLog("28/02/2018", 600));
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "large.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, ApproximateCount> result = logsAnalyzer.approximateEntriesInZipFile(paramHolder, 0.02,
+                        null);
+
+                ApproximateCount large = result.get("logs_2018-02-27-access.log");
+                assertThat(large.isExact()).isFalse();
+                assertThat(large.getScannedBytes()).isLessThan(large.getTotalBytes());
+                assertThat(large.getEstimate()).isBetween(43200L * 98 / 100, 43200L * 102 / 100)
+                        .isBetween(large.getLowerBound(), large.getUpperBound());
+                assertThat(large.getUpperBound() - large.getLowerBound()).isLessThanOrEqualTo(2 * 43200 / 50);
+                ApproximateCount small = result.get("logs_2018-02-28-access.log");
+                assertThat(small.isExact()).isTrue();
+                assertThat(small.getEstimate()).isEqualTo(144L);
+                assertThat(small.getLowerBound()).isEqualTo(144);
+                assertThat(small.getUpperBound()).isEqualTo(144L);
+                assertThat(large.isTimedOut()).isFalse();
+                assertThat(small.isTimedOut()).isFalse();
+        }
+
+        @Test
+        void approximateEntriesInZipFile_whenGetCompressedFile_thenCountsExactlyOverInflatedBytes() throws IOException
+        {
+                byte[] log = createOrderedLog("27/02/2018", 10);
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-27-access.log.gz"));
+                        writeGzip(zip, log);
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "compressed.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(1)
+                        .build();
+                Map<String, ApproximateCount> result = logsAnalyzer.approximateEntriesInZipFile(paramHolder, 0.02,
+                        null);
+
+                ApproximateCount compressed = result.get("logs_2018-02-27-access.log.gz");
+                assertThat(compressed.isExact()).isTrue();
+                assertThat(compressed.isTimedOut()).isFalse();
+                assertThat(compressed.getEstimate()).isEqualTo(8640L);
+                assertThat(compressed.getScannedBytes()).isEqualTo(log.length);
+                assertThat(compressed.getTotalBytes()).isEqualTo(log.length);
+        }
+
+        @Test
+        void approximateEntriesInZipFile_whenTimeBudgetIsSpentBeforeFiles_thenSkipsThemAndMarksAsTimedOut()
+                throws IOException
+        {
+                byte[] log = createOrderedLog("27/02/2018", 2);
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-27-access.log"));
+                        zip.write(log);
+                        zip.putNextEntry(new ZipEntry("logs_2018-02-28-access.log.gz"));
+                        writeGzip(zip, createOrderedLog("28/02/2018", 2));
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "large.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(2)
+                        .build();
+                Map<String, ApproximateCount> result = logsAnalyzer.approximateEntriesInZipFile(paramHolder, 0.02,
+                        1L);
+
+                ApproximateCount plain = result.get("logs_2018-02-27-access.log");
+                assertThat(plain.isTimedOut()).isTrue();
+                assertThat(plain.getEstimate()).isNull();
+                assertThat(plain.getScannedBytes()).isZero();
+                assertThat(plain.getLowerBound()).isZero();
+                assertThat(plain.getUpperBound()).isEqualTo(plain.getTotalBytes()).isEqualTo(log.length);
+                ApproximateCount compressed = result.get("logs_2018-02-28-access.log.gz");
+                assertThat(compressed.isTimedOut()).isTrue();
+                assertThat(compressed.getEstimate()).isNull();
+                assertThat(compressed.getUpperBound()).isNull();
+                assertThat(compressed.getTotalBytes()).isNull();
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "0, null",
+                "1, null",
+                "0.02, 0"
+        }, nullValues = "null")
+        void approximateEntriesInZipFile_whenGetInvalidTargetErrorOrTimeBudget_thenThrowsIllegalArgumentException(
+                double targetError, Long timeBudgetMillis) throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class,
+                        () -> logsAnalyzer.approximateEntriesInZipFile(paramHolder, targetError, timeBudgetMillis));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
+        @Test
+        void countEntriesInZipFiles_whenGetSeveralZipFilesAndQueries_thenReturnResultsOfEachPair() throws IOException
+        {
+                List<String> fileNames = List.of("logs-27_02_2018-03_03_2018.zip", "проблемный зип.zip",
+                        "logs_gz_nested.tar.gz");
+                List<MultipartFile> zipFiles = new ArrayList<>();
+                for (String fileName : fileNames)
+                {
+                        zipFiles.add(createMockFile(fileName));
+                }
+                CountEntriesParamHolder query = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(3)
+                        .build();
+                List<CountEntriesParamHolder> queries = List.of(query,
+                        query.toBuilder().searchQuery("chrome").searchMode(SearchMode.ICASE).build(),
+                        query.toBuilder().searchQuery(null).build());
+
+                List<List<Map<String, Integer>>> result = logsAnalyzer.countEntriesInZipFiles(zipFiles, queries);
+
+                assertThat(result).hasSize(3);
+                for (int i = 0; i < zipFiles.size(); i++)
+                {
+                        assertThat(result.get(i)).hasSize(3);
+                        for (int j = 0; j < queries.size(); j++)
+                        {
+                                assertThat(result.get(i).get(j)).isEqualTo(logsAnalyzer.countEntriesInZipFile(
+                                        queries.get(j).toBuilder().zipMultipartFile(zipFiles.get(i)).build()));
+                        }
+                }
+                assertThat(result.get(0).get(0)).containsOnly(Map.entry("logs_2018-02-27-access.log", 40),
+                        Map.entry("logs_2018-02-28-access.log", 18), Map.entry("logs_2018-03-01-access.log", 23));
+        }
+
+        @Test
+        void countEntriesInZipFiles_whenGetQueriesWithDifferentDatesOrInvalidQuery_thenThrowsBeforeExtraction()
+                throws IOException
+        {
+                List<MultipartFile> zipFiles = List.of(createMockFile("logs-27_02_2018-03_03_2018.zip"));
+                CountEntriesParamHolder query = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class, () -> logsAnalyzer.countEntriesInZipFiles(zipFiles,
+                        List.of(query, query.toBuilder().numberOfDays(2).build())));
+                assertThrows(PatternSyntaxException.class, () -> logsAnalyzer.countEntriesInZipFiles(zipFiles,
+                        List.of(query, query.toBuilder().searchQuery("(").searchMode(SearchMode.REGEX).build())));
+                assertThrows(IllegalArgumentException.class, () -> logsAnalyzer.countEntriesInZipFiles(List.of(),
+                        List.of(query)));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
+        @Test
+        void countEntriesInZipFiles_whenOneZipFileIsNotArchive_thenThrowsIllegalArgumentException()
+                throws IOException
+        {
+                List<MultipartFile> zipFiles = List.of(createMockFile("logs-27_02_2018-03_03_2018.zip"),
+                        createMockFile("SuYo.jpg"));
+                CountEntriesParamHolder query = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class, () -> logsAnalyzer.countEntriesInZipFiles(zipFiles,
+                        List.of(query)));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetStartTimeAfterEndTime_thenThrowsBeforeExtraction() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .startTime(LocalTime.of(15, 30))
+                        .endTime(LocalTime.of(14, 0))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class, () -> logsAnalyzer.countEntriesInZipFile(paramHolder));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
+        @Test
+        void countEntriesInZipFile_whenGetInvalidRegex_thenThrowsBeforeExtraction() throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Chrome/(3")
+                        .searchMode(SearchMode.REGEX)
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .build();
+
+                assertThrows(PatternSyntaxException.class, () -> logsAnalyzer.countEntriesInZipFile(paramHolder));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
         @Test
         void countEntriesInZipFile_whenGetNullStartDateWith2018TestFile_thenReturnEmptyMap() throws IOException
         {
@@ -116,7 +652,8 @@ public class LogsAnalyzerTest
 
                 IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
                         () -> logsAnalyzer.countEntriesInZipFile(paramHolder));
-                assertThat(exception.getMessage()).isEqualTo("There is no file to open or it is not a zip file.");
+                assertThat(exception.getMessage()).isEqualTo("There is no file to open or it is not a supported " +
+                        "archive (zip, tar, tar.gz, tgz, gz).");
         }
 
         @ParameterizedTest
@@ -136,15 +673,99 @@ public class LogsAnalyzerTest
                 assertThat(result).isEmpty();
         }
 
+        @Test
+        void streamMatchingLines_whenGetTimeRangeAndDuplicateFiles_thenStreamsLinesWithOffsetsInFiles()
+                throws IOException
+        {
+                byte[] log = createOrderedLog("27/02/2018", 10);
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        for (String fileName : List.of("logs_2018-02-27-access.log", "copy/logs_2018-02-27-access.log"))
+                        {
+                                zip.putNextEntry(new ZipEntry(fileName));
+                                zip.write(log);
+                        }
+                }
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Chrome")
+                        .zipMultipartFile(new MockMultipartFile("MockFile", "lines.zip", null,
+                                zipContent.toByteArray()))
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .startTime(LocalTime.of(14, 0))
+                        .endTime(LocalTime.of(14, 1))
+                        .build();
+                List<MatchedLine> lines = new ArrayList<>();
+                Map<String, Integer> result = logsAnalyzer.streamMatchingLines(paramHolder, 3, 1, 1, lines::add);
+                String text = new String(log, StandardCharsets.US_ASCII);
+
+                assertThat(result).containsOnly(Map.entry("logs_2018-02-27-access.log", 6),
+                        Map.entry("copy/logs_2018-02-27-access.log", 6));
+                assertThat(lines).hasSize(6);
+                assertThat(lines).extracting(MatchedLine::getFile).containsOnly("logs_2018-02-27-access.log",
+                        "copy/logs_2018-02-27-access.log");
+                for (MatchedLine line : lines)
+                {
+                        assertThat(text.startsWith(line.getLine() + "\n", (int) line.getOffset())).isTrue();
+                        assertThat(line.getAfter()).hasSize(1);
+                }
+                assertThat(lines.get(0).getLine()).contains("14:00:00");
+                assertThat(lines.get(0).getBefore()).isEmpty();
+                assertThat(lines.get(1).getLine()).isEqualTo(lines.get(0).getLine());
+                assertThat(lines.get(2).getBefore()).containsExactly(lines.get(0).getLine());
+        }
+
+        @Test
+        void streamMatchingLines_whenGetWrongNumberOfLines_thenThrowsIllegalArgumentExceptionBeforeExtraction()
+                throws IOException
+        {
+                CountEntriesParamHolder paramHolder = CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(createMockFile("logs-27_02_2018-03_03_2018.zip"))
+                        .build();
+
+                assertThrows(IllegalArgumentException.class, () ->
+                        logsAnalyzer.streamMatchingLines(paramHolder, 0, 0, 0, line -> { }));
+                assertThrows(IllegalArgumentException.class, () ->
+                        logsAnalyzer.streamMatchingLines(paramHolder, 5, 0, 100, line -> { }));
+                Mockito.verify(zipFileManager, Mockito.never()).extractLogFilesForAnalysis(Mockito.any());
+        }
+
         @Test
         void singleThreadLogsAnalyzerImplTests() throws IOException {
                 logsAnalyzer = new SingleThreadLogsAnalyzerImpl(zipFileManager);
                 countEntriesInZipFile_whenGetCorrectNonNullParamsWithCorrectTestFile_thenReturnCorrectMap(
-                        "проблемный зип.zip");
+                        "проблемный зип.zip", 6);
                 countEntriesInZipFile_whenGetNullOrNotZipFileWith2018TestFile_thenThrowsIllegalArgumentException(
                         "SuYo.jpg");
         }
 
+        private static void writeGzip(ZipOutputStream zip, byte[] content) throws IOException
+        {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(zip)
+                {
+                        @Override
+                        public void close()
+                        {
+                        }
+                }))
+                {
+                        gzip.write(content);
+                }
+        }
+
+        private static byte[] createOrderedLog(String date, int stepSeconds)
+        {
+                StringBuilder content = new StringBuilder();
+                for (int second = 0; second < 24 * 60 * 60; second += stepSeconds)
+                {
+                        content.append(String.format("81.143.7.%d - - [%s:%02d:%02d:%02d +0000] \"GET /index.html " +
+                                "HTTP/1.1\" 200 %d \"Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/64.0.3282\"\n",
+                                second % 256, date, second / 3600, second / 60 % 60, second % 60, second));
+                }
+                return content.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
         private MultipartFile createMockFile(String fileName) throws IOException
         {
                 return new MockMultipartFile("MockFile", fileName, null,
@@ -0,0 +1,271 @@
+package com.exam.fileanalyzer.service;
+
+import com.exam.fileanalyzer.service.impl.FileRollupStore;
+import com.exam.fileanalyzer.service.impl.MultiThreadLogsAnalyzerImpl;
+import com.exam.fileanalyzer.service.impl.ShardingLogsAnalyzerImpl;
+import com.exam.fileanalyzer.service.impl.TempWorkspaceManagerImpl;
+import com.exam.fileanalyzer.service.impl.ZipFileManagerImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.*;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = { MultiThreadLogsAnalyzerImpl.class, ZipFileManagerImpl.class,
+        TempWorkspaceManagerImpl.class, FileRollupStore.class },
+        properties = { "temp.dir.path=src/test/resources/tmp", "rollup.enabled=false" })
+public class ShardingLogsAnalyzerTest
+{
+        private static final List<String> WORKERS = List.of("http://worker-1", "http://worker-2");
+        private final LogsAnalyzer localAnalyzer;
+        private final ZipFileManager zipFileManager;
+        private final TempWorkspaceManager workspaceManager;
+
+        @Autowired
+        public ShardingLogsAnalyzerTest(LogsAnalyzer localAnalyzer, ZipFileManager zipFileManager,
+                                        TempWorkspaceManager workspaceManager)
+        {
+                this.localAnalyzer = localAnalyzer;
+                this.zipFileManager = zipFileManager;
+                this.workspaceManager = workspaceManager;
+        }
+
+        @Test
+        void countEntriesInZipFile_whenWorkersAnswer_thenMergesShardResultsLikeLocalAnalysis() throws IOException
+        {
+                FakeShardClient shardClient = new FakeShardClient(Set.of());
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 2, 3);
+                CountEntriesParamHolder paramHolder = createParams(createArchive(true), 27, 5);
+
+                Map<String, Integer> result = coordinator.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).isEqualTo(localAnalyzer.countEntriesInZipFile(paramHolder)).hasSize(5);
+                assertThat(shardClient.shardEntries).hasSizeBetween(2, 4);
+                assertThat(shardClient.shardEntries.values().stream().mapToInt(List::size).sum()).isEqualTo(5);
+                assertThat(shardClient.shardEntries.values()).allSatisfy(entries ->
+                        assertThat(entries).doesNotContain("readme.txt", "logs_2018-03-10-access.log"));
+                assertThat(shardClient.attempts).containsOnly(WORKERS.toArray(new String[0]));
+        }
+
+        @Test
+        void countEntriesInZipFile_whenWorkerFails_thenRetriesShardsOnOtherWorker() throws IOException
+        {
+                FakeShardClient shardClient = new FakeShardClient(Set.of("http://worker-1"));
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 2, 3);
+                CountEntriesParamHolder paramHolder = createParams(createArchive(true), 27, 5);
+
+                Map<String, Integer> result = coordinator.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).isEqualTo(localAnalyzer.countEntriesInZipFile(paramHolder));
+                int numberOfShards = shardClient.shardEntries.size();
+                assertThat(shardClient.attempts.stream().filter("http://worker-1"::equals).count())
+                        .isEqualTo((numberOfShards + 1) / 2);
+                assertThat(shardClient.attempts.stream().filter("http://worker-2"::equals).count())
+                        .isEqualTo(numberOfShards);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenAllAttemptsFail_thenAnalysesShardsLocally() throws IOException
+        {
+                FakeShardClient shardClient = new FakeShardClient(new HashSet<>(WORKERS));
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 1, 3);
+                CountEntriesParamHolder paramHolder = createParams(createArchive(true), 28, 2);
+
+                Map<String, Integer> result = coordinator.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).isEqualTo(localAnalyzer.countEntriesInZipFile(paramHolder)).hasSize(2);
+                assertThat(shardClient.attempts).hasSize(6);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenWorkerRejectsRequest_thenThrowsIllegalArgumentExceptionWithoutRetries()
+                throws IOException
+        {
+                ShardClient shardClient = (workerUrl, shardParamHolder) ->
+                {
+                        throw new IllegalArgumentException("The worker rejected the request.");
+                };
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 2, 3);
+                CountEntriesParamHolder paramHolder = createParams(createArchive(true), 27, 5);
+
+                IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                        coordinator.countEntriesInZipFile(paramHolder));
+                assertThat(exception.getMessage()).isEqualTo("The worker rejected the request.");
+        }
+
+        @Test
+        void countEntriesInZipFile_whenWorkerRejectsShardAsTooLarge_thenThrowsWithoutRetriesOrLocalAnalysis()
+                throws IOException
+        {
+                List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+                ShardClient shardClient = (workerUrl, shardParamHolder) ->
+                {
+                        attempts.add(workerUrl);
+                        throw new InflationBudgetExceededException("The archive inflates to more than 1 bytes.");
+                };
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 1, 3);
+                CountEntriesParamHolder paramHolder = createParams(createArchive(true), 27, 5);
+
+                assertThrows(InflationBudgetExceededException.class, () ->
+                        coordinator.countEntriesInZipFile(paramHolder));
+                assertThat(attempts).hasSizeLessThanOrEqualTo(WORKERS.size()).doesNotHaveDuplicates();
+        }
+
+        @Test
+        void countEntriesInZipFile_whenOneEntrySelected_thenAnalysesStagedUploadLocally() throws IOException
+        {
+                FakeShardClient shardClient = new FakeShardClient(Set.of());
+                LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                        workspaceManager, shardClient, WORKERS, 2, 3);
+                MultipartFile archive = createArchive(false);
+                AtomicInteger uploadReads = new AtomicInteger();
+                MultipartFile countedArchive = new MockMultipartFile(archive.getName(), archive.getOriginalFilename(),
+                        null, archive.getBytes())
+                {
+                        @Override
+                        public InputStream getInputStream() throws IOException
+                        {
+                                uploadReads.incrementAndGet();
+                                return super.getInputStream();
+                        }
+                };
+                CountEntriesParamHolder paramHolder = createParams(countedArchive, 10, 1);
+
+                Map<String, Integer> result = coordinator.countEntriesInZipFile(paramHolder);
+
+                assertThat(result).containsOnlyKeys("logs_2018-03-10-access.log");
+                assertThat(shardClient.attempts).isEmpty();
+                assertThat(uploadReads).hasValue(1);
+        }
+
+        @Test
+        void countEntriesInZipFile_whenStagingExceedsDiskQuota_thenThrowsTempDiskQuotaExceededException(
+                @TempDir Path tempDir) throws IOException
+        {
+                TempWorkspaceManagerImpl smallQuotaManager = new TempWorkspaceManagerImpl(
+                        tempDir.resolve("logs").toString(), 100, 10, 1, 60, 3600);
+                smallQuotaManager.init();
+                try
+                {
+                        FakeShardClient shardClient = new FakeShardClient(Set.of());
+                        LogsAnalyzer coordinator = new ShardingLogsAnalyzerImpl(localAnalyzer, zipFileManager,
+                                smallQuotaManager, shardClient, WORKERS, 2, 3);
+                        CountEntriesParamHolder paramHolder = createParams(createArchive(true), 27, 5);
+
+                        assertThrows(TempDiskQuotaExceededException.class, () ->
+                                coordinator.countEntriesInZipFile(paramHolder));
+                        assertThat(shardClient.attempts).isEmpty();
+                        assertThat(smallQuotaManager.getUsedDiskBytes()).isZero();
+                } finally
+                {
+                        smallQuotaManager.shutdown();
+                }
+        }
+
+        private static CountEntriesParamHolder createParams(MultipartFile archive, int startDay, int numberOfDays)
+        {
+                LocalDate startDate = LocalDate.of(2018, (startDay > 20) ? 2 : 3, startDay);
+                return CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .zipMultipartFile(archive)
+                        .startDate(startDate)
+                        .numberOfDays(numberOfDays)
+                        .build();
+        }
+
+        private static MultipartFile createArchive(boolean withNestedArchive) throws IOException
+        {
+                ByteArrayOutputStream zipContent = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(zipContent))
+                {
+                        zip.putNextEntry(new ZipEntry("readme.txt"));
+                        zip.write("Mozilla".getBytes(StandardCharsets.US_ASCII));
+                        String[] dates = { "2018-02-27", "2018-02-28", "2018-03-01", "2018-03-02", "2018-03-10" };
+                        for (int i = 0; i < dates.length; i++)
+                        {
+                                zip.putNextEntry(new ZipEntry("logs_" + dates[i] + "-access.log"));
+                                zip.write(createLog(100 * (i + 1)));
+                        }
+                        if (withNestedArchive)
+                        {
+                                zip.putNextEntry(new ZipEntry("nested.zip"));
+                                ByteArrayOutputStream nestedContent = new ByteArrayOutputStream();
+                                try (ZipOutputStream nestedZip = new ZipOutputStream(nestedContent))
+                                {
+                                        nestedZip.putNextEntry(new ZipEntry("logs_2018-03-03-access.log"));
+                                        nestedZip.write(createLog(50));
+                                }
+                                zip.write(nestedContent.toByteArray());
+                        }
+                }
+                return new MockMultipartFile("MockFile", "shards.zip", null, zipContent.toByteArray());
+        }
+
+        private static byte[] createLog(int numberOfLines)
+        {
+                StringBuilder content = new StringBuilder();
+                for (int i = 0; i < numberOfLines; i++)
+                {
+                        content.append(String.format("81.143.7.%d - - [27/Feb/2018:00:00:%02d +0000] \"GET / " +
+                                "HTTP/1.1\" 200 %d \"%s\"\n", i % 256, i % 60, i, (i % 3 == 0) ? "curl" : "Mozilla"));
+                }
+                return content.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Shard client analysing the shards by the local analyzer and failing the attempts of the failing workers.
+         */
+        private class FakeShardClient implements ShardClient
+        {
+                private final Set<String> failingWorkers;
+                private final List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+                private final Map<String, List<String>> shardEntries = Collections.synchronizedMap(new HashMap<>());
+
+                private FakeShardClient(Set<String> failingWorkers)
+                {
+                        this.failingWorkers = failingWorkers;
+                }
+
+                @Override
+                public Map<String, Integer> countEntries(String workerUrl, CountEntriesParamHolder shardParamHolder)
+                        throws IOException
+                {
+                        attempts.add(workerUrl);
+                        if (failingWorkers.contains(workerUrl))
+                        {
+                                throw new IOException("The worker is not available.");
+                        }
+                        List<String> entries = new ArrayList<>();
+                        try (ZipInputStream zip = new ZipInputStream(shardParamHolder.getZipMultipartFile()
+                                .getInputStream()))
+                        {
+                                ZipEntry entry;
+                                while ((entry = zip.getNextEntry()) != null)
+                                {
+                                        entries.add(entry.getName());
+                                }
+                        }
+                        shardEntries.put(String.join(",", entries), entries);
+                        return localAnalyzer.countEntriesInZipFile(shardParamHolder);
+                }
+        }
+
+}
@@ -0,0 +1,153 @@
+package com.exam.fileanalyzer.service;
+
+import com.exam.fileanalyzer.service.impl.TempWorkspaceManagerImpl;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TempWorkspaceManagerTest
+{
+        @TempDir
+        Path tempDir;
+        private TempWorkspaceManagerImpl workspaceManager;
+
+        @BeforeEach
+        void setUp() throws IOException
+        {
+                workspaceManager = new TempWorkspaceManagerImpl(tempDir.resolve("logs").toString(),
+                        100, 10, 1, 60, 3600);
+                workspaceManager.init();
+        }
+
+        @AfterEach
+        void tearDown()
+        {
+                workspaceManager.shutdown();
+        }
+
+        @Test
+        void createWorkspace_whenCalledTwice_thenCreatesDifferentDirectories() throws IOException
+        {
+                try (TempWorkspace first = workspaceManager.createWorkspace();
+                     TempWorkspace second = workspaceManager.createWorkspace())
+                {
+                        assertThat(first.getDirectory()).isNotEqualTo(second.getDirectory());
+                        assertThat(first.getDirectory()).isDirectory();
+                        assertThat(second.getDirectory()).isDirectory();
+                }
+        }
+
+        @Test
+        void store_whenContentFitsBufferOrNot_thenHoldsItInMemoryOrSpillsToDisk() throws IOException
+        {
+                TempWorkspace workspace = workspaceManager.createWorkspace();
+                ExtractedLogFile small = workspace.store("small", stream("0123456789"));
+                ExtractedLogFile large = workspace.store("large", stream("0123456789A"));
+
+                assertThat(small.isInMemory()).isTrue();
+                assertThat(new String(small.openStream().readAllBytes())).isEqualTo("0123456789");
+                assertThat(large.isInMemory()).isFalse();
+                assertThat(large.getSize()).isEqualTo(11);
+                assertThat(new String(large.openStream().readAllBytes())).isEqualTo("0123456789A");
+                assertThat(workspaceManager.getUsedDiskBytes()).isEqualTo(11);
+
+                workspace.close();
+                assertThat(workspace.getDirectory()).doesNotExist();
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+        }
+
+        @Test
+        void store_whenSpillingExceedsDiskQuota_thenThrowsTempDiskQuotaExceededException() throws IOException
+        {
+                try (TempWorkspace workspace = workspaceManager.createWorkspace())
+                {
+                        workspace.store("first", stream("x".repeat(60)));
+
+                        assertThrows(TempDiskQuotaExceededException.class,
+                                () -> workspace.store("second", stream("y".repeat(60))));
+                }
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+        }
+
+        @Test
+        void store_whenContentIsAlreadyStored_thenSharesIt() throws IOException
+        {
+                try (TempWorkspace workspace = workspaceManager.createWorkspace())
+                {
+                        ExtractedLogFile first = workspace.store("a/same.log", stream("0123456789AB"));
+                        ExtractedLogFile second = workspace.store("b/same.log", stream("0123456789AB"));
+
+                        assertThat(second.getName()).isEqualTo("b/same.log");
+                        assertThat(second.getCrc()).isEqualTo(first.getCrc());
+                        assertThat(new String(second.openStream().readAllBytes())).isEqualTo("0123456789AB");
+                        assertThat(workspaceManager.getUsedDiskBytes()).isEqualTo(12);
+                        assertThat(workspace.storeDuplicate("c/same.log", first.getCrc(), 12)).isPresent();
+                        assertThat(workspace.storeDuplicate("d/other.log", first.getCrc(), 13)).isEmpty();
+                        assertThat(workspace.getLogFiles()).hasSize(3);
+                }
+        }
+
+        @Test
+        void stage_whenContentFitsDiskQuota_thenWritesFileAndReservesQuotaUntilClosing() throws IOException
+        {
+                TempWorkspace workspace = workspaceManager.createWorkspace();
+                Path staged = workspace.stage("upload.zip", stream("x".repeat(60)));
+
+                assertThat(staged.getParent()).isEqualTo(workspace.getDirectory());
+                assertThat(Files.readString(staged)).isEqualTo("x".repeat(60));
+                assertThat(workspaceManager.getUsedDiskBytes()).isEqualTo(60);
+
+                workspace.close();
+                assertThat(staged).doesNotExist();
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+        }
+
+        @Test
+        void stage_whenContentExceedsDiskQuota_thenThrowsTempDiskQuotaExceededException() throws IOException
+        {
+                try (TempWorkspace first = workspaceManager.createWorkspace();
+                     TempWorkspace second = workspaceManager.createWorkspace())
+                {
+                        first.stage("upload.zip", stream("x".repeat(60)));
+
+                        assertThrows(TempDiskQuotaExceededException.class,
+                                () -> second.stage("upload.zip", stream("y".repeat(60))));
+                        assertThrows(TempDiskQuotaExceededException.class, () -> second.reserveStagedBytes(41));
+                        second.reserveStagedBytes(40);
+                        assertThat(workspaceManager.getUsedDiskBytes()).isEqualTo(100);
+                }
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+        }
+
+        @Test
+        void removeOrphanedDirectories_whenOldDirectoryIsNotActive_thenRemovesOnlyIt() throws IOException
+        {
+                FileTime twoHoursAgo = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+                Path orphan = Files.createDirectory(tempDir.resolve("logs").resolve("request-orphan"));
+                Files.writeString(orphan.resolve("00001.log"), "left after crash");
+                Files.setLastModifiedTime(orphan, twoHoursAgo);
+                try (TempWorkspace active = workspaceManager.createWorkspace())
+                {
+                        Files.setLastModifiedTime(active.getDirectory(), twoHoursAgo);
+
+                        workspaceManager.removeOrphanedDirectories();
+
+                        assertThat(orphan).doesNotExist();
+                        assertThat(active.getDirectory()).isDirectory();
+                }
+        }
+
+        private static InputStream stream(String content)
+        {
+                return new ByteArrayInputStream(content.getBytes());
+        }
+
+}
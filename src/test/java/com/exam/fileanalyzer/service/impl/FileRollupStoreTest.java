@@ -0,0 +1,140 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.scan.HourlyLineCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileRollupStoreTest
+{
+        private static final String ARCHIVE_ID = "0123abcd";
+        @TempDir
+        Path rollupDir;
+
+        @Test
+        void getHourlyCounts_whenReadByNewStore_thenReturnsPersistedRollups() throws IOException
+        {
+                FileRollupStore store = createStore(true);
+                long[] counts = createCounts(3);
+                store.putLogFiles(ARCHIVE_ID, Map.of("logs_2018-02-27-access.log", 2018022799L));
+                store.putHourlyCounts(ARCHIVE_ID, "CONTAINS=Mozilla", "logs_2018-02-27-access.log", counts);
+                FileRollupStore reloadedStore = createStore(true);
+
+                assertThat(reloadedStore.getLogFiles(ARCHIVE_ID)).contains(
+                        Map.of("logs_2018-02-27-access.log", 2018022799L));
+                assertThat(reloadedStore.getHourlyCounts(ARCHIVE_ID, "CONTAINS=Mozilla", "logs_2018-02-27-access.log"))
+                        .hasValueSatisfying(value -> assertThat(value).containsExactly(counts));
+                assertThat(reloadedStore.getHourlyCounts(ARCHIVE_ID, "CONTAINS=Opera", "logs_2018-02-27-access.log"))
+                        .isEmpty();
+        }
+
+        @Test
+        void getHourlyCounts_whenRollupFileEndsWithIncompleteRecord_thenCutsItOff() throws IOException
+        {
+                FileRollupStore store = createStore(true);
+                store.putHourlyCounts(ARCHIVE_ID, "ALL*", "a.log", createCounts(1));
+                store.putHourlyCounts(ARCHIVE_ID, "ALL*", "b.log", createCounts(1_000_000));
+                Path rollupFile = rollupDir.resolve(ARCHIVE_ID + ".rollup");
+                byte[] content = Files.readAllBytes(rollupFile);
+                Files.write(rollupFile, Arrays.copyOf(content, content.length - 5));
+                FileRollupStore reloadedStore = createStore(true);
+
+                assertThat(reloadedStore.getHourlyCounts(ARCHIVE_ID, "ALL*", "a.log")).isPresent();
+                assertThat(reloadedStore.getHourlyCounts(ARCHIVE_ID, "ALL*", "b.log")).isEmpty();
+                reloadedStore.putHourlyCounts(ARCHIVE_ID, "ALL*", "c.log", createCounts(2));
+                FileRollupStore storeAfterRepair = createStore(true);
+                assertThat(storeAfterRepair.getHourlyCounts(ARCHIVE_ID, "ALL*", "a.log")).isPresent();
+                assertThat(storeAfterRepair.getHourlyCounts(ARCHIVE_ID, "ALL*", "c.log")).isPresent();
+        }
+
+        @Test
+        void putHourlyCounts_whenRollupsDisabled_thenWritesNoFiles() throws IOException
+        {
+                FileRollupStore store = createStore(false);
+                store.putHourlyCounts(ARCHIVE_ID, "ALL*", "a.log", createCounts(1));
+
+                assertThat(store.isEnabled()).isFalse();
+                try (var files = Files.list(rollupDir))
+                {
+                        assertThat(files).isEmpty();
+                }
+        }
+
+        @Test
+        void putHourlyCounts_whenGetWrongNumberOfBuckets_thenThrowsIllegalArgumentException()
+        {
+                FileRollupStore store = createStore(true);
+
+                assertThrows(IllegalArgumentException.class, () ->
+                        store.putHourlyCounts(ARCHIVE_ID, "ALL*", "a.log", new long[24]));
+        }
+
+        @Test
+        void identifyArchive_whenGetSameAndDifferentContent_thenReturnsContentDigest() throws IOException
+        {
+                FileRollupStore store = createStore(true);
+                String archiveId = store.identifyArchive(
+                        new MockMultipartFile("a", "a.zip", null, new byte[] { 1, 2 }));
+
+                assertThat(archiveId).hasSize(64).matches("[0-9a-f]+");
+                assertThat(store.identifyArchive(new MockMultipartFile("b", "b.zip", null, new byte[] { 1, 2 })))
+                        .isEqualTo(archiveId);
+                assertThat(store.identifyArchive(new MockMultipartFile("a", "a.zip", null, new byte[] { 1, 3 })))
+                        .isNotEqualTo(archiveId);
+        }
+
+        @Test
+        void putHourlyCounts_whenRollupFilesGoOverLimit_thenDeletesLeastRecentlyUsedFiles() throws IOException
+        {
+                FileRollupStore store = new FileRollupStore(true, rollupDir.toString(), 4, 250);
+                store.init();
+                store.putHourlyCounts("first", "ALL*", "a.log", createCounts(1_000));
+                store.putHourlyCounts("second", "ALL*", "a.log", createCounts(1_000));
+                Files.setLastModifiedTime(rollupDir.resolve("first.rollup"), FileTime.fromMillis(1_000));
+                Files.setLastModifiedTime(rollupDir.resolve("second.rollup"), FileTime.fromMillis(2_000));
+                store.putHourlyCounts("third", "ALL*", "a.log", createCounts(1_000));
+                store.putHourlyCounts("third", "ALL*", "b.log", createCounts(1_000));
+
+                assertThat(rollupDir.resolve("first.rollup")).doesNotExist();
+                assertThat(rollupDir.resolve("second.rollup")).exists();
+                assertThat(rollupDir.resolve("third.rollup")).exists();
+                assertThat(store.getHourlyCounts("first", "ALL*", "a.log")).isEmpty();
+                FileRollupStore reloadedStore = new FileRollupStore(true, rollupDir.toString(), 4, 100);
+                reloadedStore.init();
+                try (var files = Files.list(rollupDir))
+                {
+                        assertThat(files).isEmpty();
+                }
+        }
+
+        @Test
+        void constructor_whenMaxBytesIsNotPositive_thenThrowsIllegalArgumentException()
+        {
+                assertThrows(IllegalArgumentException.class, () ->
+                        new FileRollupStore(true, rollupDir.toString(), 4, 0));
+        }
+
+        private FileRollupStore createStore(boolean enabled)
+        {
+                return new FileRollupStore(enabled, rollupDir.toString(), 4, 1L << 30);
+        }
+
+        private static long[] createCounts(long count)
+        {
+                long[] counts = new long[HourlyLineCounter.BUCKETS];
+                for (int i = 0; i < counts.length; i++)
+                {
+                        counts[i] = count * i;
+                }
+                return counts;
+        }
+
+}
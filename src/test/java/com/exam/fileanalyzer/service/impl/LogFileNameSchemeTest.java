@@ -0,0 +1,71 @@
+package com.exam.fileanalyzer.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogFileNameSchemeTest
+{
+        @ParameterizedTest
+        @CsvSource(value = {
+                "logs_{date}-access.log, logs_2018-02-27-access.log, 2018022799",
+                "logs_{date}-access.log, logs_2016-02-29-access.log, 2016022999",
+                "logs_{date}-error.log, logs_2018-02-27-error.log, 2018022799",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-00.log.1, 2018030100",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-23.log.15, 2018030123",
+                "{hour}h_{date}, 07h_2018-03-01, 2018030107"
+        })
+        void match_whenGetMatchingName_thenReturnsPackedDateAndHour(String template, String name, long expected)
+        {
+                LogFileNameScheme scheme = LogFileNameScheme.compile(template);
+
+                assertThat(scheme.match(name, 0, name.length())).isEqualTo(expected);
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "logs_{date}-access.log, logs_2018-02-27-access.log.1",
+                "logs_{date}-access.log, logs_2018-02-27-access.lo",
+                "logs_{date}-access.log, logs_2018-02-30-access.log",
+                "logs_{date}-access.log, logs_2018-02-29-access.log",
+                "logs_{date}-access.log, logs_2018-13-01-access.log",
+                "logs_{date}-access.log, logs_2018_02_27-access.log",
+                "logs_{date}-access.log, logs_2018-2-27-access.log",
+                "logs_{date}-access.log, logs_2018-02-27-error.log",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-24.log.1",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-1.log.1",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-12.log.",
+                "access-{basicDate}-{hour}.log.{n}, access-20180301-12.log.1a"
+        })
+        void match_whenGetNotMatchingName_thenReturnsNoMatch(String template, String name)
+        {
+                LogFileNameScheme scheme = LogFileNameScheme.compile(template);
+
+                assertThat(scheme.match(name, 0, name.length())).isEqualTo(LogFileNameScheme.NO_MATCH);
+        }
+
+        @Test
+        void match_whenGetNameInsidePath_thenMatchesOnlyRange()
+        {
+                LogFileNameScheme scheme = LogFileNameScheme.compile("logs_{date}-access.log");
+                String path = "archive.zip!/logs/logs_2018-02-27-access.log.gz";
+                int from = path.lastIndexOf('/') + 1;
+
+                assertThat(scheme.match(path, from, path.length() - 3)).isEqualTo(2018022799L);
+                assertThat(scheme.match(path, from, path.length())).isEqualTo(LogFileNameScheme.NO_MATCH);
+                assertThat(scheme.match(path, 0, path.length() - 3)).isEqualTo(LogFileNameScheme.NO_MATCH);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "access.log", "logs_{date}-{hour}{n}.log", "logs_{date}-{date}.log",
+                "logs_{date}-{basicDate}.log", "logs_{day}.log", "logs_{date.log", "{hour}.log" })
+        void compile_whenGetInvalidTemplate_thenThrowsIllegalArgumentException(String template)
+        {
+                assertThrows(IllegalArgumentException.class, () -> LogFileNameScheme.compile(template));
+        }
+
+}
@@ -0,0 +1,128 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.*;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class MultiThreadLogsAnalyzerImplTest
+{
+        private static final byte[] LOG_CONTENT = "Mozilla\nChrome\nMozilla\n".getBytes(StandardCharsets.US_ASCII);
+        private final AtomicInteger openStreams = new AtomicInteger();
+
+        @Test
+        void countEntriesInZipFile_whenWorkersCountFiles_thenReturnsCountsOfAllFiles() throws IOException
+        {
+                List<ExtractedLogFile> logFiles = new ArrayList<>();
+                for (int i = 0; i < 6; i++)
+                {
+                        logFiles.add(createLogFile("logs_" + i, i, false));
+                }
+                TempWorkspace workspace = createWorkspace(logFiles);
+
+                Map<String, Integer> result = createLogsAnalyzer(workspace).countEntriesInZipFile(createParamHolder());
+
+                assertThat(result).hasSize(6).containsValues(2);
+                verify(workspace).close();
+        }
+
+        @Test
+        void countEntriesInZipFile_whenWorkerFails_thenThrowsAfterAllWorkersFinished() throws IOException
+        {
+                List<ExtractedLogFile> logFiles = new ArrayList<>();
+                logFiles.add(createLogFile("broken", 0, true));
+                for (int i = 1; i < 8; i++)
+                {
+                        logFiles.add(createLogFile("logs_" + i, i, false));
+                }
+                TempWorkspace workspace = createWorkspace(logFiles);
+                AtomicInteger openStreamsOnClose = new AtomicInteger(-1);
+                doAnswer(invocation ->
+                {
+                        openStreamsOnClose.set(openStreams.get());
+                        return null;
+                }).when(workspace).close();
+
+                IllegalStateException exception = assertThrows(IllegalStateException.class,
+                        () -> createLogsAnalyzer(workspace).countEntriesInZipFile(createParamHolder()));
+
+                assertThat(exception.getMessage()).contains("'broken'");
+                assertThat(exception.getCause()).isInstanceOf(IOException.class);
+                assertThat(openStreamsOnClose.get()).isZero();
+        }
+
+        private MultiThreadLogsAnalyzerImpl createLogsAnalyzer(TempWorkspace workspace) throws IOException
+        {
+                ZipFileManager zipFileManager = Mockito.mock(ZipFileManager.class);
+                when(zipFileManager.extractLogFilesForAnalysis(any())).thenReturn(workspace);
+                return new MultiThreadLogsAnalyzerImpl(zipFileManager, null, 2, 4);
+        }
+
+        private static TempWorkspace createWorkspace(List<ExtractedLogFile> logFiles)
+        {
+                TempWorkspace workspace = Mockito.mock(TempWorkspace.class);
+                when(workspace.getLogFiles()).thenReturn(logFiles);
+                return workspace;
+        }
+
+        private ExtractedLogFile createLogFile(String name, long crc, boolean broken) throws IOException
+        {
+                ExtractedLogFile logFile = Mockito.mock(ExtractedLogFile.class);
+                when(logFile.getName()).thenReturn(name);
+                when(logFile.getCrc()).thenReturn(crc);
+                when(logFile.getSize()).thenReturn((long) LOG_CONTENT.length);
+                if (broken)
+                {
+                        when(logFile.openStream()).thenThrow(new IOException("The spilled file is deleted."));
+                } else
+                {
+                        when(logFile.openStream()).thenAnswer(invocation -> openSlowStream());
+                }
+                return logFile;
+        }
+
+        private InputStream openSlowStream()
+        {
+                openStreams.incrementAndGet();
+                return new FilterInputStream(new ByteArrayInputStream(LOG_CONTENT))
+                {
+                        @Override
+                        public int read(byte[] buffer, int offset, int length) throws IOException
+                        {
+                                try
+                                {
+                                        TimeUnit.MILLISECONDS.sleep(50);
+                                } catch (InterruptedException exception)
+                                {
+                                        throw new InterruptedIOException();
+                                }
+                                return super.read(buffer, offset, length);
+                        }
+
+                        @Override
+                        public void close() throws IOException
+                        {
+                                openStreams.decrementAndGet();
+                                super.close();
+                        }
+                };
+        }
+
+        private static CountEntriesParamHolder createParamHolder()
+        {
+                return CountEntriesParamHolder.builder()
+                        .searchQuery("Mozilla")
+                        .build();
+        }
+
+}
@@ -0,0 +1,128 @@
+package com.exam.fileanalyzer.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipCentralDirectoryTest
+{
+        @TempDir
+        Path tempDir;
+
+        @Test
+        void read_whenZipArchive_thenReturnsEntriesCoveringLocalRecords() throws IOException
+        {
+                byte[] archive = createArchive(false, "a.log", "dir/", "dir/b.log", "c.log");
+                ZipCentralDirectory centralDirectory = ZipCentralDirectory.read(write(archive));
+
+                assertThat(centralDirectory).isNotNull();
+                List<ZipCentralDirectory.Entry> entries = centralDirectory.getEntries();
+                assertThat(entries).extracting(ZipCentralDirectory.Entry::getName)
+                        .containsExactly("a.log", "dir/", "dir/b.log", "c.log");
+                assertThat(entries.get(0).getOffset()).isZero();
+                for (int i = 1; i < entries.size(); i++)
+                {
+                        assertThat(entries.get(i).getOffset()).isEqualTo(entries.get(i - 1).getEnd());
+                }
+                assertThat(entries.get(1).isDirectory()).isTrue();
+                assertThat(entries.get(2).getLength()).isGreaterThan(entries.get(2).getCompressedSize());
+        }
+
+        @Test
+        void openEntries_whenReadSomeEntries_thenZipInputStreamReadsThem() throws IOException
+        {
+                for (boolean stored : new boolean[] { false, true })
+                {
+                        byte[] archive = createArchive(stored, "a.log", "b.log", "c.log", "d.log");
+                        ZipCentralDirectory centralDirectory = ZipCentralDirectory.read(write(archive));
+                        List<ZipCentralDirectory.Entry> entries = centralDirectory.getEntries();
+                        byte[] shard;
+                        try (InputStream content = centralDirectory.openEntries(
+                                List.of(entries.get(3), entries.get(1))))
+                        {
+                                shard = content.readAllBytes();
+                        }
+
+                        assertThat(shard).hasSize((int) (entries.get(3).getLength() + entries.get(1).getLength()));
+                        assertThat(readArchive(shard)).containsExactly(Map.entry("d.log", "content of d.log"),
+                                Map.entry("b.log", "content of b.log"));
+                }
+        }
+
+        @Test
+        void read_whenArchiveHasCommentAndNotAsciiNames_thenDecodesNames() throws IOException
+        {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(content))
+                {
+                        zip.setComment("comment with the signature PK\u0005\u0006 inside");
+                        zip.putNextEntry(new ZipEntry("журналы/logs_2018-02-27-access.log"));
+                        zip.write(1);
+                }
+                ZipCentralDirectory centralDirectory = ZipCentralDirectory.read(write(content.toByteArray()));
+
+                assertThat(centralDirectory).isNotNull();
+                assertThat(centralDirectory.getEntries()).extracting(ZipCentralDirectory.Entry::getName)
+                        .containsExactly("журналы/logs_2018-02-27-access.log");
+        }
+
+        @Test
+        void read_whenNotZipArchive_thenReturnsNull() throws IOException
+        {
+                assertThat(ZipCentralDirectory.read(write(new byte[0]))).isNull();
+                assertThat(ZipCentralDirectory.read(write("not a zip archive at all".getBytes(
+                        StandardCharsets.US_ASCII)))).isNull();
+        }
+
+        private Path write(byte[] archive) throws IOException
+        {
+                return Files.write(Files.createTempFile(tempDir, "archive", ".zip"), archive);
+        }
+
+        private static byte[] createArchive(boolean stored, String... names) throws IOException
+        {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(content))
+                {
+                        for (String name : names)
+                        {
+                                byte[] entryContent = name.endsWith("/") ? new byte[0] :
+                                        ("content of " + name).getBytes(StandardCharsets.US_ASCII);
+                                ZipEntry entry = new ZipEntry(name);
+                                if (stored)
+                                {
+                                        CRC32 crc = new CRC32();
+                                        crc.update(entryContent);
+                                        entry.setMethod(ZipEntry.STORED);
+                                        entry.setSize(entryContent.length);
+                                        entry.setCrc(crc.getValue());
+                                }
+                                zip.putNextEntry(entry);
+                                zip.write(entryContent);
+                        }
+                }
+                return content.toByteArray();
+        }
+
+        private static Map<String, String> readArchive(byte[] archive) throws IOException
+        {
+                Map<String, String> result = new LinkedHashMap<>();
+                try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive)))
+                {
+                        ZipEntry entry;
+                        while ((entry = zip.getNextEntry()) != null)
+                        {
+                                result.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.US_ASCII));
+                        }
+                }
+                return result;
+        }
+
+}
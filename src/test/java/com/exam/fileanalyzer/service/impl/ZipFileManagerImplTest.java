@@ -0,0 +1,266 @@
+package com.exam.fileanalyzer.service.impl;
+
+import com.exam.fileanalyzer.service.InflationBudgetExceededException;
+import com.exam.fileanalyzer.service.TempWorkspace;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.*;
+
+import static com.exam.fileanalyzer.service.LogsAnalyzer.CountEntriesParamHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ZipFileManagerImplTest
+{
+        private static final String LOG_FILE_NAME = "logs_2018-02-27-access.log";
+        private static final int MEGABYTE = 1024 * 1024;
+        private final TempWorkspaceManagerImpl workspaceManager = new TempWorkspaceManagerImpl(
+                "src/test/resources/tmp", 1L << 30, MEGABYTE, 4, 3600, 300);
+
+        @Test
+        void extractLogFilesForAnalysis_whenArchiveIsWithinBudget_thenExtractsLogFiles() throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(16 * MEGABYTE, 8 * MEGABYTE, 100);
+                MockMultipartFile zipFile = new MockMultipartFile("file", "logs-27_02_2018-03_03_2018.zip", null,
+                        Files.readAllBytes(Paths.get("src/test/resources/logs-27_02_2018-03_03_2018.zip")));
+
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(createParamHolder(zipFile)))
+                {
+                        assertThat(workspace.getLogFiles()).hasSize(3);
+                }
+                assertThat(zipFileManager.getInflationBudgetExceededCount()).isZero();
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenMemberHasTooHighCompressionRatio_thenAbortsAndReleasesWorkspace()
+                throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(1L << 40, 1L << 40, 100);
+                Map<String, byte[]> bombs = Map.of(
+                        LOG_FILE_NAME, new byte[32 * MEGABYTE],
+                        "not-a-log.txt", new byte[32 * MEGABYTE]);
+                int directories = countWorkspaceDirectories();
+
+                for (Map.Entry<String, byte[]> bomb : bombs.entrySet())
+                {
+                        MockMultipartFile zipFile = new MockMultipartFile("file", "bomb.zip", null,
+                                createZip(Map.of(bomb.getKey(), bomb.getValue())));
+                        InflationBudgetExceededException exception = assertThrows(
+                                InflationBudgetExceededException.class,
+                                () -> zipFileManager.extractLogFilesForAnalysis(createParamHolder(zipFile)));
+                        assertThat(exception.getMessage()).contains("'" + bomb.getKey() + "'", "compression ratio");
+                }
+                assertThat(zipFileManager.getInflationBudgetExceededCount()).isEqualTo(2);
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+                assertThat(countWorkspaceDirectories()).isEqualTo(directories);
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenNestedArchiveIsBomb_thenAbortsOnCompressionRatio() throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(1L << 40, 1L << 40, 100);
+                byte[] innerZip = createZip(Map.of(LOG_FILE_NAME, new byte[32 * MEGABYTE]));
+                MockMultipartFile zipFile = new MockMultipartFile("file", "outer.zip", null,
+                        createZip(Map.of("inner.zip", innerZip)));
+
+                InflationBudgetExceededException exception = assertThrows(InflationBudgetExceededException.class,
+                        () -> zipFileManager.extractLogFilesForAnalysis(createParamHolder(zipFile)));
+                assertThat(exception.getMessage()).contains("compression ratio");
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenMemberOrArchiveInflatesOverLimit_thenAborts() throws IOException
+        {
+                Random random = new Random(42);
+                byte[] content = new byte[MEGABYTE];
+                random.nextBytes(content);
+                Map<String, byte[]> members = new LinkedHashMap<>();
+                for (int day = 27; day <= 28; day++)
+                {
+                        members.put("logs_2018-02-" + day + "-access.log", content);
+                }
+                MockMultipartFile zipFile = new MockMultipartFile("file", "logs.zip", null, createZip(members));
+
+                InflationBudgetExceededException entryException = assertThrows(InflationBudgetExceededException.class,
+                        () -> createZipFileManager(1L << 40, MEGABYTE / 2, 100)
+                                .extractLogFilesForAnalysis(createParamHolder(zipFile)));
+                assertThat(entryException.getMessage()).contains("member", "more than " + MEGABYTE / 2);
+                InflationBudgetExceededException requestException = assertThrows(
+                        InflationBudgetExceededException.class,
+                        () -> createZipFileManager(MEGABYTE * 3 / 2, MEGABYTE, 100)
+                                .extractLogFilesForAnalysis(createParamHolder(zipFile)));
+                assertThat(requestException.getMessage()).isEqualTo(String.format("The archive inflates to more " +
+                        "than %d bytes.", MEGABYTE * 3 / 2));
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenGzipLogFileIsBomb_thenAbortsWhileStoringIt() throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(1L << 40, 1L << 40, 100);
+                byte[] gzipBomb = createGzip(new byte[32 * MEGABYTE]);
+                List<MockMultipartFile> uploads = List.of(
+                        new MockMultipartFile("file", LOG_FILE_NAME + ".gz", null, gzipBomb),
+                        new MockMultipartFile("file", "logs.zip", null,
+                                createZip(Map.of("gz/" + LOG_FILE_NAME + ".gz", gzipBomb))));
+
+                for (MockMultipartFile upload : uploads)
+                {
+                        InflationBudgetExceededException exception = assertThrows(
+                                InflationBudgetExceededException.class,
+                                () -> zipFileManager.extractLogFilesForAnalysis(createParamHolder(upload)));
+                        assertThat(exception.getMessage()).contains("compression ratio");
+                }
+                assertThat(workspaceManager.getUsedDiskBytes()).isZero();
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenGzipLogFileIsWithinBudget_thenStoresItCompressed() throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(16 * MEGABYTE, 8 * MEGABYTE, 100);
+                byte[] content = "81.143.7.1 - - [27/02/2018:10:00:00 +0000] \"GET / HTTP/1.1\" 200 1\n"
+                        .repeat(1000).getBytes(StandardCharsets.US_ASCII);
+                MockMultipartFile tarGzFile = new MockMultipartFile("file", "logs.tar.gz", null, createGzip(
+                        createTar(createTarEntry(LOG_FILE_NAME + ".gz", '0', createGzip(content)))));
+
+                try (TempWorkspace workspace = zipFileManager.extractLogFilesForAnalysis(
+                        createParamHolder(tarGzFile)))
+                {
+                        assertThat(workspace.getLogFiles()).hasSize(1);
+                        assertThat(workspace.getLogFiles().get(0).isCompressed()).isTrue();
+                        try (InputStream stream = workspace.getLogFiles().get(0).openStream())
+                        {
+                                assertThat(stream.readAllBytes()).isEqualTo(content);
+                        }
+                }
+        }
+
+        @Test
+        void extractLogFilesForAnalysis_whenSkippedTarOrZipEntryIsBomb_thenChargesSkippedBytes() throws IOException
+        {
+                ZipFileManagerImpl zipFileManager = createZipFileManager(1L << 40, 1L << 40, 100);
+                byte[] zeros = new byte[32 * MEGABYTE];
+                Map<String, byte[]> uploads = new LinkedHashMap<>();
+                uploads.put("device.tar.gz", createGzip(createTar(createTarEntry("dev/zero", '3', zeros))));
+                uploads.put("global-header.tar.gz", createGzip(createTar(createTarEntry("header", 'g', zeros))));
+                uploads.put("directory.zip", createZip(Map.of("logs/", zeros)));
+
+                for (Map.Entry<String, byte[]> upload : uploads.entrySet())
+                {
+                        MockMultipartFile file = new MockMultipartFile("file", upload.getKey(), null,
+                                upload.getValue());
+                        InflationBudgetExceededException exception = assertThrows(
+                                InflationBudgetExceededException.class,
+                                () -> zipFileManager.extractLogFilesForAnalysis(createParamHolder(file)));
+                        assertThat(exception.getMessage()).contains("compression ratio");
+                }
+                assertThat(zipFileManager.getInflationBudgetExceededCount()).isEqualTo(uploads.size());
+        }
+
+        @Test
+        void constructor_whenInflationLimitIsNotPositive_thenThrowsIllegalArgumentException()
+        {
+                assertThrows(IllegalArgumentException.class, () -> createZipFileManager(0, MEGABYTE, 100));
+                assertThrows(IllegalArgumentException.class, () -> createZipFileManager(MEGABYTE, MEGABYTE, 0));
+        }
+
+        private ZipFileManagerImpl createZipFileManager(long maxRequestBytes, long maxEntryBytes, int maxRatio)
+        {
+                return new ZipFileManagerImpl(workspaceManager, new String[] { "logs_{date}-access.log" },
+                        maxRequestBytes, maxEntryBytes, maxRatio);
+        }
+
+        private static CountEntriesParamHolder createParamHolder(MockMultipartFile zipFile)
+        {
+                return CountEntriesParamHolder.builder()
+                        .zipMultipartFile(zipFile)
+                        .startDate(LocalDate.of(2018, 2, 27))
+                        .numberOfDays(3)
+                        .build();
+        }
+
+        private static byte[] createZip(Map<String, byte[]> members) throws IOException
+        {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                try (ZipOutputStream zip = new ZipOutputStream(content))
+                {
+                        zip.setLevel(Deflater.BEST_COMPRESSION);
+                        for (Map.Entry<String, byte[]> member : members.entrySet())
+                        {
+                                zip.putNextEntry(new ZipEntry(member.getKey()));
+                                zip.write(member.getValue());
+                                zip.closeEntry();
+                        }
+                }
+                return content.toByteArray();
+        }
+
+        private static byte[] createGzip(byte[] content) throws IOException
+        {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)
+                {
+                        {
+                                def.setLevel(Deflater.BEST_COMPRESSION);
+                        }
+                })
+                {
+                        gzip.write(content);
+                }
+                return compressed.toByteArray();
+        }
+
+        private static byte[] createTar(byte[]... entries)
+        {
+                ByteArrayOutputStream tar = new ByteArrayOutputStream();
+                for (byte[] entry : entries)
+                {
+                        tar.writeBytes(entry);
+                }
+                tar.writeBytes(new byte[1024]);
+                return tar.toByteArray();
+        }
+
+        private static byte[] createTarEntry(String name, char type, byte[] content)
+        {
+                byte[] header = new byte[512];
+                byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+                writeOctal(header, 100, 8, 0644);
+                writeOctal(header, 124, 12, content.length);
+                header[156] = (byte) type;
+                Arrays.fill(header, 148, 156, (byte) ' ');
+                long checksum = 0;
+                for (byte current : header)
+                {
+                        checksum += current & 0xFF;
+                }
+                writeOctal(header, 148, 8, checksum);
+                ByteArrayOutputStream entry = new ByteArrayOutputStream();
+                entry.writeBytes(header);
+                entry.writeBytes(content);
+                entry.writeBytes(new byte[(512 - content.length % 512) % 512]);
+                return entry.toByteArray();
+        }
+
+        private static void writeOctal(byte[] header, int offset, int length, long value)
+        {
+                String octal = String.format("%0" + (length - 1) + "o", value);
+                System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+        }
+
+        private int countWorkspaceDirectories() throws IOException
+        {
+                try (Stream<Path> directories = Files.list(workspaceManager.getTempDir()))
+                {
+                        return (int) directories.count();
+                }
+        }
+
+}
@@ -0,0 +1,98 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AccessLogLineTest
+{
+        private static final String COMBINED_LINE = "10.0.0.7 - frank [01/03/2018:10:05:03 +0000] " +
+                "\"POST /api/login?next=%22x HTTP/1.1\" 503 - \"https://example.com/\" \"curl/7.29.0 (\\\"q\\\")\"";
+        private static final String SAMPLE_LINE = "81.143.7.216 - - [27/02/2018:10:05:03 +0000] " +
+                "\"GET /images/kibana-search.png HTTP/1.1\" 200 203023 \"Mozilla/5.0 (KHTML, like Gecko)\"";
+        private static final String COMMON_LINE = "127.0.0.1 - - [01/03/2018:10:05:03 +0000] \"GET /\" 404 12";
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "IP, 10.0.0.7, 81.143.7.216, 127.0.0.1",
+                "TIME, 01/03/2018:10:05:03 +0000, 27/02/2018:10:05:03 +0000, 01/03/2018:10:05:03 +0000",
+                "METHOD, POST, GET, GET",
+                "PATH, /api/login?next=%22x, /images/kibana-search.png, /",
+                "PROTOCOL, HTTP/1.1, HTTP/1.1, null",
+                "STATUS, 503, 200, 404",
+                "SIZE, -, 203023, 12",
+                "REFERER, https://example.com/, null, null",
+                "USER_AGENT, 'curl/7.29.0 (\\\"q\\\")', 'Mozilla/5.0 (KHTML, like Gecko)', null"
+        }, nullValues = "null")
+        void locate_whenGetLineOfKnownFormat_thenFindsField(AccessLogField field, String combined, String sample,
+                                                            String common)
+        {
+                assertThat(field(COMBINED_LINE, field)).isEqualTo(combined);
+                assertThat(field(SAMPLE_LINE, field)).isEqualTo(sample);
+                assertThat(field(COMMON_LINE, field)).isEqualTo(common);
+        }
+
+        @Test
+        void locate_whenGetNotAccessLogLine_thenDoesNotFindFields()
+        {
+                for (AccessLogField field : AccessLogField.values())
+                {
+                        assertThat(field("garbage", field)).isNull();
+                }
+                assertThat(field("\"quoted\"", AccessLogField.USER_AGENT)).isEqualTo("quoted");
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "status>=500, true, false",
+                "status = 200, false, true",
+                "size<1, true, false",
+                "size>200000, false, true",
+                "method!=GET, true, false",
+                "ua~Mozilla, false, true",
+                "ua!~Mozilla, true, false",
+                "referer~example, true, false",
+                "path=/, false, false"
+        })
+        void test_whenGetFilterExpression_thenChecksField(String expression, boolean combined, boolean sample)
+        {
+                FieldFilterLineMatcher matcher = new FieldFilterLineMatcher(List.of(FieldPredicate.parse(expression)),
+                        LineMatcher.ALL);
+
+                assertThat(matches(matcher, COMBINED_LINE)).isEqualTo(combined);
+                assertThat(matches(matcher.copy(), SAMPLE_LINE)).isEqualTo(sample);
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = { "status", "agent~Mozilla", "method>=POST", "status>=5xx", "size=-1" })
+        void parse_whenGetInvalidExpression_thenThrowsIllegalArgumentException(String expression)
+        {
+                assertThrows(IllegalArgumentException.class, () -> FieldPredicate.parse(expression));
+        }
+
+        private static String field(String line, AccessLogField field)
+        {
+                byte[] bytes = ("\n" + line + "\n").getBytes(StandardCharsets.UTF_8);
+                AccessLogLine view = new AccessLogLine();
+                view.reset(bytes, 1, bytes.length - 1);
+                if (!view.locate(field))
+                {
+                        return null;
+                }
+                return new String(bytes, view.getStart(field), view.getEnd(field) - view.getStart(field),
+                        StandardCharsets.UTF_8);
+        }
+
+        private static boolean matches(LineMatcher matcher, String line)
+        {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                return matcher.matches(bytes, 0, bytes.length);
+        }
+
+}
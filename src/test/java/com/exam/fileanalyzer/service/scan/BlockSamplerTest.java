@@ -0,0 +1,165 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlockSamplerTest
+{
+        private static final LineMatcher MATCHER = new LiteralLineMatcher("Mozilla");
+
+        @Test
+        void sample_whenGetContentOfFewBlocks_thenScansAllBlocksAndReturnsExactCount() throws IOException
+        {
+                Random random = new Random(1);
+                StringBuilder content = new StringBuilder();
+                long expected = appendLines(content, 2000, 0.3, random);
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+
+                sampler.sample(MATCHER, 0.5, () -> false, random);
+
+                assertThat(sampler.isExact()).isTrue();
+                assertThat(sampler.getTotalBlocks()).isLessThan(BlockSampler.MIN_SAMPLED_BLOCKS);
+                assertThat(sampler.estimateCount()).isEqualTo(expected);
+                assertThat(sampler.getMarginOfError()).isZero();
+                assertThat(sampler.getSampledBytes()).isEqualTo(content.length());
+        }
+
+        @Test
+        void sample_whenGetLargeContent_thenStopsAtTargetErrorWithIntervalContainingExactCount() throws IOException
+        {
+                Random random = new Random(2);
+                StringBuilder content = new StringBuilder();
+                long expected = appendLines(content, 100_000, 0.3, random);
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+
+                sampler.sample(MATCHER, 0.02, () -> false, random);
+
+                assertThat(sampler.isExact()).isFalse();
+                assertThat(sampler.getSampledBlocks()).isLessThan(sampler.getTotalBlocks() / 2);
+                assertThat(sampler.isTimedOut()).isFalse();
+                assertThat(sampler.getMarginOfError()).isLessThanOrEqualTo(0.02 * sampler.estimateCount());
+                assertThat(Math.abs(sampler.estimateCount() - expected)).isLessThanOrEqualTo(
+                        sampler.getMarginOfError());
+        }
+
+        @Test
+        void sample_whenRepeatedWithDifferentSeeds_thenIntervalsCoverExactCountAtConfidenceLevel() throws IOException
+        {
+                StringBuilder content = new StringBuilder();
+                long expected = appendLines(content, 50_000, 0.3, new Random(3));
+                ByteBuffer buffer = toBuffer(content);
+                int covered = 0;
+                for (int seed = 0; seed < 100; seed++)
+                {
+                        BlockSampler sampler = new BlockSampler(buffer);
+                        sampler.sample(MATCHER, 0.05, () -> false, new Random(seed));
+                        if (Math.abs(sampler.estimateCount() - expected) <= sampler.getMarginOfError())
+                        {
+                                covered++;
+                        }
+                }
+
+                assertThat(covered).isGreaterThanOrEqualTo(85);
+        }
+
+        @Test
+        void sample_whenTimeIsUp_thenStopsAfterCurrentBlockWithUnboundedMargin() throws IOException
+        {
+                Random random = new Random(4);
+                StringBuilder content = new StringBuilder();
+                appendLines(content, 100_000, 0.3, random);
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+
+                sampler.sample(MATCHER, 0.0001, () -> true, random);
+
+                assertThat(sampler.getSampledBlocks()).isEqualTo(1);
+                assertThat(sampler.isTimedOut()).isTrue();
+                assertThat(sampler.isExact()).isFalse();
+                assertThat(sampler.getMarginOfError()).isInfinite();
+        }
+
+        @Test
+        void sample_whenGetSingleMatchingLineInManyBlocks_thenDoesNotStopAtZeroEstimate() throws IOException
+        {
+                Random random = new Random(6);
+                StringBuilder content = new StringBuilder();
+                appendLines(content, 50_000, 0, random);
+                content.insert(content.length() / 2, "10.0.0.1 - - [27/Feb/2018:14:05:03 +0000] \"GET / HTTP/1.1\" " +
+                        "200 1 \"Mozilla/5.0\"\n");
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+
+                sampler.sample(MATCHER, 0.02, () -> false, random);
+
+                assertThat(sampler.getTotalBlocks()).isGreaterThan(10 * BlockSampler.MIN_SAMPLED_BLOCKS);
+                assertThat(sampler.isExact()).isTrue();
+                assertThat(sampler.getSampledCount()).isEqualTo(1);
+                assertThat(Math.round(sampler.estimateCount())).isEqualTo(1);
+                assertThat(sampler.getMarginOfError()).isZero();
+        }
+
+        @Test
+        void sample_whenTimeIsUpWithoutMatchingLines_thenReturnsRuleOfThreeUpperBound() throws IOException
+        {
+                Random random = new Random(7);
+                StringBuilder content = new StringBuilder();
+                appendLines(content, 50_000, 0, random);
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+                int sampledBlocks = BlockSampler.MIN_SAMPLED_BLOCKS;
+                int[] timeChecks = new int[1];
+
+                sampler.sample(MATCHER, 0.02, () -> ++timeChecks[0] >= sampledBlocks, random);
+
+                assertThat(sampler.getSampledBlocks()).isEqualTo(sampledBlocks);
+                assertThat(sampler.estimateCount()).isZero();
+                assertThat(sampler.getMarginOfError()).isEqualTo(
+                        3.0 * (sampler.getTotalBlocks() - sampledBlocks) / sampledBlocks);
+        }
+
+        @Test
+        void sample_whenGetLinesLongerThanBlock_thenCountsEachLineOnce() throws IOException
+        {
+                Random random = new Random(5);
+                StringBuilder content = new StringBuilder();
+                long expected = 0;
+                for (int i = 0; i < 200; i++)
+                {
+                        boolean matching = random.nextBoolean();
+                        content.append(matching ? "Mozilla " : "Opera ")
+                                .append("x".repeat(random.nextInt(3 * BlockSampler.BLOCK_SIZE))).append('\n');
+                        expected += matching ? 1 : 0;
+                }
+                BlockSampler sampler = new BlockSampler(toBuffer(content));
+
+                sampler.sample(MATCHER, 1e-9, () -> false, random);
+
+                assertThat(sampler.isExact()).isTrue();
+                assertThat(sampler.getSampledCount()).isEqualTo(expected);
+                assertThat(sampler.getSampledBytes()).isEqualTo(content.length());
+        }
+
+        private static long appendLines(StringBuilder content, int lines, double matchingShare, Random random)
+        {
+                long matching = 0;
+                for (int i = 0; i < lines; i++)
+                {
+                        boolean matches = random.nextDouble() < matchingShare;
+                        content.append(String.format("10.0.0.%d - - [27/Feb/2018:14:05:03 +0000] " +
+                                "\"GET /%s HTTP/1.1\" 200 %d \"%s\"\n", i % 256, "a".repeat(random.nextInt(40)), i,
+                                matches ? "Mozilla/5.0" : "curl/7.58"));
+                        matching += matches ? 1 : 0;
+                }
+                return matching;
+        }
+
+        private static ByteBuffer toBuffer(StringBuilder content)
+        {
+                return ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        }
+
+}
@@ -0,0 +1,79 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteSearchKernelTest
+{
+        private final ByteSearchKernel scalarKernel = new ScalarByteSearchKernel();
+
+        @Test
+        void indexOf_whenSearchRandomRanges_thenActiveKernelFindsSameBytesAsScalarOne()
+        {
+                Random random = new Random(7);
+                byte[] buffer = new byte[1000];
+                for (int run = 0; run < 2000; run++)
+                {
+                        fillSparse(buffer, random);
+                        int from = random.nextInt(buffer.length);
+                        int to = from + random.nextInt(buffer.length - from + 1);
+
+                        assertThat(ByteSearchKernel.INSTANCE.indexOf(buffer, from, to, (byte) '\n'))
+                                .isEqualTo(scalarKernel.indexOf(buffer, from, to, (byte) '\n'));
+                        assertThat(ByteSearchKernel.INSTANCE.indexOfAny(buffer, from, to, (byte) 'M', (byte) 'm'))
+                                .isEqualTo(scalarKernel.indexOfAny(buffer, from, to, (byte) 'M', (byte) 'm'));
+                }
+        }
+
+        @Test
+        void indexOf_whenByteAtEdgesOfRange_thenFindsOnlyBytesInsideRange()
+        {
+                for (ByteSearchKernel kernel : new ByteSearchKernel[] { scalarKernel, ByteSearchKernel.INSTANCE })
+                {
+                        byte[] buffer = new byte[200];
+                        buffer[3] = '\n';
+                        buffer[130] = '\n';
+                        buffer[199] = 'Z';
+
+                        assertThat(kernel.indexOf(buffer, 0, 200, (byte) '\n')).isEqualTo(3);
+                        assertThat(kernel.indexOf(buffer, 4, 200, (byte) '\n')).isEqualTo(130);
+                        assertThat(kernel.indexOf(buffer, 4, 130, (byte) '\n')).isEqualTo(-1);
+                        assertThat(kernel.indexOf(buffer, 131, 200, (byte) '\n')).isEqualTo(-1);
+                        assertThat(kernel.indexOfAny(buffer, 131, 200, (byte) 'z', (byte) 'Z')).isEqualTo(199);
+                        assertThat(kernel.indexOfAny(buffer, 131, 199, (byte) 'z', (byte) 'Z')).isEqualTo(-1);
+                        assertThat(kernel.indexOf(buffer, 50, 50, (byte) 0)).isEqualTo(-1);
+                }
+        }
+
+        @Test
+        void instance_whenVectorKernelDisabledOrMissing_thenFallsBackToScalarKernel()
+        {
+                String previous = System.setProperty(ByteSearchKernel.VECTOR_ENABLED_PROPERTY, "false");
+                try
+                {
+                        assertThat(ByteSearchKernel.Loader.load()).isInstanceOf(ScalarByteSearchKernel.class);
+                } finally
+                {
+                        if (previous == null)
+                        {
+                                System.clearProperty(ByteSearchKernel.VECTOR_ENABLED_PROPERTY);
+                        } else
+                        {
+                                System.setProperty(ByteSearchKernel.VECTOR_ENABLED_PROPERTY, previous);
+                        }
+                }
+        }
+
+        private static void fillSparse(byte[] buffer, Random random)
+        {
+                for (int i = 0; i < buffer.length; i++)
+                {
+                        int value = random.nextInt(400);
+                        buffer[i] = (byte) ((value == 0) ? '\n' : (value == 1) ? 'M' : (value == 2) ? 'm' : 'a');
+                }
+        }
+
+}
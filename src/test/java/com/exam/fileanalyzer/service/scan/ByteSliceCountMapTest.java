@@ -0,0 +1,77 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteSliceCountMapTest
+{
+        @Test
+        void add_whenGetManyKeys_thenGrowsAndCountsEachKey()
+        {
+                ByteSliceCountMap map = new ByteSliceCountMap(Integer.MAX_VALUE);
+                for (int i = 0; i < 10_000; i++)
+                {
+                        add(map, "/path/" + (i % 1000), 1);
+                }
+
+                Map<String, Long> result = map.toTopMap(Integer.MAX_VALUE, "(other)");
+                assertThat(map.size()).isEqualTo(1000);
+                assertThat(result).hasSize(1000);
+                assertThat(result.values()).allMatch(count -> count == 10L);
+                assertThat(result).containsEntry("/path/999", 10L);
+        }
+
+        @Test
+        void add_whenGetSliceOfLargerBuffer_thenCountsOnlySliceBytes()
+        {
+                ByteSliceCountMap map = new ByteSliceCountMap(10);
+                byte[] buffer = "GET POST GET".getBytes(StandardCharsets.US_ASCII);
+                map.add(buffer, 0, 3, 1);
+                map.add(buffer, 4, 8, 1);
+                map.add(buffer, 9, 12, 2);
+
+                assertThat(map.toTopMap(10, "(other)")).containsExactly(Map.entry("GET", 3L), Map.entry("POST", 1L));
+        }
+
+        @Test
+        void toTopMap_whenGetMoreKeysThanLimitOrMaxKeys_thenSumsRestAsOther()
+        {
+                ByteSliceCountMap map = new ByteSliceCountMap(3);
+                add(map, "500", 5);
+                add(map, "200", 7);
+                add(map, "404", 5);
+                add(map, "302", 4);
+                add(map, "200", 1);
+
+                assertThat(map.getOverflowCount()).isEqualTo(4);
+                assertThat(map.toTopMap(2, "(other)")).containsExactly(Map.entry("200", 8L), Map.entry("404", 5L),
+                        Map.entry("(other)", 9L));
+        }
+
+        @Test
+        void addAll_whenGetPartialMaps_thenMergesCounts()
+        {
+                ByteSliceCountMap first = new ByteSliceCountMap(100);
+                ByteSliceCountMap second = new ByteSliceCountMap(100);
+                add(first, "10", 3);
+                add(first, "11", 1);
+                add(second, "11", 2);
+                add(second, "12", 6);
+
+                first.addAll(second);
+
+                assertThat(first.toTopMap(10, "(other)")).containsExactly(Map.entry("12", 6L), Map.entry("10", 3L),
+                        Map.entry("11", 3L));
+        }
+
+        private static void add(ByteSliceCountMap map, String key, long delta)
+        {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                map.add(bytes, 0, bytes.length, delta);
+        }
+
+}
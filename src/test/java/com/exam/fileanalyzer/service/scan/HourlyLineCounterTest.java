@@ -0,0 +1,71 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HourlyLineCounterTest
+{
+        private static final String LINES =
+                "1.1.1.1 - - [27/Feb/2018:00:10:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"Mozilla\"\n" +
+                "1.1.1.1 - - [27/Feb/2018:00:50:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"Opera\"\n" +
+                "1.1.1.1 - - [27/Feb/2018:13:05:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"Mozilla\"\n" +
+                "Mozilla line without the time\n" +
+                "1.1.1.1 - - [27/Feb/2018:23:59:59 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"Mozilla\"\n";
+
+        @Test
+        void getCounts_whenScanLinesOfDifferentHours_thenCountsMatchingLinesByHour() throws IOException
+        {
+                long[] counts = count(new LiteralLineMatcher("Mozilla"), LINES);
+
+                assertThat(counts).hasSize(HourlyLineCounter.BUCKETS);
+                assertThat(counts[0]).isEqualTo(1);
+                assertThat(counts[13]).isEqualTo(1);
+                assertThat(counts[23]).isEqualTo(1);
+                assertThat(counts[HourlyLineCounter.NO_TIME_BUCKET]).isEqualTo(1);
+                assertThat(HourlyLineCounter.sum(counts, 0, 24, true)).isEqualTo(4);
+        }
+
+        @Test
+        void getCounts_whenQueryCrossesWindowsOfOverlongLine_thenCountsLineOnce() throws IOException
+        {
+                String longLine = "1.1.1.1 - - [27/Feb/2018:07:00:00 +0000] \"GET /" +
+                        "x".repeat(LineScanner.BUFFER_SIZE - 50) + "Mozilla" + "y".repeat(LineScanner.BUFFER_SIZE) +
+                        " HTTP/1.1\" 200 1 \"-\" \"Mozilla\"\n";
+                long[] counts = count(new LiteralLineMatcher("Mozilla"), longLine + LINES);
+
+                assertThat(counts[7]).isEqualTo(1);
+                assertThat(HourlyLineCounter.sum(counts, 0, 24, true)).isEqualTo(5);
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "0, 24, true, 5",
+                "0, 24, false, 4",
+                "0, 1, false, 2",
+                "1, 23, false, 1",
+                "13, 14, false, 1",
+                "23, 24, false, 1"
+        })
+        void sum_whenGetHourRange_thenSumsBucketsOfRange(int firstHour, int endHour, boolean withoutTime,
+                                                         long expected) throws IOException
+        {
+                long[] counts = count(LineMatcher.ALL, LINES);
+
+                assertThat(HourlyLineCounter.sum(counts, firstHour, endHour, withoutTime)).isEqualTo(expected);
+        }
+
+        private static long[] count(LineMatcher matcher, String text) throws IOException
+        {
+                HourlyLineCounter counter = new HourlyLineCounter(matcher);
+                LineScanner.scan(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), counter,
+                        matcher.getWindowOverlap());
+                return counter.getCounts();
+        }
+
+}
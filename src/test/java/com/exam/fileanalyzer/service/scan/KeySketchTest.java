@@ -0,0 +1,99 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeySketchTest
+{
+        @Test
+        void estimateDistinctValues_whenGetManyDistinctValues_thenEstimatesWithinErrorBound()
+        {
+                KeySketch sketch = new KeySketch(64);
+                for (int i = 0; i < 200_000; i++)
+                {
+                        add(sketch, "10.0." + (i % 100_000), 1);
+                }
+
+                assertThat(sketch.getCount()).isEqualTo(200_000);
+                assertThat((double) sketch.estimateDistinctValues())
+                        .isBetween(100_000 * (1 - 4 * HyperLogLog.RELATIVE_STANDARD_ERROR),
+                                100_000 * (1 + 4 * HyperLogLog.RELATIVE_STANDARD_ERROR));
+        }
+
+        @Test
+        void estimateDistinctValues_whenGetFewDistinctValues_thenEstimatesAlmostExactly()
+        {
+                KeySketch sketch = new KeySketch(64);
+                for (int i = 0; i < 1000; i++)
+                {
+                        add(sketch, "/path/" + (i % 10), 1);
+                }
+
+                assertThat(sketch.estimateDistinctValues()).isEqualTo(10);
+        }
+
+        @Test
+        void getTopValues_whenGetHeavyHittersAmongManyRareValues_thenFindsThemWithBoundedOverestimate()
+        {
+                KeySketch sketch = new KeySketch(64);
+                for (int i = 0; i < 100_000; i++)
+                {
+                        add(sketch, "/rare/" + i, 1);
+                        if (i % 10 == 0)
+                        {
+                                add(sketch, "/favicon.ico", 3);
+                        }
+                        if (i % 20 == 0)
+                        {
+                                add(sketch, "/index.html", 1);
+                        }
+                }
+
+                Map<String, Long> top = sketch.getTopValues(2);
+                assertThat(top).containsOnlyKeys("/favicon.ico", "/index.html");
+                assertThat(top.get("/favicon.ico")).isBetween(30_000L, 30_000L + sketch.getMaxCountOverestimate());
+                assertThat(top.get("/index.html")).isBetween(5_000L, 5_000L + sketch.getMaxCountOverestimate());
+                assertThat(top.keySet()).first().isEqualTo("/favicon.ico");
+        }
+
+        @Test
+        void addAll_whenGetPartialSketches_thenEqualsSketchOfAllValues()
+        {
+                KeySketch whole = new KeySketch(16);
+                KeySketch first = new KeySketch(16);
+                KeySketch second = new KeySketch(16);
+                for (int i = 0; i < 10_000; i++)
+                {
+                        String value = "/path/" + (i % 7 == 0 ? "hot" : i % 1000);
+                        add(whole, value, 1);
+                        add(i < 5_000 ? first : second, value, 1);
+                }
+
+                first.addAll(second);
+
+                assertThat(first.getCount()).isEqualTo(whole.getCount());
+                assertThat(first.estimateDistinctValues()).isEqualTo(whole.estimateDistinctValues());
+                assertThat(first.getTopValues(1)).isEqualTo(whole.getTopValues(1)).containsOnlyKeys("/path/hot");
+        }
+
+        @Test
+        void add_whenGetValueLongerThanMaxKeyLength_thenTruncatesStoredKey()
+        {
+                KeySketch sketch = new KeySketch(4);
+                add(sketch, "a".repeat(CountMinTopK.MAX_KEY_LENGTH + 10), 5);
+
+                assertThat(sketch.getTopValues(1)).containsExactly(
+                        Map.entry("a".repeat(CountMinTopK.MAX_KEY_LENGTH), 5L));
+        }
+
+        private static void add(KeySketch sketch, String value, long delta)
+        {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                sketch.add(bytes, 0, bytes.length, delta);
+        }
+
+}
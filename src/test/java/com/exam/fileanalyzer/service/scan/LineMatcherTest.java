@@ -0,0 +1,92 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LineMatcherTest
+{
+        private static final String LINE = "81.143.7.216 - - [27/02/2018:10:05:03 +0000] \"GET /index.html HTTP/1.1\" " +
+                "503 203023 \"Mozilla/5.0 (Macintosh) Chrome/32.0.1700.77 Safari/537.36\"";
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "mozilla, true",
+                "MOZILLA/5.0 (macintosh), true",
+                "safari/537.37, false",
+                "Мозилла, false"
+        })
+        void matches_whenIgnoreCase_thenMatchesAsciiLettersOfAnyCase(String searchQuery, boolean expected)
+        {
+                LiteralLineMatcher matcher = new LiteralLineMatcher(searchQuery, true);
+
+                assertThat(matches(matcher, LINE)).isEqualTo(expected);
+                assertThat(matches(new LiteralLineMatcher(searchQuery), LINE)).isFalse();
+        }
+
+        @Test
+        void matches_whenIgnoreCaseWithNonAsciiQuery_thenComparesNonAsciiExactly()
+        {
+                LiteralLineMatcher matcher = new LiteralLineMatcher("MOZ Мозилла", true);
+
+                assertThat(matches(matcher, "moz Мозилла")).isTrue();
+                assertThat(matches(matcher, "moz МОЗИЛЛА")).isFalse();
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "'\" 5\\d\\d ', true",
+                "'\" [34]\\d\\d ', false",
+                "'Chrome/\\d+\\.0', true",
+                "'(?i)MACINTOSH', true",
+                "'^81\\.143\\.', true",
+                "'Firefox|Safari', true",
+                "'Мозилла?', false"
+        })
+        void matches_whenRegex_thenFindsMatchInLine(String regex, boolean expected)
+        {
+                RegexLineMatcher matcher = new RegexLineMatcher(regex);
+
+                assertThat(matches(matcher, LINE)).isEqualTo(expected);
+                assertThat(matches(matcher.copy(), LINE)).isEqualTo(expected);
+        }
+
+        @Test
+        void matches_whenRegexOnNonAsciiLine_thenDecodesUtf8()
+        {
+                RegexLineMatcher matcher = new RegexLineMatcher("Мози\\S+ \\d+");
+
+                assertThat(matches(matcher, "ua=Мозилла 5")).isTrue();
+                assertThat(matches(matcher, "ua=Мозилла x")).isFalse();
+                assertThat(matches(matcher, "ua=Mozilla 5")).isFalse();
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "'Chrome/\\d+\\.0', Chrome/",
+                "'\" 5\\d\\d ', '\" 5'",
+                "'GET /images?/kibana', GET /image",
+                "'colou?r-scheme', r-scheme",
+                "'a{0,2}bc(de)+fgh', fgh",
+                "'\\QC++\\E runtime', C++ runtime",
+                "'[abc]+xyz\\x41Q', xyz",
+                "'(?i)mozilla', mozilla",
+                "'Firefox|Safari', ''",
+                "'.*', ''"
+        })
+        void findRequiredLiteral_whenGetRegex_thenReturnsLongestRequiredRun(String regex, String expected)
+        {
+                assertThat(RegexLineMatcher.findRequiredLiteral(regex)).isEqualTo(expected);
+        }
+
+        private static boolean matches(LineMatcher matcher, String line)
+        {
+                byte[] bytes = ("\n" + line + "\n").getBytes(StandardCharsets.UTF_8);
+                return matcher.matches(bytes, 1, bytes.length - 1);
+        }
+
+}
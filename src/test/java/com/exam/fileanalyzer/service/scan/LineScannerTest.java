@@ -0,0 +1,67 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LineScannerTest
+{
+        @ParameterizedTest
+        @CsvSource(value = {
+                "'a\\nb\\nc', null, 3",
+                "'a\\nb\\nc\\n', null, 3",
+                "'a\\n\\nc\\n', null, 3",
+                "'', null, 0",
+                "'Mozilla\\r\\nOpera\\r\\nMozilla', Mozilla, 2",
+                "'ends with a\\r\\nstarts a', 'a\\r', 0",
+                "'Мозилла\\nMozilla', Мозилла, 1"
+        }, nullValues = "null")
+        void countMatchingLines_whenGetShortLines_thenCountsAsLinesOfFile(String content, String query, long expected)
+                throws IOException
+        {
+                String text = content.replace("\\n", "\n").replace("\\r", "\r");
+                String searchQuery = (query == null) ? null : query.replace("\\r", "\r");
+                LineMatcher matcher = (searchQuery == null) ? LineMatcher.ALL : new LiteralLineMatcher(searchQuery);
+
+                assertThat(LineScanner.countMatchingLines(stream(text), matcher)).isEqualTo(expected);
+        }
+
+        @Test
+        void countMatchingLines_whenQueryCrossesWindowsOfOverlongLine_thenFindsIt() throws IOException
+        {
+                String longLine = "x".repeat(LineScanner.BUFFER_SIZE - 3) + "Mozilla" +
+                        "y".repeat(3 * LineScanner.BUFFER_SIZE);
+                String text = "Mozilla\n" + longLine + "\n" + "z".repeat(5 * LineScanner.BUFFER_SIZE) + "\nMozilla";
+
+                assertThat(LineScanner.countMatchingLines(stream(text), new LiteralLineMatcher("Mozilla")))
+                        .isEqualTo(3);
+                assertThat(LineScanner.countMatchingLines(stream(text), LineMatcher.ALL)).isEqualTo(4);
+        }
+
+        @Test
+        void countMatchingLines_whenStreamReturnsSingleBytes_thenMatchesAcrossReads() throws IOException
+        {
+                InputStream slowStream = new FilterInputStream(stream("GET /\nPOST /Mozilla\nMozi\nlla\n"))
+                {
+                        @Override
+                        public int read(byte[] buffer, int offset, int length) throws IOException
+                        {
+                                return super.read(buffer, offset, Math.min(length, 1));
+                        }
+                };
+
+                assertThat(LineScanner.countMatchingLines(slowStream, new LiteralLineMatcher("Mozilla")))
+                        .isEqualTo(1);
+        }
+
+        private static InputStream stream(String content)
+        {
+                return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+}
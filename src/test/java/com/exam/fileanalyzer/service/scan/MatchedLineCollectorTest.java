@@ -0,0 +1,106 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MatchedLineCollectorTest
+{
+        private static final String TEXT = "a\r\nb Mozilla\nc\nd\ne Mozilla\nf Mozilla\ng\nh\ni Mozilla";
+
+        @Test
+        void onLineEnd_whenGetContextLines_thenPassesMatchingLinesWithOffsetsAndContext() throws IOException
+        {
+                List<String> records = collect(TEXT, new LiteralLineMatcher("Mozilla"), 10, 1, 2);
+
+                assertThat(records).containsExactly(
+                        "3:b Mozilla:[a]:[c, d]",
+                        "17:e Mozilla:[d]:[f Mozilla, g]",
+                        "27:f Mozilla:[e Mozilla]:[g, h]",
+                        "41:i Mozilla:[h]:[]");
+        }
+
+        @Test
+        void onLineEnd_whenReachMaxLines_thenCountsRestLinesOnly() throws IOException
+        {
+                List<String> records = new ArrayList<>();
+                MatchedLineCollector collector = new MatchedLineCollector(new LiteralLineMatcher("Mozilla"), 2, 0, 1,
+                        (offset, line, before, after) -> records.add(line + ":" + after));
+                LineScanner.scan(stream(TEXT), collector, 0);
+                collector.finish();
+
+                assertThat(records).containsExactly("b Mozilla:[c]", "e Mozilla:[f Mozilla]");
+                assertThat(collector.getCount()).isEqualTo(4);
+        }
+
+        @Test
+        void onLineEnd_whenScanPartOfContent_thenReturnsOffsetsInWholeContent() throws IOException
+        {
+                byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer content = ByteBuffer.wrap(bytes);
+                content.position(TEXT.indexOf("d\n"));
+                List<Long> offsets = new ArrayList<>();
+                MatchedLineCollector collector = new MatchedLineCollector(new LiteralLineMatcher("Mozilla"), 10, 0, 0,
+                        (offset, line, before, after) -> offsets.add(offset));
+                LineScanner.scan(content, collector, 0);
+
+                assertThat(offsets).containsExactly(17L, 27L, 41L);
+                offsets.forEach(offset -> assertThat(TEXT.substring(offset.intValue())).matches("(?s). Mozilla.*"));
+        }
+
+        @Test
+        void onLineEnd_whenQueryIsInLaterWindowOfOverlongLine_thenPassesCutLineWithOffset() throws IOException
+        {
+                String longLine = "x".repeat(2 * LineScanner.BUFFER_SIZE) + "Mozilla";
+                String text = "first\n" + longLine + "\nlast\n";
+                LineMatcher matcher = new LiteralLineMatcher("Mozilla");
+                List<String> lines = new ArrayList<>();
+                List<Long> offsets = new ArrayList<>();
+                MatchedLineCollector collector = new MatchedLineCollector(matcher, 10, 1, 1,
+                        (offset, line, before, after) ->
+                        {
+                                offsets.add(offset);
+                                lines.add(line);
+                                lines.addAll(before);
+                                lines.addAll(after);
+                        });
+                LineScanner.scan(stream(text), collector, matcher.getWindowOverlap());
+
+                assertThat(offsets).containsExactly(6L);
+                assertThat(lines).containsExactly("x".repeat(MatchedLineCollector.MAX_LINE_LENGTH), "first", "last");
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = { "0, 0, 0", "1, -1, 0", "1, 0, 21", "1, 21, 0" })
+        void constructor_whenGetWrongLimits_thenThrowsIllegalArgumentException(int maxLines, int linesBefore,
+                                                                               int linesAfter)
+        {
+                assertThrows(IllegalArgumentException.class, () -> new MatchedLineCollector(LineMatcher.ALL, maxLines,
+                        linesBefore, linesAfter, (offset, line, before, after) -> { }));
+        }
+
+        private static List<String> collect(String text, LineMatcher matcher, int maxLines, int linesBefore,
+                                            int linesAfter) throws IOException
+        {
+                List<String> records = new ArrayList<>();
+                MatchedLineCollector collector = new MatchedLineCollector(matcher, maxLines, linesBefore, linesAfter,
+                        (offset, line, before, after) -> records.add(offset + ":" + line + ":" + before + ":" + after));
+                LineScanner.scan(stream(text), collector, matcher.getWindowOverlap());
+                collector.finish();
+                return records;
+        }
+
+        private static InputStream stream(String text)
+        {
+                return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+}
@@ -0,0 +1,151 @@
+package com.exam.fileanalyzer.service.scan;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TimeOfDayRangeTest
+{
+        @Test
+        void narrow_whenGetOrderedLines_thenReturnsOnlyLinesOfRange()
+        {
+                List<Integer> seconds = new ArrayList<>();
+                for (int second = 0; second < TimeOfDayRange.SECONDS_PER_DAY; second += 60)
+                {
+                        seconds.add(second);
+                }
+                TimeOfDayRange range = new TimeOfDayRange(LocalTime.of(14, 0), LocalTime.of(15, 30));
+
+                String slice = toString(range.narrow(createContent(seconds, false)));
+
+                assertThat(slice.split("\n")).hasSize(90);
+                assertThat(slice).startsWith(createLine(14 * 3600)).endsWith(createLine(15 * 3600 + 29 * 60) + "\n");
+        }
+
+        @Test
+        void select_whenGetOrderedLines_thenKeepsIndexesOfContent()
+        {
+                ByteBuffer content = createContent(List.of(3600, 7200, 10800, 14400), false);
+                TimeOfDayRange range = new TimeOfDayRange(LocalTime.of(2, 0), LocalTime.of(4, 0));
+
+                ByteBuffer selection = range.select(content);
+
+                assertThat(selection.position()).isEqualTo(createLine(3600).length() + 1);
+                assertThat(selection.limit()).isEqualTo(3 * (createLine(3600).length() + 1));
+                assertThat(selection.slice()).isEqualTo(range.narrow(content));
+        }
+
+        @Test
+        void narrow_whenGetRandomOrderedLinesWithBlankLines_thenMatchesLinearFiltering() throws IOException
+        {
+                Random random = new Random(42);
+                for (int attempt = 0; attempt < 200; attempt++)
+                {
+                        List<Integer> seconds = new ArrayList<>();
+                        int lines = random.nextInt(300);
+                        for (int i = 0; i < lines; i++)
+                        {
+                                seconds.add(random.nextInt(TimeOfDayRange.SECONDS_PER_DAY));
+                        }
+                        Collections.sort(seconds);
+                        ByteBuffer content = createContent(seconds, random.nextBoolean());
+                        LocalTime startTime =
+                                LocalTime.ofSecondOfDay(random.nextInt(TimeOfDayRange.SECONDS_PER_DAY - 1));
+                        LocalTime endTime = startTime.plusSeconds(1 + random.nextInt(
+                                TimeOfDayRange.SECONDS_PER_DAY - 1 - startTime.toSecondOfDay()));
+                        TimeOfDayRange range = new TimeOfDayRange(startTime, endTime);
+
+                        long expected = seconds.stream().filter(range::contains).count();
+                        assertThat(count(range, range.narrow(content))).isEqualTo(expected);
+                        assertThat(count(range, content)).isEqualTo(expected);
+                }
+        }
+
+        @Test
+        void narrow_whenGetLinesInReverseOrder_thenReturnsWholeContent()
+        {
+                ByteBuffer content = createContent(List.of(36059, 36046, 36033, 36025, 36019, 36011, 36003, 36000),
+                        false);
+                TimeOfDayRange range = new TimeOfDayRange(LocalTime.of(10, 0, 30), null);
+
+                assertThat(range.narrow(content)).isEqualTo(content);
+        }
+
+        @Test
+        void narrow_whenGetNoLinesOfRange_thenReturnsEmptySlice()
+        {
+                ByteBuffer content = createContent(List.of(3600, 7200, 10800), false);
+
+                assertThat(new TimeOfDayRange(LocalTime.of(12, 0), null).narrow(content).remaining()).isZero();
+                assertThat(new TimeOfDayRange(null, LocalTime.of(0, 30)).narrow(content).remaining()).isZero();
+        }
+
+        @ParameterizedTest
+        @CsvSource(value = {
+                "27/Feb/2018:14:05:03 +0000, 50703",
+                "27/Feb/2018:00:00:00 +0300, 0",
+                "27/Feb/2018:23:59:59, 86399",
+                "27/Feb/2018:24:00:00 +0000, -1",
+                "27/Feb/2018:14:5:03 +0000, -1",
+                "27/Feb/2018, -1"
+        })
+        void parseSecondOfDay_whenGetTimeField_thenReturnsSecondOfDayOrMinusOne(String timeField, int expected)
+        {
+                byte[] bytes = timeField.getBytes(StandardCharsets.US_ASCII);
+
+                assertThat(TimeOfDayRange.parseSecondOfDay(bytes, 0, bytes.length)).isEqualTo(expected);
+        }
+
+        @Test
+        void constructor_whenGetStartTimeNotBeforeEndTime_thenThrowsIllegalArgumentException()
+        {
+                assertThrows(IllegalArgumentException.class,
+                        () -> new TimeOfDayRange(LocalTime.of(15, 30), LocalTime.of(14, 0)));
+                assertThrows(IllegalArgumentException.class,
+                        () -> new TimeOfDayRange(LocalTime.of(14, 0), LocalTime.of(14, 0)));
+        }
+
+        private static long count(TimeOfDayRange range, ByteBuffer content) throws IOException
+        {
+                LineCounter counter = new LineCounter(new TimeRangeLineMatcher(range, LineMatcher.ALL));
+                LineScanner.scan(content, counter, 0);
+                return counter.getCount();
+        }
+
+        private static ByteBuffer createContent(List<Integer> seconds, boolean withBlankLines)
+        {
+                StringBuilder content = new StringBuilder();
+                for (int second : seconds)
+                {
+                        content.append(createLine(second)).append('\n');
+                        if (withBlankLines && second % 3 == 0)
+                        {
+                                content.append('\n');
+                        }
+                }
+                return ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        }
+
+        private static String createLine(int second)
+        {
+                return String.format("81.143.7.216 - - [27/02/2018:%02d:%02d:%02d +0000] \"GET / HTTP/1.1\" 200",
+                        second / 3600, second / 60 % 60, second % 60);
+        }
+
+        private static String toString(ByteBuffer content)
+        {
+                byte[] bytes = new byte[content.remaining()];
+                content.duplicate().get(bytes);
+                return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+}
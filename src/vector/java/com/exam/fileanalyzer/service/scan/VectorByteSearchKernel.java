@@ -0,0 +1,57 @@
+package com.exam.fileanalyzer.service.scan;
+
+import jdk.incubator.vector.*;
+
+/**
+ * Kernel searching the bytes with the Vector API: each step compares the whole vector of the preferred species of
+ * the CPU (32 bytes with AVX2, 64 bytes with AVX-512) and the rest of the range is searched byte by byte.
+ * <p> Is compiled with the "vector" Maven profile (JDK 17+) and needs "--add-modules jdk.incubator.vector" at runtime,
+ * otherwise {@link ByteSearchKernel#INSTANCE} falls back to the {@link ScalarByteSearchKernel}.
+ */
+public class VectorByteSearchKernel implements ByteSearchKernel
+{
+        /** Species of the byte vectors (the widest vectors of the CPU). */
+        private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+        /** Number of the bytes of the vector. */
+        private static final int LENGTH = SPECIES.length();
+        /** Scalar kernel searching the tails of the ranges. */
+        private final ScalarByteSearchKernel tailKernel = new ScalarByteSearchKernel();
+
+        @Override
+        public int indexOf(byte[] buffer, int from, int to, byte value)
+        {
+                int i = from;
+                for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += LENGTH)
+                {
+                        VectorMask<Byte> found = ByteVector.fromArray(SPECIES, buffer, i).eq(value);
+                        if (found.anyTrue())
+                        {
+                                return i + found.firstTrue();
+                        }
+                }
+                return tailKernel.indexOf(buffer, i, to, value);
+        }
+
+        @Override
+        public int indexOfAny(byte[] buffer, int from, int to, byte first, byte second)
+        {
+                int i = from;
+                for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += LENGTH)
+                {
+                        ByteVector vector = ByteVector.fromArray(SPECIES, buffer, i);
+                        VectorMask<Byte> found = vector.eq(first).or(vector.eq(second));
+                        if (found.anyTrue())
+                        {
+                                return i + found.firstTrue();
+                        }
+                }
+                return tailKernel.indexOfAny(buffer, i, to, first, second);
+        }
+
+        @Override
+        public String toString()
+        {
+                return "vector (" + LENGTH + " bytes per step)";
+        }
+
+}